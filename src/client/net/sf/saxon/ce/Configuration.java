@@ -1,12 +1,16 @@
 package client.net.sf.saxon.ce;
 
+import client.net.sf.saxon.ce.dom.DocumentOrderIndex;
 import client.net.sf.saxon.ce.dom.HTMLDocumentWrapper;
 import client.net.sf.saxon.ce.dom.HTMLDocumentWrapper.DocType;
 import client.net.sf.saxon.ce.dom.XMLDOM;
+import client.net.sf.saxon.ce.event.Builder;
 import client.net.sf.saxon.ce.event.PipelineConfiguration;
+import client.net.sf.saxon.ce.event.XMLStreamParser;
 import client.net.sf.saxon.ce.expr.EarlyEvaluationContext;
 import client.net.sf.saxon.ce.expr.Optimizer;
 import client.net.sf.saxon.ce.expr.XPathContext;
+import client.net.sf.saxon.ce.expr.instruct.MemoFunctionCache;
 import client.net.sf.saxon.ce.expr.number.Numberer_en;
 import client.net.sf.saxon.ce.expr.sort.CaseInsensitiveCollator;
 import client.net.sf.saxon.ce.expr.sort.CodepointCollator;
@@ -15,8 +19,12 @@ import client.net.sf.saxon.ce.om.DocumentInfo;
 import client.net.sf.saxon.ce.om.DocumentPool;
 import client.net.sf.saxon.ce.om.NamePool;
 import client.net.sf.saxon.ce.om.StructuredQName;
+import client.net.sf.saxon.ce.regex.RegexCache;
 import client.net.sf.saxon.ce.trans.CompilerInfo;
+import client.net.sf.saxon.ce.trans.KeyIndexStore;
 import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.tree.linked.LinkedTreeBuilder;
+import client.net.sf.saxon.ce.tree.tiny.TinyBuilder;
 import client.net.sf.saxon.ce.tree.util.DocumentNumberAllocator;
 import client.net.sf.saxon.ce.tree.util.URI;
 import client.net.sf.saxon.ce.type.BuiltInType;
@@ -82,8 +90,13 @@ public class Configuration {
 
     private boolean timing = false;
     private boolean allowExternalFunctions = true;
-    private boolean useTypedValueCache = true;
+    private boolean useTypedValueCache = false;
     private boolean useDisableOutputEscaping = false;
+    private int treeModel = Builder.LINKED_TREE;
+    private boolean useInternalXmlParser = false;
+    private boolean useDocumentOrderIndex = false;
+    private int keyIndexMemoryBudget = KeyIndexStore.DEFAULT_BUDGET;
+    private int memoFunctionCacheSize = MemoFunctionCache.DEFAULT_CAPACITY;
     private NamePool namePool = new NamePool();
     private DocumentNumberAllocator documentNumberAllocator = new DocumentNumberAllocator();
     private DocumentPool globalDocumentPool = new DocumentPool();
@@ -96,6 +109,10 @@ public class Configuration {
 
     private CompilerInfo defaultXsltCompilerInfo = new CompilerInfo();
     private DocumentPool sourceDocumentPool = new DocumentPool();
+    private RegexCache regexCache = new RegexCache();
+    private int domCacheGeneration = 0;
+    private HTMLDocumentWrapper hostPage;
+    private DocumentOrderIndex documentOrderIndex = new DocumentOrderIndex();
     private Logger logger = Logger.getLogger("Configuration");
 
 
@@ -157,11 +174,22 @@ public class Configuration {
         return "CE";
     }
     
+    /**
+     * Get the document node of the HTML page hosting the application. The same wrapper is returned
+     * on every call, so that nodes of the page reached in different ways, or in different transformations,
+     * have the same identity and document number, and indexes built for the page (for example to support
+     * the key() function) can be reused by later transformations.
+     * @return the wrapper for the host page
+     */
+
     public DocumentInfo getHostPage(){
     	// attempt to initialise this only once - in the Configuration constructor led
     	// to NamePool exception
-        Document page = Document.get();
-        return new HTMLDocumentWrapper(page, page.getURL(), this, DocType.UNKNOWN);
+        if (hostPage == null) {
+            Document page = Document.get();
+            hostPage = new HTMLDocumentWrapper(page, page.getURL(), this, DocType.UNKNOWN);
+        }
+        return hostPage;
     }
 
     /**
@@ -556,6 +584,208 @@ public class Configuration {
         return null;
     }
 
+    /**
+     * Set the tree model to be used for temporary trees built during a transformation
+     * @param treeModel the tree model, {@link Builder#LINKED_TREE} or {@link Builder#TINY_TREE}
+     */
+
+    public void setTreeModel(int treeModel) {
+        this.treeModel = treeModel;
+    }
+
+    /**
+     * Get the tree model to be used for temporary trees built during a transformation
+     * @return the tree model, {@link Builder#LINKED_TREE} or {@link Builder#TINY_TREE}
+     */
+
+    public int getTreeModel() {
+        return treeModel;
+    }
+
+    /**
+     * Make a builder for the tree model selected using {@link #setTreeModel}
+     * @return a new Builder for the chosen tree model
+     */
+
+    public Builder makeBuilder() {
+        if (treeModel == Builder.TINY_TREE) {
+            return new TinyBuilder();
+        }
+        return new LinkedTreeBuilder();
+    }
+
+    /**
+     * Say whether documents read by {@link #buildDocument} are to be parsed using Saxon's own XML parser
+     * and built as a Saxon tree, rather than being parsed by the browser and wrapped as a DOM
+     * @param use true if the internal parser is to be used
+     */
+
+    public void setUseInternalXmlParser(boolean use) {
+        useInternalXmlParser = use;
+    }
+
+    /**
+     * Ask whether documents read by {@link #buildDocument} are to be parsed using Saxon's own XML parser
+     * @return true if the internal parser is used
+     */
+
+    public boolean isUseInternalXmlParser() {
+        return useInternalXmlParser;
+    }
+
+    /**
+     * Get the cache of compiled regular expressions. This is shared by all the regular expression
+     * functions and instructions evaluated under this configuration.
+     * <p/>
+     * This method is intended for internal use only.
+     *
+     * @return the regular expression cache
+     */
+
+    public RegexCache getRegexCache() {
+        return regexCache;
+    }
+
+    /**
+     * Determine whether the typed values of element and document nodes are to be cached,
+     * so that repeated atomization of the same node does not recompute its string value.
+     * The default is false.
+     *
+     * @return true if typed values are to be cached
+     */
+
+    public boolean isUseTypedValueCache() {
+        return useTypedValueCache;
+    }
+
+    /**
+     * Say whether the typed values of element and document nodes are to be cached. Switching the
+     * cache off discards any values already held for DOM nodes. For a linked tree, the setting in
+     * force when the tree is built applies for the life of the tree.
+     *
+     * @param use true if typed values are to be cached
+     */
+
+    public void setUseTypedValueCache(boolean use) {
+        useTypedValueCache = use;
+        if (!use) {
+            invalidateDOMCaches();
+        }
+    }
+
+    /**
+     * Discard the typed values cached for the nodes of wrapped DOM documents (including the HTML host
+     * page), and the numbering of those nodes in document order. This is called at the start of each
+     * transformation, since the page may have been changed by script or user input since the last one,
+     * and whenever a transformation writes to the page.
+     * <p/>
+     * This method is intended for internal use only.
+     */
+
+    public void invalidateDOMCaches() {
+        domCacheGeneration++;
+        documentOrderIndex.clear();
+    }
+
+    /**
+     * Get a number identifying the current generation of the caches held for DOM nodes. A cache
+     * created under an earlier generation must be discarded.
+     * <p/>
+     * This method is intended for internal use only.
+     *
+     * @return the generation number, which changes each time {@link #invalidateDOMCaches} is called
+     */
+
+    public int getDOMCacheGeneration() {
+        return domCacheGeneration;
+    }
+
+    /**
+     * Determine whether the nodes of wrapped DOM documents are to be numbered in document order,
+     * so that comparing the order of two nodes does not require navigation. The default is false.
+     *
+     * @return true if DOM documents are to be numbered
+     */
+
+    public boolean isUseDocumentOrderIndex() {
+        return useDocumentOrderIndex;
+    }
+
+    /**
+     * Say whether the nodes of wrapped DOM documents are to be numbered in document order.
+     * Switching the option off discards any numbering already done.
+     *
+     * @param use true if DOM documents are to be numbered
+     */
+
+    public void setUseDocumentOrderIndex(boolean use) {
+        useDocumentOrderIndex = use;
+        if (!use) {
+            documentOrderIndex.clear();
+        }
+    }
+
+    /**
+     * Get the index holding the position in document order of the nodes of wrapped DOM documents.
+     * It is cleared by {@link #invalidateDOMCaches}, which must be called whenever nodes are removed
+     * from a DOM, or moved within it.
+     * <p/>
+     * This method is intended for internal use only.
+     *
+     * @return the document order index, or null if DOM documents are not to be numbered
+     */
+
+    public DocumentOrderIndex getDocumentOrderIndex() {
+        return (useDocumentOrderIndex ? documentOrderIndex : null);
+    }
+
+    /**
+     * Set the memory budget for the indexes built to support xsl:key definitions. When the total
+     * size of the indexes exceeds this budget, the least recently used indexes are discarded.
+     *
+     * @param budget the maximum number of distinct key values plus node references held in all the
+     * indexes of a compiled stylesheet; a negative value means there is no limit
+     */
+
+    public void setKeyIndexMemoryBudget(int budget) {
+        keyIndexMemoryBudget = budget;
+    }
+
+    /**
+     * Get the memory budget for the indexes built to support xsl:key definitions
+     *
+     * @return the maximum number of distinct key values plus node references held in all the
+     * indexes of a compiled stylesheet, or a negative value if there is no limit
+     */
+
+    public int getKeyIndexMemoryBudget() {
+        return keyIndexMemoryBudget;
+    }
+
+    /**
+     * Set the maximum number of results remembered for each memo function (a stylesheet function
+     * declared with saxon:memo-function="yes") during a transformation. When the limit is reached,
+     * the least recently used results are discarded.
+     *
+     * @param size the maximum number of results held for each memo function; a negative value means
+     * there is no limit
+     */
+
+    public void setMemoFunctionCacheSize(int size) {
+        memoFunctionCacheSize = size;
+    }
+
+    /**
+     * Get the maximum number of results remembered for each memo function during a transformation
+     *
+     * @return the maximum number of results held for each memo function, or a negative value if there
+     * is no limit
+     */
+
+    public int getMemoFunctionCacheSize() {
+        return memoFunctionCacheSize;
+    }
+
     /**
      * Factory method to get an Optimizer.
      * <p/>
@@ -611,6 +841,9 @@ public class Configuration {
         } catch (Exception err) {
             throw new XPathException("HTTPRequest error: " + err.getMessage());
         }
+        if (useInternalXmlParser) {
+            return parseDocument(xml, url);
+        }
         Document jsDoc;
         try {
         	jsDoc = (Document)XMLDOM.parseXML(xml);
@@ -624,6 +857,26 @@ public class Configuration {
     }
     
    
+    /**
+     * Parse a lexical XML document using Saxon's own XML parser, building a tree using the tree model
+     * selected for this configuration. This does not require a browser DOM.
+     * @param xml the lexical XML document
+     * @param systemId the system identifier (base URI) of the document
+     * @return the document node of the constructed tree
+     * @throws XPathException if the document is not well-formed
+     */
+
+    public DocumentInfo parseDocument(CharSequence xml, String systemId) throws XPathException {
+        Builder builder = makeBuilder();
+        PipelineConfiguration pipe = makePipelineConfiguration();
+        builder.setPipelineConfiguration(pipe);
+        builder.setBaseURI(systemId);
+        new XMLStreamParser(pipe).parse(xml, systemId, builder);
+        DocumentInfo doc = (DocumentInfo)builder.getCurrentRoot();
+        builder.reset();
+        return doc;
+    }
+
     public DocumentInfo wrapHTMLDocument(com.google.gwt.dom.client.Document doc, String uri) {
     	return new HTMLDocumentWrapper(doc, uri, Configuration.this, DocType.UNKNOWN);
     }
@@ -693,6 +946,18 @@ public class Configuration {
             }
             setNamePool((NamePool)value);
 
+        } else if (name.equals(FeatureKeys.KEY_INDEX_MEMORY_BUDGET)) {
+            if (!(value instanceof Integer)) {
+                throw new IllegalArgumentException("KEY_INDEX_MEMORY_BUDGET value must be an Integer");
+            }
+            setKeyIndexMemoryBudget(((Integer)value).intValue());
+
+        } else if (name.equals(FeatureKeys.MEMO_FUNCTION_CACHE_SIZE)) {
+            if (!(value instanceof Integer)) {
+                throw new IllegalArgumentException("MEMO_FUNCTION_CACHE_SIZE value must be an Integer");
+            }
+            setMemoFunctionCacheSize(((Integer)value).intValue());
+
         } else if (name.equals(FeatureKeys.OPTIMIZATION_LEVEL)) {
             String s = requireString(name, value);
             try {
@@ -752,11 +1017,29 @@ public class Configuration {
         } else if (name.equals(FeatureKeys.TIMING)) {
             setTiming(requireBoolean(name, value));
 
+        } else if (name.equals(FeatureKeys.TREE_MODEL_NAME)) {
+            String s = requireString(name, value);
+            if (s.equals("linkedTree")) {
+                setTreeModel(Builder.LINKED_TREE);
+            } else if (s.equals("tinyTree")) {
+                setTreeModel(Builder.TINY_TREE);
+            } else {
+                throw new IllegalArgumentException(
+                        "Unrecognized value TREE_MODEL_NAME = '" + value +
+                                "': must be 'linkedTree' or 'tinyTree'");
+            }
+
+        } else if (name.equals(FeatureKeys.USE_DOCUMENT_ORDER_INDEX)) {
+            setUseDocumentOrderIndex(requireBoolean(name, value));
+
+        } else if (name.equals(FeatureKeys.USE_INTERNAL_XML_PARSER)) {
+            setUseInternalXmlParser(requireBoolean(name, value));
+
         } else if (name.equals(FeatureKeys.USE_PI_DISABLE_OUTPUT_ESCAPING)) {
             useDisableOutputEscaping = requireBoolean(name, value);
 
         } else if (name.equals(FeatureKeys.USE_TYPED_VALUE_CACHE)) {
-            useTypedValueCache = requireBoolean(name, value);
+            setUseTypedValueCache(requireBoolean(name, value));
 
         } else if (name.equals(FeatureKeys.VERSION_WARNING)) {
             setVersionWarning(requireBoolean(name, value));
@@ -831,6 +1114,12 @@ public class Configuration {
         } else if (name.equals(FeatureKeys.NAME_POOL)) {
             return getNamePool();
 
+        } else if (name.equals(FeatureKeys.KEY_INDEX_MEMORY_BUDGET)) {
+            return Integer.valueOf(getKeyIndexMemoryBudget());
+
+        } else if (name.equals(FeatureKeys.MEMO_FUNCTION_CACHE_SIZE)) {
+            return Integer.valueOf(getMemoFunctionCacheSize());
+
         } else if (name.equals(FeatureKeys.OPTIMIZATION_LEVEL)) {
             return "" + optimizationLevel;
 
@@ -858,11 +1147,20 @@ public class Configuration {
         } else if (name.equals(FeatureKeys.TIMING)) {
             return Boolean.valueOf(isTiming());
 
+        } else if (name.equals(FeatureKeys.TREE_MODEL_NAME)) {
+            return (treeModel == Builder.TINY_TREE ? "tinyTree" : "linkedTree");
+
+        } else if (name.equals(FeatureKeys.USE_DOCUMENT_ORDER_INDEX)) {
+            return Boolean.valueOf(isUseDocumentOrderIndex());
+
+        } else if (name.equals(FeatureKeys.USE_INTERNAL_XML_PARSER)) {
+            return Boolean.valueOf(isUseInternalXmlParser());
+
         } else if (name.equals(FeatureKeys.USE_PI_DISABLE_OUTPUT_ESCAPING)) {
             return Boolean.valueOf(useDisableOutputEscaping);
             
         } else if (name.equals(FeatureKeys.USE_TYPED_VALUE_CACHE)) {
-            return Boolean.valueOf(useTypedValueCache);
+            return Boolean.valueOf(isUseTypedValueCache());
 
         } else if (name.equals(FeatureKeys.VERSION_WARNING)) {
             return Boolean.valueOf(isVersionWarning());
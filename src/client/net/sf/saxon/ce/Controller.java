@@ -20,7 +20,6 @@ import client.net.sf.saxon.ce.trans.RuleManager;
 import client.net.sf.saxon.ce.trans.XPathException;
 import client.net.sf.saxon.ce.trans.update.PendingUpdateList;
 import client.net.sf.saxon.ce.tree.iter.SingletonIterator;
-import client.net.sf.saxon.ce.tree.linked.LinkedTreeBuilder;
 import client.net.sf.saxon.ce.value.DateTimeValue;
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.dom.client.Node;
@@ -35,6 +34,8 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * The Controller is equivalent to Saxon-HE's implementation of the same name, and represents
@@ -64,6 +65,8 @@ public class Controller {
 
     public Controller() {}
 
+    private static Logger logger = Logger.getLogger("Controller");
+
     private Configuration config;
     private Item initialContextItem;
     private Item contextForGlobalVariables;
@@ -73,6 +76,7 @@ public class Controller {
     private HashMap<StructuredQName, ValueRepresentation> parameters;
     private PreparedStylesheet preparedStylesheet;
     private String principalResultURI;
+    private SerializationProperties outputProperties;
     private String cookedPrincipalResultURI;
     //private boolean thereHasBeenAnExplicitResultDocument;
     private ErrorListener errorListener;
@@ -83,6 +87,7 @@ public class Controller {
     private HashMap<DocumentURI, Node> resultDocumentPool;
     private SequenceOutputter reusableSequenceOutputter = null;
     private HashMap<String, Object> userDataTable = new HashMap<String, Object>(20);
+    private HashMap<MemoFunction, MemoFunctionCache> memoFunctionCaches = null;
     private DateTimeValue currentDateTime;
     private boolean dateTimePreset = false;
     private StructuredQName initialMode = null;
@@ -257,6 +262,7 @@ public class Controller {
         lastRememberedNode = null;
         lastRememberedNumber = -1;
         openHTMLWriter = null;
+        memoFunctionCaches = null;
     }
 
     /**
@@ -878,7 +884,7 @@ public class Controller {
      */
 
     public Builder makeBuilder() {
-        return new LinkedTreeBuilder();
+        return config.makeBuilder();
     }
 
     /**
@@ -1089,6 +1095,48 @@ public class Controller {
     }
 
 
+    /**
+     * Get the cache of results held for a memo function
+     * @param function the memo function
+     * @return the cache, or null if none has been registered using {@link #setMemoFunctionCache}
+     */
+
+    public MemoFunctionCache getMemoFunctionCache(MemoFunction function) {
+        return (memoFunctionCaches == null ? null : memoFunctionCaches.get(function));
+    }
+
+    /**
+     * Register the cache of results held for a memo function
+     * @param function the memo function
+     * @param cache the cache of results
+     */
+
+    public void setMemoFunctionCache(MemoFunction function, MemoFunctionCache cache) {
+        if (memoFunctionCaches == null) {
+            memoFunctionCaches = new HashMap<MemoFunction, MemoFunctionCache>(10);
+        }
+        memoFunctionCaches.put(function, cache);
+    }
+
+    /**
+     * Log the number of hits, misses and evictions for the cache of each memo function, for
+     * use in performance monitoring
+     */
+
+    private void logMemoFunctionStatistics() {
+        if (memoFunctionCaches == null || !logger.isLoggable(Level.FINE)) {
+            return;
+        }
+        for (Entry<MemoFunction, MemoFunctionCache> e : memoFunctionCaches.entrySet()) {
+            MemoFunctionCache cache = e.getValue();
+            logger.fine("Memo function " + e.getKey().getFunctionName().getDisplayName() +
+                    "#" + e.getKey().getNumberOfArguments() + ": " +
+                    cache.getHitCount() + " hits, " + cache.getMissCount() + " misses, " +
+                    cache.getEvictionCount() + " evictions");
+        }
+    }
+
+
     /////////////////////////////////////////////////////////////////////////
     // implement the javax.xml.transform.Transformer methods
     /////////////////////////////////////////////////////////////////////////
@@ -1114,6 +1162,9 @@ public class Controller {
         if (preparedStylesheet==null) {
             throw new XPathException("Stylesheet has not been prepared");
         }
+        // the page may have been changed by script or user input since the last transformation
+        config.invalidateDOMCaches();
+        executable.getKeyManager().clearPageIndexes();
 
         if (!dateTimePreset) {
             currentDateTime = null;     // reset at start of each transformation
@@ -1221,6 +1272,7 @@ public class Controller {
             
             if (LogConfiguration.loggingIsEnabled()) {
             	LogController.closeTraceListener(success);
+            	logMemoFunctionStatistics();
             }
         }
     }
@@ -1582,11 +1634,40 @@ public class Controller {
     
     //////////////////////
 
-	public void setOutputProperties(Object props) {
-		// TODO Auto-generated method stub - did use java.util.Properties
-		
+    /**
+     * Set the serialization properties to be used by {@link #serialize}, overriding those defined
+     * by the unnamed xsl:output declarations of the stylesheet
+     * @param props the serialization properties, or null to revert to those defined in the stylesheet
+     */
+
+	public void setOutputProperties(SerializationProperties props) {
+		outputProperties = props;
 	}
 
+    /**
+     * Get the serialization properties to be used by {@link #serialize}
+     * @return the properties set using {@link #setOutputProperties}, or failing that, the properties
+     * defined by the unnamed xsl:output declarations of the stylesheet
+     */
+
+    public SerializationProperties getOutputProperties() {
+        if (outputProperties != null) {
+            return outputProperties;
+        }
+        return executable.getDefaultOutputProperties();
+    }
+
+    /**
+     * Serialize a result tree as lexical XML, HTML, or text, according to the output properties
+     * @param node the node to be serialized, typically the document node of a result tree
+     * @return the serialized result
+     * @throws XPathException if serialization fails
+     */
+
+    public String serialize(NodeInfo node) throws XPathException {
+        return SerializerFactory.serialize(node, getOutputProperties());
+    }
+
 }
 
 // This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. 
@@ -11,6 +11,7 @@ import client.net.sf.saxon.ce.lib.GenericLogHandler;
 import client.net.sf.saxon.ce.lib.JsLogHandler;
 import client.net.sf.saxon.ce.lib.ListenerLogHandler;
 import client.net.sf.saxon.ce.lib.TraceListener;
+import client.net.sf.saxon.ce.trace.TimingTraceListener;
 import client.net.sf.saxon.ce.trace.XSLTTraceListener;
 import client.net.sf.saxon.ce.tree.util.URI;
 
@@ -56,6 +57,7 @@ public class LogController {
 	 */
 	
 	private static boolean isTraceEnabled;
+	private static boolean isProfilingEnabled;
 	private static Logger mainLogger;
 	private static Level initLogLevel;
 	
@@ -68,6 +70,8 @@ public class LogController {
 		String logLevel = Window.Location.getParameter("logLevel");
 		// if set, this prevents the JS API overriding the URI parameter
 		initLogLevel = (logLevel == null)? null : Level.parse(logLevel);
+		// profiling is requested with a URI parameter, e.g. ?profile=true
+		isProfilingEnabled = "true".equals(Window.Location.getParameter("profile"));
 	}
 	
 	public static boolean LoggingIsDisabledByURI() {
@@ -79,7 +83,7 @@ public class LogController {
 	public static void InitializeTraceListener() {
 		checkTraceIsEnabled();
 		if (isTraceEnabled) {
-			traceListener = new XSLTTraceListener();
+			traceListener = (isProfilingEnabled ? new TimingTraceListener() : new XSLTTraceListener());
 		}
 	}
 	
@@ -111,10 +115,25 @@ public class LogController {
 	}
 	
 	private static boolean checkTraceIsEnabled() {
-		isTraceEnabled = mainLogger.getLevel() == Level.FINEST;
+		isTraceEnabled = isProfilingEnabled || mainLogger.getLevel() == Level.FINEST;
 		return isTraceEnabled;
 	}
 	
+	/**
+	 * Say whether stylesheets compiled from now on are to be profiled. When profiling is enabled,
+	 * templates and functions are instrumented, and the statistics are gathered by a
+	 * {@link TimingTraceListener} in place of the usual trace output.
+	 * @param enabled true if profiling is required
+	 */
+	
+	public static void setProfilingEnabled(boolean enabled) {
+		isProfilingEnabled = enabled;
+	}
+	
+	public static boolean profilingIsEnabled() {
+		return isProfilingEnabled;
+	}
+	
 	public static void addJavaScriptLogHandler() {
 		if (!LoggingIsDisabledByURI()) {			
 			Logger.getLogger("").addHandler(new ListenerLogHandler());
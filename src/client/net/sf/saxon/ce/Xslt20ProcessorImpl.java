@@ -412,7 +412,8 @@ public class Xslt20ProcessorImpl implements EntryPoint {
             		// add a document node wrapper
             		Node sourceNode = (Node)inSourceDoc;
             		Document sourceDoc = sourceNode.getOwnerDocument();
-        	        HTMLDocumentWrapper htmlDoc = new HTMLDocumentWrapper(sourceDoc, sourceDoc.getURL(), config, DocType.UNKNOWN);
+        	        HTMLDocumentWrapper htmlDoc = (sourceDoc == Document.get())? (HTMLDocumentWrapper)config.getHostPage() :
+        	        		new HTMLDocumentWrapper(sourceDoc, sourceDoc.getURL(), config, DocType.UNKNOWN);
         	        fetchedSourceDoc = htmlDoc.wrap(sourceNode);
             	} else {
             		fetchedSourceDoc = SaxonceApi.getDocSynchronously(inSourceDoc, config);
@@ -0,0 +1,94 @@
+package client.net.sf.saxon.ce.dom;
+
+import com.google.gwt.dom.client.Node;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * A side table holding a pre-order number for each node of a wrapped DOM document, so that
+ * the document order of two nodes can be determined by an integer comparison instead of by
+ * walking up the ancestor axis and counting preceding siblings.
+ *
+ * <p>The index is only used if the configuration option
+ * {@link client.net.sf.saxon.ce.lib.FeatureKeys#USE_DOCUMENT_ORDER_INDEX} is set. It is keyed by the
+ * underlying DOM node, because there may be several wrapper objects for the same node. The nodes of
+ * a document are numbered in a single pass the first time a node in that document is compared.</p>
+ *
+ * <p>Nodes added to a document after it has been numbered are simply absent from the index, and
+ * comparisons involving them fall back to navigation; since adding nodes does not change the relative
+ * order of existing nodes, the remaining numbers are still correct. Any other change to a numbered
+ * document (deleting, moving, or replacing nodes) must be followed by a call on {@link #clear}.</p>
+ */
+
+public class DocumentOrderIndex {
+
+    private HashMap<Node, Integer> numbers = new HashMap<Node, Integer>();
+    private HashSet<Node> roots = new HashSet<Node>();
+    private int nextNumber = 0;
+
+    /**
+     * Get the position in document order of a DOM node, numbering the document containing it
+     * if this has not already been done
+     * @param root the root of the tree containing the node: a Document or DocumentFragment node
+     * @param node the node whose position is required (for an attribute, its owning element)
+     * @return the pre-order number of the node, or -1 if the node is not in the index (for example
+     * because it was added to the tree after the tree was numbered)
+     */
+
+    public int getNumber(Node root, Node node) {
+        if (!roots.contains(root)) {
+            number(root);
+        }
+        Integer n = numbers.get(node);
+        return (n == null ? -1 : n.intValue());
+    }
+
+    /**
+     * Allocate pre-order numbers to all the nodes in a tree. The numbers allocated to different
+     * trees occupy disjoint ranges.
+     * @param root the root of the tree
+     */
+
+    private void number(Node root) {
+        roots.add(root);
+        Node next = root;
+        while (next != null) {
+            numbers.put(next, Integer.valueOf(nextNumber++));
+            Node child = next.getFirstChild();
+            if (child != null) {
+                next = child;
+                continue;
+            }
+            while (next != root && next.getNextSibling() == null) {
+                next = next.getParentNode();
+            }
+            next = (next == root ? null : next.getNextSibling());
+        }
+    }
+
+    /**
+     * Discard all the numbering, which will be recomputed when next required
+     */
+
+    public void clear() {
+        if (!roots.isEmpty()) {
+            numbers.clear();
+            roots.clear();
+            nextNumber = 0;
+        }
+    }
+
+    /**
+     * Get the number of nodes currently in the index
+     * @return the number of numbered nodes
+     */
+
+    public int size() {
+        return numbers.size();
+    }
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
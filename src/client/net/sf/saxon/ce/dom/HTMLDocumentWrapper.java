@@ -10,6 +10,7 @@ import client.net.sf.saxon.ce.om.NodeInfo;
 import client.net.sf.saxon.ce.om.StandardNames;
 import client.net.sf.saxon.ce.pattern.NodeKindTest;
 import client.net.sf.saxon.ce.tree.iter.AxisIterator;
+import client.net.sf.saxon.ce.tree.util.TypedValueCache;
 import client.net.sf.saxon.ce.type.Type;
 
 import com.google.gwt.core.client.JavaScriptObject;
@@ -32,6 +33,8 @@ public class HTMLDocumentWrapper extends HTMLNodeWrapper implements DocumentInfo
     private HashMap<String, Object> userData;
     private HashMap<String, HTMLNodeWrapper> idIndex;
     private boolean isHttpRequested;
+    private TypedValueCache typedValueCache;
+    private int typedValueCacheGeneration;
 
     /**
      * Wrap a DOM Document or DocumentFragment node
@@ -199,6 +202,26 @@ public class HTMLDocumentWrapper extends HTMLNodeWrapper implements DocumentInfo
         return config.getNamePool();
     }
 
+    /**
+     * Get the cache of typed values of the element and document nodes in this document. The cache
+     * is keyed by the underlying DOM node, since there may be several wrappers for the same node. It is
+     * discarded, and a new one started, whenever the configuration signals that the DOM may have changed
+     * (see {@link Configuration#invalidateDOMCaches}), which happens at least once per transformation.
+     * @return the typed value cache, or null if typed value caching is not enabled in the configuration
+     */
+
+    TypedValueCache getTypedValueCache() {
+        if (!config.isUseTypedValueCache()) {
+            return null;
+        }
+        int generation = config.getDOMCacheGeneration();
+        if (typedValueCache == null || typedValueCacheGeneration != generation) {
+            typedValueCache = new TypedValueCache();
+            typedValueCacheGeneration = generation;
+        }
+        return typedValueCache;
+    }
+
     /**
      * Get the unique document number
      */
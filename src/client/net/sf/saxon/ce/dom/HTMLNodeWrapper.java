@@ -19,6 +19,7 @@ import client.net.sf.saxon.ce.tree.NamespaceNode;
 import client.net.sf.saxon.ce.tree.iter.*;
 import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
 import client.net.sf.saxon.ce.tree.util.Navigator;
+import client.net.sf.saxon.ce.tree.util.TypedValueCache;
 import client.net.sf.saxon.ce.tree.wrapper.SiblingCountingNode;
 import client.net.sf.saxon.ce.tree.wrapper.VirtualNode;
 import client.net.sf.saxon.ce.type.Type;
@@ -190,11 +191,38 @@ public class HTMLNodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNo
             case Type.COMMENT:
             case Type.PROCESSING_INSTRUCTION:
                 return new StringValue(getStringValueCS());
+            case Type.DOCUMENT:
+            case Type.ELEMENT:
+                TypedValueCache cache = docWrapper.getTypedValueCache();
+                if (cache != null) {
+                    return getCachedTypedValue(cache);
+                }
+                return new UntypedAtomicValue(getStringValueCS());
             default:
                 return new UntypedAtomicValue(getStringValueCS());
         }
     }
 
+    /**
+     * Get the typed value of an element or document node from the cache held by the document wrapper,
+     * computing it and adding it to the cache if it is not already present. The cache is keyed by the
+     * underlying DOM node, since there may be several wrappers for the same node.
+     * @param cache the typed value cache
+     * @return the typed value
+     */
+
+    private AtomicValue getCachedTypedValue(TypedValueCache cache) {
+        AtomicValue val = cache.get(node);
+        if (val == null) {
+            NodeList<Node> children = node.getChildNodes();
+            StringBuffer sb = new StringBuffer(16);
+            expandStringValue(children, sb);
+            val = new UntypedAtomicValue(sb.toString());
+            cache.put(node, val);
+        }
+        return val;
+    }
+
     /**
     * Get the type annotation
     */
@@ -310,6 +338,25 @@ public class HTMLNodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNo
     */
 
     public int compareOrder(NodeInfo other) {
+        if (other instanceof HTMLNodeWrapper) {
+            DocumentOrderIndex orderIndex = getConfiguration().getDocumentOrderIndex();
+            if (orderIndex != null) {
+                HTMLNodeWrapper ow = (HTMLNodeWrapper)other;
+                Node root = docWrapper.node;
+                if (root == ow.docWrapper.node) {
+                    Node n1 = getOrderingNode();
+                    Node n2 = ow.getOrderingNode();
+                    if (n1 != null && n2 != null) {
+                        int a = orderIndex.getNumber(root, n1);
+                        int b = orderIndex.getNumber(root, n2);
+                        // equal numbers arise for an element and its attributes: navigation resolves these
+                        if (a >= 0 && b >= 0 && a != b) {
+                            return (a < b ? -1 : +1);
+                        }
+                    }
+                }
+            }
+        }
         if (other instanceof SiblingCountingNode) {
             return Navigator.compareOrder(this, (SiblingCountingNode)other);
         } else {
@@ -318,6 +365,20 @@ public class HTMLNodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNo
         }
     }
 
+    /**
+     * Get the DOM node whose position in the document order index represents the position of this node.
+     * For a text node spanning several DOM nodes this is the first of them; for an attribute it is
+     * the owning element.
+     * @return the DOM node to be used, or null if it cannot be determined (an attribute whose parent is unknown)
+     */
+
+    private Node getOrderingNode() {
+        if (nodeKind == Type.ATTRIBUTE) {
+            return (parent == null ? null : parent.node);
+        }
+        return node;
+    }
+
     /**
     * Return the string value of the node. The interpretation of this depends on the type
     * of node. For an element it is the accumulated character content of the element,
@@ -339,6 +400,10 @@ public class HTMLNodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNo
         switch (nodeKind) {
             case Type.DOCUMENT:
             case Type.ELEMENT:
+                TypedValueCache cache = docWrapper.getTypedValueCache();
+                if (cache != null) {
+                    return getCachedTypedValue(cache).getStringValueCS();
+                }
                 NodeList children1 = node.getChildNodes();
                 StringBuffer sb1 = new StringBuffer(16);
                 expandStringValue(children1, sb1);
@@ -178,10 +178,18 @@ public class HTMLWriter implements Receiver {
     public void open () {}
 
     /**
-    * End of the document.
+    * End of the document. Any numbering of the target document in document order, any typed
+    * values cached for its nodes, and any indexes built for it, are discarded, since the document
+    * has been modified.
     */
 
-    public void close () {}
+    public void close () {
+        pipe.getConfiguration().invalidateDOMCaches();
+        Controller controller = pipe.getController();
+        if (controller != null) {
+            controller.getExecutable().getKeyManager().clearPageIndexes();
+        }
+    }
 
     /**
      * Start of a document node.
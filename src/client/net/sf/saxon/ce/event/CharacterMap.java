@@ -0,0 +1,89 @@
+package client.net.sf.saxon.ce.event;
+
+import java.util.HashMap;
+
+/**
+ * A compiled character map, as defined by one or more <code>xsl:character-map</code> declarations
+ * in the stylesheet. The map associates a Unicode code point with the string that is to be output
+ * in its place during serialization; the replacement string is output without escaping.
+ */
+
+public class CharacterMap {
+
+    private HashMap<Integer, String> map = new HashMap<Integer, String>();
+    private int min = Integer.MAX_VALUE;    // the smallest code point in the map
+    private int max = -1;                   // the largest code point in the map
+
+    /**
+     * Create an empty character map
+     */
+
+    public CharacterMap() {
+    }
+
+    /**
+     * Add a mapping to the character map. If the code point is already mapped, the
+     * new mapping replaces the old one.
+     * @param codepoint the Unicode code point to be mapped
+     * @param replacement the string to be output in place of the character
+     */
+
+    public void put(int codepoint, String replacement) {
+        map.put(Integer.valueOf(codepoint), replacement);
+        if (codepoint < min) {
+            min = codepoint;
+        }
+        if (codepoint > max) {
+            max = codepoint;
+        }
+    }
+
+    /**
+     * Add all the mappings in another character map to this one
+     * @param other the character map whose mappings are to be added
+     */
+
+    public void putAll(CharacterMap other) {
+        for (Integer c : other.map.keySet()) {
+            put(c.intValue(), other.map.get(c));
+        }
+    }
+
+    /**
+     * Get the replacement string for a character
+     * @param codepoint the Unicode code point
+     * @return the replacement string, or null if the character is not mapped
+     */
+
+    public String getReplacement(int codepoint) {
+        if (codepoint < min || codepoint > max) {
+            return null;
+        }
+        return map.get(Integer.valueOf(codepoint));
+    }
+
+    /**
+     * Ask whether a character might be mapped. This is a fast test that may return true for characters
+     * that are not actually mapped, but never returns false for a character that is mapped.
+     * @param codepoint the Unicode code point (or UTF-16 code unit)
+     * @return false if the character is certainly not mapped
+     */
+
+    public boolean mayBeMapped(int codepoint) {
+        return codepoint >= min && codepoint <= max;
+    }
+
+    /**
+     * Ask whether the character map is empty
+     * @return true if no characters are mapped
+     */
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
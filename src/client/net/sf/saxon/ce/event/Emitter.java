@@ -0,0 +1,123 @@
+package client.net.sf.saxon.ce.event;
+
+import client.net.sf.saxon.ce.om.NamePool;
+import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
+
+/**
+ * Emitter: This abstract class defines methods that must be implemented by
+ * components that format SAXON output as lexical XML, HTML, or text. The serialized
+ * output is written to a growable character buffer, from which it can be retrieved
+ * when the output is closed.
+ */
+
+public abstract class Emitter implements Receiver {
+
+    protected PipelineConfiguration pipelineConfig;
+    protected NamePool namePool;
+    protected String systemId;
+    protected SerializationProperties outputProperties;
+    protected CharacterMap characterMap;
+    protected FastStringBuffer writer;
+
+    /**
+     * Create an emitter writing to a new character buffer
+     */
+
+    public Emitter() {
+        writer = new FastStringBuffer(FastStringBuffer.LARGE);
+    }
+
+    /**
+     * Set the pipelineConfiguration
+     */
+
+    public void setPipelineConfiguration(PipelineConfiguration pipe) {
+        pipelineConfig = pipe;
+        namePool = pipe.getConfiguration().getNamePool();
+    }
+
+    /**
+     * Get the pipeline configuration used for this document
+     */
+
+    public PipelineConfiguration getPipelineConfiguration() {
+        return pipelineConfig;
+    }
+
+    /**
+     * Set the System ID
+     */
+
+    public void setSystemId(String systemId) {
+        this.systemId = systemId;
+    }
+
+    /**
+     * Get the System ID
+     */
+
+    public String getSystemId() {
+        return systemId;
+    }
+
+    /**
+     * Set the output properties
+     * @param details the serialization properties to be used
+     */
+
+    public void setOutputProperties(SerializationProperties details) {
+        outputProperties = details;
+        characterMap = details.getCharacterMap();
+        if (characterMap != null && characterMap.isEmpty()) {
+            characterMap = null;
+        }
+    }
+
+    /**
+     * Get the output properties
+     * @return the serialization properties in use
+     */
+
+    public SerializationProperties getOutputProperties() {
+        return outputProperties;
+    }
+
+    /**
+     * Set the buffer to which the serialized output is written. This allows several emitters to
+     * write into the same buffer.
+     * @param buffer the buffer to receive the output
+     */
+
+    public void setOutputBuffer(FastStringBuffer buffer) {
+        writer = buffer;
+    }
+
+    /**
+     * Get the serialized output
+     * @return the buffer holding the output written so far
+     */
+
+    public FastStringBuffer getOutputBuffer() {
+        return writer;
+    }
+
+    /**
+     * Get the serialized output as a string
+     * @return the output written so far
+     */
+
+    public String getResult() {
+        return writer.toString();
+    }
+
+    public void open() {
+    }
+
+    public void close() {
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
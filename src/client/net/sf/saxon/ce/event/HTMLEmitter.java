@@ -0,0 +1,134 @@
+package client.net.sf.saxon.ce.event;
+
+import client.net.sf.saxon.ce.om.NamePool;
+import client.net.sf.saxon.ce.trans.XPathException;
+
+import java.util.HashSet;
+
+/**
+ * This class generates HTML output. Elements in no namespace are serialized according to the
+ * rules of the HTML output method: void elements such as <code>br</code> have no end tag, the content
+ * of <code>script</code> and <code>style</code> elements is not escaped, and the characters
+ * '&lt;' and '&gt;' are not escaped in attribute values. Elements in a namespace are serialized
+ * as in the XML output method.
+ */
+
+public class HTMLEmitter extends XMLEmitter {
+
+    private static HashSet<String> voidElements = new HashSet<String>(30);
+
+    static {
+        String[] names = {"area", "base", "basefont", "br", "col", "command", "embed", "frame", "hr",
+                "img", "input", "isindex", "keygen", "link", "meta", "param", "source", "track", "wbr"};
+        for (int i = 0; i < names.length; i++) {
+            voidElements.add(names[i]);
+        }
+    }
+
+    protected static boolean[] specialInHTMLAtt = new boolean[128];
+
+    static {
+        for (int i = 0; i < 32; i++) {
+            specialInHTMLAtt[i] = true;
+        }
+        specialInHTMLAtt['\n'] = false;
+        specialInHTMLAtt['\t'] = false;
+        specialInHTMLAtt['&'] = true;
+        specialInHTMLAtt['"'] = true;
+    }
+
+    /**
+     * Create an HTMLEmitter
+     */
+
+    public HTMLEmitter() {
+        attSpecial = specialInHTMLAtt;
+    }
+
+    /**
+     * No XML declaration is written for HTML output
+     */
+
+    protected void writeDeclaration() throws XPathException {
+    }
+
+    /**
+     * Start of an element. Before the first element of an HTML version 5.0 document, a simple
+     * <code>&lt;!DOCTYPE html&gt;</code> is output if no public or system identifier is specified.
+     */
+
+    public void startElement(int nameCode, int properties) throws XPathException {
+        if (!started) {
+            openDocument();
+        }
+        if (!startedElement) {
+            String version = outputProperties.getVersion();
+            if (outputProperties.getDoctypeSystem() == null && outputProperties.getDoctypePublic() == null &&
+                    version != null && version.startsWith("5")) {
+                writer.append("<!DOCTYPE html>\n");
+                startedElement = true;
+            }
+        }
+        super.startElement(nameCode, properties);
+    }
+
+    /**
+     * Write the end tag. Void HTML elements have no end tag, and other HTML elements
+     * are never written using the XML empty-element syntax.
+     */
+
+    protected void writeEndTag(String displayName, int nameCode) throws XPathException {
+        if (isHTMLElement(nameCode)) {
+            if (voidElements.contains(namePool.getLocalName(nameCode).toLowerCase())) {
+                closeStartTag();
+                return;
+            }
+            closeStartTag();
+        }
+        super.writeEndTag(displayName, nameCode);
+    }
+
+    /**
+     * The content of script and style elements is not escaped
+     */
+
+    protected boolean[] getTextSpecialChars() {
+        if (depth > 0) {
+            int nameCode = nameCodeStack[depth - 1];
+            if (isHTMLElement(nameCode)) {
+                String local = namePool.getLocalName(nameCode);
+                if (local.equalsIgnoreCase("script") || local.equalsIgnoreCase("style")) {
+                    return noSpecial;
+                }
+            }
+        }
+        return specialInText;
+    }
+
+    /**
+     * Handle a processing instruction. In HTML, a processing instruction is terminated by '&gt;'.
+     */
+
+    public void processingInstruction(String target, CharSequence data) throws XPathException {
+        if (!started) {
+            openDocument();
+        }
+        closeStartTag();
+        writer.append("<?");
+        writer.append(target);
+        if (data.length() > 0) {
+            writer.append(' ');
+            writer.append(data);
+        }
+        writer.append('>');
+    }
+
+    private boolean isHTMLElement(int nameCode) {
+        return namePool.getURI(nameCode & NamePool.FP_MASK).length() == 0;
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
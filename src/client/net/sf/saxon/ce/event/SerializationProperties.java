@@ -0,0 +1,181 @@
+package client.net.sf.saxon.ce.event;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The set of serialization parameters that control an {@link Emitter}, as specified by the
+ * <code>xsl:output</code> declarations of a stylesheet (the JRE emulation used by Saxon-CE
+ * provides no <code>java.util.Properties</code>, so the parameters are held as fields).
+ * A property that is null has not been specified, and the default for the output method applies.
+ */
+
+public class SerializationProperties {
+
+    private String method;
+    private String version;
+    private String encoding;
+    private String mediaType;
+    private String doctypeSystem;
+    private String doctypePublic;
+    private String standalone;
+    private boolean indent;
+    private boolean omitXmlDeclaration;
+    private Set<Integer> cdataSectionElements = new HashSet<Integer>();
+    private CharacterMap characterMap;
+
+    /**
+     * Create a set of serialization properties, all taking their default values
+     */
+
+    public SerializationProperties() {
+    }
+
+    /**
+     * Create a copy of a set of serialization properties
+     * @param other the properties to be copied
+     */
+
+    public SerializationProperties(SerializationProperties other) {
+        method = other.method;
+        version = other.version;
+        encoding = other.encoding;
+        mediaType = other.mediaType;
+        doctypeSystem = other.doctypeSystem;
+        doctypePublic = other.doctypePublic;
+        standalone = other.standalone;
+        indent = other.indent;
+        omitXmlDeclaration = other.omitXmlDeclaration;
+        cdataSectionElements.addAll(other.cdataSectionElements);
+        if (other.characterMap != null) {
+            characterMap = new CharacterMap();
+            characterMap.putAll(other.characterMap);
+        }
+    }
+
+    /**
+     * Set the output method
+     * @param method "xml", "html", "xhtml", or "text"; or null to use the default (xml, or html if
+     * the first element is named html in no namespace)
+     */
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * Get the output encoding. The serializer produces characters, not bytes: the encoding is written
+     * in the XML declaration, and characters that it cannot represent are output as character references.
+     * @return the encoding name; UTF-8 if none has been specified
+     */
+
+    public String getEncoding() {
+        return (encoding == null ? "UTF-8" : encoding);
+    }
+
+    public void setMediaType(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public void setDoctypeSystem(String doctypeSystem) {
+        this.doctypeSystem = doctypeSystem;
+    }
+
+    public String getDoctypeSystem() {
+        return doctypeSystem;
+    }
+
+    public void setDoctypePublic(String doctypePublic) {
+        this.doctypePublic = doctypePublic;
+    }
+
+    public String getDoctypePublic() {
+        return doctypePublic;
+    }
+
+    /**
+     * Set the value of the standalone parameter
+     * @param standalone "yes", "no", or "omit" (or null, equivalent to "omit")
+     */
+
+    public void setStandalone(String standalone) {
+        this.standalone = standalone;
+    }
+
+    public String getStandalone() {
+        return standalone;
+    }
+
+    public void setIndent(boolean indent) {
+        this.indent = indent;
+    }
+
+    public boolean isIndent() {
+        return indent;
+    }
+
+    public void setOmitXmlDeclaration(boolean omit) {
+        this.omitXmlDeclaration = omit;
+    }
+
+    public boolean isOmitXmlDeclaration() {
+        return omitXmlDeclaration;
+    }
+
+    /**
+     * Add an element name to the list of cdata-section-elements
+     * @param fingerprint the fingerprint of the element name
+     */
+
+    public void addCdataSectionElement(int fingerprint) {
+        cdataSectionElements.add(Integer.valueOf(fingerprint));
+    }
+
+    /**
+     * Ask whether text nodes within an element are to be output as CDATA sections
+     * @param fingerprint the fingerprint of the element name
+     * @return true if the element is one of the cdata-section-elements
+     */
+
+    public boolean isCdataSectionElement(int fingerprint) {
+        return !cdataSectionElements.isEmpty() && cdataSectionElements.contains(Integer.valueOf(fingerprint));
+    }
+
+    /**
+     * Set the character map to be applied during serialization
+     * @param map the character map (the union of all the maps named in use-character-maps), or null
+     */
+
+    public void setCharacterMap(CharacterMap map) {
+        this.characterMap = map;
+    }
+
+    public CharacterMap getCharacterMap() {
+        return characterMap;
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
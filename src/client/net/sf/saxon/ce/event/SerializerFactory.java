@@ -0,0 +1,88 @@
+package client.net.sf.saxon.ce.event;
+
+import client.net.sf.saxon.ce.om.CopyOptions;
+import client.net.sf.saxon.ce.om.NodeInfo;
+import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
+
+/**
+ * Helper class to construct a serialization pipeline for a given set of serialization properties.
+ * The serialized output is written to a character buffer rather than to the browser DOM, so that
+ * a result tree can be serialized as lexical XML, HTML, or text.
+ */
+
+public class SerializerFactory {
+
+    private SerializerFactory() {
+    }
+
+    /**
+     * Make an emitter for the output method given in the serialization properties
+     * @param props the serialization properties
+     * @return an HTMLEmitter for method="html", a TEXTEmitter for method="text", and an XMLEmitter
+     * otherwise (including method="xhtml")
+     */
+
+    public static Emitter makeEmitter(SerializationProperties props) {
+        String method = props.getMethod();
+        Emitter emitter;
+        if ("html".equals(method)) {
+            emitter = new HTMLEmitter();
+        } else if ("text".equals(method)) {
+            emitter = new TEXTEmitter();
+        } else {
+            emitter = new XMLEmitter();
+        }
+        emitter.setOutputProperties(props);
+        return emitter;
+    }
+
+    /**
+     * Get a Receiver that serializes the events it receives
+     * @param props the serialization properties. If no method is specified, the choice between XML and
+     * HTML is deferred until the first element is seen
+     * @param pipe the pipeline configuration
+     * @param buffer the buffer to which the serialized output is written
+     * @return the first receiver in the serialization pipeline
+     */
+
+    public static Receiver getReceiver(SerializationProperties props, PipelineConfiguration pipe,
+                                       FastStringBuffer buffer) {
+        Receiver target;
+        if (props.getMethod() == null) {
+            target = new UncommittedSerializer(buffer, props);
+        } else {
+            Emitter emitter = makeEmitter(props);
+            emitter.setOutputBuffer(buffer);
+            target = emitter;
+        }
+        target.setPipelineConfiguration(pipe);
+        NamespaceReducer reducer = new NamespaceReducer();
+        reducer.setPipelineConfiguration(pipe);
+        reducer.setUnderlyingReceiver(target);
+        return reducer;
+    }
+
+    /**
+     * Serialize a node (typically a document node)
+     * @param node the node to be serialized
+     * @param props the serialization properties
+     * @return the serialized result
+     * @throws XPathException if serialization fails
+     */
+
+    public static String serialize(NodeInfo node, SerializationProperties props) throws XPathException {
+        FastStringBuffer buffer = new FastStringBuffer(FastStringBuffer.LARGE);
+        PipelineConfiguration pipe = node.getConfiguration().makePipelineConfiguration();
+        Receiver out = getReceiver(props, pipe, buffer);
+        out.open();
+        node.copy(out, CopyOptions.ALL_NAMESPACES);
+        out.close();
+        return buffer.toString();
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
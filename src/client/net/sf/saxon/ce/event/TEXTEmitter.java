@@ -0,0 +1,58 @@
+package client.net.sf.saxon.ce.event;
+
+import client.net.sf.saxon.ce.om.NamespaceBinding;
+import client.net.sf.saxon.ce.trans.XPathException;
+
+/**
+ * This class generates TEXT output: the content of the text nodes is written, after applying
+ * any character map, and all other events are ignored.
+ */
+
+public class TEXTEmitter extends XMLEmitter {
+
+    /**
+     * No XML declaration is written for text output
+     */
+
+    protected void writeDeclaration() throws XPathException {
+    }
+
+    /**
+     * Produce output using the current Writer. <BR>
+     * Special characters are not escaped.
+     */
+
+    public void characters(CharSequence chars) throws XPathException {
+        if (!started) {
+            openDocument();
+        }
+        if (characterMap == null) {
+            writer.append(chars);
+        } else {
+            writeEscaped(chars, noSpecial);
+        }
+    }
+
+    public void startElement(int nameCode, int properties) throws XPathException {
+    }
+
+    public void namespace(NamespaceBinding nsBinding, int properties) throws XPathException {
+    }
+
+    public void attribute(int nameCode, CharSequence value) throws XPathException {
+    }
+
+    public void endElement() throws XPathException {
+    }
+
+    public void processingInstruction(String name, CharSequence value) throws XPathException {
+    }
+
+    public void comment(CharSequence chars) throws XPathException {
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
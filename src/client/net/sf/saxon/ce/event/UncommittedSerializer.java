@@ -0,0 +1,139 @@
+package client.net.sf.saxon.ce.event;
+
+import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
+import client.net.sf.saxon.ce.type.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is used when the decision on which serialization method to use has to be delayed until the first
+ * element is read. It buffers comments, processing instructions, and whitespace text preceding the first element;
+ * when the first element is notified, it chooses the HTML output method if the element is named <code>html</code>
+ * (in any case) and is in no namespace, and the XML output method otherwise, and replays the buffered events.
+ */
+
+public class UncommittedSerializer extends ProxyReceiver {
+
+    private boolean committed = false;
+    private List<Object[]> pending = new ArrayList<Object[]>();
+    private SerializationProperties outputProperties;
+    private FastStringBuffer buffer;
+
+    /**
+     * Create an uncommitted Serializer
+     * @param buffer the buffer to which the serialized output is to be written
+     * @param details the serialization properties (in which the method is unspecified)
+     */
+
+    public UncommittedSerializer(FastStringBuffer buffer, SerializationProperties details) {
+        this.buffer = buffer;
+        this.outputProperties = details;
+    }
+
+    public void open() throws XPathException {
+        committed = false;
+    }
+
+    public void close() throws XPathException {
+        // no element has been output: use the XML output method
+        if (!committed) {
+            switchToMethod("xml");
+        }
+        nextReceiver.close();
+    }
+
+    public void startDocument() throws XPathException {
+        if (committed) {
+            nextReceiver.startDocument();
+        }
+    }
+
+    public void endDocument() throws XPathException {
+        if (!committed) {
+            switchToMethod("xml");
+        }
+        nextReceiver.endDocument();
+    }
+
+    public void characters(CharSequence chars) throws XPathException {
+        if (committed) {
+            nextReceiver.characters(chars);
+        } else {
+            pending.add(new Object[]{Integer.valueOf(Type.TEXT), null, chars.toString()});
+        }
+    }
+
+    public void processingInstruction(String target, CharSequence data) throws XPathException {
+        if (committed) {
+            nextReceiver.processingInstruction(target, data);
+        } else {
+            pending.add(new Object[]{Integer.valueOf(Type.PROCESSING_INSTRUCTION), target, data.toString()});
+        }
+    }
+
+    public void comment(CharSequence chars) throws XPathException {
+        if (committed) {
+            nextReceiver.comment(chars);
+        } else {
+            pending.add(new Object[]{Integer.valueOf(Type.COMMENT), null, chars.toString()});
+        }
+    }
+
+    /**
+     * Output an element start tag. <br>
+     * This can only be called once: it switches to a substitute output generator for XML or HTML,
+     * depending on the element name.
+     */
+
+    public void startElement(int nameCode, int properties) throws XPathException {
+        if (!committed) {
+            String name = getNamePool().getLocalName(nameCode);
+            String uri = getNamePool().getURI(nameCode);
+            if (name.equalsIgnoreCase("html") && uri.length() == 0) {
+                switchToMethod("html");
+            } else {
+                switchToMethod("xml");
+            }
+        }
+        nextReceiver.startElement(nameCode, properties);
+    }
+
+    /**
+     * Switch to a specific emitter once the output method is known
+     * @param method the method to switch to (xml or html)
+     * @throws XPathException
+     */
+
+    private void switchToMethod(String method) throws XPathException {
+        SerializationProperties props = new SerializationProperties(outputProperties);
+        props.setMethod(method);
+        Emitter emitter = SerializerFactory.makeEmitter(props);
+        emitter.setOutputBuffer(buffer);
+        setUnderlyingReceiver(emitter);
+        committed = true;
+        nextReceiver.open();
+        nextReceiver.startDocument();
+        for (int i = 0; i < pending.size(); i++) {
+            Object[] event = pending.get(i);
+            switch (((Integer)event[0]).intValue()) {
+                case Type.TEXT:
+                    nextReceiver.characters((String)event[2]);
+                    break;
+                case Type.COMMENT:
+                    nextReceiver.comment((String)event[2]);
+                    break;
+                case Type.PROCESSING_INSTRUCTION:
+                    nextReceiver.processingInstruction((String)event[1], (String)event[2]);
+                    break;
+            }
+        }
+        pending = null;
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
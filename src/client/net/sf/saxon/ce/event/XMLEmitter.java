@@ -0,0 +1,480 @@
+package client.net.sf.saxon.ce.event;
+
+import client.net.sf.saxon.ce.om.NamePool;
+import client.net.sf.saxon.ce.om.NamespaceBinding;
+import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.tree.util.UTF16CharacterSet;
+
+/**
+ * XMLEmitter is an Emitter that generates XML output to a specified destination.
+ *
+ * <p>Text and attribute values are escaped by scanning for the characters that need special treatment
+ * and copying the runs of ordinary characters between them to the output buffer in a single operation;
+ * ASCII characters are classified using a lookup table.</p>
+ */
+
+public class XMLEmitter extends Emitter {
+
+    // the characters that must be escaped in text and in attribute values, indexed by ASCII code
+
+    protected static boolean[] specialInText = new boolean[128];
+    protected static boolean[] specialInAtt = new boolean[128];
+    protected static boolean[] noSpecial = new boolean[128];
+
+    static {
+        for (int i = 0; i < 32; i++) {
+            specialInText[i] = true;
+            specialInAtt[i] = true;
+        }
+        specialInText['\n'] = false;
+        specialInText['\t'] = false;
+        specialInText['<'] = true;
+        specialInText['>'] = true;
+        specialInText['&'] = true;
+        specialInAtt['<'] = true;
+        specialInAtt['>'] = true;
+        specialInAtt['&'] = true;
+        specialInAtt['"'] = true;
+    }
+
+    protected boolean[] attSpecial = specialInAtt;
+
+    protected int maxChar = 0x10ffff;       // the highest character that can be output without a character reference
+    protected boolean indenting = false;
+
+    protected boolean started = false;
+    protected boolean startedElement = false;
+    protected boolean openStartTag = false;
+    protected boolean afterText = false;
+
+    protected String[] elementStack = new String[20];
+    protected int[] nameCodeStack = new int[20];
+    private boolean[] cdataStack = new boolean[20];
+    private boolean[] hasChildElement = new boolean[20];
+    protected int depth = 0;
+
+    /**
+     * Set the output properties
+     * @param details the serialization properties to be used
+     */
+
+    public void setOutputProperties(SerializationProperties details) {
+        super.setOutputProperties(details);
+        indenting = details.isIndent();
+        String encoding = details.getEncoding().toUpperCase();
+        if (encoding.equals("US-ASCII") || encoding.equals("ASCII")) {
+            maxChar = 0x7f;
+        } else if (encoding.equals("ISO-8859-1") || encoding.equals("LATIN-1") || encoding.equals("LATIN1")) {
+            maxChar = 0xff;
+        } else {
+            maxChar = 0x10ffff;
+        }
+    }
+
+    /**
+     * Start of the document.
+     */
+
+    public void startDocument() throws XPathException {
+    }
+
+    /**
+     * End of the document.
+     */
+
+    public void endDocument() throws XPathException {
+    }
+
+    /**
+     * Do the real work of starting the document. This happens when the first
+     * content is written.
+     * @throws XPathException
+     */
+
+    protected void openDocument() throws XPathException {
+        if (outputProperties == null) {
+            setOutputProperties(new SerializationProperties());
+        }
+        started = true;
+        writeDeclaration();
+    }
+
+    /**
+     * Output the XML declaration
+     * @throws XPathException
+     */
+
+    protected void writeDeclaration() throws XPathException {
+        if (outputProperties.isOmitXmlDeclaration()) {
+            return;
+        }
+        String version = outputProperties.getVersion();
+        String standalone = outputProperties.getStandalone();
+        writer.append("<?xml version=\"");
+        writer.append(version == null ? "1.0" : version);
+        writer.append("\" encoding=\"");
+        writer.append(outputProperties.getEncoding());
+        writer.append('"');
+        if (standalone != null && !standalone.equals("omit")) {
+            writer.append(" standalone=\"");
+            writer.append(standalone);
+            writer.append('"');
+        }
+        writer.append("?>");
+    }
+
+    /**
+     * Output the document type declaration
+     * @param displayName The element name
+     * @param systemId The DOCTYPE system identifier
+     * @param publicId The DOCTYPE public identifier
+     * @throws XPathException
+     */
+
+    protected void writeDocType(String displayName, String systemId, String publicId) throws XPathException {
+        if (started && writer.length() > 0) {
+            writer.append('\n');
+        }
+        writer.append("<!DOCTYPE ");
+        writer.append(displayName);
+        if (publicId != null) {
+            writer.append(" PUBLIC \"");
+            writer.append(publicId);
+            writer.append('"');
+            if (systemId != null) {
+                writer.append(" \"");
+                writer.append(systemId);
+                writer.append('"');
+            }
+        } else if (systemId != null) {
+            writer.append(" SYSTEM \"");
+            writer.append(systemId);
+            writer.append('"');
+        }
+        writer.append('>');
+        if (!indenting) {
+            writer.append('\n');
+        }
+    }
+
+    /**
+     * Start of an element. Output the start tag, escaping special characters.
+     */
+
+    public void startElement(int nameCode, int properties) throws XPathException {
+        if (!started) {
+            openDocument();
+        }
+        String displayName = namePool.getDisplayName(nameCode);
+        if (!startedElement) {
+            startedElement = true;
+            String systemId = outputProperties.getDoctypeSystem();
+            String publicId = outputProperties.getDoctypePublic();
+            if (systemId != null || publicId != null) {
+                writeDocType(displayName, systemId, publicId);
+            }
+        }
+        closeStartTag();
+        if (depth > 0) {
+            hasChildElement[depth - 1] = true;
+        }
+        if (indenting && !afterText && writer.length() > 0) {
+            indent(depth);
+        }
+        if (depth == elementStack.length) {
+            growStacks();
+        }
+        elementStack[depth] = displayName;
+        nameCodeStack[depth] = nameCode;
+        cdataStack[depth] = outputProperties.isCdataSectionElement(nameCode & NamePool.FP_MASK);
+        hasChildElement[depth] = false;
+        depth++;
+        writer.append('<');
+        writer.append(displayName);
+        openStartTag = true;
+        afterText = false;
+    }
+
+    private void growStacks() {
+        int n = elementStack.length * 2;
+        String[] e2 = new String[n];
+        System.arraycopy(elementStack, 0, e2, 0, depth);
+        elementStack = e2;
+        int[] n2 = new int[n];
+        System.arraycopy(nameCodeStack, 0, n2, 0, depth);
+        nameCodeStack = n2;
+        boolean[] c2 = new boolean[n];
+        System.arraycopy(cdataStack, 0, c2, 0, depth);
+        cdataStack = c2;
+        boolean[] h2 = new boolean[n];
+        System.arraycopy(hasChildElement, 0, h2, 0, depth);
+        hasChildElement = h2;
+    }
+
+    public void namespace(NamespaceBinding nsBinding, int properties) throws XPathException {
+        String prefix = nsBinding.getPrefix();
+        if (prefix.equals("xml")) {
+            return;
+        }
+        if (prefix.length() == 0) {
+            writer.append(" xmlns=\"");
+        } else {
+            writer.append(" xmlns:");
+            writer.append(prefix);
+            writer.append("=\"");
+        }
+        writeEscaped(nsBinding.getURI(), attSpecial);
+        writer.append('"');
+    }
+
+    public void attribute(int nameCode, CharSequence value) throws XPathException {
+        writer.append(' ');
+        writer.append(namePool.getDisplayName(nameCode));
+        writer.append("=\"");
+        writeEscaped(value, attSpecial);
+        writer.append('"');
+    }
+
+    public void startContent() throws XPathException {
+        // no action: the start tag is closed when the first child is written, or when the element ends
+    }
+
+    /**
+     * Mark the end of the start tag
+     * @throws XPathException
+     */
+
+    public void closeStartTag() throws XPathException {
+        if (openStartTag) {
+            writer.append('>');
+            openStartTag = false;
+        }
+    }
+
+    /**
+     * End of an element.
+     */
+
+    public void endElement() throws XPathException {
+        depth--;
+        if (indenting && !afterText && !openStartTag && hasChildElement[depth]) {
+            indent(depth);
+        }
+        writeEndTag(elementStack[depth], nameCodeStack[depth]);
+        afterText = false;
+    }
+
+    /**
+     * Write the end tag of an element, or close the start tag of an empty element
+     * @param displayName the lexical name of the element
+     * @param nameCode the name code of the element
+     * @throws XPathException
+     */
+
+    protected void writeEndTag(String displayName, int nameCode) throws XPathException {
+        if (openStartTag) {
+            writer.append("/>");
+            openStartTag = false;
+        } else {
+            writer.append("</");
+            writer.append(displayName);
+            writer.append('>');
+        }
+    }
+
+    /**
+     * Character data.
+     */
+
+    public void characters(CharSequence chars) throws XPathException {
+        if (chars.length() == 0) {
+            return;
+        }
+        if (!started) {
+            openDocument();
+        }
+        closeStartTag();
+        if (depth > 0 && cdataStack[depth - 1]) {
+            writeCdata(chars);
+        } else {
+            writeEscaped(chars, getTextSpecialChars());
+        }
+        afterText = true;
+    }
+
+    /**
+     * Get the table of ASCII characters that must be escaped in the current text node
+     * @return a table indexed by character code
+     */
+
+    protected boolean[] getTextSpecialChars() {
+        return specialInText;
+    }
+
+    /**
+     * Handle a processing instruction.
+     */
+
+    public void processingInstruction(String target, CharSequence data) throws XPathException {
+        if (!started) {
+            openDocument();
+        }
+        closeStartTag();
+        writer.append("<?");
+        writer.append(target);
+        if (data.length() > 0) {
+            writer.append(' ');
+            writer.append(data);
+        }
+        writer.append("?>");
+    }
+
+    /**
+     * Handle a comment.
+     */
+
+    public void comment(CharSequence chars) throws XPathException {
+        if (!started) {
+            openDocument();
+        }
+        closeStartTag();
+        writer.append("<!--");
+        writer.append(chars);
+        writer.append("-->");
+    }
+
+    /**
+     * Write a newline followed by indentation appropriate to the given depth
+     * @param level the depth of nesting
+     */
+
+    protected void indent(int level) {
+        writer.append('\n');
+        for (int i = 0; i < level; i++) {
+            writer.append("   ");
+        }
+    }
+
+    /**
+     * Write the content of a CDATA section. Any "]]&gt;" sequences in the content, and any characters
+     * that cannot be represented in the output encoding, are handled by ending the CDATA section and
+     * starting a new one.
+     * @param chars the text to be written
+     * @throws XPathException
+     */
+
+    protected void writeCdata(CharSequence chars) throws XPathException {
+        writer.append("<![CDATA[");
+        int len = chars.length();
+        int start = 0;
+        for (int i = 0; i < len; i++) {
+            char c = chars.charAt(i);
+            if (c == ']' && i + 2 < len && chars.charAt(i + 1) == ']' && chars.charAt(i + 2) == '>') {
+                writer.appendSubSequence(chars, start, i + 2);
+                writer.append("]]><![CDATA[");
+                start = i + 2;
+            } else if (c > maxChar) {
+                writer.appendSubSequence(chars, start, i);
+                int cp = c;
+                if (UTF16CharacterSet.isHighSurrogate(c) && i + 1 < len) {
+                    cp = UTF16CharacterSet.combinePair(c, chars.charAt(++i));
+                }
+                writer.append("]]>");
+                writeCharacterReference(cp);
+                writer.append("<![CDATA[");
+                start = i + 1;
+            }
+        }
+        writer.appendSubSequence(chars, start, len);
+        writer.append("]]>");
+    }
+
+    /**
+     * Write a string, escaping the characters that have a special meaning in the current context,
+     * replacing characters according to the character map, and writing characters that cannot be
+     * represented in the output encoding as character references. Runs of characters that need
+     * no special treatment are copied to the output in a single operation.
+     * @param chars the string to be written
+     * @param special a table indicating which ASCII characters need to be escaped
+     * @throws XPathException
+     */
+
+    protected void writeEscaped(CharSequence chars, boolean[] special) throws XPathException {
+        int len = chars.length();
+        int start = 0;
+        for (int i = 0; i < len; i++) {
+            char c = chars.charAt(i);
+            boolean plain;
+            if (c < 128) {
+                plain = !special[c];
+            } else if (c >= UTF16CharacterSet.SURROGATE1_MIN && c <= UTF16CharacterSet.SURROGATE2_MAX) {
+                plain = maxChar > 0xffff;
+            } else {
+                plain = c <= maxChar;
+            }
+            if (plain && (characterMap == null || !characterMap.mayBeMapped(c))) {
+                continue;
+            }
+            writer.appendSubSequence(chars, start, i);
+            int cp = c;
+            if (UTF16CharacterSet.isHighSurrogate(c) && i + 1 < len) {
+                cp = UTF16CharacterSet.combinePair(c, chars.charAt(++i));
+            }
+            String replacement = (characterMap == null ? null : characterMap.getReplacement(cp));
+            if (replacement != null) {
+                writer.append(replacement);
+            } else {
+                writeSpecial(cp, special);
+            }
+            start = i + 1;
+        }
+        writer.appendSubSequence(chars, start, len);
+    }
+
+    /**
+     * Write a character that may need to be escaped
+     * @param cp the Unicode code point of the character
+     * @param special a table indicating which ASCII characters need to be escaped
+     */
+
+    private void writeSpecial(int cp, boolean[] special) {
+        if (cp < 128 && special[cp]) {
+            switch (cp) {
+                case '<':
+                    writer.append("&lt;");
+                    break;
+                case '>':
+                    writer.append("&gt;");
+                    break;
+                case '&':
+                    writer.append("&amp;");
+                    break;
+                case '"':
+                    writer.append("&#34;");
+                    break;
+                default:
+                    writeCharacterReference(cp);
+            }
+        } else if (cp > maxChar) {
+            writeCharacterReference(cp);
+        } else {
+            writer.appendWideChar(cp);
+        }
+    }
+
+    /**
+     * Write a hexadecimal character reference
+     * @param cp the Unicode code point of the character
+     */
+
+    protected void writeCharacterReference(int cp) {
+        writer.append("&#x");
+        writer.append(Integer.toHexString(cp).toUpperCase());
+        writer.append(';');
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
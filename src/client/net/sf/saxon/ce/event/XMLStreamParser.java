@@ -0,0 +1,966 @@
+package client.net.sf.saxon.ce.event;
+
+import client.net.sf.saxon.ce.lib.NamespaceConstant;
+import client.net.sf.saxon.ce.om.NameChecker;
+import client.net.sf.saxon.ce.om.NamePool;
+import client.net.sf.saxon.ce.om.NamespaceBinding;
+import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A namespace-aware, non-validating XML 1.0 parser written entirely in Java. The parser reads a document
+ * held as a CharSequence and notifies its content directly to a {@link Receiver}, typically a
+ * {@link Builder}, so that a Saxon tree can be constructed without going through the browser's DOM and
+ * without the JSNI calls made by the DOM wrappers on every navigation step.
+ *
+ * <p>The parser checks well-formedness and the XML Namespaces constraints. It handles the XML declaration,
+ * comments, processing instructions, CDATA sections, character references, the predefined entities, and
+ * internal general entities declared in the internal DTD subset. Everything else in the DTD (element and
+ * attribute-list declarations, notations, parameter entities) is skipped, so attribute defaults are not
+ * applied; external entities and the external DTD subset are never read, and a reference to an external
+ * entity is reported as an error.</p>
+ *
+ * <p>The input must already be decoded into characters: byte streams and encodings are the responsibility
+ * of the caller (in the browser, the XMLHttpRequest object). The events generated are open(), startDocument(),
+ * the content of the document, endDocument(), and close().</p>
+ */
+
+public class XMLStreamParser {
+
+    private static final int MAX_ENTITY_EXPANSIONS = 100000;
+
+    private NamePool namePool;
+    private Receiver out;
+    private String systemId;
+
+    private CharSequence in;        // the current input: the document, or the replacement text of an entity
+    private int pos;                // current position in the input
+    private int end;                // length of the input
+    private CharSequence document;  // the document itself, used for reporting locations
+
+    // stack of suspended inputs while the replacement text of an entity is being read
+    private List<Object[]> inputStack = new ArrayList<Object[]>();
+    private int entityExpansions;
+
+    private HashMap<String, String> internalEntities = new HashMap<String, String>();
+    private HashMap<String, String> externalEntities = new HashMap<String, String>();
+
+    private FastStringBuffer text = new FastStringBuffer(FastStringBuffer.MEDIUM);
+    private FastStringBuffer value = new FastStringBuffer(FastStringBuffer.SMALL);
+
+    // element stack
+    private String[] elementNames = new String[20];
+    private int[] namespaceMarks = new int[20];
+    private int depth;
+
+    // in-scope namespace declarations, innermost last
+    private String[] nsPrefixes = new String[20];
+    private String[] nsURIs = new String[20];
+    private int nsCount;
+
+    // attributes of the current start tag
+    private String[] attNames = new String[10];
+    private String[] attValues = new String[10];
+    private int attCount;
+
+    /**
+     * Create an XML parser
+     * @param pipe the pipeline configuration, which supplies the name pool to be used for element
+     * and attribute names
+     */
+
+    public XMLStreamParser(PipelineConfiguration pipe) {
+        namePool = pipe.getConfiguration().getNamePool();
+    }
+
+    /**
+     * Parse a document, sending the events to a receiver
+     * @param input the lexical XML document
+     * @param systemId the system identifier (base URI) of the document, used in error messages
+     * @param receiver the receiver to which the content of the document is to be notified
+     * @throws XPathException if the document is not well-formed, or if the receiver reports an error
+     */
+
+    public void parse(CharSequence input, String systemId, Receiver receiver) throws XPathException {
+        this.out = receiver;
+        this.systemId = systemId;
+        document = normalizeLineEndings(input);
+        in = document;
+        pos = 0;
+        end = in.length();
+        inputStack.clear();
+        entityExpansions = 0;
+        internalEntities.clear();
+        externalEntities.clear();
+        text.setLength(0);
+        depth = 0;
+        nsCount = 0;
+
+        if (systemId != null) {
+            out.setSystemId(systemId);
+        }
+        out.open();
+        out.startDocument();
+        if (pos < end && in.charAt(pos) == '\uFEFF') {
+            pos++;
+        }
+        if (startsWith("<?xml") && pos + 5 < end && isWhitespace(in.charAt(pos + 5))) {
+            parseXmlDeclaration();
+        }
+        parseMisc(true);
+        if (pos >= end) {
+            error("The document has no document element");
+        }
+        parseStartTag();
+        if (depth > 0) {
+            parseContent();
+        }
+        parseMisc(false);
+        if (pos < end) {
+            error("Content is not allowed after the end of the document element");
+        }
+        out.endDocument();
+        out.close();
+    }
+
+    /**
+     * Parse the material allowed before and after the document element: whitespace,
+     * comments, processing instructions, and (before the document element only) the DOCTYPE
+     * declaration. Stops on reaching the start tag of the document element, or the end of input.
+     * @param prolog true if this is the prolog, false if it follows the document element
+     * @throws XPathException if the content is not well-formed
+     */
+
+    private void parseMisc(boolean prolog) throws XPathException {
+        boolean doctypeAllowed = prolog;
+        while (true) {
+            skipWhitespace();
+            if (pos >= end) {
+                return;
+            }
+            if (startsWith("<!--")) {
+                parseComment();
+            } else if (startsWith("<?")) {
+                parseProcessingInstruction();
+            } else if (doctypeAllowed && startsWith("<!DOCTYPE")) {
+                parseDoctype();
+                doctypeAllowed = false;
+            } else if (prolog && in.charAt(pos) == '<' && pos + 1 < end && in.charAt(pos + 1) != '!') {
+                return;
+            } else if (prolog) {
+                error("Content is not allowed in the prolog");
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Parse the content of the document element, from the end of its start tag to the end of its end tag
+     * @throws XPathException if the content is not well-formed
+     */
+
+    private void parseContent() throws XPathException {
+        while (true) {
+            if (pos >= end) {
+                if (inputStack.isEmpty()) {
+                    error("Unexpected end of document: element <" + elementNames[depth - 1] + "> is not closed");
+                }
+                popInput();
+                continue;
+            }
+            char c = in.charAt(pos);
+            if (c == '<') {
+                if (startsWith("</")) {
+                    flushText();
+                    parseEndTag();
+                    if (depth == 0) {
+                        return;
+                    }
+                } else if (startsWith("<!--")) {
+                    flushText();
+                    parseComment();
+                } else if (startsWith("<![CDATA[")) {
+                    parseCDATASection();
+                } else if (startsWith("<?")) {
+                    flushText();
+                    parseProcessingInstruction();
+                } else if (startsWith("<!")) {
+                    error("Markup declarations are not allowed in element content");
+                } else {
+                    flushText();
+                    parseStartTag();
+                }
+            } else if (c == '&') {
+                parseReference(text, false);
+            } else {
+                if (c == ']' && startsWith("]]>")) {
+                    error("The sequence ']]>' is not allowed in character content");
+                }
+                if (c < 0x20 && c != '\n' && c != '\t') {
+                    error("Invalid XML character (x" + Integer.toHexString(c) + ")");
+                }
+                text.append(c);
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * Parse a start tag or empty-element tag, and notify the element, its namespaces and its
+     * attributes to the receiver
+     * @throws XPathException if the start tag is not well-formed
+     */
+
+    private void parseStartTag() throws XPathException {
+        pos++;  // '<'
+        String qname = parseName();
+        int nsMark = nsCount;
+        attCount = 0;
+        while (true) {
+            boolean space = skipWhitespace();
+            if (pos >= end) {
+                error("Unexpected end of input in start tag of element <" + qname + ">");
+            }
+            char c = in.charAt(pos);
+            if (c == '>' || c == '/') {
+                break;
+            }
+            if (!space) {
+                error("Whitespace is required between attributes in start tag of element <" + qname + ">");
+            }
+            String attName = parseName();
+            skipWhitespace();
+            expect('=');
+            skipWhitespace();
+            String attValue = parseAttributeValue();
+            if (attName.equals("xmlns")) {
+                declareNamespace("", attValue, nsMark);
+            } else if (attName.startsWith("xmlns:")) {
+                if (attName.length() == 6) {
+                    error("The namespace declaration attribute xmlns: has no prefix");
+                }
+                declareNamespace(attName.substring(6), attValue, nsMark);
+            } else {
+                for (int i = 0; i < attCount; i++) {
+                    if (attNames[i].equals(attName)) {
+                        error("Attribute " + attName + " appears more than once in element <" + qname + ">");
+                    }
+                }
+                if (attCount == attNames.length) {
+                    attNames = grow(attNames);
+                    attValues = grow(attValues);
+                }
+                attNames[attCount] = attName;
+                attValues[attCount++] = attValue;
+            }
+        }
+        boolean empty = in.charAt(pos) == '/';
+        if (empty) {
+            pos++;
+        }
+        expect('>');
+
+        out.startElement(allocateName(qname, true), 0);
+        for (int i = nsMark; i < nsCount; i++) {
+            out.namespace(new NamespaceBinding(nsPrefixes[i], nsURIs[i]), 0);
+        }
+        int[] attCodes = (attCount == 0 ? null : new int[attCount]);
+        for (int i = 0; i < attCount; i++) {
+            attCodes[i] = allocateName(attNames[i], false);
+            if (attNames[i].indexOf(':') >= 0) {
+                for (int j = 0; j < i; j++) {
+                    if ((attCodes[j] & NamePool.FP_MASK) == (attCodes[i] & NamePool.FP_MASK)) {
+                        error("Attributes " + attNames[j] + " and " + attNames[i] +
+                                " in element <" + qname + "> have the same expanded name");
+                    }
+                }
+            }
+            out.attribute(attCodes[i], attValues[i]);
+        }
+        out.startContent();
+
+        if (empty) {
+            out.endElement();
+            nsCount = nsMark;
+        } else {
+            if (depth == elementNames.length) {
+                elementNames = grow(elementNames);
+                int[] m2 = new int[depth * 2];
+                System.arraycopy(namespaceMarks, 0, m2, 0, depth);
+                namespaceMarks = m2;
+            }
+            elementNames[depth] = qname;
+            namespaceMarks[depth] = nsMark;
+            depth++;
+        }
+    }
+
+    /**
+     * Parse an end tag, checking that it matches the corresponding start tag
+     * @throws XPathException if the end tag is not well-formed or does not match
+     */
+
+    private void parseEndTag() throws XPathException {
+        pos += 2;   // '</'
+        String qname = parseName();
+        skipWhitespace();
+        expect('>');
+        String expected = elementNames[depth - 1];
+        if (!qname.equals(expected)) {
+            error("The end tag </" + qname + "> does not match the start tag <" + expected + ">");
+        }
+        if (!inputStack.isEmpty() && depth == ((Integer)inputStack.get(inputStack.size() - 1)[3]).intValue()) {
+            error("An element started outside an entity reference cannot end inside it");
+        }
+        out.endElement();
+        depth--;
+        nsCount = namespaceMarks[depth];
+    }
+
+    /**
+     * Record a namespace declaration appearing in a start tag
+     * @param prefix the prefix being declared, or "" for the default namespace
+     * @param uri the namespace URI, or "" to undeclare the default namespace
+     * @param nsMark the number of namespace bindings in scope before this start tag
+     * @throws XPathException if the declaration violates the XML Namespaces constraints
+     */
+
+    private void declareNamespace(String prefix, String uri, int nsMark) throws XPathException {
+        if (prefix.equals("xmlns") || uri.equals(NamespaceConstant.XMLNS)) {
+            error("The xmlns prefix and namespace cannot be declared");
+        }
+        if (prefix.equals("xml") != uri.equals(NamespaceConstant.XML)) {
+            error("The xml prefix can only be bound to the XML namespace");
+        }
+        if (prefix.length() != 0) {
+            if (uri.length() == 0) {
+                error("The namespace prefix " + prefix + " cannot be undeclared in XML 1.0");
+            }
+            if (!isNCName(prefix)) {
+                error("Invalid namespace prefix " + prefix);
+            }
+        }
+        for (int i = nsMark; i < nsCount; i++) {
+            if (nsPrefixes[i].equals(prefix)) {
+                error("Duplicate namespace declaration for prefix '" + prefix + "'");
+            }
+        }
+        if (nsCount == nsPrefixes.length) {
+            nsPrefixes = grow(nsPrefixes);
+            nsURIs = grow(nsURIs);
+        }
+        nsPrefixes[nsCount] = prefix;
+        nsURIs[nsCount++] = uri;
+    }
+
+    /**
+     * Allocate a name code for an element or attribute name, using the namespace declarations
+     * currently in scope
+     * @param qname the lexical QName
+     * @param isElement true for an element name, false for an attribute name. An unprefixed attribute
+     * name is in no namespace.
+     * @return the name code
+     * @throws XPathException if the name is not a valid QName or its prefix is not declared
+     */
+
+    private int allocateName(String qname, boolean isElement) throws XPathException {
+        int colon = qname.indexOf(':');
+        if (colon < 0) {
+            String uri = (isElement ? getURIForPrefix("") : "");
+            return namePool.allocate("", uri, qname);
+        }
+        String prefix = qname.substring(0, colon);
+        String local = qname.substring(colon + 1);
+        if (colon == 0 || local.length() == 0 || local.indexOf(':') >= 0 || !isNCName(local)) {
+            error("Invalid QName " + qname);
+        }
+        String uri = getURIForPrefix(prefix);
+        if (uri == null || uri.length() == 0) {
+            error("Namespace prefix " + prefix + " has not been declared");
+        }
+        return namePool.allocate(prefix, uri, local);
+    }
+
+    private String getURIForPrefix(String prefix) {
+        for (int i = nsCount - 1; i >= 0; i--) {
+            if (nsPrefixes[i].equals(prefix)) {
+                return nsURIs[i];
+            }
+        }
+        if (prefix.equals("xml")) {
+            return NamespaceConstant.XML;
+        }
+        return (prefix.length() == 0 ? "" : null);
+    }
+
+    /**
+     * Parse a quoted attribute value, expanding references and normalizing whitespace characters
+     * @return the normalized attribute value
+     * @throws XPathException if the attribute value is not well-formed
+     */
+
+    private String parseAttributeValue() throws XPathException {
+        if (pos >= end) {
+            error("Expected a quoted attribute value");
+        }
+        char quote = in.charAt(pos);
+        if (quote != '"' && quote != '\'') {
+            error("Attribute value must be enclosed in quotes");
+        }
+        pos++;
+        value.setLength(0);
+        while (true) {
+            if (pos >= end) {
+                error("Unexpected end of input in attribute value");
+            }
+            char c = in.charAt(pos);
+            if (c == quote) {
+                pos++;
+                return value.toString();
+            } else if (c == '<') {
+                error("The character '<' is not allowed in an attribute value");
+            } else if (c == '&') {
+                parseReference(value, true);
+            } else {
+                if (c < 0x20 && c != '\n' && c != '\t') {
+                    error("Invalid XML character (x" + Integer.toHexString(c) + ")");
+                }
+                value.append(isWhitespace(c) ? ' ' : c);
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * Parse an entity or character reference, starting at the '&amp;'
+     * @param buffer the buffer to which the expansion of the reference is appended. In content, the
+     * replacement text of an internal entity containing markup is instead pushed onto the input stack, so
+     * that the markup is parsed.
+     * @param inAttribute true if the reference appears in an attribute value
+     * @throws XPathException if the reference is not well-formed, or refers to an undeclared,
+     * external, or recursive entity
+     */
+
+    private void parseReference(FastStringBuffer buffer, boolean inAttribute) throws XPathException {
+        pos++;  // '&'
+        if (pos < end && in.charAt(pos) == '#') {
+            pos++;
+            int radix = 10;
+            if (pos < end && in.charAt(pos) == 'x') {
+                radix = 16;
+                pos++;
+            }
+            int start = pos;
+            while (pos < end && in.charAt(pos) != ';') {
+                pos++;
+            }
+            if (pos >= end || pos == start) {
+                error("Invalid character reference");
+            }
+            // only ASCII digits are allowed: Integer.parseInt would also accept a sign
+            int ch = 0;
+            for (int i = start; i < pos && ch >= 0; i++) {
+                int d = hexDigitValue(in.charAt(i));
+                ch = (d < 0 || d >= radix || ch > 0x10ffff ? -1 : ch * radix + d);
+            }
+            if (ch < 0 || ch > 0x10ffff || !isXMLChar(ch)) {
+                error("Character reference &#" + (radix == 16 ? "x" : "") +
+                        in.subSequence(start, pos) + "; does not refer to a valid XML character");
+            }
+            pos++;
+            buffer.appendWideChar(ch);
+            return;
+        }
+        String name = parseName();
+        expect(';');
+        if (name.equals("lt")) {
+            buffer.append('<');
+        } else if (name.equals("gt")) {
+            buffer.append('>');
+        } else if (name.equals("amp")) {
+            buffer.append('&');
+        } else if (name.equals("apos")) {
+            buffer.append('\'');
+        } else if (name.equals("quot")) {
+            buffer.append('"');
+        } else {
+            String replacement = internalEntities.get(name);
+            if (replacement == null) {
+                if (externalEntities.containsKey(name)) {
+                    error("Reference to external entity &" + name + "; is not supported");
+                }
+                error("Entity &" + name + "; has not been declared");
+            }
+            if (++entityExpansions > MAX_ENTITY_EXPANSIONS) {
+                error("Too many entity expansions");
+            }
+            for (int i = 0; i < inputStack.size(); i++) {
+                if (name.equals(inputStack.get(i)[4])) {
+                    error("Entity &" + name + "; is defined recursively");
+                }
+            }
+            if (replacement.indexOf('<') < 0 && replacement.indexOf('&') < 0) {
+                if (inAttribute) {
+                    for (int i = 0; i < replacement.length(); i++) {
+                        char c = replacement.charAt(i);
+                        buffer.append(isWhitespace(c) ? ' ' : c);
+                    }
+                } else {
+                    buffer.append(replacement);
+                }
+            } else if (inAttribute) {
+                // expand the replacement text recursively, applying attribute value normalization
+                pushInput(replacement, name);
+                while (pos < end) {
+                    char c = in.charAt(pos);
+                    if (c == '<') {
+                        error("The replacement text of entity &" + name +
+                                "; contains '<' and cannot be used in an attribute value");
+                    } else if (c == '&') {
+                        parseReference(buffer, true);
+                    } else {
+                        buffer.append(isWhitespace(c) ? ' ' : c);
+                        pos++;
+                    }
+                }
+                popInput();
+            } else {
+                // the replacement text is parsed as content: see parseContent()
+                pushInput(replacement, name);
+            }
+        }
+    }
+
+    private void pushInput(String replacement, String entityName) {
+        inputStack.add(new Object[]{in, Integer.valueOf(pos), Integer.valueOf(end), Integer.valueOf(depth), entityName});
+        in = replacement;
+        pos = 0;
+        end = replacement.length();
+    }
+
+    private void popInput() throws XPathException {
+        Object[] saved = inputStack.remove(inputStack.size() - 1);
+        if (depth != ((Integer)saved[3]).intValue()) {
+            inputStack.add(saved);
+            error("The replacement text of entity &" + saved[4] + "; is not a balanced element structure");
+        }
+        in = (CharSequence)saved[0];
+        pos = ((Integer)saved[1]).intValue();
+        end = ((Integer)saved[2]).intValue();
+    }
+
+    private void parseCDATASection() throws XPathException {
+        pos += 9;   // '<![CDATA['
+        int close = indexOf("]]>");
+        if (close < 0) {
+            error("Unterminated CDATA section");
+        }
+        checkChars(pos, close);
+        text.append(in.subSequence(pos, close));
+        pos = close + 3;
+    }
+
+    private void parseComment() throws XPathException {
+        pos += 4;   // '<!--'
+        int close = indexOf("--");
+        if (close < 0) {
+            error("Unterminated comment");
+        }
+        if (close + 2 >= end || in.charAt(close + 2) != '>') {
+            pos = close;
+            error("The sequence '--' is not allowed within a comment");
+        }
+        checkChars(pos, close);
+        CharSequence content = in.subSequence(pos, close);
+        pos = close + 3;
+        out.comment(content);
+    }
+
+    private void parseProcessingInstruction() throws XPathException {
+        pos += 2;   // '<?'
+        String target = parseName();
+        if (target.equalsIgnoreCase("xml")) {
+            error("The processing instruction target '" + target + "' is reserved");
+        }
+        if (target.indexOf(':') >= 0) {
+            error("The processing instruction target '" + target + "' must not contain a colon");
+        }
+        String data = "";
+        if (!startsWith("?>")) {
+            if (!skipWhitespace()) {
+                error("Whitespace is required after the processing instruction target");
+            }
+            int close = indexOf("?>");
+            if (close < 0) {
+                error("Unterminated processing instruction");
+            }
+            checkChars(pos, close);
+            data = in.subSequence(pos, close).toString();
+            pos = close;
+        }
+        pos += 2;
+        out.processingInstruction(target, data);
+    }
+
+    private void parseXmlDeclaration() throws XPathException {
+        int close = indexOf("?>");
+        if (close < 0) {
+            error("Unterminated XML declaration");
+        }
+        String decl = in.subSequence(pos + 5, close).toString().trim();
+        if (!decl.startsWith("version")) {
+            error("The XML declaration must start with a version number");
+        }
+        pos = close + 2;
+    }
+
+    /**
+     * Parse the document type declaration. Internal general entity declarations are recorded;
+     * other declarations are skipped, and the external subset is not read.
+     * @throws XPathException if the declaration is not well-formed
+     */
+
+    private void parseDoctype() throws XPathException {
+        pos += 9;   // '<!DOCTYPE'
+        if (!skipWhitespace()) {
+            error("Whitespace is required after <!DOCTYPE");
+        }
+        parseName();
+        skipWhitespace();
+        if (startsWith("SYSTEM") || startsWith("PUBLIC")) {
+            parseExternalID();
+            skipWhitespace();
+        }
+        if (pos < end && in.charAt(pos) == '[') {
+            pos++;
+            while (true) {
+                skipWhitespace();
+                if (pos >= end) {
+                    error("Unterminated internal DTD subset");
+                }
+                char c = in.charAt(pos);
+                if (c == ']') {
+                    pos++;
+                    break;
+                } else if (startsWith("<!--")) {
+                    int close = indexOf("-->");
+                    if (close < 0) {
+                        error("Unterminated comment");
+                    }
+                    pos = close + 3;
+                } else if (startsWith("<?")) {
+                    int close = indexOf("?>");
+                    if (close < 0) {
+                        error("Unterminated processing instruction");
+                    }
+                    pos = close + 2;
+                } else if (startsWith("<!ENTITY")) {
+                    parseEntityDeclaration();
+                } else if (startsWith("<!")) {
+                    skipDeclaration();
+                } else if (c == '%') {
+                    pos++;
+                    parseName();
+                    expect(';');
+                } else {
+                    error("Invalid content in internal DTD subset");
+                }
+            }
+            skipWhitespace();
+        }
+        expect('>');
+    }
+
+    private void parseEntityDeclaration() throws XPathException {
+        pos += 8;   // '<!ENTITY'
+        skipWhitespace();
+        boolean parameter = false;
+        if (pos < end && in.charAt(pos) == '%') {
+            parameter = true;
+            pos++;
+            skipWhitespace();
+        }
+        String name = parseName();
+        skipWhitespace();
+        if (pos < end && (in.charAt(pos) == '"' || in.charAt(pos) == '\'')) {
+            String replacement = parseEntityValue();
+            if (!parameter && !internalEntities.containsKey(name) && !externalEntities.containsKey(name)) {
+                internalEntities.put(name, replacement);
+            }
+        } else {
+            String sysId = parseExternalID();
+            if (!parameter && !internalEntities.containsKey(name) && !externalEntities.containsKey(name)) {
+                externalEntities.put(name, sysId);
+            }
+        }
+        skipDeclaration();
+    }
+
+    /**
+     * Parse the literal value in an internal entity declaration. Character references are expanded,
+     * entity references are retained to be expanded when the entity is used.
+     * @return the replacement text of the entity
+     * @throws XPathException if the literal is not well-formed
+     */
+
+    private String parseEntityValue() throws XPathException {
+        char quote = in.charAt(pos++);
+        FastStringBuffer sb = new FastStringBuffer(FastStringBuffer.SMALL);
+        while (true) {
+            if (pos >= end) {
+                error("Unterminated entity value");
+            }
+            char c = in.charAt(pos);
+            if (c == quote) {
+                pos++;
+                return sb.toString();
+            } else if (c == '&' && pos + 1 < end && in.charAt(pos + 1) == '#') {
+                parseReference(sb, false);
+            } else if (c == '%') {
+                error("Parameter entity references are not supported in entity values");
+            } else {
+                sb.append(c);
+                pos++;
+            }
+        }
+    }
+
+    private String parseExternalID() throws XPathException {
+        boolean isPublic = startsWith("PUBLIC");
+        pos += 6;
+        skipWhitespace();
+        String literal = parseQuotedLiteral();
+        if (isPublic) {
+            skipWhitespace();
+            literal = parseQuotedLiteral();
+        }
+        return literal;
+    }
+
+    private String parseQuotedLiteral() throws XPathException {
+        if (pos >= end || (in.charAt(pos) != '"' && in.charAt(pos) != '\'')) {
+            error("Expected a quoted literal");
+        }
+        char quote = in.charAt(pos++);
+        int start = pos;
+        while (pos < end && in.charAt(pos) != quote) {
+            pos++;
+        }
+        if (pos >= end) {
+            error("Unterminated quoted literal");
+        }
+        return in.subSequence(start, pos++).toString();
+    }
+
+    /**
+     * Skip a markup declaration in the internal subset, up to and including its closing '&gt;',
+     * ignoring any '&gt;' characters within quoted literals
+     * @throws XPathException if the declaration is not terminated
+     */
+
+    private void skipDeclaration() throws XPathException {
+        char quote = 0;
+        while (pos < end) {
+            char c = in.charAt(pos++);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return;
+            }
+        }
+        error("Unterminated markup declaration in internal DTD subset");
+    }
+
+    /**
+     * Parse an XML Name (which may contain colons)
+     * @return the name
+     * @throws XPathException if there is no valid name at the current position
+     */
+
+    private String parseName() throws XPathException {
+        int start = pos;
+        if (pos >= end || !isNameStartChar(in.charAt(pos))) {
+            error("Expected a name");
+        }
+        pos++;
+        while (pos < end && isNameChar(in.charAt(pos))) {
+            pos++;
+        }
+        return in.subSequence(start, pos).toString();
+    }
+
+    private static int hexDigitValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean isNameStartChar(char c) {
+        if (c < 0x80) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':';
+        }
+        return (c >= 0xD800 && c <= 0xDFFF) || NameChecker.isNCNameStartChar(c);
+    }
+
+    private static boolean isNameChar(char c) {
+        if (c < 0x80) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
+                    c == '_' || c == ':' || c == '-' || c == '.';
+        }
+        return (c >= 0xD800 && c <= 0xDFFF) || NameChecker.isNCNameChar(c);
+    }
+
+    private static boolean isNCName(String name) {
+        return name.length() > 0 && name.indexOf(':') < 0 && isNameStartChar(name.charAt(0));
+    }
+
+    private static boolean isXMLChar(int ch) {
+        return ch == 0x9 || ch == 0xA || ch == 0xD || (ch >= 0x20 && ch <= 0xD7FF) ||
+                (ch >= 0xE000 && ch <= 0xFFFD) || (ch >= 0x10000 && ch <= 0x10FFFF);
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r';
+    }
+
+    private boolean skipWhitespace() {
+        int start = pos;
+        while (pos < end && isWhitespace(in.charAt(pos))) {
+            pos++;
+        }
+        return pos > start;
+    }
+
+    private boolean startsWith(String s) {
+        int len = s.length();
+        if (pos + len > end) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (in.charAt(pos + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(String s) {
+        char first = s.charAt(0);
+        int len = s.length();
+        for (int i = pos; i + len <= end; i++) {
+            if (in.charAt(i) == first) {
+                int j = 1;
+                while (j < len && in.charAt(i + j) == s.charAt(j)) {
+                    j++;
+                }
+                if (j == len) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void expect(char c) throws XPathException {
+        if (pos >= end || in.charAt(pos) != c) {
+            error("Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    private void checkChars(int from, int to) throws XPathException {
+        for (int i = from; i < to; i++) {
+            char c = in.charAt(i);
+            if (c < 0x20 && c != '\n' && c != '\t') {
+                pos = i;
+                error("Invalid XML character (x" + Integer.toHexString(c) + ")");
+            }
+        }
+    }
+
+    private void flushText() throws XPathException {
+        if (text.length() > 0) {
+            out.characters(text);
+            text.setLength(0);
+        }
+    }
+
+    /**
+     * Normalize line endings as required by the XML specification: CRLF and CR are both replaced by LF
+     * @param input the input document
+     * @return the input with line endings normalized (the same object if it contains no CR characters)
+     */
+
+    private static CharSequence normalizeLineEndings(CharSequence input) {
+        int len = input.length();
+        int i = 0;
+        while (i < len && input.charAt(i) != '\r') {
+            i++;
+        }
+        if (i == len) {
+            return input;
+        }
+        FastStringBuffer sb = new FastStringBuffer(len);
+        sb.append(input.subSequence(0, i));
+        for (; i < len; i++) {
+            char c = input.charAt(i);
+            if (c == '\r') {
+                sb.append('\n');
+                if (i + 1 < len && input.charAt(i + 1) == '\n') {
+                    i++;
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb;
+    }
+
+    private static String[] grow(String[] array) {
+        String[] a2 = new String[array.length * 2];
+        System.arraycopy(array, 0, a2, 0, array.length);
+        return a2;
+    }
+
+    /**
+     * Report a well-formedness error, giving the line and column number of the current position in the
+     * document (or of the entity reference, if the error is within the replacement text of an entity)
+     * @param message the error message
+     * @throws XPathException always
+     */
+
+    private void error(String message) throws XPathException {
+        int offset = (inputStack.isEmpty() ? pos : ((Integer)inputStack.get(0)[1]).intValue());
+        int line = 1;
+        int column = 1;
+        for (int i = 0; i < offset && i < document.length(); i++) {
+            if (document.charAt(i) == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+        }
+        throw new XPathException("XML parser error at line " + line + " column " + column +
+                (systemId == null ? "" : " of " + systemId) + ": " + message, "SXXP0003");
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
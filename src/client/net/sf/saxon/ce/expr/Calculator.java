@@ -88,6 +88,19 @@ public abstract class Calculator  {
         new DecimalIdivDecimal()
     };
 
+    /**
+     * Calculators used when both operands are xs:integer
+     */
+
+    public final static Calculator[] INTEGER_INTEGER = {
+        new IntegerPlusInteger(),
+        new IntegerMinusInteger(),
+        new IntegerTimesInteger(),
+        new IntegerDivInteger(),
+        new IntegerModInteger(),
+        new IntegerIdivInteger()
+    };
+
 
     /**
      * Calculators used when both operands are xs:dateTime, xs:date, or xs:time
@@ -199,11 +212,13 @@ public abstract class Calculator  {
      */
 
     public static Calculator getCalculator(int typeA, int typeB, int operator, boolean mustResolve) {
-        if (typeA == StandardNames.XS_INTEGER) {
-            typeA = StandardNames.XS_DECIMAL;
-        }
-        if (typeB == StandardNames.XS_INTEGER) {
-            typeB = StandardNames.XS_DECIMAL;
+        if (typeA != StandardNames.XS_INTEGER || typeB != StandardNames.XS_INTEGER) {
+            if (typeA == StandardNames.XS_INTEGER) {
+                typeA = StandardNames.XS_DECIMAL;
+            }
+            if (typeB == StandardNames.XS_INTEGER) {
+                typeB = StandardNames.XS_DECIMAL;
+            }
         }
         int key = (typeA & 0xffff)<<16 | (typeB & 0xffff);
         Calculator[] set = table.get(key);
@@ -228,6 +243,7 @@ public abstract class Calculator  {
         def(StandardNames.XS_DECIMAL, StandardNames.XS_DOUBLE, DECIMAL_DOUBLE);
         def(StandardNames.XS_DECIMAL, StandardNames.XS_FLOAT, DECIMAL_FLOAT);
         def(StandardNames.XS_DECIMAL, StandardNames.XS_DECIMAL, DECIMAL_DECIMAL);
+        def(StandardNames.XS_INTEGER, StandardNames.XS_INTEGER, INTEGER_INTEGER);
         def(StandardNames.XS_DATE_TIME, StandardNames.XS_DATE_TIME, DATETIME_DATETIME);
         def(StandardNames.XS_DATE_TIME, StandardNames.XS_DURATION, DATETIME_DURATION);
         def(StandardNames.XS_DURATION, StandardNames.XS_DATE_TIME, DURATION_DATETIME);
@@ -698,6 +714,102 @@ public abstract class Calculator  {
         }
     }
 
+    /**
+     * Arithmetic: integer + integer
+     */
+
+    private static class IntegerPlusInteger extends Calculator {
+        public AtomicValue compute(AtomicValue a, AtomicValue b, XPathContext c) throws XPathException {
+            if (a instanceof IntegerValue && b instanceof IntegerValue) {
+                return ((IntegerValue)a).plus((IntegerValue)b);
+            }
+            return DECIMAL_DECIMAL[PLUS].compute(a, b, c);
+        }
+        public AtomicType getResultType(AtomicType typeA, AtomicType typeB) {
+            return BuiltInAtomicType.INTEGER;
+        }
+    }
+
+    /**
+     * Arithmetic: integer - integer
+     */
+
+    private static class IntegerMinusInteger extends Calculator {
+        public AtomicValue compute(AtomicValue a, AtomicValue b, XPathContext c) throws XPathException {
+            if (a instanceof IntegerValue && b instanceof IntegerValue) {
+                return ((IntegerValue)a).minus((IntegerValue)b);
+            }
+            return DECIMAL_DECIMAL[MINUS].compute(a, b, c);
+        }
+        public AtomicType getResultType(AtomicType typeA, AtomicType typeB) {
+            return BuiltInAtomicType.INTEGER;
+        }
+    }
+
+    /**
+     * Arithmetic: integer * integer
+     */
+
+    private static class IntegerTimesInteger extends Calculator {
+        public AtomicValue compute(AtomicValue a, AtomicValue b, XPathContext c) throws XPathException {
+            if (a instanceof IntegerValue && b instanceof IntegerValue) {
+                return ((IntegerValue)a).times((IntegerValue)b);
+            }
+            return DECIMAL_DECIMAL[TIMES].compute(a, b, c);
+        }
+        public AtomicType getResultType(AtomicType typeA, AtomicType typeB) {
+            return BuiltInAtomicType.INTEGER;
+        }
+    }
+
+    /**
+     * Arithmetic: integer div integer (the result is a decimal)
+     */
+
+    private static class IntegerDivInteger extends Calculator {
+        public AtomicValue compute(AtomicValue a, AtomicValue b, XPathContext c) throws XPathException {
+            if (a instanceof IntegerValue && b instanceof IntegerValue) {
+                return ((IntegerValue)a).div((IntegerValue)b);
+            }
+            return DECIMAL_DECIMAL[DIV].compute(a, b, c);
+        }
+        public AtomicType getResultType(AtomicType typeA, AtomicType typeB) {
+            return BuiltInAtomicType.DECIMAL;
+        }
+    }
+
+    /**
+     * Arithmetic: integer mod integer
+     */
+
+    private static class IntegerModInteger extends Calculator {
+        public AtomicValue compute(AtomicValue a, AtomicValue b, XPathContext c) throws XPathException {
+            if (a instanceof IntegerValue && b instanceof IntegerValue) {
+                return ((IntegerValue)a).mod((IntegerValue)b);
+            }
+            return DECIMAL_DECIMAL[MOD].compute(a, b, c);
+        }
+        public AtomicType getResultType(AtomicType typeA, AtomicType typeB) {
+            return BuiltInAtomicType.INTEGER;
+        }
+    }
+
+    /**
+     * Arithmetic: integer idiv integer
+     */
+
+    private static class IntegerIdivInteger extends Calculator {
+        public AtomicValue compute(AtomicValue a, AtomicValue b, XPathContext c) throws XPathException {
+            if (a instanceof IntegerValue && b instanceof IntegerValue) {
+                return ((IntegerValue)a).idiv((IntegerValue)b);
+            }
+            return DECIMAL_DECIMAL[IDIV].compute(a, b, c);
+        }
+        public AtomicType getResultType(AtomicType typeA, AtomicType typeB) {
+            return BuiltInAtomicType.INTEGER;
+        }
+    }
+
     /**
      * Arithmetic: date/time/dateTime - date/time/dateTime
      */
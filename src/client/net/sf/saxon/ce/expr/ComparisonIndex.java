@@ -0,0 +1,230 @@
+package client.net.sf.saxon.ce.expr;
+
+import client.net.sf.saxon.ce.expr.sort.AtomicComparer;
+import client.net.sf.saxon.ce.expr.sort.CodepointCollator;
+import client.net.sf.saxon.ce.lib.StringCollator;
+import client.net.sf.saxon.ce.om.SequenceIterator;
+import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.type.BuiltInAtomicType;
+import client.net.sf.saxon.ce.value.*;
+
+import java.util.HashSet;
+
+/**
+ * A ComparisonIndex holds the atomic values of one operand of a general comparison in a form
+ * that allows each value of the other operand to be tested against all of them at once, rather
+ * than by a nested loop. For the operators = and != the index is a hash set of comparison keys;
+ * for the operators &lt;, &lt;=, &gt;, &gt;= it is the minimum and maximum value.
+ *
+ * <p>An index can only be built when all the values fall within a single family whose
+ * comparison semantics are context-free and consistent with Java hashing: either all numeric,
+ * or all strings (including xs:untypedAtomic and xs:anyURI) compared using the codepoint collation.
+ * A value of the other operand that falls outside the family (which might need conversion of
+ * untyped values to another type, or might raise a type error) cannot be probed, and the caller
+ * must then fall back to comparing it with each value in turn.</p>
+ *
+ * <p>The hash set and the minimum/maximum are built lazily, on first use.</p>
+ */
+
+public class ComparisonIndex {
+
+    private static final int NUMERIC = 1;
+    private static final int STRING = 2;
+
+    private AtomicValue[] values;
+    private int family;
+    private HashSet<Object> keys;
+    private boolean containsNaN;
+    private boolean minMaxKnown;
+    private AtomicValue min;
+    private AtomicValue max;
+
+    private ComparisonIndex(AtomicValue[] values, int family) {
+        this.values = values;
+        this.family = family;
+    }
+
+    /**
+     * Make an index over a sequence of atomic values
+     * @param seq the sequence of atomic values to be indexed
+     * @param comparer the comparer that will be used for the comparison
+     * @return the index, or null if the values cannot be indexed (because they are of mixed types,
+     * or because strings are compared using a collation other than the codepoint collation)
+     * @throws XPathException if a failure occurs reading the sequence
+     */
+
+    public static ComparisonIndex makeIndex(Value seq, AtomicComparer comparer) throws XPathException {
+        int len = seq.getLength();
+        if (len == 0) {
+            return null;
+        }
+        AtomicValue[] values = new AtomicValue[len];
+        int family = 0;
+        SequenceIterator iter = seq.iterate();
+        for (int i=0; i<len; i++) {
+            AtomicValue v = (AtomicValue)iter.next();
+            int f = getFamily(v);
+            if (f == 0 || (family != 0 && f != family)) {
+                return null;
+            }
+            family = f;
+            values[i] = v;
+        }
+        if (family == STRING && !isCodepointComparer(comparer)) {
+            return null;
+        }
+        return new ComparisonIndex(values, family);
+    }
+
+    private static int getFamily(AtomicValue v) {
+        if (v instanceof NumericValue) {
+            return NUMERIC;
+        } else if (v instanceof StringValue) {
+            return STRING;
+        } else {
+            return 0;
+        }
+    }
+
+    private static boolean isCodepointComparer(AtomicComparer comparer) {
+        StringCollator collator = comparer.getCollator();
+        return collator == null || collator instanceof CodepointCollator;
+    }
+
+    /**
+     * Get the number of values in the index
+     * @return the number of values
+     */
+
+    public int getLength() {
+        return values.length;
+    }
+
+    /**
+     * Convert a value of the other operand to the form in which it can be tested against the index,
+     * applying the rules for untyped atomic values
+     * @param a the value of the other operand
+     * @return the converted value, or null if the value cannot be tested against the index, in which case
+     * the caller must compare it against each indexed value in turn
+     * @throws XPathException if conversion of an untyped atomic value fails
+     */
+
+    private AtomicValue prepare(AtomicValue a) throws XPathException {
+        if (family == NUMERIC) {
+            if (a instanceof NumericValue) {
+                return a;
+            } else if (a instanceof UntypedAtomicValue) {
+                return a.convert(BuiltInAtomicType.DOUBLE, true).asAtomic();
+            } else {
+                return null;
+            }
+        } else {
+            return (a instanceof StringValue ? a : null);
+        }
+    }
+
+    private Object getKey(AtomicValue v) {
+        if (family == NUMERIC) {
+            return v;
+        } else {
+            return v.getStringValue();
+        }
+    }
+
+    private void buildKeys() {
+        keys = new HashSet<Object>(values.length * 2);
+        for (int i=0; i<values.length; i++) {
+            AtomicValue v = values[i];
+            if (v.isNaN()) {
+                containsNaN = true;
+            } else {
+                keys.add(getKey(v));
+            }
+        }
+    }
+
+    private void buildMinMax() {
+        minMaxKnown = true;
+        for (int i=0; i<values.length; i++) {
+            AtomicValue v = values[i];
+            if (v.isNaN()) {
+                continue;
+            }
+            if (min == null) {
+                min = v;
+                max = v;
+            } else if (compareValues(v, min) < 0) {
+                min = v;
+            } else if (compareValues(v, max) > 0) {
+                max = v;
+            }
+        }
+    }
+
+    private int compareValues(AtomicValue a, AtomicValue b) {
+        if (family == NUMERIC) {
+            return ((NumericValue)a).compareTo(b);
+        } else {
+            return CodepointCollator.getInstance().compareCS(a.getStringValueCS(), b.getStringValueCS());
+        }
+    }
+
+    /**
+     * Test whether a value of the other operand satisfies the comparison with at least one
+     * of the indexed values
+     * @param a the value of the other operand (the left-hand operand of the comparison)
+     * @param singletonOperator the singleton operator, for example {@link Token#FEQ}
+     * @param comparer the comparer used for the comparison
+     * @param context the dynamic evaluation context
+     * @return true if the comparison "a op v" is true for some indexed value v
+     * @throws XPathException if the comparison fails dynamically
+     */
+
+    public boolean matches(AtomicValue a, int singletonOperator, AtomicComparer comparer, XPathContext context)
+            throws XPathException {
+        AtomicValue p = prepare(a);
+        if (p == null) {
+            // the value cannot be probed: compare it with each indexed value in turn
+            for (int i=0; i<values.length; i++) {
+                if (GeneralComparison.compare(a, singletonOperator, values[i], comparer, true, context)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        switch (singletonOperator) {
+            case Token.FEQ:
+                if (keys == null) {
+                    buildKeys();
+                }
+                return !p.isNaN() && keys.contains(getKey(p));
+            case Token.FNE:
+                if (keys == null) {
+                    buildKeys();
+                }
+                if (p.isNaN() || containsNaN || keys.size() > 1) {
+                    return true;
+                }
+                return !keys.contains(getKey(p));
+            case Token.FLT:
+            case Token.FLE:
+                if (!minMaxKnown) {
+                    buildMinMax();
+                }
+                return max != null && GeneralComparison.compare(a, singletonOperator, max, comparer, true, context);
+            case Token.FGT:
+            case Token.FGE:
+                if (!minMaxKnown) {
+                    buildMinMax();
+                }
+                return min != null && GeneralComparison.compare(a, singletonOperator, min, comparer, true, context);
+            default:
+                throw new UnsupportedOperationException("Unknown operator " + singletonOperator);
+        }
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -221,6 +221,17 @@ public class ExpressionTool {
             case MAKE_SINGLETON_CLOSURE:
                 return new SingletonClosure(exp, context);
 
+            case MAKE_INDEXED_VARIABLE:
+                if (exp instanceof VariableReference) {
+                    // an argument passed on unchanged (typically in a recursive call) keeps its index
+                    ValueRepresentation var = ((VariableReference)exp).evaluateVariable(context);
+                    if (var instanceof IndexedValue) {
+                        return var;
+                    }
+                    return new IndexedValue(Value.asIterator(var));
+                }
+                return new IndexedValue(exp.iterate(context));
+
             case RETURN_EMPTY_SEQUENCE:
                 return EmptySequence.getInstance();
 
@@ -247,6 +247,11 @@ public final class FilterExpression extends Expression {
             if (value != null) {
                 return new Literal(value);
             }
+            // try to replace the filter by a lookup in an index built for each document
+            Expression indexed = opt.makeIndexedFilter((FilterExpression)result, visitor);
+            if (indexed != null) {
+                return indexed;
+            }
         }
         return result;
     }
@@ -2,6 +2,8 @@ package client.net.sf.saxon.ce.expr;
 
 import client.net.sf.saxon.ce.expr.sort.AtomicComparer;
 import client.net.sf.saxon.ce.expr.sort.CodepointCollator;
+import client.net.sf.saxon.ce.expr.instruct.GlobalVariable;
+import client.net.sf.saxon.ce.expr.instruct.UserFunctionParameter;
 import client.net.sf.saxon.ce.expr.sort.GenericAtomicComparer;
 import client.net.sf.saxon.ce.functions.Minimax;
 import client.net.sf.saxon.ce.functions.SystemFunction;
@@ -9,6 +11,7 @@ import client.net.sf.saxon.ce.lib.StringCollator;
 import client.net.sf.saxon.ce.om.Item;
 import client.net.sf.saxon.ce.om.NamePool;
 import client.net.sf.saxon.ce.om.SequenceIterator;
+import client.net.sf.saxon.ce.om.ValueRepresentation;
 import client.net.sf.saxon.ce.pattern.EmptySequenceTest;
 import client.net.sf.saxon.ce.trans.XPathException;
 import client.net.sf.saxon.ce.type.*;
@@ -28,6 +31,14 @@ public class GeneralComparison extends BinaryExpression implements ComparisonExp
     protected int singletonOperator;
     protected AtomicComparer comparer;
 
+    /**
+     * The number of items in the second operand at or above which the comparison is evaluated by
+     * building a {@link ComparisonIndex} over the second operand, rather than by a nested loop.
+     * The index is only built once the first operand is known to have more than one item.
+     */
+
+    private static final int INDEX_THRESHOLD = 8;
+
 
     /**
      * Create a relational expression identifying the two operands and the operator
@@ -431,9 +442,137 @@ public class GeneralComparison extends BinaryExpression implements ComparisonExp
             return Literal.makeLiteral((AtomicValue)evaluateItem(env.makeEarlyEvaluationContext()));
         }
 
+        // If one operand is a function parameter and the other depends on the focus, the comparison is
+        // likely to be evaluated repeatedly against the same parameter value, so ask for it to be indexed
+
+        if (operator == Token.EQUALS || operator == Token.NE) {
+            markIndexedParameter(operand1, operand0);
+            markIndexedParameter(operand0, operand1);
+        }
+
         return this;
     }
 
+    /**
+     * Mark a function parameter as an indexed variable if it is used as one operand of the comparison
+     * while the other operand depends on the focus
+     * @param exp the operand that might be a reference to a function parameter
+     * @param other the other operand
+     */
+
+    private static void markIndexedParameter(Expression exp, Expression other) {
+        if ((other.getDependencies() & StaticProperty.DEPENDS_ON_FOCUS) != 0) {
+            if (exp instanceof Atomizer) {
+                exp = ((Atomizer)exp).getBaseExpression();
+            }
+            if (exp instanceof VariableReference) {
+                Binding binding = ((VariableReference)exp).getBinding();
+                if (binding instanceof UserFunctionParameter) {
+                    ((UserFunctionParameter)binding).setIndexedVariable(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * If an operand is a reference to a variable whose value is an IndexedValue, return that value
+     * @param exp the operand
+     * @param context the dynamic evaluation context
+     * @return the IndexedValue, or null if the operand does not evaluate to an IndexedValue
+     * @throws XPathException if evaluation of the variable fails
+     */
+
+    private static IndexedValue getIndexedValue(Expression exp, XPathContext context) throws XPathException {
+        if (exp instanceof Atomizer) {
+            exp = ((Atomizer)exp).getBaseExpression();
+        }
+        if (exp instanceof VariableReference) {
+            ValueRepresentation val = ((VariableReference)exp).evaluateVariable(context);
+            if (val instanceof IndexedValue) {
+                return (IndexedValue)val;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Evaluate the comparison by probing an index built over the values of one operand
+     * @param probe iterator over the values of the other operand
+     * @param index the index over the values of the indexed operand
+     * @param op the singleton operator, expressed as "probe op indexed"
+     * @param context the dynamic evaluation context
+     * @return the result of the comparison
+     * @throws XPathException if a dynamic error occurs
+     */
+
+    private boolean probeIndex(SequenceIterator probe, ComparisonIndex index, int op, XPathContext context)
+            throws XPathException {
+        while (true) {
+            AtomicValue s1 = (AtomicValue)probe.next();
+            if (s1 == null) {
+                return false;
+            }
+            if (index.matches(s1, op, comparer, context)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Compare one value of the first operand with each value of the second operand in turn
+     * @param s1 the value of the first operand
+     * @param seq2 the materialized value of the second operand
+     * @param context the dynamic evaluation context
+     * @return true if the comparison is true for some value of the second operand
+     * @throws XPathException if a dynamic error occurs
+     */
+
+    private boolean compareWithSequence(AtomicValue s1, Value seq2, XPathContext context)
+            throws XPathException {
+        SequenceIterator e2 = seq2.iterate();
+        while (true) {
+            AtomicValue s2 = (AtomicValue)e2.next();
+            if (s2 == null) {
+                return false;
+            }
+            if (compare(s1, singletonOperator, s2, comparer, true, context)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * If an operand is a (possibly atomized) reference to a local or global variable, replace the value
+     * of the variable by an IndexedValue holding the same items. Later evaluations of the comparison
+     * with the same binding of the variable, for example for each context item of a predicate such as
+     * [@id = $list], then find the index already built. The index lives as long as the binding of the
+     * variable, in the local stack frame or among the global variables of the transformation.
+     * @param exp the operand
+     * @param context the dynamic evaluation context
+     * @return the IndexedValue now bound to the variable, or null if the operand is not a variable reference
+     * @throws XPathException if evaluation of the variable fails
+     */
+
+    private static IndexedValue indexVariable(Expression exp, XPathContext context) throws XPathException {
+        if (exp instanceof Atomizer) {
+            exp = ((Atomizer)exp).getBaseExpression();
+        }
+        if (!(exp instanceof VariableReference)) {
+            return null;
+        }
+        VariableReference ref = (VariableReference)exp;
+        Binding binding = ref.getBinding();
+        if (ref instanceof LocalVariableReference) {
+            IndexedValue indexed = new IndexedValue(Value.asIterator(ref.evaluateVariable(context)));
+            context.setLocalVariable(((LocalVariableReference)ref).getSlotNumber(), indexed);
+            return indexed;
+        } else if (binding instanceof GlobalVariable) {
+            IndexedValue indexed = new IndexedValue(Value.asIterator(ref.evaluateVariable(context)));
+            context.getController().getBindery().defineGlobalVariable((GlobalVariable)binding, indexed);
+            return indexed;
+        }
+        return null;
+    }
 
     /**
      * Evaluate the expression in a given context
@@ -456,6 +595,22 @@ public class GeneralComparison extends BinaryExpression implements ComparisonExp
     public boolean effectiveBooleanValue(XPathContext context) throws XPathException {
 
         try {
+            IndexedValue indexed = getIndexedValue(operand1, context);
+            if (indexed != null) {
+                ComparisonIndex index = indexed.getComparisonIndex(comparer);
+                if (index != null) {
+                    return probeIndex(operand0.iterate(context), index, singletonOperator, context);
+                }
+            } else {
+                indexed = getIndexedValue(operand0, context);
+                if (indexed != null) {
+                    ComparisonIndex index = indexed.getComparisonIndex(comparer);
+                    if (index != null) {
+                        return probeIndex(operand1.iterate(context), index, Token.inverse(singletonOperator), context);
+                    }
+                }
+            }
+
             SequenceIterator iter1 = operand0.iterate(context);
             SequenceIterator iter2 = operand1.iterate(context);
 
@@ -481,20 +636,42 @@ public class GeneralComparison extends BinaryExpression implements ComparisonExp
                 return false;
             }
 
+            if (count2 >= INDEX_THRESHOLD) {
+                // A single item in the first operand is compared by a scan of the second operand, which
+                // can exit early. Only when a second item appears is it worth indexing the values of the
+                // second operand, so that each remaining item is tested against all of them at once
+                AtomicValue s1 = (AtomicValue)iter1.next();
+                if (s1 == null) {
+                    return false;
+                }
+                if (compareWithSequence(s1, seq2, context)) {
+                    return true;
+                }
+                s1 = (AtomicValue)iter1.next();
+                if (s1 == null) {
+                    return false;
+                }
+                // a variable that is already indexed has values that cannot be indexed with this comparer
+                IndexedValue bound = (getIndexedValue(operand1, context) == null ?
+                        indexVariable(operand1, context) : null);
+                ComparisonIndex index = (bound == null ?
+                        ComparisonIndex.makeIndex(seq2, comparer) : bound.getComparisonIndex(comparer));
+                if (index != null) {
+                    return index.matches(s1, singletonOperator, comparer, context) ||
+                            probeIndex(iter1, index, singletonOperator, context);
+                }
+                if (compareWithSequence(s1, seq2, context)) {
+                    return true;
+                }
+            }
+
             while (true) {
                 AtomicValue s1 = (AtomicValue)iter1.next();
                 if (s1 == null) {
                     break;
                 }
-                SequenceIterator e2 = seq2.iterate();
-                while (true) {
-                    AtomicValue s2 = (AtomicValue)e2.next();
-                    if (s2 == null) {
-                        break;
-                    }
-                    if (compare(s1, singletonOperator, s2, comparer, true, context)) {
-                        return true;
-                    }
+                if (compareWithSequence(s1, seq2, context)) {
+                    return true;
                 }
             }
 
@@ -0,0 +1,254 @@
+package client.net.sf.saxon.ce.expr;
+
+import client.net.sf.saxon.ce.expr.sort.LocalOrderComparer;
+import client.net.sf.saxon.ce.om.DocumentInfo;
+import client.net.sf.saxon.ce.om.Item;
+import client.net.sf.saxon.ce.om.NodeInfo;
+import client.net.sf.saxon.ce.om.SequenceIterator;
+import client.net.sf.saxon.ce.trace.ExpressionPresenter;
+import client.net.sf.saxon.ce.trans.KeyManager;
+import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.tree.iter.EmptyIterator;
+import client.net.sf.saxon.ce.tree.iter.ListIterator;
+import client.net.sf.saxon.ce.type.ItemType;
+import client.net.sf.saxon.ce.type.TypeHierarchy;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An IndexedFilterExpression is the result of rewriting a filter expression of the form
+ * <code>R/steps[use = value]</code>, where R selects a single document node, the steps are
+ * context-free apart from their dependency on R, <code>use</code> depends only on the focus, and
+ * <code>value</code> does not depend on the focus. Instead of evaluating the predicate for every
+ * node selected by the path, the expression looks up the value in an index, built the first time
+ * it is needed for a particular document, that maps the values of <code>use</code> to the nodes
+ * having those values.
+ *
+ * <p>The rewrite is made by the {@link Optimizer} only where both operands of the comparison are
+ * strings (or untyped atomic values or URIs) compared using the Unicode codepoint collation, so that
+ * the equality test reduces to equality of string values. The indexes are held by the
+ * {@link KeyManager} alongside those built for xsl:key definitions.</p>
+ */
+
+public final class IndexedFilterExpression extends Expression {
+
+    private Expression start;
+    private Expression steps;
+    private Expression use;
+    private Expression value;
+    private int indexNumber;
+
+    /**
+     * Create an indexed filter expression
+     * @param start the expression that selects the document node at the root of the path
+     * @param steps the remaining steps of the path, selecting the nodes to be filtered
+     * @param use the operand of the comparison that depends on the focus
+     * @param value the operand of the comparison that does not depend on the focus
+     * @param indexNumber the number identifying the internal index, allocated by the KeyManager
+     */
+
+    public IndexedFilterExpression(Expression start, Expression steps, Expression use, Expression value,
+                                   int indexNumber) {
+        this.start = start;
+        this.steps = steps;
+        this.use = use;
+        this.value = value;
+        this.indexNumber = indexNumber;
+        adoptChildExpression(start);
+        adoptChildExpression(steps);
+        adoptChildExpression(use);
+        adoptChildExpression(value);
+    }
+
+    /**
+     * Get the number identifying the internal index used by this expression
+     * @return the index number
+     */
+
+    public int getIndexNumber() {
+        return indexNumber;
+    }
+
+    /**
+     * Get the data type of the items returned
+     */
+
+    public ItemType getItemType(TypeHierarchy th) {
+        return steps.getItemType(th);
+    }
+
+    /**
+     * Promote this expression if possible. Only the root of the path and the sought value are
+     * evaluated in the outer focus, so promotions are not offered to the other subexpressions.
+     */
+
+    public Expression promote(PromotionOffer offer, Expression parent) throws XPathException {
+        Expression exp = offer.accept(parent, this);
+        if (exp != null) {
+            return exp;
+        } else {
+            start = doPromotion(start, offer);
+            value = doPromotion(value, offer);
+            return this;
+        }
+    }
+
+    /**
+     * Get the immediate subexpressions of this expression
+     */
+
+    public Iterator<Expression> iterateSubExpressions() {
+        return Arrays.asList((new Expression[]{start, steps, use, value})).iterator();
+    }
+
+    /**
+     * Given an expression that is an immediate child of this expression, test whether
+     * the evaluation of the parent expression causes the child expression to be
+     * evaluated repeatedly
+     * @param child the immediate subexpression
+     * @return true if the child expression is evaluated repeatedly
+     */
+
+    public boolean hasLoopingSubexpression(Expression child) {
+        return child == use;
+    }
+
+    /**
+     * Replace one subexpression by a replacement subexpression
+     * @param original the original subexpression
+     * @param replacement the replacement subexpression
+     * @return true if the original subexpression is found
+     */
+
+    public boolean replaceSubExpression(Expression original, Expression replacement) {
+        boolean found = false;
+        if (start == original) {
+            start = replacement;
+            found = true;
+        }
+        if (steps == original) {
+            steps = replacement;
+            found = true;
+        }
+        if (use == original) {
+            use = replacement;
+            found = true;
+        }
+        if (value == original) {
+            value = replacement;
+            found = true;
+        }
+        return found;
+    }
+
+    /**
+     * Determine which aspects of the context the expression depends on. The steps and the use
+     * expression are evaluated with a different focus, and depend on nothing else.
+     */
+
+    public int computeDependencies() {
+        return start.getDependencies() | value.getDependencies();
+    }
+
+    /**
+     * Get the static cardinality of this expression
+     */
+
+    public int computeCardinality() {
+        return StaticProperty.ALLOWS_ZERO_OR_MORE;
+    }
+
+    /**
+     * Get the static properties of this expression (other than its type). The nodes are always
+     * delivered in document order, and all belong to the same document.
+     */
+
+    public int computeSpecialProperties() {
+        return StaticProperty.ORDERED_NODESET |
+                StaticProperty.SINGLE_DOCUMENT_NODESET |
+                StaticProperty.NON_CREATIVE;
+    }
+
+    /**
+     * Is this expression the same as another expression?
+     */
+
+    public boolean equals(Object other) {
+        if (!(other instanceof IndexedFilterExpression)) {
+            return false;
+        }
+        IndexedFilterExpression f = (IndexedFilterExpression)other;
+        return start.equals(f.start) && steps.equals(f.steps) && use.equals(f.use) && value.equals(f.value);
+    }
+
+    /**
+     * get HashCode for comparing two expressions
+     */
+
+    public int hashCode() {
+        return "IndexedFilterExpression".hashCode() + start.hashCode() + steps.hashCode() +
+                use.hashCode() + value.hashCode();
+    }
+
+    /**
+     * Iterate over the nodes selected by the path whose use value is equal to one of the sought values
+     * @param context the evaluation context
+     */
+
+    public SequenceIterator iterate(XPathContext context) throws XPathException {
+        DocumentInfo doc = (DocumentInfo)start.evaluateItem(context);
+        if (doc == null) {
+            return EmptyIterator.getInstance();
+        }
+        KeyManager km = context.getController().getExecutable().getKeyManager();
+        HashMap<Object, List<NodeInfo>> index = km.getInternalIndex(doc, indexNumber, steps, use, context);
+        SequenceIterator result = null;
+        SequenceIterator sought = value.iterate(context);
+        while (true) {
+            Item item = sought.next();
+            if (item == null) {
+                break;
+            }
+            List<NodeInfo> nodes = index.get(item.getStringValue());
+            if (nodes != null) {
+                if (result == null) {
+                    result = new ListIterator(nodes);
+                } else {
+                    result = new UnionEnumeration(result, new ListIterator(nodes), LocalOrderComparer.getInstance());
+                }
+            }
+        }
+        return (result == null ? EmptyIterator.getInstance() : result);
+    }
+
+    /**
+     * Diagnostic print of expression structure, showing the index used in place of the filter
+     */
+
+    public void explain(ExpressionPresenter out) {
+        out.startElement("indexedFilter");
+        out.emitAttribute("index", Integer.toString(-indexNumber));
+        out.emitAttribute("select", start.toString() + "/" + steps.toString());
+        out.emitAttribute("use", use.toString());
+        out.emitAttribute("value", value.toString());
+        out.endElement();
+    }
+
+    /**
+     * The toString() method for an expression attempts to give a representation of the expression
+     * in an XPath-like form, but there is no guarantee that the syntax will actually be true XPath.
+     */
+
+    public String toString() {
+        return "(" + start.toString() + "/" + steps.toString() + ")[" + use.toString() + " = " +
+                value.toString() + "] (indexed)";
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
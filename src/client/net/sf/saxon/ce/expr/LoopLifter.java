@@ -0,0 +1,506 @@
+package client.net.sf.saxon.ce.expr;
+
+import client.net.sf.saxon.ce.expr.instruct.*;
+import client.net.sf.saxon.ce.functions.Available;
+import client.net.sf.saxon.ce.functions.CollatingFunction;
+import client.net.sf.saxon.ce.functions.Doc;
+import client.net.sf.saxon.ce.functions.DocAvailable;
+import client.net.sf.saxon.ce.functions.DocumentFn;
+import client.net.sf.saxon.ce.functions.FormatNumber;
+import client.net.sf.saxon.ce.functions.ResolveURI;
+import client.net.sf.saxon.ce.functions.SystemProperty;
+import client.net.sf.saxon.ce.functions.UnparsedText;
+import client.net.sf.saxon.ce.lib.NamespaceConstant;
+import client.net.sf.saxon.ce.om.StructuredQName;
+import client.net.sf.saxon.ce.pattern.PatternSponsor;
+import client.net.sf.saxon.ce.type.TypeHierarchy;
+import client.net.sf.saxon.ce.value.Cardinality;
+import client.net.sf.saxon.ce.value.SequenceType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * The LoopLifter rewrites the body of a template or function so that subexpressions whose value cannot
+ * change during its evaluation are evaluated only once. It is used by the {@link Optimizer}, and performs
+ * two rewrites:
+ *
+ * <ul>
+ * <li>A subexpression that depends on nothing but constants and global variables is promoted to a new
+ * global variable, so that it is evaluated at most once per transformation, however many times the
+ * template or function is invoked. Identical subexpressions, in the same body or in different bodies,
+ * share the same global variable, unless they call functions that depend on the static context.</li>
+ * <li>A subexpression that does not depend on the focus, but does depend on local variables or parameters,
+ * is bound to a new local variable at the start of the scope of the innermost of those variables, provided
+ * that it occurs more than once in that scope, or occurs within a loop (such as the body of an
+ * xsl:for-each or a predicate). Identical subexpressions share the same local variable.</li>
+ * </ul>
+ *
+ * <p>Both kinds of variable are evaluated lazily, so a subexpression that was evaluated conditionally is
+ * still only evaluated if it is needed. The rewrite is confined to subexpressions that are free of side
+ * effects and do not create new nodes, and that do not use the HTML page: a global variable is considered
+ * safe only if it does not depend on the focus (which may be the HTML page), on stylesheet parameters, or
+ * on calls to stylesheet functions or extension functions.</p>
+ *
+ * <p>Generated global variables are named in the {@link NamespaceConstant#SAXON_GENERATED_GLOBAL}
+ * namespace, and generated local variables in the Saxon namespace, so the rewrites are visible in
+ * diagnostic output. Each rewrite is also logged at level FINE.</p>
+ */
+
+public final class LoopLifter {
+
+    private static Logger logger = Logger.getLogger("Optimizer");
+
+    private Executable executable;
+    private TypeHierarchy th;
+    private HashMap<GlobalVariable, Boolean> stableGlobals = new HashMap<GlobalVariable, Boolean>();
+    private HashSet<LetExpression> generatedLets = new HashSet<LetExpression>();
+    private int localVariableNames = 0;     // used to name local variables if there is no executable
+
+    /**
+     * An occurrence of a candidate subexpression
+     */
+
+    private static class Occurrence {
+        public Expression parent;
+        public Expression child;
+        public boolean inLoop;
+
+        public Occurrence(Expression parent, Expression child, boolean inLoop) {
+            this.parent = parent;
+            this.child = child;
+            this.inLoop = inLoop;
+        }
+    }
+
+    /**
+     * Create a LoopLifter
+     * @param visitor the expression visitor, which supplies the configuration and the executable
+     */
+
+    public LoopLifter(ExpressionVisitor visitor) {
+        this.executable = visitor.getExecutable();
+        this.th = visitor.getConfiguration().getTypeHierarchy();
+    }
+
+    /**
+     * Replace subexpressions that depend only on constants and global variables by references to
+     * new global variables
+     * @param body the body of a template or function
+     * @return the rewritten body
+     */
+
+    public Expression promoteToGlobal(Expression body) {
+        if (executable == null) {
+            return body;
+        }
+        promoteChildrenToGlobal(body);
+        return body;
+    }
+
+    private boolean promoteChildrenToGlobal(Expression parent) {
+        boolean changed = false;
+        for (Expression child : children(parent)) {
+            if (child instanceof PatternSponsor) {
+                continue;
+            }
+            if (isLiftable(child, null)) {
+                boolean shared = !dependsOnStaticContext(child);
+                GlobalVariable var = (shared ? executable.getGeneratedGlobalVariable(child) : null);
+                if (var == null) {
+                    var = makeGlobalVariable(child, shared);
+                }
+                VariableReference ref = new VariableReference(var);
+                setStaticType(ref, child);
+                ExpressionTool.copyLocationInfo(child, ref);
+                if (parent.replaceSubExpression(child, ref)) {
+                    logger.fine("Promoted " + child.toString() + " to global variable $" +
+                            var.getVariableQName().getDisplayName());
+                    changed = true;
+                }
+            } else if (promoteChildrenToGlobal(child)) {
+                changed = true;
+            }
+        }
+        if (changed) {
+            parent.resetLocalStaticProperties();
+        }
+        return changed;
+    }
+
+    private GlobalVariable makeGlobalVariable(Expression select, boolean shared) {
+        GlobalVariable var = new GlobalVariable();
+        StructuredQName name = new StructuredQName(
+                "gg", NamespaceConstant.SAXON_GENERATED_GLOBAL, "gg" + executable.allocateGeneratedVariableNumber());
+        var.init(select, name);
+        var.setRequiredType(SequenceType.makeSequenceType(select.getItemType(th), select.getCardinality()));
+        var.setExecutable(executable);
+        var.setContainer(var);
+        select.setContainer(var);
+        ExpressionTool.copyLocationInfo(select, var);
+        var.setSlotNumber(executable.getGlobalVariableMap().allocateSlotNumber(name));
+        if (shared) {
+            executable.addGeneratedGlobalVariable(var);
+        }
+        stableGlobals.put(var, Boolean.TRUE);
+        return var;
+    }
+
+    /**
+     * Determine whether the value of an expression depends on its static context, other than through
+     * the names already resolved when it was parsed: that is, whether it contains a call on a function
+     * that uses the static base URI, the default collation, or the in-scope namespaces. Two such
+     * expressions that are equal according to equals() may have different values if they come from
+     * different stylesheet modules or elements, so they must not share a generated global variable.
+     */
+
+    private static boolean dependsOnStaticContext(Expression exp) {
+        if (exp instanceof Doc || exp instanceof DocumentFn || exp instanceof DocAvailable ||
+                exp instanceof UnparsedText || exp instanceof ResolveURI || exp instanceof CollatingFunction ||
+                exp instanceof FormatNumber || exp instanceof SystemProperty || exp instanceof Available) {
+            return true;
+        }
+        for (Expression child : children(exp)) {
+            if (dependsOnStaticContext(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bind repeated and loop-invariant subexpressions that depend on local variables or parameters
+     * to new local variables
+     * @param body the body of a template or function. In the case of a template, the body may start with
+     * the xsl:param instructions that bind the template's parameters.
+     * @return the rewritten body
+     */
+
+    public Expression eliminateCommonSubexpressions(Expression body) {
+        if (body instanceof Block && ((Block)body).containsLocalParam()) {
+            // the scope of the parameters is the rest of the block
+            Expression[] children = ((Block)body).getChildren();
+            int firstInstruction = 0;
+            while (firstInstruction < children.length && children[firstInstruction] instanceof LocalParam) {
+                firstInstruction++;
+            }
+            if (firstInstruction == children.length) {
+                return body;
+            }
+            Expression rest;
+            if (firstInstruction == children.length - 1) {
+                rest = children[firstInstruction];
+            } else {
+                Expression[] instructions = new Expression[children.length - firstInstruction];
+                System.arraycopy(children, firstInstruction, instructions, 0, instructions.length);
+                Block block = new Block();
+                block.setChildren(instructions);
+                ExpressionTool.copyLocationInfo(instructions[0], block);
+                rest = block;
+            }
+            Expression rest2 = liftWithinScope(rest);
+            if (rest2 != rest) {
+                Expression[] children2 = new Expression[firstInstruction + 1];
+                System.arraycopy(children, 0, children2, 0, firstInstruction);
+                children2[firstInstruction] = rest2;
+                ((Block)body).setChildren(children2);
+            }
+            return body;
+        } else {
+            return liftWithinScope(body);
+        }
+    }
+
+    /**
+     * Lift repeated and loop-invariant subexpressions within a scope, and then within the nested
+     * scopes of the local variables declared within it
+     * @param scope the expression within which the variables in scope do not change
+     * @return the rewritten scope, which is the original expression wrapped in any new let expressions
+     */
+
+    private Expression liftWithinScope(Expression scope) {
+        HashSet<Binding> declared = new HashSet<Binding>();
+        gatherBindings(scope, declared);
+
+        Expression result = scope;
+        HashMap<Expression, LetExpression> lifted = new HashMap<Expression, LetExpression>();
+        List<Occurrence> searchList = new ArrayList<Occurrence>();
+        searchList.add(new Occurrence(null, scope, false));
+        while (!searchList.isEmpty()) {
+            HashMap<Expression, List<Occurrence>> found = new HashMap<Expression, List<Occurrence>>();
+            List<Expression> order = new ArrayList<Expression>();
+            for (Occurrence o : searchList) {
+                findCandidates(o.child, o.inLoop, declared, found, order);
+            }
+            searchList = new ArrayList<Occurrence>();
+            for (Expression key : order) {
+                List<Occurrence> occurrences = found.get(key);
+                LetExpression let = lifted.get(key);
+                if (let != null) {
+                    // an identical subexpression has already been lifted
+                    for (Occurrence o : occurrences) {
+                        replaceByReference(o, let, result);
+                    }
+                } else if (occurrences.size() > 1 || occurrences.get(0).inLoop) {
+                    result = bindToLocalVariable(occurrences, result);
+                    lifted.put(key, (LetExpression)result);
+                } else {
+                    // not worth lifting: look for candidates within it
+                    searchList.add(occurrences.get(0));
+                }
+            }
+        }
+
+        liftWithinNestedScopes(scope);
+        return result;
+    }
+
+    private void liftWithinNestedScopes(Expression exp) {
+        for (Expression child : children(exp)) {
+            if (child instanceof LetExpression) {
+                LetExpression let = (LetExpression)child;
+                if (!generatedLets.contains(let)) {
+                    Expression action = let.getAction();
+                    Expression action2 = liftWithinScope(action);
+                    if (action2 != action) {
+                        let.setAction(action2);
+                        let.adoptChildExpression(action2);
+                    }
+                }
+                liftWithinNestedScopes(let.getSequence());
+            } else if (!(child instanceof PatternSponsor)) {
+                liftWithinNestedScopes(child);
+            }
+        }
+    }
+
+    private void findCandidates(Expression parent, boolean inLoop, HashSet<Binding> declared,
+                                HashMap<Expression, List<Occurrence>> found, List<Expression> order) {
+        for (Expression child : children(parent)) {
+            if (child instanceof PatternSponsor) {
+                continue;
+            }
+            boolean childInLoop = inLoop || parent.hasLoopingSubexpression(child);
+            if (isLiftable(child, declared)) {
+                List<Occurrence> occurrences = found.get(child);
+                if (occurrences == null) {
+                    occurrences = new ArrayList<Occurrence>(4);
+                    found.put(child, occurrences);
+                    order.add(child);
+                }
+                occurrences.add(new Occurrence(parent, child, childInLoop));
+            } else {
+                findCandidates(child, childInLoop, declared, found, order);
+            }
+        }
+    }
+
+    private Expression bindToLocalVariable(List<Occurrence> occurrences, Expression action) {
+        Expression select = occurrences.get(0).child;
+        LetExpression let = new LetExpression();
+        let.setVariableQName(new StructuredQName("zz", NamespaceConstant.SAXON, "zz" + nextVariableNumber()));
+        let.setRequiredType(SequenceType.makeSequenceType(select.getItemType(th), select.getCardinality()));
+        ExpressionTool.copyLocationInfo(action, let);
+        let.setSequence(select);
+        let.setEvaluationMode(
+                Cardinality.allowsMany(select.getCardinality()) ?
+                        ExpressionTool.MAKE_MEMO_CLOSURE :
+                        ExpressionTool.MAKE_SINGLETON_CLOSURE);
+        for (Occurrence o : occurrences) {
+            replaceByReference(o, let, action);
+        }
+        let.setAction(action);
+        let.adoptChildExpression(action);
+        generatedLets.add(let);
+        logger.fine("Bound " + occurrences.size() + " occurrence(s) of " + select.toString() +
+                " to local variable $" + let.getVariableQName().getDisplayName());
+        return let;
+    }
+
+    private void replaceByReference(Occurrence o, LetExpression let, Expression scope) {
+        LocalVariableReference ref = new LocalVariableReference(let);
+        setStaticType(ref, let.getSequence());
+        ExpressionTool.copyLocationInfo(o.child, ref);
+        o.parent.replaceSubExpression(o.child, ref);
+        resetStaticProperties(scope, o.parent);
+    }
+
+    /**
+     * Reset the static properties of all expressions on the path from a subtree to one of its descendants
+     * @return true if the descendant was found
+     */
+
+    private static boolean resetStaticProperties(Expression subtree, Expression descendant) {
+        boolean found = (subtree == descendant);
+        if (!found) {
+            for (Expression child : children(subtree)) {
+                if (resetStaticProperties(child, descendant)) {
+                    found = true;
+                    break;
+                }
+            }
+        }
+        if (found) {
+            subtree.resetLocalStaticProperties();
+        }
+        return found;
+    }
+
+    /**
+     * Determine whether a subexpression is a candidate for lifting
+     * @param exp the subexpression
+     * @param declared the variables declared within the scope to which the subexpression would be
+     * lifted, or null if it is to be lifted to a global variable
+     * @return true if the subexpression is worth lifting and its value cannot change within the scope
+     */
+
+    private boolean isLiftable(Expression exp, HashSet<Binding> declared) {
+        if (exp instanceof Literal || exp instanceof VariableReference) {
+            return false;
+        }
+        int forbidden = StaticProperty.DEPENDS_ON_FOCUS | StaticProperty.DEPENDS_ON_XSLT_CONTEXT;
+        if (declared == null) {
+            forbidden |= StaticProperty.DEPENDS_ON_LOCAL_VARIABLES;
+        }
+        return (exp.getDependencies() & forbidden) == 0 &&
+                isCostly(exp) &&
+                isStable(exp, declared, new HashSet<Binding>());
+    }
+
+    /**
+     * Determine whether an expression does enough work to be worth lifting: that is, whether it
+     * navigates, filters, or calls a function
+     */
+
+    private static boolean isCostly(Expression exp) {
+        if (exp instanceof AxisExpression || exp instanceof FunctionCall ||
+                exp instanceof FilterExpression || exp instanceof SlashExpression) {
+            return true;
+        }
+        for (Expression child : children(exp)) {
+            if (isCostly(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determine whether an expression delivers the same result each time it is evaluated while
+     * the variables declared outside it are unchanged
+     * @param exp the expression
+     * @param declared the variables declared within the target scope, or null if the expression is
+     * to become a global variable, in which case it must not declare or use local variables
+     * @param inner the local variables declared within the expression itself
+     */
+
+    private boolean isStable(Expression exp, HashSet<Binding> declared, HashSet<Binding> inner) {
+        if (exp instanceof Instruction || exp instanceof UserFunctionCall ||
+                (exp.getSpecialProperties() & StaticProperty.HAS_SIDE_EFFECTS) != 0) {
+            return false;
+        }
+        if (exp instanceof Binding) {
+            if (declared == null) {
+                return false;
+            }
+            inner.add((Binding)exp);
+        }
+        if (exp instanceof VariableReference) {
+            Binding b = ((VariableReference)exp).getBinding();
+            if (b == null) {
+                return false;
+            } else if (b.isGlobal()) {
+                return b instanceof GlobalVariable && isStableGlobal((GlobalVariable)b);
+            } else {
+                return declared != null && (inner.contains(b) || !declared.contains(b));
+            }
+        }
+        for (Expression child : children(exp)) {
+            if (!isStable(child, declared, inner)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determine whether a global variable can safely be used in a lifted expression
+     */
+
+    private boolean isStableGlobal(GlobalVariable var) {
+        Boolean known = stableGlobals.get(var);
+        if (known != null) {
+            return known.booleanValue();
+        }
+        // assume the worst while the variable is being examined, in case it is circular
+        stableGlobals.put(var, Boolean.FALSE);
+        Expression select = var.getSelectExpression();
+        boolean stable = !(var instanceof GlobalParam) && select != null &&
+                (select.getDependencies() & StaticProperty.DEPENDS_ON_FOCUS) == 0 &&
+                isStableGlobalSelect(select);
+        stableGlobals.put(var, Boolean.valueOf(stable));
+        return stable;
+    }
+
+    private boolean isStableGlobalSelect(Expression exp) {
+        if (exp instanceof UserFunctionCall ||
+                (exp.getSpecialProperties() & StaticProperty.HAS_SIDE_EFFECTS) != 0) {
+            return false;
+        }
+        if (exp instanceof VariableReference) {
+            Binding b = ((VariableReference)exp).getBinding();
+            if (b == null || (b.isGlobal() && !(b instanceof GlobalVariable && isStableGlobal((GlobalVariable)b)))) {
+                return false;
+            }
+        }
+        for (Expression child : children(exp)) {
+            if (!isStableGlobalSelect(child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void gatherBindings(Expression exp, HashSet<Binding> bindings) {
+        if (exp instanceof Binding) {
+            bindings.add((Binding)exp);
+        }
+        for (Expression child : children(exp)) {
+            gatherBindings(child, bindings);
+        }
+    }
+
+    private int nextVariableNumber() {
+        return (executable == null ? ++localVariableNames : executable.allocateGeneratedVariableNumber());
+    }
+
+    private void setStaticType(VariableReference ref, Expression select) {
+        SequenceType type = SequenceType.makeSequenceType(select.getItemType(th), select.getCardinality());
+        ref.setStaticType(type, null, select.getSpecialProperties() & StaticProperty.NOT_UNTYPED);
+    }
+
+    /**
+     * Get the immediate subexpressions of an expression as a list, so that the expression can be
+     * modified while they are processed
+     */
+
+    private static List<Expression> children(Expression exp) {
+        List<Expression> list = new ArrayList<Expression>(4);
+        for (Iterator<Expression> it = exp.iterateSubExpressions(); it.hasNext();) {
+            Expression child = it.next();
+            if (child != null) {
+                list.add(child);
+            }
+        }
+        return list;
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
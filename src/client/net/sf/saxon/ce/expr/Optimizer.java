@@ -1,9 +1,20 @@
 package client.net.sf.saxon.ce.expr;
 
 import client.net.sf.saxon.ce.Configuration;
+import client.net.sf.saxon.ce.expr.instruct.Choose;
+import client.net.sf.saxon.ce.expr.sort.AtomicComparer;
+import client.net.sf.saxon.ce.expr.sort.CodepointCollator;
 import client.net.sf.saxon.ce.expr.sort.DocumentSorter;
+import client.net.sf.saxon.ce.expr.sort.SortExpression;
+import client.net.sf.saxon.ce.functions.Position;
+import client.net.sf.saxon.ce.pattern.NodeKindTest;
 import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.type.BuiltInAtomicType;
+import client.net.sf.saxon.ce.type.ItemType;
 import client.net.sf.saxon.ce.type.TypeHierarchy;
+import client.net.sf.saxon.ce.value.BooleanValue;
+import client.net.sf.saxon.ce.value.Cardinality;
+import client.net.sf.saxon.ce.value.IntegerValue;
 
 /**
  * This class performs optimizations that vary between different versions of the Saxon product.
@@ -14,6 +25,14 @@ import client.net.sf.saxon.ce.type.TypeHierarchy;
 public class Optimizer  {
 
     public static final int NO_OPTIMIZATION = 0;
+
+    /**
+     * The lowest optimization level at which loop-invariant and repeated subexpressions in the bodies
+     * of templates and functions are lifted out into variables
+     */
+
+    public static final int LOOP_LIFTING = 5;
+
     public static final int FULL_OPTIMIZATION = 10;
 
     protected Configuration config;
@@ -40,7 +59,8 @@ public class Optimizer  {
     /**
      * Set the optimization level
      * @param level the optimization level, between 0 (no optimization) and 10 (full optimization).
-     * Currently all values greater than zero have the same effect as full optimization
+     * Values from {@link #LOOP_LIFTING} upwards have the same effect as full optimization; lower values
+     * greater than zero perform all optimizations except loop lifting
      */
 
     public void setOptimizationLevel(int level) {
@@ -53,7 +73,7 @@ public class Optimizer  {
     /**
      * Get the optimization level
      * @return the optimization level, between 0 (no optimization) and 10 (full optimization).
-     * Currently all values greater than zero have the same effect as full optimization
+     * Values from {@link #LOOP_LIFTING} upwards have the same effect as full optimization
      */
 
     public int getOptimizationLevel() {
@@ -94,9 +114,213 @@ public class Optimizer  {
 
     public FilterExpression convertToFilterExpression(PathExpression pathExp, TypeHierarchy th)
     throws XPathException {
+        if (optimizationLevel == NO_OPTIMIZATION) {
+            return null;
+        }
+        Expression lastStep = pathExp.getLastStep();
+        if (lastStep instanceof FilterExpression && !((FilterExpression)lastStep).isPositional(th)) {
+            Expression leading = pathExp.getLeadingSteps();
+            Expression p2 = new PathExpression(leading, ((FilterExpression)lastStep).getControllingExpression());
+            ExpressionTool.copyLocationInfo(pathExp, p2);
+            FilterExpression f2 = new FilterExpression(p2, ((FilterExpression)lastStep).getFilter());
+            ExpressionTool.copyLocationInfo(pathExp, f2);
+            return f2;
+        }
         return null;
     }
 
+    /**
+     * Try to replace a filter expression of the form <code>R/steps[use = value]</code> by an
+     * {@link IndexedFilterExpression}, which looks up the value in an index built once for each document.
+     * This is possible when:
+     * <ul>
+     * <li>R selects at most one node, and that node is a document node;</li>
+     * <li>the remaining steps depend on nothing but their focus, and create no new nodes;</li>
+     * <li>the predicate is a non-positional "=" or "eq" comparison, one of whose operands (the use
+     * expression) depends on the focus and nothing else, while the other (the sought value) does not
+     * depend on the focus;</li>
+     * <li>both operands are strings, untyped atomic values, or URIs, compared using the Unicode
+     * codepoint collation.</li>
+     * </ul>
+     * @param filterExp the filter expression
+     * @param visitor the expression visitor
+     * @return the indexed filter expression, or null if the rewrite is not possible
+     */
+
+    public Expression makeIndexedFilter(FilterExpression filterExp, ExpressionVisitor visitor) {
+        if (optimizationLevel == NO_OPTIMIZATION || visitor.getExecutable() == null) {
+            return null;
+        }
+        TypeHierarchy th = config.getTypeHierarchy();
+        if (filterExp.isPositional(th)) {
+            return null;
+        }
+
+        Expression base = filterExp.getControllingExpression();
+        if (base instanceof DocumentSorter) {
+            base = ((DocumentSorter)base).getBaseExpression();
+        }
+        if (!(base instanceof PathExpression)) {
+            return null;
+        }
+        for (Expression e = base; e instanceof SlashExpression; e = ((SlashExpression)e).getControllingExpression()) {
+            if (!(e instanceof PathExpression)) {
+                return null;
+            }
+        }
+        if ((base.getSpecialProperties() & StaticProperty.NON_CREATIVE) == 0) {
+            return null;
+        }
+        PathExpression path = (PathExpression)base;
+        Expression start = path.getFirstStep();
+        Expression steps = path.getRemainingSteps();
+        if (Cardinality.allowsMany(start.getCardinality()) ||
+                !th.isSubType(start.getItemType(th), NodeKindTest.DOCUMENT) ||
+                (steps.getDependencies() & ~StaticProperty.DEPENDS_ON_FOCUS) != 0) {
+            return null;
+        }
+
+        Expression filter = filterExp.getFilter();
+        Expression[] operands;
+        AtomicComparer comparer;
+        boolean singletons = false;
+        if (filter instanceof GeneralComparison && ((GeneralComparison)filter).getOperator() == Token.EQUALS) {
+            operands = ((GeneralComparison)filter).getOperands();
+            comparer = ((GeneralComparison)filter).getAtomicComparer();
+        } else if (filter instanceof ValueComparison && ((ValueComparison)filter).getOperator() == Token.FEQ) {
+            BooleanValue resultWhenEmpty = ((ValueComparison)filter).getResultWhenEmpty();
+            if (resultWhenEmpty != null && resultWhenEmpty.getBooleanValue()) {
+                return null;
+            }
+            operands = ((ValueComparison)filter).getOperands();
+            comparer = ((ValueComparison)filter).getAtomicComparer();
+            singletons = true;
+        } else {
+            return null;
+        }
+        if (comparer == null || !(comparer.getCollator() instanceof CodepointCollator)) {
+            return null;
+        }
+
+        boolean focus0 = ExpressionTool.dependsOnFocus(operands[0]);
+        boolean focus1 = ExpressionTool.dependsOnFocus(operands[1]);
+        if (focus0 == focus1) {
+            return null;
+        }
+        Expression use = (focus0 ? operands[0] : operands[1]);
+        Expression value = (focus0 ? operands[1] : operands[0]);
+        if ((use.getDependencies() & ~StaticProperty.DEPENDS_ON_FOCUS) != 0 ||
+                (singletons && Cardinality.allowsMany(use.getCardinality())) ||
+                !isStringLike(use.getItemType(th), th) ||
+                !isStringLike(value.getItemType(th), th)) {
+            return null;
+        }
+
+        int indexNumber = visitor.getExecutable().getKeyManager().allocateInternalIndexNumber();
+        IndexedFilterExpression result = new IndexedFilterExpression(start, steps, use, value, indexNumber);
+        ExpressionTool.copyLocationInfo(filterExp, result);
+        return result;
+    }
+
+    /**
+     * Test whether values of a given type are compared as strings
+     * @param type the static type of an operand of a comparison, after atomization
+     * @param th the type hierarchy cache
+     * @return true if the type is xs:string, xs:untypedAtomic, or xs:anyURI, or a subtype of these
+     */
+
+    private static boolean isStringLike(ItemType type, TypeHierarchy th) {
+        return th.isSubType(type, BuiltInAtomicType.STRING) ||
+                th.isSubType(type, BuiltInAtomicType.UNTYPED_ATOMIC) ||
+                th.isSubType(type, BuiltInAtomicType.ANY_URI);
+    }
+
+    /**
+     * Examine the body of an xsl:for-each that iterates over a sorted sequence, to see whether it only
+     * acts on the first N items in sorted order: that is, whether the whole body is an xsl:if whose test is
+     * <code>position() le N</code> or <code>position() lt N</code>, where N does not depend on the focus.
+     * If so, the for-each can be rewritten to iterate over the first N items only, which allows the sort to
+     * retain just those items as it reads the sequence.
+     * @param select the select expression of the xsl:for-each
+     * @param action the body of the xsl:for-each
+     * @param th the type hierarchy cache
+     * @return an expression, to be evaluated outside the loop, giving the number of items to which the
+     * body is applied; or null if the for-each is not of this form
+     */
+
+    public Expression getSortedPrefixLength(Expression select, Expression action, TypeHierarchy th) {
+        if (!(select instanceof SortExpression && action instanceof Choose)) {
+            return null;
+        }
+        Choose choose = (Choose)action;
+        if (choose.getConditions().length != 1 ||
+                (choose.getActions()[0].getDependencies() & StaticProperty.DEPENDS_ON_LAST) != 0) {
+            // the value of last() would change if the items were not all processed
+            return null;
+        }
+        Expression condition = choose.getConditions()[0];
+        if (!(condition instanceof ComparisonExpression)) {
+            return null;
+        }
+        Expression[] operands = ((ComparisonExpression)condition).getOperands();
+        int operator = ((ComparisonExpression)condition).getSingletonOperator();
+        Expression comparand;
+        if (operands[0] instanceof Position) {
+            comparand = operands[1];
+        } else if (operands[1] instanceof Position) {
+            comparand = operands[0];
+            operator = Token.inverse(operator);
+        } else {
+            return null;
+        }
+        if (!th.isSubType(comparand.getItemType(th), BuiltInAtomicType.INTEGER) ||
+                comparand.getCardinality() != StaticProperty.EXACTLY_ONE ||
+                (comparand.getDependencies() &
+                        (StaticProperty.DEPENDS_ON_FOCUS | StaticProperty.DEPENDS_ON_XSLT_CONTEXT)) != 0) {
+            return null;
+        }
+        if (operator == Token.FLE) {
+            return comparand;
+        } else if (operator == Token.FLT) {
+            return new ArithmeticExpression(comparand, Token.MINUS, new Literal(IntegerValue.PLUS_ONE));
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Promote subexpressions of the body of a template or function that depend only on constants and
+     * global variables to new global variables, so that they are evaluated at most once per transformation.
+     * This is done only if the optimization level is at least {@link #LOOP_LIFTING}.
+     * @param body the body of the template or function, after optimization
+     * @param visitor the expression visitor
+     * @return the rewritten body
+     */
+
+    public Expression promoteExpressionsToGlobal(Expression body, ExpressionVisitor visitor) {
+        if (optimizationLevel < LOOP_LIFTING) {
+            return body;
+        }
+        return new LoopLifter(visitor).promoteToGlobal(body);
+    }
+
+    /**
+     * Bind subexpressions of the body of a template or function that do not depend on the focus, and
+     * that are either repeated within the scope of the variables they use or evaluated within a loop,
+     * to new local variables, so that they are evaluated only once. This is done only if the optimization
+     * level is at least {@link #LOOP_LIFTING}, and should follow {@link #promoteExpressionsToGlobal}.
+     * @param body the body of the template or function, after optimization
+     * @param visitor the expression visitor
+     * @return the rewritten body
+     */
+
+    public Expression eliminateCommonSubexpressions(Expression body, ExpressionVisitor visitor) {
+        if (optimizationLevel < LOOP_LIFTING) {
+            return body;
+        }
+        return new LoopLifter(visitor).eliminateCommonSubexpressions(body);
+    }
+
     /**
      * Make a conditional document sorter. This optimization is attempted
      * when a DocumentSorter is wrapped around a path expression
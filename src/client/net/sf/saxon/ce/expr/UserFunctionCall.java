@@ -218,6 +218,10 @@ public class UserFunctionCall extends FunctionCall {
     */
 
     public int markTailFunctionCalls(StructuredQName qName, int arity) {
+        if (function != null && function.isMemoFunction()) {
+            // the call must go through the function's cache of results
+            return 0;
+        }
         tailCall = true;
         return (getFunctionName().equals(qName) &&
                arity == getNumberOfArguments() ? 2 : 1);
@@ -14,6 +14,7 @@ import client.net.sf.saxon.ce.type.ItemType;
 import client.net.sf.saxon.ce.type.Type;
 import client.net.sf.saxon.ce.type.TypeHierarchy;
 import client.net.sf.saxon.ce.value.SequenceType;
+import client.net.sf.saxon.ce.value.StringValue;
 
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -29,6 +30,7 @@ public class AnalyzeString extends Instruction {
     private Expression flags;
     private Expression matching;
     private Expression nonMatching;
+    private ARegularExpression staticRegex;
 
     /**
      * Construct an AnalyzeString instruction
@@ -156,6 +158,18 @@ public class AnalyzeString extends Instruction {
             nonMatching = nonMatching.optimize(visitor, BuiltInAtomicType.STRING);
             adoptChildExpression(nonMatching);
         }
+        if (staticRegex == null && regex instanceof Literal && flags instanceof Literal &&
+                ((Literal)regex).getValue() instanceof StringValue &&
+                ((Literal)flags).getValue() instanceof StringValue) {
+            // the regular expression is known statically, so compile it now
+            try {
+                staticRegex = visitor.getConfiguration().getRegexCache().getRegularExpression(
+                        ((StringValue)((Literal)regex).getValue()).getStringValue(),
+                        ((StringValue)((Literal)flags).getValue()).getStringValue(), "XP20");
+            } catch (XPathException err) {
+                // leave the error to be reported if and when the instruction is evaluated
+            }
+        }
         return this;
     }
 
@@ -345,8 +359,12 @@ public class AnalyzeString extends Instruction {
     private RegexIterator getRegexIterator(XPathContext context) throws XPathException {
         CharSequence input = select.evaluateAsString(context);
 
-        String flagstr = flags.evaluateAsString(context).toString();
-        ARegularExpression re = new ARegularExpression(regex.evaluateAsString(context), flagstr, "XP20", null);
+        ARegularExpression re = staticRegex;
+        if (re == null) {
+            String flagstr = flags.evaluateAsString(context).toString();
+            re = context.getConfiguration().getRegexCache().getRegularExpression(
+                    regex.evaluateAsString(context), flagstr, "XP20");
+        }
         if (re.matches("")) {
             dynamicError("The regular expression must not be one that matches a zero-length string",
                     "XTDE1150", context);
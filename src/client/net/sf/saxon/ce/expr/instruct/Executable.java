@@ -1,6 +1,8 @@
 package client.net.sf.saxon.ce.expr.instruct;
 
 import client.net.sf.saxon.ce.Configuration;
+import client.net.sf.saxon.ce.event.SerializationProperties;
+import client.net.sf.saxon.ce.expr.Expression;
 import client.net.sf.saxon.ce.functions.FunctionLibraryList;
 import client.net.sf.saxon.ce.om.StructuredQName;
 import client.net.sf.saxon.ce.om.ValueRepresentation;
@@ -31,6 +33,12 @@ public class Executable {
     // the map of slots used for global variables and params
     private SlotManager globalVariableMap;
 
+    // global variables created by the optimizer, indexed by the expressions they evaluate
+    private HashMap<Expression, GlobalVariable> generatedGlobals = null;
+
+    // the number of variable names generated by the optimizer, used to make the names unique
+    private int generatedVariableNames = 0;
+
     // list of functions available in the static context
     private FunctionLibraryList functionLibrary;
 
@@ -40,6 +48,11 @@ public class Executable {
     // a boolean, true if the executable represents a stylesheet that uses xsl:result-document
     private boolean createsSecondaryResult = false;
 
+    // the serialization properties defined by xsl:output declarations, indexed by format name; the
+    // unnamed output format has the key null
+    private HashMap<StructuredQName, SerializationProperties> outputProperties =
+            new HashMap<StructuredQName, SerializationProperties>();
+
 
     /**
      * Create a new Executable (a collection of stylesheet modules and/or query modules)
@@ -139,6 +152,45 @@ public class Executable {
         return globalVariableMap;
     }
 
+    /**
+     * Get the global variable created by the optimizer to hold the value of a given expression.
+     * Expressions are compared using their equals() method, so a variable created for an expression
+     * in one template can be used for an identical expression anywhere else in the stylesheet. Since
+     * equals() does not compare the static context, the caller must not use this for an expression
+     * whose value depends on it (for example, on the static base URI or the default collation).
+     * @param select the expression
+     * @return the generated global variable whose select expression is equal to the given expression,
+     * or null if there is none
+     */
+
+    public GlobalVariable getGeneratedGlobalVariable(Expression select) {
+        return (generatedGlobals == null ? null : generatedGlobals.get(select));
+    }
+
+    /**
+     * Register a global variable created by the optimizer. The caller is responsible for allocating
+     * its slot in the global variable map.
+     * @param var the generated global variable
+     */
+
+    public void addGeneratedGlobalVariable(GlobalVariable var) {
+        if (generatedGlobals == null) {
+            generatedGlobals = new HashMap<Expression, GlobalVariable>(20);
+        }
+        generatedGlobals.put(var.getSelectExpression(), var);
+    }
+
+    /**
+     * Allocate a number for use in the name of a variable created by the optimizer. The numbers
+     * are allocated in sequence, so the names are unique within the executable, and are the same
+     * each time the stylesheet is compiled.
+     * @return the next number in the sequence
+     */
+
+    public int allocateGeneratedVariableNumber() {
+        return ++generatedVariableNames;
+    }
+
     /**
      * Allocate space in bindery for all the variables needed
      * @param bindery The bindery to be initialized
@@ -184,6 +236,36 @@ public class Executable {
     }
 
 
+    /**
+     * Register the serialization properties for a named output format
+     * @param name the name of the output format, or null for the unnamed output format
+     * @param props the serialization properties defined by the xsl:output declarations with this name
+     */
+
+    public void setOutputProperties(StructuredQName name, SerializationProperties props) {
+        outputProperties.put(name, props);
+    }
+
+    /**
+     * Get the serialization properties for a named output format
+     * @param name the name of the output format, or null for the unnamed output format
+     * @return the properties defined by the xsl:output declarations with this name, or null if there are none
+     */
+
+    public SerializationProperties getOutputProperties(StructuredQName name) {
+        return outputProperties.get(name);
+    }
+
+    /**
+     * Get the serialization properties for the unnamed output format
+     * @return the properties defined by the unnamed xsl:output declarations; never null
+     */
+
+    public SerializationProperties getDefaultOutputProperties() {
+        SerializationProperties props = outputProperties.get(null);
+        return (props == null ? new SerializationProperties() : props);
+    }
+
     /**
      * Set whether this executable represents a stylesheet that uses xsl:result-document
      * to create secondary output documents
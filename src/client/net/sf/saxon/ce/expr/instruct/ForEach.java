@@ -1,6 +1,7 @@
 package client.net.sf.saxon.ce.expr.instruct;
 import client.net.sf.saxon.ce.LogController;
 import client.net.sf.saxon.ce.expr.*;
+import client.net.sf.saxon.ce.functions.SystemFunction;
 import client.net.sf.saxon.ce.lib.TraceListener;
 import client.net.sf.saxon.ce.om.Item;
 import client.net.sf.saxon.ce.om.SequenceIterator;
@@ -8,6 +9,7 @@ import client.net.sf.saxon.ce.om.StandardNames;
 import client.net.sf.saxon.ce.trans.XPathException;
 import client.net.sf.saxon.ce.type.ItemType;
 import client.net.sf.saxon.ce.type.TypeHierarchy;
+import client.net.sf.saxon.ce.value.IntegerValue;
 
 import java.util.Arrays;
 import java.util.Iterator;
@@ -139,6 +141,20 @@ public class ForEach extends Instruction implements ContextMappingFunction {
             return action;
         }
 
+        // If the body only acts on the first N items of a sorted sequence, select only those items,
+        // so that the sort need not retain the others
+
+        Expression limit = visitor.getConfiguration().getOptimizer().getSortedPrefixLength(select, action, th);
+        if (limit != null) {
+            Expression prefix = SystemFunction.makeSystemFunction(
+                    "subsequence", new Expression[]{select, new Literal(IntegerValue.PLUS_ONE), limit});
+            ExpressionTool.copyLocationInfo(select, prefix);
+            select = visitor.optimize(visitor.typeCheck(visitor.simplify(prefix), contextItemType), contextItemType);
+            adoptChildExpression(select);
+            action = ((Choose)action).getActions()[0];
+            adoptChildExpression(action);
+        }
+
         // If any subexpressions within the body of the for-each are not dependent on the focus,
         // promote them: this causes them to be evaluated once, outside the for-each loop
 
@@ -0,0 +1,162 @@
+package client.net.sf.saxon.ce.expr.instruct;
+
+import client.net.sf.saxon.ce.Controller;
+import client.net.sf.saxon.ce.expr.ExpressionTool;
+import client.net.sf.saxon.ce.expr.XPathContextMajor;
+import client.net.sf.saxon.ce.om.Item;
+import client.net.sf.saxon.ce.om.NodeInfo;
+import client.net.sf.saxon.ce.om.SequenceIterator;
+import client.net.sf.saxon.ce.om.ValueRepresentation;
+import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
+import client.net.sf.saxon.ce.value.AtomicValue;
+import client.net.sf.saxon.ce.value.Closure;
+import client.net.sf.saxon.ce.value.QualifiedNameValue;
+import client.net.sf.saxon.ce.value.Value;
+
+/**
+ * A user-defined function that is declared as a memo function (using the attribute
+ * <code>saxon:memo-function="yes"</code> on xsl:function), meaning that it remembers the results
+ * of previous calls. The function must be free of side effects, and its result must depend only on
+ * its arguments; a result containing newly constructed nodes is shared by all calls with the same
+ * arguments.
+ *
+ * <p>The results are held in a {@link MemoFunctionCache} for each transformation, keyed by the values of
+ * the arguments: atomic values are compared by their type and value, and nodes by their identity. A call
+ * in which an argument contains an item that is neither a node nor an atomic value is not cached.</p>
+ *
+ * <p>Because every call must go through the cache, calls on a memo function are not optimized as tail
+ * calls (see {@link client.net.sf.saxon.ce.expr.UserFunctionCall#markTailFunctionCalls}), and deep
+ * recursion in a memo function may therefore overflow the stack.</p>
+ */
+
+public class MemoFunction extends UserFunction {
+
+    /**
+     * Create a memo function (the body must be added later)
+     */
+
+    public MemoFunction() {}
+
+    /**
+     * Determine the preferred evaluation mode for this function. A memo function is evaluated eagerly,
+     * because its result is retained beyond the lifetime of the context in which it was evaluated.
+     */
+
+    public void computeEvaluationMode() {
+        evaluationMode = ExpressionTool.eagerEvaluationMode(getBody());
+    }
+
+    /**
+     * Ask whether this function is a memo function
+     * @return true
+     */
+
+    public boolean isMemoFunction() {
+        return true;
+    }
+
+    /**
+     * Call this function to return a value, using the result of a previous call with the same
+     * arguments if there is one
+     * @param actualArgs the arguments supplied to the function
+     * @param context the run-time context for evaluating the function
+     * @return a Value representing the result of the function
+     */
+
+    public ValueRepresentation call(ValueRepresentation[] actualArgs, XPathContextMajor context)
+            throws XPathException {
+        // the arguments must be evaluated to compute the key; the evaluated values are passed to the body
+        for (int i=0; i<actualArgs.length; i++) {
+            if (actualArgs[i] instanceof Closure) {
+                actualArgs[i] = ((Closure)actualArgs[i]).reduce();
+            }
+        }
+        String key = getCombinedKey(actualArgs);
+        if (key == null) {
+            return super.call(actualArgs, context);
+        }
+        MemoFunctionCache cache = getCache(context.getController(), true);
+        ValueRepresentation value = cache.get(key);
+        if (value == null) {
+            value = super.call(actualArgs, context);
+            if (value instanceof Closure) {
+                value = ((Closure)value).reduce();
+            }
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Call this function in "push" mode. The result is obtained using {@link #call}, so that it can be
+     * cached, and is then written to the current output destination.
+     * @param actualArgs the arguments supplied to the function
+     * @param context the run-time context for evaluating the function
+     */
+
+    public void process(ValueRepresentation[] actualArgs, XPathContextMajor context)
+            throws XPathException {
+        Value.asValue(call(actualArgs, context)).process(context);
+    }
+
+    /**
+     * Get the cache of results held for this function in a particular transformation
+     * @param controller the controller of the transformation
+     * @param create true if the cache is to be created if it does not already exist
+     * @return the cache, or null if there is none and create is false
+     */
+
+    public MemoFunctionCache getCache(Controller controller, boolean create) {
+        MemoFunctionCache cache = controller.getMemoFunctionCache(this);
+        if (cache == null && create) {
+            cache = new MemoFunctionCache(controller.getConfiguration().getMemoFunctionCacheSize());
+            controller.setMemoFunctionCache(this, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Get a key combining the values of all the arguments
+     * @param args the argument values, which must not be Closures
+     * @return the key, or null if an argument contains an item that cannot be used as part of a key
+     */
+
+    private static String getCombinedKey(ValueRepresentation[] args) throws XPathException {
+        FastStringBuffer sb = new FastStringBuffer(FastStringBuffer.SMALL);
+        for (int i=0; i<args.length; i++) {
+            SequenceIterator iter = Value.asIterator(args[i]);
+            while (true) {
+                Item item = iter.next();
+                if (item == null) {
+                    break;
+                }
+                if (item instanceof NodeInfo) {
+                    // identifiers never contain spaces
+                    sb.append('N');
+                    ((NodeInfo)item).generateId(sb);
+                    sb.append(' ');
+                } else if (item instanceof AtomicValue) {
+                    AtomicValue v = (AtomicValue)item;
+                    String s = (v instanceof QualifiedNameValue ?
+                            ((QualifiedNameValue)v).getClarkName() : v.getStringValue());
+                    sb.append('A');
+                    sb.append(v.getTypeLabel().toString());
+                    sb.append(' ');
+                    sb.append(Integer.toString(s.length()));
+                    sb.append(':');
+                    sb.append(s);
+                } else {
+                    return null;
+                }
+            }
+            sb.append('|');
+        }
+        return sb.toString();
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
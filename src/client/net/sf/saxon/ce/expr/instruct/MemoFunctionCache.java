@@ -0,0 +1,126 @@
+package client.net.sf.saxon.ce.expr.instruct;
+
+import client.net.sf.saxon.ce.om.ValueRepresentation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The cache of results held for one memo function during one transformation. The results are keyed
+ * by a string combining the values of the arguments (see {@link MemoFunction}). When the cache is full,
+ * the least recently used result is discarded.
+ *
+ * <p>The cache keeps counts of the number of calls satisfied from the cache, the number of calls that
+ * had to evaluate the function, and the number of results discarded, for use in performance monitoring.
+ * When logging is enabled, the {@link client.net.sf.saxon.ce.Controller} writes these counts to the log at
+ * level FINE at the end of each transformation.</p>
+ */
+
+public class MemoFunctionCache {
+
+    /**
+     * The default maximum number of results held for each memo function
+     */
+
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private final int capacity;
+    private final LinkedHashMap<String, ValueRepresentation> cache;
+    private int hits = 0;
+    private int misses = 0;
+    private int evictions = 0;
+
+    /**
+     * Create a cache
+     * @param capacity the maximum number of results to be held. A negative value means there is no limit.
+     */
+
+    public MemoFunctionCache(int capacity) {
+        this.capacity = capacity;
+        cache = new LinkedHashMap<String, ValueRepresentation>(64, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, ValueRepresentation> eldest) {
+                if (MemoFunctionCache.this.capacity >= 0 && size() > MemoFunctionCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get the result of a previous call
+     * @param key the combined key of the argument values
+     * @return the result of the call, or null if it is not in the cache
+     */
+
+    public ValueRepresentation get(String key) {
+        ValueRepresentation value = cache.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Add the result of a call to the cache
+     * @param key the combined key of the argument values
+     * @param value the result of the call, which must not be a lazily-evaluated Closure
+     */
+
+    public void put(String key, ValueRepresentation value) {
+        cache.put(key, value);
+    }
+
+    /**
+     * Get the maximum number of results held
+     * @return the capacity, or a negative value if there is no limit
+     */
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the number of results currently held
+     * @return the number of entries in the cache
+     */
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Get the number of calls that were satisfied from the cache
+     * @return the number of hits
+     */
+
+    public int getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Get the number of calls that were not satisfied from the cache
+     * @return the number of misses
+     */
+
+    public int getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Get the number of results that have been discarded because the cache was full
+     * @return the number of evictions
+     */
+
+    public int getEvictionCount() {
+        return evictions;
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -5,19 +5,23 @@ import client.net.sf.saxon.ce.expr.*;
 import client.net.sf.saxon.ce.expr.number.NumberFormatter;
 import client.net.sf.saxon.ce.functions.NumberFn;
 import client.net.sf.saxon.ce.lib.Numberer;
+import client.net.sf.saxon.ce.om.DocumentInfo;
 import client.net.sf.saxon.ce.om.Item;
 import client.net.sf.saxon.ce.om.NodeInfo;
 import client.net.sf.saxon.ce.om.SequenceIterator;
 import client.net.sf.saxon.ce.pattern.Pattern;
 import client.net.sf.saxon.ce.pattern.PatternSponsor;
+import client.net.sf.saxon.ce.trans.KeyManager;
 import client.net.sf.saxon.ce.trans.XPathException;
 import client.net.sf.saxon.ce.tree.util.Navigator;
+import client.net.sf.saxon.ce.tree.wrapper.VirtualNode;
 import client.net.sf.saxon.ce.type.*;
 import client.net.sf.saxon.ce.value.*;
 import client.net.sf.saxon.ce.value.StringValue;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 
@@ -48,6 +52,7 @@ public class NumberInstruction extends Expression {
     private Numberer numberer = null;
     private boolean hasVariablesInPatterns;
     private boolean backwardsCompatible;
+    private int numberingIndex = 0;     // the internal index number of the numbering index, or 0 if none
 
     /**
      * Construct a NumberInstruction
@@ -249,6 +254,10 @@ public class NumberInstruction extends Expression {
         if (lang != null) {
             lang = visitor.optimize(lang, contextItemType);
         }
+        if (numberingIndex == 0 && count != null && !hasVariablesInPatterns && level != SIMPLE) {
+            // the number of a node can be found from an index built in one pass over its document
+            numberingIndex = visitor.getExecutable().getKeyManager().allocateInternalIndexNumber();
+        }
         return this;
     }
 
@@ -491,17 +500,18 @@ public class NumberInstruction extends Expression {
             if (level == SIMPLE) {
                 value = Navigator.getNumberSimple(source, context);
             } else if (level == SINGLE) {
-                value = Navigator.getNumberSingle(source, count, from, context);
+                value = Navigator.getNumberSingle(source, count, from, context, getNumberingIndex(source, context));
                 if (value == 0) {
                     vec = Collections.EMPTY_LIST; 	// an empty list
                 }
             } else if (level == ANY) {
-                value = Navigator.getNumberAny(this, source, count, from, context, hasVariablesInPatterns);
+                value = Navigator.getNumberAny(this, source, count, from, context, hasVariablesInPatterns,
+                        getNumberingIndex(source, context));
                 if (value == 0) {
                     vec = Collections.EMPTY_LIST; 	// an empty list
                 }
             } else if (level == MULTI) {
-                vec = Navigator.getNumberMulti(source, count, from, context);
+                vec = Navigator.getNumberMulti(source, count, from, context, getNumberingIndex(source, context));
             }
         }
 
@@ -577,6 +587,30 @@ public class NumberInstruction extends Expression {
         return new StringValue(s);
     }
 
+    /**
+     * Get the numbering index for the document containing the node to be numbered
+     * @param node the node to be numbered
+     * @param context the dynamic evaluation context
+     * @return the numbering index, or null if no index can be used, for example because the patterns
+     * contain variables, the node is not in a document, or the document is a wrapped DOM
+     * @throws XPathException if an error occurs evaluating the patterns while building the index
+     */
+
+    private HashMap<NodeInfo, Integer> getNumberingIndex(NodeInfo node, XPathContext context) throws XPathException {
+        if (numberingIndex == 0) {
+            return null;
+        }
+        DocumentInfo doc = node.getDocumentRoot();
+        if (doc == null ||
+                (doc instanceof VirtualNode && !(((VirtualNode)doc).getRealNode() instanceof NodeInfo))) {
+            // a node of a wrapped DOM is hashed by generating its identifier, which costs more than
+            // counting its siblings, so an index keyed by such nodes is not worth building
+            return null;
+        }
+        KeyManager km = context.getController().getExecutable().getKeyManager();
+        return km.getNumberingIndex(doc, numberingIndex, count, from, level == ANY, context);
+    }
+
 
 }
 
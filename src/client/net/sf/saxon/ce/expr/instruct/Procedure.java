@@ -100,8 +100,8 @@ public abstract class Procedure implements Container, InstructionInfo {
      * value is null.
      */
 
-    public Iterator getProperties() {
-        return Collections.EMPTY_LIST.iterator();
+    public Iterator<String> getProperties() {
+        return Collections.<String>emptyList().iterator();
     }
 }
 
@@ -328,7 +328,8 @@ public class ResultDocument extends Instruction  {
             		contextNodeName = controller.getNamePool().getLocalName(contextItem.getNameCode());
             	}
             } else {
-            	contextItem = new HTMLDocumentWrapper(page, page.getURL(), context.getConfiguration(), DocType.UNKNOWN);
+            	contextItem = (page == Document.get())? context.getConfiguration().getHostPage() :
+            			new HTMLDocumentWrapper(page, page.getURL(), context.getConfiguration(), DocType.UNKNOWN);
             }
             if (LogConfiguration.loggingIsEnabled()) {
             	contextNodeName = (contextNodeName.equals("")? "" : " context node: " + contextNodeName);
@@ -49,6 +49,7 @@ public class AtomicSortComparer implements AtomicComparer {
                     return new CollatingAtomicComparer(collator);
                 }
             case StandardNames.XS_INTEGER:
+                return IntegerComparer.getInstance();
             case StandardNames.XS_DECIMAL:
                 return DecimalSortComparer.getDecimalSortComparerInstance();
             case StandardNames.XS_DOUBLE:
@@ -232,4 +233,4 @@ public class AtomicSortComparer implements AtomicComparer {
 
 // This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. 
 // If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
-// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
\ No newline at end of file
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
\ No newline at end of file
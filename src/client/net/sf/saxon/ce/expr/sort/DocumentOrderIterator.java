@@ -30,9 +30,9 @@ public final class DocumentOrderIterator implements SequenceIterator, Sortable {
         sequence = new SequenceExtent(base);
         //System.err.println("sort into document order: sequence length = " + sequence.getLength());
         if (sequence.getLength()>1) {
-            //QuickSort.sort(this, 0, sequence.getLength()-1);
-            GenericSorter.quickSort(0, sequence.getLength(), this);
-            //GenericSorter.mergeSort(0, sequence.getLength(), this);
+            // the merge sort recognises runs of nodes that are already in document order,
+            // so a sequence that is already sorted is checked in linear time
+            MergeSorter.sort(0, sequence.getLength(), this);
         }
         iterator = sequence.iterate();
     }
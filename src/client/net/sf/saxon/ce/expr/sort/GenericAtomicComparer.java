@@ -64,6 +64,9 @@ public class GenericAtomicComparer implements AtomicComparer {
                 case StandardNames.XS_G_YEAR_MONTH:
                     return new CalendarValueComparer(context);
 
+                case StandardNames.XS_INTEGER:
+                    return IntegerComparer.getInstance();
+
                 case StandardNames.XS_BOOLEAN:
                 case StandardNames.XS_DAY_TIME_DURATION:
                 case StandardNames.XS_YEAR_MONTH_DURATION:
@@ -213,4 +216,4 @@ public class GenericAtomicComparer implements AtomicComparer {
 
 // This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. 
 // If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
-// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
\ No newline at end of file
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
\ No newline at end of file
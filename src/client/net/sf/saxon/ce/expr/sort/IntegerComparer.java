@@ -0,0 +1,75 @@
+package client.net.sf.saxon.ce.expr.sort;
+import client.net.sf.saxon.ce.om.StandardNames;
+import client.net.sf.saxon.ce.value.AtomicValue;
+import client.net.sf.saxon.ce.value.IntegerValue;
+
+/**
+ * An AtomicComparer used for comparing values that are known to be instances of xs:integer.
+ * Where both values are within the range of an int, the comparison is done directly on the
+ * primitive values, avoiding any use of BigDecimal.
+ */
+
+public class IntegerComparer extends ComparableAtomicValueComparer {
+
+    private static IntegerComparer THE_INSTANCE = new IntegerComparer();
+
+    /**
+     * Get the singleton instance of this class
+     * @return the singleton instance of this class
+     */
+
+    public static IntegerComparer getInstance() {
+        return THE_INSTANCE;
+    }
+
+    private IntegerComparer() {}
+
+    /**
+     * Compare two AtomicValue objects according to the rules for their data type.
+     * @param a the first object to be compared. This should be an IntegerValue
+     * @param b the second object to be compared. This should be an IntegerValue
+     * @return <0 if a<b, 0 if a=b, >0 if a>b
+     */
+
+    public int compareAtomicValues(AtomicValue a, AtomicValue b) {
+        if (a instanceof IntegerValue && b instanceof IntegerValue &&
+                ((IntegerValue)a).fitsInInt() && ((IntegerValue)b).fitsInInt()) {
+            int x = ((IntegerValue)a).getIntValue();
+            int y = ((IntegerValue)b).getIntValue();
+            return (x < y ? -1 : (x == y ? 0 : +1));
+        }
+        return super.compareAtomicValues(a, b);
+    }
+
+    /**
+     * Compare two AtomicValue objects for equality.
+     * @param a the first object to be compared. This should be an IntegerValue
+     * @param b the second object to be compared. This should be an IntegerValue
+     * @return true if the values are equal, false if not
+     */
+
+    public boolean comparesEqual(AtomicValue a, AtomicValue b) {
+        if (a instanceof IntegerValue && b instanceof IntegerValue &&
+                ((IntegerValue)a).fitsInInt() && ((IntegerValue)b).fitsInInt()) {
+            return ((IntegerValue)a).getIntValue() == ((IntegerValue)b).getIntValue();
+        }
+        return super.comparesEqual(a, b);
+    }
+
+    /**
+     * Get a comparison key for an object. This must satisfy the rule that if two objects are equal as defined
+     * by the XPath eq operator, then their comparison keys are equal as defined by the Java equals() method,
+     * and vice versa. There is no requirement that the comparison keys should reflect the ordering of the
+     * underlying objects.
+    */
+
+    public ComparisonKey getComparisonKey(AtomicValue a) {
+        return new ComparisonKey(StandardNames.XS_NUMERIC, a);
+    }
+
+}
+
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. 
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
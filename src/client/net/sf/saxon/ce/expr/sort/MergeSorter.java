@@ -0,0 +1,304 @@
+package client.net.sf.saxon.ce.expr.sort;
+
+/**
+ * A stable sort for any {@link Sortable}, using a natural merge sort in the style of TimSort. The input
+ * is divided into runs that are already in ascending order (or in strictly descending order, which are
+ * reversed); short runs are extended to a minimum length by binary insertion sort, and runs are then
+ * merged pairwise, keeping the lengths of the pending runs in balance. Input that is already sorted is
+ * recognised as a single run using n-1 comparisons and no swaps.
+ *
+ * <p>Because it is stable, items that compare equal remain in their original order, so a Sortable sorted
+ * by this class does not need to include the original position of each item in its comparison.</p>
+ *
+ * <p>The Sortable interface only allows items to be compared and swapped, which is not sufficient for an
+ * efficient merge. The sort is therefore performed on an array of the original positions of the items,
+ * which are compared using {@link Sortable#compare}; the items themselves do not move until the sort
+ * is complete, when the resulting permutation is applied using at most n-1 calls on
+ * {@link Sortable#swap}. This means that during the sort, the position passed to <code>compare</code>
+ * is always the original position of the item in the input.</p>
+ */
+
+public final class MergeSorter {
+
+    // runs shorter than this are extended by binary insertion sort (except the last)
+    private static final int MIN_MERGE = 32;
+
+    private Sortable sortable;
+    private int from;
+    private int[] a;                    // the original positions (relative to from) in their current order
+    private int[] tmp;                  // working space for merges
+
+    // the stack of runs waiting to be merged
+    private int[] runBase = new int[49];
+    private int[] runLength = new int[49];
+    private int stackSize = 0;
+
+    private MergeSorter(Sortable sortable, int from, int length) {
+        this.sortable = sortable;
+        this.from = from;
+        a = new int[length];
+        for (int i=0; i<length; i++) {
+            a[i] = i;
+        }
+    }
+
+    /**
+     * Sort the specified range of items, retaining the original order of items that compare equal
+     * @param fromIndex the index of the first item (inclusive) to be sorted
+     * @param toIndex the index of the last item (exclusive) to be sorted
+     * @param c the data to be sorted, which knows how to compare and swap the items at any two indexes
+     */
+
+    public static void sort(int fromIndex, int toIndex, Sortable c) {
+        int n = toIndex - fromIndex;
+        if (n < 2) {
+            return;
+        }
+        MergeSorter sorter = new MergeSorter(c, fromIndex, n);
+        sorter.sortPositions();
+        sorter.permute();
+    }
+
+    /**
+     * Compare the items at two positions in the array of original positions
+     */
+
+    private int compareAt(int i, int j) {
+        return sortable.compare(from + a[i], from + a[j]);
+    }
+
+    private void sortPositions() {
+        int n = a.length;
+        int minRun = minRunLength(n);
+        int lo = 0;
+        while (lo < n) {
+            int len = countRunAndMakeAscending(lo, n);
+            if (len < minRun) {
+                int force = Math.min(n - lo, minRun);
+                binaryInsertionSort(lo, lo + force, lo + len);
+                len = force;
+            }
+            runBase[stackSize] = lo;
+            runLength[stackSize] = len;
+            stackSize++;
+            mergeCollapse();
+            lo += len;
+        }
+        while (stackSize > 1) {
+            int i = stackSize - 2;
+            if (i > 0 && runLength[i-1] < runLength[i+1]) {
+                i--;
+            }
+            mergeAt(i);
+        }
+    }
+
+    /**
+     * Get the minimum length of a run: a value between MIN_MERGE/2 and MIN_MERGE such that n divided
+     * by the value is equal to, or slightly less than, a power of two
+     */
+
+    private static int minRunLength(int n) {
+        int r = 0;
+        while (n >= MIN_MERGE) {
+            r |= (n & 1);
+            n >>= 1;
+        }
+        return n + r;
+    }
+
+    /**
+     * Find the length of the run starting at a given position. A strictly descending run is reversed;
+     * a run containing equal items is only recognised if it is ascending, to preserve stability.
+     * @param lo the start of the run
+     * @param hi the end of the range being sorted
+     * @return the length of the run
+     */
+
+    private int countRunAndMakeAscending(int lo, int hi) {
+        int runHi = lo + 1;
+        if (runHi == hi) {
+            return 1;
+        }
+        if (compareAt(runHi++, lo) < 0) {
+            while (runHi < hi && compareAt(runHi, runHi - 1) < 0) {
+                runHi++;
+            }
+            for (int i=lo, j=runHi-1; i<j; i++, j--) {
+                int t = a[i];
+                a[i] = a[j];
+                a[j] = t;
+            }
+        } else {
+            while (runHi < hi && compareAt(runHi, runHi - 1) >= 0) {
+                runHi++;
+            }
+        }
+        return runHi - lo;
+    }
+
+    /**
+     * Sort a range of which an initial part is already sorted, by binary insertion
+     * @param lo the start of the range
+     * @param hi the end of the range (exclusive)
+     * @param start the end of the initial part that is already sorted
+     */
+
+    private void binaryInsertionSort(int lo, int hi, int start) {
+        for (; start < hi; start++) {
+            int pivot = a[start];
+            int left = lo;
+            int right = start;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (sortable.compare(from + pivot, from + a[mid]) < 0) {
+                    right = mid;
+                } else {
+                    left = mid + 1;
+                }
+            }
+            System.arraycopy(a, left, a, left + 1, start - left);
+            a[left] = pivot;
+        }
+    }
+
+    /**
+     * Merge runs on the stack until the lengths of the pending runs satisfy the invariants
+     * runLength[i-2] > runLength[i-1] + runLength[i] and runLength[i-1] > runLength[i]
+     */
+
+    private void mergeCollapse() {
+        while (stackSize > 1) {
+            int i = stackSize - 2;
+            if ((i > 0 && runLength[i-1] <= runLength[i] + runLength[i+1]) ||
+                    (i > 1 && runLength[i-2] <= runLength[i-1] + runLength[i])) {
+                if (runLength[i-1] < runLength[i+1]) {
+                    i--;
+                }
+            } else if (runLength[i] > runLength[i+1]) {
+                break;
+            }
+            mergeAt(i);
+        }
+    }
+
+    /**
+     * Merge the two runs at positions i and i+1 on the stack
+     */
+
+    private void mergeAt(int i) {
+        int base1 = runBase[i];
+        int len1 = runLength[i];
+        int base2 = runBase[i+1];
+        int len2 = runLength[i+1];
+        runLength[i] = len1 + len2;
+        if (i == stackSize - 3) {
+            runBase[i+1] = runBase[i+2];
+            runLength[i+1] = runLength[i+2];
+        }
+        stackSize--;
+
+        // items at the start of the first run that are not greater than the first item of the
+        // second run are already in place
+        int k = upperBound(a[base2], base1, len1);
+        base1 += k;
+        len1 -= k;
+        if (len1 == 0) {
+            return;
+        }
+        // items at the end of the second run that are not less than the last item of the
+        // first run are already in place
+        len2 = lowerBound(a[base1 + len1 - 1], base2, len2);
+        if (len2 == 0) {
+            return;
+        }
+
+        if (tmp == null || tmp.length < len1) {
+            tmp = new int[Math.max(len1, Math.min(a.length, 256))];
+        }
+        System.arraycopy(a, base1, tmp, 0, len1);
+        int t = 0;
+        int b = base2;
+        int end2 = base2 + len2;
+        int dest = base1;
+        while (t < len1 && b < end2) {
+            // an item from the second run is taken only if it is strictly less, to preserve stability
+            if (sortable.compare(from + a[b], from + tmp[t]) < 0) {
+                a[dest++] = a[b++];
+            } else {
+                a[dest++] = tmp[t++];
+            }
+        }
+        if (t < len1) {
+            System.arraycopy(tmp, t, a, dest, len1 - t);
+        }
+    }
+
+    /**
+     * Find the number of items in a sorted range that are less than or equal to a given item
+     */
+
+    private int upperBound(int key, int base, int len) {
+        int left = 0;
+        int right = len;
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            if (sortable.compare(from + key, from + a[base + mid]) < 0) {
+                right = mid;
+            } else {
+                left = mid + 1;
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Find the number of items in a sorted range that are strictly less than a given item
+     */
+
+    private int lowerBound(int key, int base, int len) {
+        int left = 0;
+        int right = len;
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            if (sortable.compare(from + a[base + mid], from + key) < 0) {
+                left = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Move the items into sorted order, so that the item at position i is the one originally
+     * at position a[i]
+     */
+
+    private void permute() {
+        int n = a.length;
+        int[] where = new int[n];       // the current position of the item originally at position k
+        int[] who = new int[n];         // the original position of the item currently at position p
+        for (int i=0; i<n; i++) {
+            where[i] = i;
+            who[i] = i;
+        }
+        for (int i=0; i<n; i++) {
+            int original = a[i];
+            int j = where[original];
+            if (j != i) {
+                sortable.swap(from + i, from + j);
+                int displaced = who[i];
+                who[j] = displaced;
+                where[displaced] = j;
+                who[i] = original;
+                where[original] = i;
+            }
+        }
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -54,31 +54,8 @@ public class NumericComparer implements AtomicComparer {
     */
 
     public int compareAtomicValues(AtomicValue a, AtomicValue b) {
-        double d1, d2;
-
-        if (a instanceof NumericValue) {
-            d1 = ((NumericValue)a).getDoubleValue();
-        } else if (a == null) {
-            d1 = Double.NaN;
-        } else {
-            try {
-                d1 = StringToDouble.stringToNumber(a.getStringValueCS());
-            } catch (NumberFormatException err) {
-                d1 = Double.NaN;
-            }
-        }
-
-        if (b instanceof NumericValue) {
-            d2 = ((NumericValue)b).getDoubleValue();
-        } else if (b == null) {
-            d2 = Double.NaN;
-        } else {
-            try {
-                d2 = StringToDouble.stringToNumber(b.getStringValueCS());
-            } catch (NumberFormatException err) {
-                d2 = Double.NaN;
-            }
-        }
+        double d1 = toDouble(a);
+        double d2 = toDouble(b);
 
         if (Double.isNaN(d1)) {
             if (Double.isNaN(d2)) {
@@ -96,6 +73,26 @@ public class NumericComparer implements AtomicComparer {
 
     }
 
+    /**
+     * Convert a value to the number used to represent it in comparisons
+     * @param a the value to be converted, or null for an empty sequence
+     * @return the numeric value, or NaN if the value is empty or cannot be converted to a number
+     */
+
+    public static double toDouble(AtomicValue a) {
+        if (a instanceof NumericValue) {
+            return ((NumericValue)a).getDoubleValue();
+        } else if (a == null) {
+            return Double.NaN;
+        } else {
+            try {
+                return StringToDouble.stringToNumber(a.getStringValueCS());
+            } catch (NumberFormatException err) {
+                return Double.NaN;
+            }
+        }
+    }
+
     /**
      * Compare two AtomicValue objects for equality according to the rules for their data type. UntypedAtomic
      * values are compared by converting to the type of the other operand.
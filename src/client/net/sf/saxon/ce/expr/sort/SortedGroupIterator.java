@@ -66,21 +66,20 @@ public class SortedGroupIterator extends SortedIterator implements GroupIterator
             for (int n=0; n<comparators.length; n++) {
                 nodeKeys[k+n+1] = sortKeyEvaluator.evaluateSortKey(n, c2);
             }
-            nodeKeys[k+comparators.length+1] = Integer.valueOf(count);
             // extra code added to superclass
-            nodeKeys[k+comparators.length+2] = ((GroupIterator)base).getCurrentGroupingKey();
-            nodeKeys[k+comparators.length+3] = ((GroupIterator)base).iterateCurrentGroup();
+            nodeKeys[k+comparators.length+1] = ((GroupIterator)base).getCurrentGroupingKey();
+            nodeKeys[k+comparators.length+2] = ((GroupIterator)base).iterateCurrentGroup();
             count++;
         }
     }
 
     public AtomicValue getCurrentGroupingKey() {
-        return (AtomicValue)nodeKeys[(position-1)*recordSize+comparators.length+2];
+        return (AtomicValue)nodeKeys[(position-1)*recordSize+comparators.length+1];
     }
 
     public SequenceIterator iterateCurrentGroup() throws XPathException {
         SequenceIterator iter =
-                (SequenceIterator)nodeKeys[(position-1)*recordSize+comparators.length+3];
+                (SequenceIterator)nodeKeys[(position-1)*recordSize+comparators.length+2];
         return iter.getAnother();
     }
 }
@@ -1,11 +1,14 @@
 package client.net.sf.saxon.ce.expr.sort;
 import client.net.sf.saxon.ce.expr.LastPositionFinder;
 import client.net.sf.saxon.ce.expr.XPathContext;
+import client.net.sf.saxon.ce.lib.StringCollator;
 import client.net.sf.saxon.ce.om.Item;
 import client.net.sf.saxon.ce.om.SequenceIterator;
 import client.net.sf.saxon.ce.trans.NoDynamicContextException;
 import client.net.sf.saxon.ce.trans.XPathException;
 import client.net.sf.saxon.ce.value.AtomicValue;
+import client.net.sf.saxon.ce.value.DoubleValue;
+import client.net.sf.saxon.ce.value.StringValue;
 
 /**
 * Class to do a sorted iteration
@@ -24,14 +27,43 @@ public class SortedIterator implements SequenceIterator, LastPositionFinder, Sor
 
     // The items and keys are read into an array (nodeKeys) for sorting. This
     // array contains one "record" representing each node: the "record" contains
-    // first, the Item itself, then an entry for each of its sort keys, in turn;
-    // the last sort key is the position of the Item in the original sequence.
+    // first, the Item itself, then an entry for each of its sort keys, in turn.
+    // The sort is stable, so items with equal sort keys retain their original order.
+    // Sort keys after the first are not evaluated until they are needed to break a tie:
+    // until then, the entry holds NOT_EVALUATED.
     protected int recordSize;
     protected Object[] nodeKeys;
 
+    protected static final Object NOT_EVALUATED = new Object();
+
+    // If the primary sort key can be compared as a number or a string, its values are also held
+    // in reduced form in arrays parallel to the records in nodeKeys, avoiding the use of the
+    // AtomicComparer for most comparisons. The primaryRank array holds 0 for an empty key,
+    // 1 for NaN (numeric keys) or a string containing surrogate pairs (codepoint keys), and 2 otherwise.
+    private static final int PRIMARY_GENERIC = 0;
+    private static final int PRIMARY_NUMERIC = 1;
+    private static final int PRIMARY_CODEPOINT = 2;
+    private static final int PRIMARY_COLLATED = 3;
+    private int primaryKind = PRIMARY_GENERIC;
+    private boolean primaryDescending;
+    private StringCollator primaryCollator;
+    private byte[] primaryRank;
+    private double[] primaryDoubles;
+    private String[] primaryStrings;
+
+    // The focus used when evaluating sort keys on demand, after the base sequence has been read
+    private SortKeyFocus focus;
+
     // The number of items to be sorted. -1 means not yet known.
     protected int count = -1;
 
+    // The maximum number of items to be delivered, or -1 if there is no limit
+    private int limit = -1;
+
+    // When there is a limit, the records are not held in their original order, so the position
+    // of each item in the original sequence is held in this array, parallel to the records
+    private int[] sequenceNumbers;
+
     // The next item to be delivered from the sorted iteration
     protected int position = 0;
 
@@ -58,7 +90,7 @@ public class SortedIterator implements SequenceIterator, LastPositionFinder, Sor
         for (int n=0; n<comparators.length; n++) {
             this.comparators[n] = comparators[n].provideContext(context);
         }
-        recordSize = comparators.length + 2;
+        recordSize = comparators.length + 1;
 
         // Avoid doing the sort until the user wants the first item. This is because
         // sometimes the user only wants to know whether the collection is empty.
@@ -135,6 +167,18 @@ public class SortedIterator implements SequenceIterator, LastPositionFinder, Sor
         return LAST_POSITION_FINDER;
     }
 
+    /**
+     * Limit the sorted sequence to its first N items. Only the N items that sort first are retained
+     * while the base sequence is read, so the cost of the sort is O(n log N) rather than O(n log n).
+     * The result is the same as taking the first N items of the full stable sort. This method must be
+     * called before the first item is read.
+     * @param limit the maximum number of items to be delivered; must be at least one
+     */
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
     /**
      * Create an array holding the items to be sorted and the values of their sort keys
      * @throws XPathException
@@ -166,13 +210,15 @@ public class SortedIterator implements SequenceIterator, LastPositionFinder, Sor
             }
             int k = count*recordSize;
             nodeKeys[k] = item;
-            // TODO: delay evaluating the sort keys until we know they are needed. Often the 2nd and subsequent
-            // sort key values will never be used. The only problem is with sort keys that depend on position().
-            for (int n=0; n<comparators.length; n++) {
-                nodeKeys[k+n+1] = sortKeyEvaluator.evaluateSortKey(n, context);
+            // Only the first sort key is evaluated now. Often the 2nd and subsequent sort key values
+            // will never be used; if they are, they are evaluated with a focus that reproduces
+            // the position of the item in the base sequence.
+            if (comparators.length > 0) {
+                nodeKeys[k+1] = sortKeyEvaluator.evaluateSortKey(0, context);
+            }
+            for (int n=1; n<comparators.length; n++) {
+                nodeKeys[k+n+1] = NOT_EVALUATED;
             }
-            // make the sort stable by adding the record number
-            nodeKeys[k+comparators.length+1] = Integer.valueOf(count);
             count++;
         }
 
@@ -185,22 +231,273 @@ public class SortedIterator implements SequenceIterator, LastPositionFinder, Sor
         }
     }
 
+    /**
+     * Create an array holding the first N items in sorted order, and the values of their sort keys,
+     * where N is the limit. The records are held in a max-heap, so that the record at the root is the
+     * one that sorts last; an item that sorts before the root replaces it. Because the comparison includes
+     * the original position of the item, ties are resolved in favour of the item that came first, as in a stable sort.
+     * All the sort keys are evaluated while the base sequence is read.
+     * @throws XPathException
+     */
+
+    private void buildBoundedArray() throws XPathException {
+        int allocated = (limit < 100 ? limit + 1 : 100);
+        nodeKeys = new Object[allocated * recordSize];
+        sequenceNumbers = new int[allocated];
+        count = 0;
+        int read = 0;
+
+        while (true) {
+            Item item = base.next();
+            if (item == null) {
+                break;
+            }
+            // once the heap is full, the candidate is read into the spare record at the end
+            int slot = (count < limit ? count : limit);
+            if (slot == allocated) {
+                allocated = (allocated > limit/2 ? limit + 1 : allocated * 2);
+                Object[] nk2 = new Object[allocated * recordSize];
+                System.arraycopy(nodeKeys, 0, nk2, 0, count * recordSize);
+                nodeKeys = nk2;
+                int[] sn2 = new int[allocated];
+                System.arraycopy(sequenceNumbers, 0, sn2, 0, count);
+                sequenceNumbers = sn2;
+            }
+            int k = slot*recordSize;
+            nodeKeys[k] = item;
+            for (int n=0; n<comparators.length; n++) {
+                nodeKeys[k+n+1] = sortKeyEvaluator.evaluateSortKey(n, context);
+            }
+            sequenceNumbers[slot] = read++;
+            if (count < limit) {
+                count++;
+                if (count == limit) {
+                    for (int i=count/2 - 1; i>=0; i--) {
+                        siftDown(i);
+                    }
+                }
+            } else if (compare(limit, 0) < 0) {
+                swap(0, limit);
+                siftDown(0);
+            }
+        }
+
+        if (count == limit) {
+            for (int i=0; i<recordSize; i++) {
+                nodeKeys[limit*recordSize + i] = null;
+            }
+        }
+    }
+
+    /**
+     * Restore the heap property below a given record, among the first <code>count</code> records
+     * @param i the record whose key may be smaller than those of its children
+     */
+
+    private void siftDown(int i) {
+        while (true) {
+            int largest = i;
+            int left = 2*i + 1;
+            int right = left + 1;
+            if (left < count && compare(left, largest) > 0) {
+                largest = left;
+            }
+            if (right < count && compare(right, largest) > 0) {
+                largest = right;
+            }
+            if (largest == i) {
+                return;
+            }
+            swap(i, largest);
+            i = largest;
+        }
+    }
+
     private void doSort() throws XPathException {
-        buildArray();
+        if (limit > 0) {
+            try {
+                buildBoundedArray();
+            } catch (ClassCastException e) {
+                throw nonComparable(e);
+            }
+        } else {
+            buildArray();
+        }
         if (count<2) return;
 
+        reducePrimaryKeys();
+
         // sort the array
 
-        //QuickSort.sort(this, 0, count-1);
         try {
-            GenericSorter.quickSort(0, count, this);
+            MergeSorter.sort(0, count, this);
         } catch (ClassCastException e) {
             //e.printStackTrace();
-            XPathException err = new XPathException("Non-comparable types found while sorting: " + e.getMessage());
-            err.setErrorCode("XTDE1030");
-            throw err;
+            throw nonComparable(e);
+        } catch (SortKeyException e) {
+            throw e.getXPathException();
+        }
+        primaryRank = null;
+        primaryDoubles = null;
+        primaryStrings = null;
+        sequenceNumbers = null;
+    }
+
+    private static XPathException nonComparable(ClassCastException e) {
+        XPathException err = new XPathException("Non-comparable types found while sorting: " + e.getMessage());
+        err.setErrorCode("XTDE1030");
+        return err;
+    }
+
+    /**
+     * If the comparator for the first sort key is one whose ordering can be reproduced by comparing
+     * doubles or strings, reduce the values of the first sort key to that form
+     */
+
+    private void reducePrimaryKeys() {
+        primaryKind = PRIMARY_GENERIC;
+        if (comparators.length == 0) {
+            return;
+        }
+        AtomicComparer comp = comparators[0];
+        primaryDescending = false;
+        if (comp instanceof DescendingComparer) {
+            primaryDescending = true;
+            comp = ((DescendingComparer)comp).getBaseComparer();
+        }
+        boolean text = false;
+        if (comp instanceof TextComparer) {
+            // a TextComparer compares the string values of the keys, treating an empty key as ""
+            text = true;
+            comp = ((TextComparer)comp).getBaseComparer();
+        }
+        primaryRank = new byte[count];
+        if (!text && (comp == NumericComparer.getInstance() || comp == DoubleSortComparer.getInstance())) {
+            boolean toNumber = (comp == NumericComparer.getInstance());
+            primaryDoubles = new double[count];
+            for (int i=0; i<count; i++) {
+                AtomicValue v = (AtomicValue)nodeKeys[i*recordSize+1];
+                double d;
+                if (toNumber) {
+                    d = NumericComparer.toDouble(v);
+                } else if (v == null) {
+                    primaryRank[i] = 0;
+                    continue;
+                } else if (v instanceof DoubleValue) {
+                    d = ((DoubleValue)v).getDoubleValue();
+                } else {
+                    // leave it to the DoubleSortComparer to compare other numeric types, or report an error
+                    primaryDoubles = null;
+                    return;
+                }
+                primaryRank[i] = (byte)(Double.isNaN(d) ? 1 : 2);
+                primaryDoubles[i] = d;
+            }
+            primaryKind = PRIMARY_NUMERIC;
+        } else if (comp == CodepointCollatingComparer.getInstance() || comp instanceof CollatingAtomicComparer) {
+            boolean codepoint = (comp == CodepointCollatingComparer.getInstance());
+            primaryStrings = new String[count];
+            for (int i=0; i<count; i++) {
+                AtomicValue v = (AtomicValue)nodeKeys[i*recordSize+1];
+                String s;
+                if (v == null) {
+                    if (!text) {
+                        primaryRank[i] = 0;
+                        continue;
+                    }
+                    s = "";
+                } else if (codepoint && !text && !(v instanceof StringValue)) {
+                    // leave it to the comparator to report the error
+                    primaryStrings = null;
+                    return;
+                } else {
+                    s = v.getStringValue();
+                }
+                primaryRank[i] = (byte)(codepoint && hasSurrogates(s) ? 1 : 2);
+                primaryStrings[i] = s;
+            }
+            primaryCollator = comp.getCollator();
+            primaryKind = (codepoint ? PRIMARY_CODEPOINT : PRIMARY_COLLATED);
         }
-        //GenericSorter.mergeSort(0, count, this);
+    }
+
+    private static boolean hasSurrogates(String s) {
+        for (int i=0; i<s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 55296 && c <= 57343) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compare the first sort keys of two records, using their reduced form
+     */
+
+    private int comparePrimaryKeys(int a, int b) {
+        int ra = primaryRank[a];
+        int rb = primaryRank[b];
+        int comp;
+        switch (primaryKind) {
+            case PRIMARY_NUMERIC:
+                if (ra != rb) {
+                    comp = ra - rb;
+                } else if (ra < 2) {
+                    comp = 0;
+                } else {
+                    double da = primaryDoubles[a];
+                    double db = primaryDoubles[b];
+                    comp = (da < db ? -1 : (da > db ? +1 : 0));
+                }
+                break;
+            case PRIMARY_CODEPOINT:
+                if (ra == 0 || rb == 0) {
+                    comp = ra - rb;
+                } else if (ra == 1 || rb == 1) {
+                    comp = ((CodepointCollator)primaryCollator).compareCS(primaryStrings[a], primaryStrings[b]);
+                } else {
+                    comp = primaryStrings[a].compareTo(primaryStrings[b]);
+                }
+                break;
+            default:
+                if (ra == 0 || rb == 0) {
+                    comp = ra - rb;
+                } else {
+                    comp = primaryCollator.compareStrings(primaryStrings[a], primaryStrings[b]);
+                }
+                break;
+        }
+        return (primaryDescending ? -comp : comp);
+    }
+
+    /**
+     * Get the value of a sort key for a record, evaluating it if this has not already been done
+     * @param record the record number
+     * @param n the sort key number
+     * @return the value of the sort key
+     */
+
+    private AtomicValue getSortKey(int record, int n) {
+        int k = record*recordSize + n + 1;
+        Object key = nodeKeys[k];
+        if (key == NOT_EVALUATED) {
+            if (focus == null) {
+                focus = new SortKeyFocus(count);
+            }
+            focus.item = (Item)nodeKeys[record*recordSize];
+            // the records do not move until the sort is complete, so the record number
+            // is the position of the item in the base sequence
+            focus.position = record + 1;
+            context.setCurrentIterator(focus);
+            try {
+                key = sortKeyEvaluator.evaluateSortKey(n, context);
+            } catch (XPathException e) {
+                throw new SortKeyException(e);
+            }
+            nodeKeys[k] = key;
+        }
+        return (AtomicValue)key;
     }
 
     /**
@@ -210,12 +507,17 @@ public class SortedIterator implements SequenceIterator, LastPositionFinder, Sor
     */
 
     public int compare(int a, int b) {
-        int a1 = a*recordSize + 1;
-        int b1 = b*recordSize + 1;
+        int first = 0;
+        if (primaryKind != PRIMARY_GENERIC) {
+            int comp = comparePrimaryKeys(a, b);
+            if (comp != 0) {
+                return comp;
+            }
+            first = 1;
+        }
         try {
-            for (int i=0; i<comparators.length; i++) {
-                int comp = comparators[i].compareAtomicValues(
-                        (AtomicValue)nodeKeys[a1+i], (AtomicValue)nodeKeys[b1+i]);
+            for (int i=first; i<comparators.length; i++) {
+                int comp = comparators[i].compareAtomicValues(getSortKey(a, i), getSortKey(b, i));
                 if (comp != 0) {
                     // we have found a difference, so we can return
                     return comp;
@@ -225,10 +527,13 @@ public class SortedIterator implements SequenceIterator, LastPositionFinder, Sor
             throw new AssertionError("Sorting without dynamic context: " + e.getMessage());
         }
 
-        // all sort keys equal: return the items in their original order
+        // all sort keys equal: the items are equal, unless they are in a bounded heap, where
+        // their original order must be used to make the selection stable
 
-        return ((Integer)nodeKeys[a1+comparators.length]).intValue() -
-                ((Integer)nodeKeys[b1+comparators.length]).intValue();
+        if (sequenceNumbers != null) {
+            return sequenceNumbers[a] - sequenceNumbers[b];
+        }
+        return 0;
     }
 
     /**
@@ -243,6 +548,89 @@ public class SortedIterator implements SequenceIterator, LastPositionFinder, Sor
             nodeKeys[a1+i] = nodeKeys[b1+i];
             nodeKeys[b1+i] = temp;
         }
+        if (sequenceNumbers != null) {
+            int s = sequenceNumbers[a];
+            sequenceNumbers[a] = sequenceNumbers[b];
+            sequenceNumbers[b] = s;
+        }
+        if (primaryKind != PRIMARY_GENERIC) {
+            byte r = primaryRank[a];
+            primaryRank[a] = primaryRank[b];
+            primaryRank[b] = r;
+            if (primaryKind == PRIMARY_NUMERIC) {
+                double d = primaryDoubles[a];
+                primaryDoubles[a] = primaryDoubles[b];
+                primaryDoubles[b] = d;
+            } else {
+                String s = primaryStrings[a];
+                primaryStrings[a] = primaryStrings[b];
+                primaryStrings[b] = s;
+            }
+        }
+    }
+
+    /**
+     * The focus for evaluating a sort key on demand: the context item is the item being sorted, the
+     * context position is its position in the base sequence, and the context size is the length of
+     * the base sequence
+     */
+
+    private static class SortKeyFocus implements SequenceIterator, LastPositionFinder {
+
+        public Item item;
+        public int position;
+        private int last;
+
+        public SortKeyFocus(int last) {
+            this.last = last;
+        }
+
+        public Item next() {
+            return null;
+        }
+
+        public Item current() {
+            return item;
+        }
+
+        public int position() {
+            return position;
+        }
+
+        public int getLastPosition() {
+            return last;
+        }
+
+        public SequenceIterator getAnother() {
+            SortKeyFocus f = new SortKeyFocus(last);
+            f.item = item;
+            f.position = position;
+            return f;
+        }
+
+        public int getProperties() {
+            return LAST_POSITION_FINDER;
+        }
+    }
+
+    /**
+     * Unchecked exception used to report an error in evaluating a sort key on demand, since the
+     * Sortable interface does not allow a checked exception to be thrown
+     */
+
+    private static class SortKeyException extends RuntimeException {
+
+        private static final long serialVersionUID = 4927358016383624719L;
+
+        private XPathException cause;
+
+        public SortKeyException(XPathException cause) {
+            this.cause = cause;
+        }
+
+        public XPathException getXPathException() {
+            return cause;
+        }
     }
 
 }
@@ -13,12 +13,16 @@ import client.net.sf.saxon.ce.value.StringValue;
 * This class implements the matches() function for regular expression matching
 */
 
-public class Matches extends SystemFunction {
+public class Matches extends RegexFunction {
 
     public Matches newInstance() {
         return new Matches();
     }
 
+    protected int getFlagsArgument() {
+        return 2;
+    }
+
     /**
      * Evaluate the matches() function to give a Boolean value.
      * @param c  The dynamic evaluation context
@@ -46,7 +50,7 @@ public class Matches extends SystemFunction {
         }
 
         try {
-            ARegularExpression re = new ARegularExpression(pat.getStringValueCS(), flags.toString(), "XP20", null);
+            ARegularExpression re = getRegularExpression(pat.getStringValueCS(), flags, c);
             return BooleanValue.get(re.containsMatch(sv0.getStringValue()));
 
         } catch (XPathException err) {
@@ -0,0 +1,90 @@
+package client.net.sf.saxon.ce.functions;
+
+import client.net.sf.saxon.ce.expr.Expression;
+import client.net.sf.saxon.ce.expr.ExpressionVisitor;
+import client.net.sf.saxon.ce.expr.Literal;
+import client.net.sf.saxon.ce.expr.XPathContext;
+import client.net.sf.saxon.ce.regex.ARegularExpression;
+import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.type.ItemType;
+import client.net.sf.saxon.ce.value.StringValue;
+import client.net.sf.saxon.ce.value.Value;
+
+/**
+ * Abstract superclass of the functions that take a regular expression as their second argument
+ * and an optional flags argument: matches(), replace(), and tokenize(). When the regular expression
+ * and flags are supplied as literals, the regular expression is compiled once during optimization;
+ * otherwise it is obtained at run time from the {@link client.net.sf.saxon.ce.regex.RegexCache}
+ * held by the Configuration.
+ */
+
+public abstract class RegexFunction extends SystemFunction {
+
+    private ARegularExpression staticRegex;
+
+    /**
+     * Get the position of the flags argument
+     * @return the index of the flags argument in the argument array (which may be beyond the
+     * end of the array if the argument is omitted)
+     */
+
+    protected abstract int getFlagsArgument();
+
+    public Expression optimize(ExpressionVisitor visitor, ItemType contextItemType) throws XPathException {
+        Expression e = super.optimize(visitor, contextItemType);
+        if (e == this && staticRegex == null) {
+            maybePrecompile(visitor);
+        }
+        return e;
+    }
+
+    /**
+     * Compile the regular expression at compile time if the pattern and flags are both literals
+     * @param visitor an expression visitor
+     */
+
+    private void maybePrecompile(ExpressionVisitor visitor) {
+        String pattern = getLiteralString(argument[1]);
+        String flags = (argument.length > getFlagsArgument() ? getLiteralString(argument[getFlagsArgument()]) : "");
+        if (pattern != null && flags != null) {
+            try {
+                staticRegex = visitor.getConfiguration().getRegexCache().getRegularExpression(pattern, flags, "XP20");
+            } catch (XPathException err) {
+                // leave the error to be reported if and when the function is evaluated
+            }
+        }
+    }
+
+    private static String getLiteralString(Expression exp) {
+        if (exp instanceof Literal) {
+            Value v = ((Literal)exp).getValue();
+            if (v instanceof StringValue) {
+                return ((StringValue)v).getStringValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the compiled regular expression, either the one compiled during optimization or one taken
+     * from the regular expression cache
+     * @param pattern the regular expression as supplied at run time
+     * @param flags the flags as supplied at run time
+     * @param context the dynamic evaluation context
+     * @return the compiled regular expression
+     * @throws XPathException if the regular expression or flags are invalid
+     */
+
+    protected ARegularExpression getRegularExpression(CharSequence pattern, CharSequence flags, XPathContext context)
+            throws XPathException {
+        if (staticRegex != null) {
+            return staticRegex;
+        }
+        return context.getConfiguration().getRegexCache().getRegularExpression(pattern, flags.toString(), "XP20");
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -13,12 +13,16 @@ import client.net.sf.saxon.ce.value.StringValue;
  * substrings that match a regular expression
  */
 
-public class Replace extends SystemFunction {
+public class Replace extends RegexFunction {
 
     public Replace newInstance() {
         return new Replace();
     }
 
+    protected int getFlagsArgument() {
+        return 3;
+    }
+
     /**
      * Evaluate the function in a string context
      */
@@ -49,7 +53,7 @@ public class Replace extends SystemFunction {
         }
 
         try {
-            ARegularExpression re = new ARegularExpression(arg1.getStringValueCS(), flags.toString(), "XP20", null);
+            ARegularExpression re = getRegularExpression(arg1.getStringValueCS(), flags, c);
             // check that it's not a pattern that matches ""
             if (re.matches("")) {
                 dynamicError(
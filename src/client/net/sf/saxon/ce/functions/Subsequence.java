@@ -1,5 +1,7 @@
 package client.net.sf.saxon.ce.functions;
 import client.net.sf.saxon.ce.expr.*;
+import client.net.sf.saxon.ce.expr.sort.SortExpression;
+import client.net.sf.saxon.ce.expr.sort.SortedIterator;
 import client.net.sf.saxon.ce.om.SequenceIterator;
 import client.net.sf.saxon.ce.tree.iter.EmptyIterator;
 import client.net.sf.saxon.ce.trans.XPathException;
@@ -123,6 +125,12 @@ public class Subsequence extends SystemFunction {
             }
             lend = rend.intValue();
         }
+        if (lstart == 1 && lend < Integer.MAX_VALUE &&
+                argument[0] instanceof SortExpression && seq instanceof SortedIterator) {
+            // only the first lend items in sorted order are needed, so the others can be discarded
+            // while the sequence is being sorted
+            ((SortedIterator)seq).setLimit(lend);
+        }
         return SubsequenceIterator.make(seq, lstart, lend);
     }
 
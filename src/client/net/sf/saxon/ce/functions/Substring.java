@@ -3,7 +3,7 @@ package client.net.sf.saxon.ce.functions;
 import client.net.sf.saxon.ce.expr.XPathContext;
 import client.net.sf.saxon.ce.om.Item;
 import client.net.sf.saxon.ce.trans.XPathException;
-import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
+import client.net.sf.saxon.ce.regex.UnicodeString;
 import client.net.sf.saxon.ce.value.DoubleValue;
 import client.net.sf.saxon.ce.value.StringValue;
 
@@ -26,31 +26,50 @@ public class Substring extends SystemFunction {
         if (sv==null) {
             return StringValue.EMPTY_STRING;
         }
-        String str = sv.getStringValue();
-        double start = ((DoubleValue)argument[1].evaluateItem(context)).round().getDoubleValue();
-        double length;
+        double first = ((DoubleValue)argument[1].evaluateItem(context)).round().getDoubleValue();
+        double last;
         if (argument.length==2) {
-            length = (double)str.length();
+            last = Double.POSITIVE_INFINITY;
         } else {
-            length = ((DoubleValue)argument[2].evaluateItem(context)).round().getDoubleValue();
-            if (length < 0) {
-            	length = 0;
-            }
+            last = first + ((DoubleValue)argument[2].evaluateItem(context)).round().getDoubleValue();
         }
-        FastStringBuffer sb = new FastStringBuffer((int)length);
-        int i=0;
-        int pos=0;
-        while(i<start-1 && pos<str.length()) {
-            int c = (int)str.charAt(pos++);
-            if (c<55296 || c>56319) i++;    // don't count high surrogates, i.e. D800 to DBFF
+        // the result contains the characters at positions p (counting from 1) where first <= p < last.
+        // Note that any comparison involving NaN is false.
+        if (!(first < last)) {
+            return StringValue.EMPTY_STRING;
         }
-        int j=0;
-        while (j<length && pos<str.length()) {
-            char c = str.charAt(pos++);
-            sb.append(c);
-            if ((int)c<55296 || (int)c>56319) j++;    // don't count high surrogates, i.e. D800 to DBFF
+        CharSequence chars;
+        if (sv.isUnicodeStringAvailable()) {
+            // the characters can be located by codepoint position without examining the whole value
+            UnicodeString str = sv.getUnicodeString();
+            int len = str.length();
+            int begin = (first <= 1 ? 0 : (first > len ? len : (int)first - 1));
+            int end = (last > len + 1 ? len : (last <= 1 ? 0 : (int)last - 1));
+            if (begin >= end) {
+                return StringValue.EMPTY_STRING;
+            }
+            // copy the characters, so that the result does not retain the whole of a large buffer
+            chars = str.substring(begin, end).toString();
+        } else {
+            // count codepoints from the start, examining no more of the value than is needed
+            String str = sv.getStringValue();
+            int pos = 0;
+            double p = 1;
+            while (p < first && pos < str.length()) {
+                char c = str.charAt(pos++);
+                if (c < 55296 || c > 56319) p++;    // don't count high surrogates, i.e. D800 to DBFF
+            }
+            int begin = pos;
+            while (p < last && pos < str.length()) {
+                char c = str.charAt(pos++);
+                if (c < 55296 || c > 56319) p++;    // don't count high surrogates, i.e. D800 to DBFF
+            }
+            if (begin >= pos) {
+                return StringValue.EMPTY_STRING;
+            }
+            chars = str.substring(begin, pos);
         }
-        StringValue result = new StringValue(sb);
+        StringValue result = new StringValue(chars);
         if (sv.isKnownToContainNoSurrogates()) {
             result.setContainsNoSurrogates();
         }
@@ -14,12 +14,16 @@ import client.net.sf.saxon.ce.value.AtomicValue;
 * regular expression are not returned.
 */
 
-public class Tokenize extends SystemFunction  {
+public class Tokenize extends RegexFunction {
 
     public Tokenize newInstance() {
         return new Tokenize();
     }
 
+    protected int getFlagsArgument() {
+        return 2;
+    }
+
     /**
     * Iterate over the results of the function
     */
@@ -46,7 +50,7 @@ public class Tokenize extends SystemFunction  {
         }
 
         try {
-            ARegularExpression re = new ARegularExpression(pattern, flags.toString(), "XP20", null);
+            ARegularExpression re = getRegularExpression(pattern, flags, c);
 
             // check that it's not a pattern that matches ""
             if (re.matches("")) {
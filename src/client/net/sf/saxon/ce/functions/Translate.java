@@ -2,6 +2,7 @@ package client.net.sf.saxon.ce.functions;
 
 import client.net.sf.saxon.ce.expr.XPathContext;
 import client.net.sf.saxon.ce.om.Item;
+import client.net.sf.saxon.ce.regex.UnicodeString;
 import client.net.sf.saxon.ce.trans.XPathException;
 import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
 import client.net.sf.saxon.ce.value.StringValue;
@@ -31,27 +32,23 @@ public class Translate extends SystemFunction {
 
         StringValue sv3 = (StringValue)argument[2].evaluateItem(context);
 
-        int[] a1 = sv1.expand();
-        int[] a2 = sv2.expand();
-        int[] a3 = sv3.expand();
+        UnicodeString s1 = sv1.getUnicodeString();
+        UnicodeString s2 = sv2.getUnicodeString();
+        UnicodeString s3 = sv3.getUnicodeString();
 
-        int length1 = a1.length;
-        int length2 = a2.length;
-        FastStringBuffer sb = new FastStringBuffer(length1);
-    inputLoop:
+        int length1 = s1.length();
+        int length3 = s3.length();
+        FastStringBuffer sb = new FastStringBuffer(sv1.getStringValueCS().length());
         for (int i=0; i<length1; i++) {
-            int ch = a1[i];
-            for (int j=0; j<length2; j++) {
-                 if (a2[j] == ch) {
-                     if (j < a3.length) {
-                        sb.appendWideChar(a3[j]);
-                     } else {
-                         // do nothing, delete the character
-                     }
-                     continue inputLoop;
-                 }
+            int ch = s1.charAt(i);
+            int j = s2.indexOf(ch, 0);
+            if (j < 0) {
+                sb.appendWideChar(ch);
+            } else if (j < length3) {
+                sb.appendWideChar(s3.charAt(j));
+            } else {
+                // do nothing, delete the character
             }
-            sb.appendWideChar(ch);
         }
 
         return StringValue.makeStringValue(sb);
@@ -198,12 +198,14 @@ public class IXSLFunction extends FunctionCall {
         com.google.gwt.dom.client.Document page = ((Node)jsValue).getOwnerDocument();
         if (page == null ) {
 			 com.google.gwt.dom.client.Document doc = (Document)jsValue;
-			 DocType jsDocType = (doc == Document.get())? DocType.UNKNOWN : DocType.NONHTML; 
-			 HTMLDocumentWrapper docWrapper =  new HTMLDocumentWrapper(doc, doc.getURL(), config, jsDocType);
+			 if (doc == Document.get()) {
+				 return SingletonIterator.makeIterator(config.getHostPage());
+			 }
+			 HTMLDocumentWrapper docWrapper =  new HTMLDocumentWrapper(doc, doc.getURL(), config, DocType.NONHTML);
 			 return SingletonIterator.makeIterator(docWrapper);
         } else {
-			DocType jsDocType = (page == Document.get())? DocType.UNKNOWN : DocType.NONHTML; 
-	        HTMLDocumentWrapper htmlDoc = new HTMLDocumentWrapper(page, page.getURL(), config, jsDocType);
+	        HTMLDocumentWrapper htmlDoc = (page == Document.get())? (HTMLDocumentWrapper)config.getHostPage() :
+	        		new HTMLDocumentWrapper(page, page.getURL(), config, DocType.NONHTML);
 	        HTMLNodeWrapper htmlNode = htmlDoc.wrap((Node) jsValue);
 	        return SingletonIterator.makeIterator(htmlNode);
         }          
@@ -232,6 +232,43 @@ public abstract class FeatureKeys {
 // AUTO-GENERATED CODE: DO NOT EDIT
 
 
+// AUTO-GENERATED CODE: DO NOT EDIT
+
+    /**
+    *
+    * <p>Type of value: integer</p>
+    *
+    *  <p>The maximum total size of the indexes held for <code>xsl:key</code> definitions, measured
+    *  as the number of distinct key values plus the number of node references held. When the limit
+    *  is exceeded, the least recently used indexes are discarded, and are rebuilt if they are needed
+    *  again. A negative value means there is no limit. The default is 500000.</p>
+    *
+    * <p><i>Applies to Saxon editions: CE</i></p>
+    * @see client.net.sf.saxon.ce.Configuration#setKeyIndexMemoryBudget
+    * @see client.net.sf.saxon.ce.trans.KeyIndexStore
+    **/
+
+    public final static String KEY_INDEX_MEMORY_BUDGET =
+        "http://saxon.sf.net/feature/keyIndexMemoryBudget";
+
+    /**
+    *
+    * <p>Type of value: integer</p>
+    *
+    *  <p>The maximum number of results remembered for each memo function (a stylesheet function declared
+    *  with <code>saxon:memo-function="yes"</code>) during a transformation. When the limit is reached, the
+    *  least recently used results are discarded. A negative value means there is no limit. The default
+    *  is 10000.</p>
+    *
+    * <p><i>Applies to Saxon editions: CE</i></p>
+    * @see client.net.sf.saxon.ce.Configuration#setMemoFunctionCacheSize
+    * @see client.net.sf.saxon.ce.expr.instruct.MemoFunctionCache
+    **/
+
+    public final static String MEMO_FUNCTION_CACHE_SIZE =
+        "http://saxon.sf.net/feature/memoFunctionCacheSize";
+
+
 // AUTO-GENERATED CODE: DO NOT EDIT
 
     /**
@@ -454,6 +491,29 @@ public abstract class FeatureKeys {
         "http://saxon.sf.net/feature/timing";
 
 
+// AUTO-GENERATED CODE: DO NOT EDIT
+
+    /**
+    *
+    * <p>Type of value: string</p>
+    *
+    *  <p>Determines the tree model implementation used for temporary trees built during a transformation,
+    *  for example the values of variables and the results of <code>xsl:document</code>.
+    *  The value is "linkedTree" (the default) or "tinyTree". The tiny tree holds the nodes in arrays of integers,
+    *  and uses much less memory than the linked tree.</p>
+    *
+    * <p><i>Applies to Saxon editions: CE</i></p>
+    * @see client.net.sf.saxon.ce.Configuration#setTreeModel
+    * @see client.net.sf.saxon.ce.Configuration#getTreeModel
+    **/
+
+    public final static String TREE_MODEL_NAME =
+        "http://saxon.sf.net/feature/treeModelName";
+
+
+// AUTO-GENERATED CODE: DO NOT EDIT
+
+
 // AUTO-GENERATED CODE: DO NOT EDIT
 
 
@@ -474,6 +534,46 @@ public abstract class FeatureKeys {
 
 // AUTO-GENERATED CODE: DO NOT EDIT
 
+    /**
+    *
+    * <p>Type of value: boolean</p>
+    *
+    *  <p>Determines whether documents read using <code>doc()</code> and <code>document()</code> are
+    *  parsed by Saxon's own XML parser and built as a Saxon tree (using the tree model selected by
+    *  {@link #TREE_MODEL_NAME}), rather than being parsed by the browser and wrapped as a DOM.
+    *  Navigating a Saxon tree avoids a call into JavaScript on every step. The default value is false.</p>
+    *
+    * <p><i>Applies to Saxon editions: CE</i></p>
+    * @see client.net.sf.saxon.ce.Configuration#setUseInternalXmlParser
+    * @see client.net.sf.saxon.ce.event.XMLStreamParser
+    **/
+
+    public final static String USE_INTERNAL_XML_PARSER =
+        "http://saxon.sf.net/feature/useInternalXmlParser";
+
+
+// AUTO-GENERATED CODE: DO NOT EDIT
+
+    /**
+    *
+    * <p>Type of value: boolean</p>
+    *
+    *  <p>Determines whether the nodes of a wrapped DOM document (including the HTML host page) are
+    *  numbered in document order, in a single pass, the first time two of its nodes are compared.
+    *  Comparing the document order of two nodes then becomes an integer comparison rather than a walk
+    *  of the ancestor and preceding-sibling axes, which speeds up union, intersect, and except
+    *  operations and path expressions that require sorting into document order. The numbering is
+    *  discarded whenever pending updates are applied to the HTML page, or a result document is
+    *  written to it. The default value is false.</p>
+    *
+    * <p><i>Applies to Saxon editions: CE</i></p>
+    * @see client.net.sf.saxon.ce.Configuration#setUseDocumentOrderIndex
+    * @see client.net.sf.saxon.ce.dom.DocumentOrderIndex
+    **/
+
+    public final static String USE_DOCUMENT_ORDER_INDEX =
+        "http://saxon.sf.net/feature/useDocumentOrderIndex";
+
 
 // AUTO-GENERATED CODE: DO NOT EDIT
 
@@ -502,12 +602,13 @@ public abstract class FeatureKeys {
     *
     * <p>Type of value: boolean</p>
     *
-    *  <p>This option is relevant only when the TinyTree is used; it determines whether (for a
-    *  validated document) a cache will be maintained containing the typed values of nodes.
-    *  Typed values are held in the cache only for elements and attributes whose type is
-    *  other than string, untypedAtomic, or anyURI. The default value is true. Setting this
-    *  value to false can reduce memory requirements at the cost of requiring recomputation
-    *  of typed values on each access.</p>
+    *  <p>This option determines whether a cache will be maintained containing the typed values
+    *  of element and document nodes, which avoids recomputing the string value of a node (by
+    *  concatenating its descendant text nodes) each time it is atomized. It applies to the linked
+    *  tree and to the DOM wrappers; values cached for DOM nodes are discarded at the start of each
+    *  transformation and whenever the transformation writes to the HTML page. The default value is false. Setting this value to true
+    *  speeds up repeated atomization of the same nodes, for example as sort or grouping keys,
+    *  at the cost of additional memory.</p>
     *
     * <p><i>Corresponding attribute in configuration file: global/@useTypedValueCache</i></p>
     * <p><i>Applies to Saxon editions: EE</i></p>
@@ -180,6 +180,7 @@ public abstract class StandardNames {
     public static final String PER_MILLE = "per-mille";
     public static final String IXSL_PREVENT_DEFAULT = "{" + NamespaceConstant.IXSL + "}" + "prevent-default";
     public static final String IXSL_EVENT_PROPERTY = "{" + NamespaceConstant.IXSL + "}" + "event-property";
+    public static final String SAXON_MEMO_FUNCTION = "{" + NamespaceConstant.SAXON + "}" + "memo-function";
     public static final String PRIORITY = "priority";
     public static final String REGEX = "regex";
     public static final String REQUIRED = "required";
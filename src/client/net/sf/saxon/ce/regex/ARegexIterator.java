@@ -101,11 +101,7 @@ public class ARegexIterator implements RegexIterator {
     }
 
     private StringValue currentStringValue() {
-        if (current instanceof BMPString) {
-            return StringValue.makeStringValue(((BMPString)current).getCharSequence());
-        } else {
-            return StringValue.makeStringValue(current.toString());
-        }
+        return StringValue.makeStringValue(current.getCharSequence());
     }
 
     /**
@@ -7,7 +7,10 @@ import java.util.List;
 
 
 /**
- * Glue class to interface the Jakarta regex engine to Saxon
+ * Glue class to interface the Jakarta regex engine to Saxon. Unless the regular expression contains
+ * back-references, or repeats a subexpression that can match a zero-length string, matching is done
+ * without backtracking, using an {@link REAutomaton}, so that the time taken is linear in the length
+ * of the input.
  */
 
 public class ARegularExpression implements RegularExpression {
@@ -29,6 +32,10 @@ public class ARegularExpression implements RegularExpression {
             RECompiler comp2 = new RECompiler();
             comp2.setFlags(reFlags);
             regex = comp2.compile(rawPattern);
+            if (!regex.hasBackReferences()) {
+                // matching can be done in linear time, without backtracking, if an automaton can be made
+                regex.setAutomaton(REAutomaton.make(regex));
+            }
             if (warnings != null) {
                 for (String s : comp2.getWarnings()) {
                     warnings.add(s);
@@ -49,6 +56,10 @@ public class ARegularExpression implements RegularExpression {
         if (input.length() == 0) {
             return regex.isNullable();
         }
+        LazyDFA dfa = getDFA();
+        if (dfa != null) {
+            return dfa.matches(GeneralUnicodeString.makeUnicodeString(input));
+        }
         REMatcher matcher = new REMatcher(regex);
         return matcher.anchoredMatch(GeneralUnicodeString.makeUnicodeString(input));
     }
@@ -60,10 +71,24 @@ public class ARegularExpression implements RegularExpression {
      * @return true if the string matches, false otherwise
      */
     public boolean containsMatch(CharSequence input) {
+        LazyDFA dfa = getDFA();
+        if (dfa != null) {
+            return dfa.containsMatch(GeneralUnicodeString.makeUnicodeString(input));
+        }
         REMatcher matcher = new REMatcher(regex);
         return matcher.match(GeneralUnicodeString.makeUnicodeString(input), 0);
     }
 
+    /**
+     * Get the deterministic automaton used for questions that do not need captured substrings
+     * @return the deterministic automaton, or null if the backtracking or nondeterministic matcher must be used
+     */
+
+    private LazyDFA getDFA() {
+        REAutomaton automaton = regex.getAutomaton();
+        return (automaton == null ? null : automaton.getDFA());
+    }
+
     /**
      * Use this regular expression to tokenize an input string.
      *
@@ -49,11 +49,7 @@ public class ATokenIterator implements SequenceIterator {
     }
 
     private Item currentStringValue() {
-        if (current instanceof BMPString) {
-            return StringValue.makeStringValue(((BMPString)current).getCharSequence());
-        } else {
-            return StringValue.makeStringValue(current.toString());
-        }
+        return StringValue.makeStringValue(current.getCharSequence());
     }
 
     public Item current() {
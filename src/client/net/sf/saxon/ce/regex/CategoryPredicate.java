@@ -0,0 +1,74 @@
+package client.net.sf.saxon.ce.regex;
+
+import client.net.sf.saxon.ce.expr.z.IntRangeSet;
+import client.net.sf.saxon.ce.expr.z.IntSetPredicate;
+
+/**
+ * A predicate that tests whether a character is in a set of ranges, used for the characters of a
+ * Unicode category. For characters in the BMP, the test is a lookup in a two-level bitmap: each block
+ * of 256 characters has a bitmap of 8 ints, except that all the blocks that are entirely outside the
+ * set share one bitmap, and all the blocks that are entirely inside the set share another. Characters
+ * outside the BMP are tested by searching the ranges.
+ */
+
+class CategoryPredicate extends IntSetPredicate {
+
+    private final static int[] NONE = new int[8];
+    private final static int[] ALL = {-1, -1, -1, -1, -1, -1, -1, -1};
+
+    private int[][] blocks = new int[256][];
+
+    /**
+     * Create a predicate for the characters in a set of ranges
+     * @param set the ranges of characters to be matched
+     */
+
+    public CategoryPredicate(IntRangeSet set) {
+        super(set);
+        for (int b = 0; b < 256; b++) {
+            blocks[b] = NONE;
+        }
+        int[] startPoints = set.getStartPoints();
+        int[] endPoints = set.getEndPoints();
+        int n = set.getNumberOfRanges();
+        for (int r = 0; r < n && startPoints[r] < 65536; r++) {
+            int high = Math.min(endPoints[r], 65535);
+            int c = startPoints[r];
+            while (c <= high) {
+                int b = c >> 8;
+                int blockEnd = (b << 8) + 255;
+                if ((c & 255) == 0 && high >= blockEnd) {
+                    blocks[b] = ALL;
+                    c = blockEnd + 1;
+                } else {
+                    int[] bits = blocks[b];
+                    if (bits == NONE) {
+                        bits = new int[8];
+                        blocks[b] = bits;
+                    }
+                    int last = Math.min(high, blockEnd);
+                    for (; c <= last; c++) {
+                        bits[(c >> 5) & 7] |= (1 << (c & 31));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Ask whether a given character matches this predicate
+     * @param value the Unicode codepoint to be tested
+     * @return true if the character is in the set
+     */
+
+    public boolean matches(int value) {
+        if (value >= 0 && value < 65536) {
+            return (blocks[value >> 8][(value >> 5) & 7] & (1 << (value & 31))) != 0;
+        }
+        return super.matches(value);
+    }
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -1,26 +1,36 @@
 package client.net.sf.saxon.ce.regex;
 
-import client.net.sf.saxon.ce.value.*;
-
 /**
  * A Unicode string which, in general, may contain non-BMP characters (that is, codepoints
- * outside the range 0-65535)
+ * outside the range 0-65535).
+ *
+ * <p>The string is a view of an underlying CharSequence, in which non-BMP characters are represented
+ * as surrogate pairs; the characters are not copied. To find the character at a given codepoint position,
+ * the view uses an index of the positions of the non-BMP characters, which is built the first time it is
+ * needed and is shared by all substrings of the view. Since most accesses (for example, by the regular
+ * expression matcher) are to successive positions, the index remembers the position last accessed, so that
+ * in the common case no search is needed.</p>
  */
 
 public final class GeneralUnicodeString implements UnicodeString {
 
-    private int[] chars;
+    private SurrogateIndex index;
     private int start;
     private int end;
 
+    /**
+     * Create a view of a CharSequence, indexed by codepoints
+     * @param in the underlying CharSequence, which the caller must not modify
+     */
+
     public GeneralUnicodeString(CharSequence in) {
-        chars = StringValue.expand(in);
+        index = new SurrogateIndex(in);
         start = 0;
-        end = chars.length;
+        end = -1;       // not known until the index is built
     }
 
-    private GeneralUnicodeString(int[] chars, int start, int end) {
-        this.chars = chars;
+    private GeneralUnicodeString(SurrogateIndex index, int start, int end) {
+        this.index = index;
         this.start = start;
         this.end = end;
     }
@@ -28,7 +38,7 @@ public final class GeneralUnicodeString implements UnicodeString {
     public static boolean containsSurrogatePairs(CharSequence value) {
         for (int i = 0; i < value.length(); i++) {
             int c = (int) value.charAt(i);
-            if (c >= 55296 && c < 56319) {
+            if (c >= 55296 && c <= 56319) {
                 return true;
             }
         }
@@ -49,25 +59,33 @@ public final class GeneralUnicodeString implements UnicodeString {
         }
     }
 
+    private int end() {
+        if (end < 0) {
+            end = index.getLength();
+        }
+        return end;
+    }
+
     public UnicodeString substring(int beginIndex, int endIndex) {
-        if (endIndex > chars.length) {
+        if (endIndex > length()) {
             throw new IndexOutOfBoundsException("endIndex=" + endIndex
-                                                + "; sequence size=" + chars.length);
+                                                + "; sequence size=" + length());
         }
         if (beginIndex < 0 || beginIndex > endIndex) {
             throw new IndexOutOfBoundsException("beginIndex=" + beginIndex
                                                 + "; endIndex=" + endIndex);
         }
-        return new GeneralUnicodeString(chars, start + beginIndex, start + endIndex);
+        return new GeneralUnicodeString(index, start + beginIndex, start + endIndex);
     }
 
     public int charAt(int pos) {
-        return chars[start + pos];
+        return index.codepointAt(start + pos);
     }
 
     public int indexOf(int search, int pos) {
-        for (int i=pos; i<length(); i++) {
-            if (chars[start+i] == search) {
+        int len = length();
+        for (int i=pos; i<len; i++) {
+            if (index.codepointAt(start + i) == search) {
                 return i;
             }
         }
@@ -75,23 +93,119 @@ public final class GeneralUnicodeString implements UnicodeString {
     }
 
     public int length() {
-        return end - start;
+        return end() - start;
     }
 
     public boolean isEnd(int pos) {
-        return (pos >= (end - start));
+        return (pos >= length());
+    }
+
+    /**
+     * Get the underlying CharSequence of this substring, without copying the characters
+     * @return the characters of this string as a CharSequence, with non-BMP characters as surrogate pairs
+     */
+
+    public CharSequence getCharSequence() {
+        CharSequence chars = index.chars;
+        int from = index.charOffset(start);
+        int to = index.charOffset(end());
+        return (from == 0 && to == chars.length() ? chars : chars.subSequence(from, to));
     }
 
     public String toString() {
-        int[] c = chars;
-        if (start != 0) {
-            c = new int[end - start];
-            System.arraycopy(chars, start, c, 0, end - start);
+        return getCharSequence().toString();
+    }
+
+    /**
+     * An index of the positions of the surrogate pairs in a CharSequence
+     */
+
+    private static class SurrogateIndex {
+
+        CharSequence chars;
+        int[] astral;           // the codepoint positions of the non-BMP characters, in ascending order
+        int count = -1;         // the number of non-BMP characters, or -1 if the index has not been built
+        int lastPos = 0;        // the codepoint position most recently located
+        int lastCount = 0;      // the number of non-BMP characters before lastPos
+
+        SurrogateIndex(CharSequence chars) {
+            this.chars = chars;
+        }
+
+        private void build() {
+            int n = 0;
+            int len = chars.length();
+            astral = new int[8];
+            for (int i = 0; i < len; i++) {
+                int c = chars.charAt(i);
+                if (c >= 55296 && c <= 56319 && i + 1 < len) {
+                    if (n == astral.length) {
+                        int[] a2 = new int[n * 2];
+                        System.arraycopy(astral, 0, a2, 0, n);
+                        astral = a2;
+                    }
+                    astral[n] = i - n;
+                    n++;
+                    i++;
+                }
+            }
+            count = n;
+        }
+
+        int getLength() {
+            if (count < 0) {
+                build();
+            }
+            return chars.length() - count;
+        }
+
+        /**
+         * Get the offset in the CharSequence of the character at a given codepoint position
+         */
+
+        int charOffset(int pos) {
+            if (count < 0) {
+                build();
+            }
+            if (count == 0) {
+                return pos;
+            }
+            int k;
+            if (pos >= lastPos) {
+                k = lastCount;
+                while (k < count && astral[k] < pos) {
+                    k++;
+                }
+            } else {
+                // binary search for the number of non-BMP characters before pos
+                int lo = 0;
+                int hi = lastCount;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (astral[mid] < pos) {
+                        lo = mid + 1;
+                    } else {
+                        hi = mid;
+                    }
+                }
+                k = lo;
+            }
+            lastPos = pos;
+            lastCount = k;
+            return pos + k;
+        }
+
+        int codepointAt(int pos) {
+            int offset = charOffset(pos);
+            int c = chars.charAt(offset);
+            if (c >= 55296 && c <= 56319 && offset + 1 < chars.length()) {
+                return ((c - 55296) * 1024) + ((int) chars.charAt(offset + 1) - 56320) + 65536;
+            }
+            return c;
         }
-        return StringValue.contract(c, end - start).toString();
     }
 }
 
-// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. 
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
 // If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
 // This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -0,0 +1,257 @@
+package client.net.sf.saxon.ce.regex;
+
+import client.net.sf.saxon.ce.expr.z.IntHashMap;
+import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A deterministic automaton constructed on demand from a {@link REAutomaton}, used to decide whether
+ * a string matches a regular expression, or contains a match, when the captured substrings are not
+ * required. Each state of the deterministic automaton is the set of instructions of the
+ * nondeterministic automaton at which a path can be waiting for the next character; states and the
+ * transitions between them are computed the first time they are needed, and then cached, so that
+ * after a few characters of input each character usually costs a single table lookup.
+ *
+ * <p>The number of states that can be constructed is exponential in the size of the program, so the
+ * cache is limited in size; when it is full, it is discarded and construction starts afresh. This
+ * means that matching is always linear in the length of the input.</p>
+ *
+ * <p>The deterministic automaton is not used for programs containing assertions (^ and $).</p>
+ */
+
+public final class LazyDFA {
+
+    // The maximum number of states held in each cache
+    private static final int MAX_STATES = 1000;
+
+    private REAutomaton nfa;
+    private HashMap<String, State> anchoredStates = new HashMap<String, State>();
+    private HashMap<String, State> unanchoredStates = new HashMap<String, State>();
+    private State anchoredStart;
+    private State unanchoredStart;
+
+    LazyDFA(REAutomaton nfa) {
+        this.nfa = nfa;
+    }
+
+    /**
+     * Determine whether the regular expression matches a given string in its entirety
+     * @param input the string to be tested
+     * @return true if the string matches
+     */
+
+    public boolean matches(UnicodeString input) {
+        if (anchoredStart == null) {
+            anchoredStart = startState(false);
+        }
+        State state = anchoredStart;
+        int len = input.length();
+        for (int p = 0; p < len; p++) {
+            state = step(state, input.charAt(p), false);
+            if (state.instructions.length == 0 && !state.accepting) {
+                return false;
+            }
+        }
+        return state.accepting;
+    }
+
+    /**
+     * Determine whether a given string contains a substring that matches the regular expression
+     * @param input the string to be tested
+     * @return true if the string contains a match
+     */
+
+    public boolean containsMatch(UnicodeString input) {
+        if (unanchoredStart == null) {
+            unanchoredStart = startState(true);
+        }
+        State state = unanchoredStart;
+        int len = input.length();
+        for (int p = 0; p < len && !state.accepting; p++) {
+            if (state == unanchoredStart) {
+                // no match is in progress, so skip to the next position at which one can start
+                p = nfa.program.nextCandidate(input, p);
+                if (p == -1) {
+                    return false;
+                }
+            }
+            state = step(state, input.charAt(p), true);
+        }
+        return state.accepting;
+    }
+
+    private State startState(boolean unanchored) {
+        Closure closure = new Closure(nfa.opcode.length);
+        closure.add(nfa.start);
+        return intern(closure, unanchored);
+    }
+
+    /**
+     * Get the state that follows a given state on reading a given character
+     */
+
+    private State step(State state, int c, boolean unanchored) {
+        State next;
+        if (c < 128) {
+            next = (state.ascii == null ? null : state.ascii[c]);
+        } else {
+            next = (state.others == null ? null : state.others.get(c));
+        }
+        if (next != null) {
+            return next;
+        }
+
+        HashMap<String, State> states = (unanchored ? unanchoredStates : anchoredStates);
+        if (states.size() >= MAX_STATES) {
+            // discard the cache, and continue from a copy of the current state in the new cache
+            states.clear();
+            if (unanchored) {
+                unanchoredStart = null;
+            } else {
+                anchoredStart = null;
+            }
+            state = intern(state.instructions, state.accepting, unanchored);
+        }
+
+        Closure closure = new Closure(nfa.opcode.length);
+        for (int pc : state.instructions) {
+            if (nfa.matchesChar(pc, c)) {
+                closure.add(pc + 1);
+            }
+        }
+        if (unanchored) {
+            // a match may start at any position
+            closure.add(nfa.start);
+        }
+        next = intern(closure, unanchored);
+
+        if (c < 128) {
+            if (state.ascii == null) {
+                state.ascii = new State[128];
+            }
+            state.ascii[c] = next;
+        } else {
+            if (state.others == null) {
+                state.others = new IntHashMap<State>(16);
+            }
+            state.others.put(c, next);
+        }
+        return next;
+    }
+
+    private State intern(Closure closure, boolean unanchored) {
+        int[] instructions = new int[closure.count];
+        System.arraycopy(closure.waiting, 0, instructions, 0, closure.count);
+        Arrays.sort(instructions);
+        return intern(instructions, closure.accepting, unanchored);
+    }
+
+    private State intern(int[] instructions, boolean accepting, boolean unanchored) {
+        HashMap<String, State> states = (unanchored ? unanchoredStates : anchoredStates);
+        FastStringBuffer sb = new FastStringBuffer(instructions.length * 4);
+        for (int pc : instructions) {
+            sb.append(Integer.toString(pc));
+            sb.append(',');
+        }
+        if (accepting) {
+            sb.append('$');
+        }
+        String key = sb.toString();
+        State state = states.get(key);
+        if (state == null) {
+            state = new State(instructions, accepting);
+            states.put(key, state);
+        }
+        return state;
+    }
+
+    /**
+     * A state of the deterministic automaton
+     */
+
+    private static class State {
+
+        int[] instructions;             // the CHAR and CLASS instructions waiting for a character, in order
+        boolean accepting;              // true if the end of the program has been reached
+        State[] ascii;                  // transitions for ASCII characters, allocated on demand
+        IntHashMap<State> others;       // transitions for other characters, allocated on demand
+
+        State(int[] instructions, boolean accepting) {
+            this.instructions = instructions;
+            this.accepting = accepting;
+        }
+    }
+
+    /**
+     * The set of instructions reachable from a set of starting instructions without consuming a character
+     */
+
+    private class Closure {
+
+        boolean[] visited;
+        int[] waiting;
+        int count = 0;
+        boolean accepting = false;
+        int[] stack;
+
+        Closure(int n) {
+            visited = new boolean[n];
+            waiting = new int[n];
+            stack = new int[n];
+        }
+
+        void add(int pc) {
+            int top = 0;
+            stack[top++] = pc;
+            while (top > 0) {
+                pc = stack[--top];
+                if (visited[pc]) {
+                    continue;
+                }
+                visited[pc] = true;
+                switch (nfa.opcode[pc]) {
+                    case REAutomaton.MATCH:
+                        accepting = true;
+                        break;
+                    case REAutomaton.CHAR:
+                    case REAutomaton.CLASS:
+                        waiting[count++] = pc;
+                        break;
+                    case REAutomaton.JUMP:
+                        top = push(nfa.arg[pc], top);
+                        break;
+                    case REAutomaton.FORK:
+                        for (int target : nfa.forks[pc]) {
+                            top = push(target, top);
+                        }
+                        break;
+                    case REAutomaton.SAVE:
+                        top = push(pc + 1, top);
+                        break;
+                    default:
+                        // FAIL (assertions are not used with this class)
+                        break;
+                }
+            }
+        }
+
+        private int push(int pc, int top) {
+            if (!visited[pc]) {
+                if (top == stack.length) {
+                    int[] s2 = new int[top * 2];
+                    System.arraycopy(stack, 0, s2, 0, top);
+                    stack = s2;
+                }
+                stack[top++] = pc;
+            }
+            return top;
+        }
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -3,9 +3,6 @@ package client.net.sf.saxon.ce.regex;
 import client.net.sf.saxon.ce.expr.z.*;
 import client.net.sf.saxon.ce.om.NameChecker;
 
-import java.util.ArrayList;
-import java.util.List;
-
 
 /**
  * Class to handle the character category escapes
@@ -41,56 +38,40 @@ public class MultiCharEscape {
         }
     };
 
-    public final static IntPredicate ESCAPE_d = new IntSetPredicate(getSubCategoryCharClass("Nd"));
+    public final static IntPredicate ESCAPE_d = getSubCategoryCharClass("Nd");
 
     public final static IntPredicate ESCAPE_D = new IntComplementPredicate(ESCAPE_d);
 
-    private static IntPredicate CATEGORY_P = getCategoryCharClass('P');
-    private static IntPredicate CATEGORY_Z = getCategoryCharClass('Z');
-    private static IntPredicate CATEGORY_C = getCategoryCharClass('C');
-
     public final static IntPredicate ESCAPE_w = new IntPredicate () {
+        // the categories are decoded when \w is first used
+        private IntPredicate categoryP, categoryZ, categoryC;
+
         public boolean matches(int value) {
-            return !(CATEGORY_P.matches(value) || CATEGORY_Z.matches(value) || CATEGORY_C.matches(value));
+            if (categoryP == null) {
+                categoryP = getCategoryCharClass('P');
+                categoryZ = getCategoryCharClass('Z');
+                categoryC = getCategoryCharClass('C');
+            }
+            return !(categoryP.matches(value) || categoryZ.matches(value) || categoryC.matches(value));
         }
     };
 
     public final static IntPredicate ESCAPE_W = new IntComplementPredicate(ESCAPE_w);
 
-    public static synchronized IntPredicate getCategoryCharClass(char category) {
-        final List<IntSet> ranges = new ArrayList<IntSet>(10);
-        for (String sub : Categories.CATEGORIES.keySet()) {
-            if (sub.charAt(0) == category) {
-                ranges.add(getSubCategoryCharClass(sub));
-            }
-        }
-        if (ranges.isEmpty()) {
+    public static IntSetPredicate getCategoryCharClass(char category) {
+        IntSetPredicate predicate = Categories.getCategory(String.valueOf(category));
+        if (predicate == null) {
             throw new IllegalArgumentException("Unknown category " + category);
         }
-        return new IntPredicate() {
-            public boolean matches(int value) {
-                for (IntSet cat : ranges) {
-                    if (cat.contains(value)) {
-                        return true;
-                    }
-                }
-                return false;
-            }
-        };
+        return predicate;
     }
 
-    public static IntRangeSet getSubCategoryCharClass(String category) {
-        int[] codes = Categories.CATEGORIES.get(category);
-        if (codes == null) {
+    public static IntSetPredicate getSubCategoryCharClass(String category) {
+        IntSetPredicate predicate = (category.length() == 2 ? Categories.getCategory(category) : null);
+        if (predicate == null) {
             throw new IllegalArgumentException("Unknown category " + category);
         }
-        int[] startPoints = new int[codes.length/2];
-        int[] endPoints = new int[codes.length/2];
-        for (int i=0; i<codes.length; i+=2) {
-            startPoints[i/2] = codes[i];
-            endPoints[i/2] = codes[i+1];
-        }
-        return new IntRangeSet(startPoints, endPoints);
+        return predicate;
     }
 
 
@@ -0,0 +1,528 @@
+package client.net.sf.saxon.ce.regex;
+
+import client.net.sf.saxon.ce.expr.z.IntPredicate;
+
+/**
+ * A non-backtracking representation of a compiled regular expression. The operations of an
+ * {@link REProgram} are translated into the instructions of a Thompson NFA, which is simulated by
+ * running all the alternative paths through the program in step with each other (the "Pike VM"),
+ * so the time taken is proportional to the length of the input multiplied by the size of the
+ * program, however many ways the pattern can match.
+ *
+ * <p>The paths are kept in order of priority, the order in which the backtracking {@link REMatcher}
+ * would try them, and when one of them reaches the end of the program the paths of lower priority
+ * are abandoned. The match found, and the substrings captured by its parenthesized subexpressions,
+ * are therefore the same as those found by the backtracking matcher, following the XPath rules.</p>
+ *
+ * <p>An automaton cannot be constructed for a program that contains back-references, or for one in which
+ * the body of a repetition can match a zero-length string, such as <code>(a*)*</code> or <code>(a?b?){1,2}</code>.
+ * The backtracking matcher stops repeating such a body when an iteration matches a zero-length string, so
+ * the outcome of a path depends on where the current iteration started as well as on its position in the
+ * program, and the paths cannot then be merged as the simulation requires. When there are no assertions
+ * (^ and $) in the program, the automaton can also be used to answer questions that do not need the
+ * captured substrings, such as whether a string matches, using a {@link LazyDFA}.</p>
+ */
+
+public final class REAutomaton {
+
+    // Instruction codes
+    static final int MATCH = 0;           // successful end of the program
+    static final int CHAR = 1;            // match the character arg[pc]
+    static final int CLASS = 2;           // match any character satisfying predicates[pc]
+    static final int JUMP = 3;            // continue at arg[pc]
+    static final int FORK = 4;            // continue at each of forks[pc], in order of priority
+    static final int SAVE = 5;            // record the current position in capture slot arg[pc]
+    static final int BOL = 6;             // assert that the position is at the beginning of a line
+    static final int EOL = 7;             // assert that the position is at the end of a line
+    static final int FAIL = 8;            // abandon this path
+
+    // The instructions. Instructions other than JUMP, FORK and FAIL continue at the following instruction.
+    REProgram program;
+    int[] opcode;
+    int[] arg;
+    int[][] forks;
+    IntPredicate[] predicates;
+    int start;
+    int captureSlots;
+    boolean multiLine;
+    boolean hasAssertions;
+
+    private LazyDFA dfa;
+
+    private REAutomaton() {}
+
+    /**
+     * Make an automaton for a compiled regular expression
+     * @param program the compiled regular expression
+     * @return the automaton, or null if the program uses features (such as back-references, or repetition
+     * of a subexpression that can match a zero-length string) that cannot be handled without backtracking
+     */
+
+    public static REAutomaton make(REProgram program) {
+        Builder b = new Builder(program);
+        return b.build();
+    }
+
+    /**
+     * Get a deterministic automaton for answering questions that do not require the captured substrings
+     * @return the deterministic automaton, or null if the program contains assertions, which depend on the
+     * characters adjacent to a position and are therefore not handled by the deterministic automaton
+     */
+
+    public LazyDFA getDFA() {
+        if (dfa == null && !hasAssertions) {
+            dfa = new LazyDFA(this);
+        }
+        return dfa;
+    }
+
+    /**
+     * Search for the first match of the regular expression in a string
+     * @param input the string to be searched
+     * @param from the position at which searching starts
+     * @param anchoredStart true if the match must start at position <code>from</code>
+     * @param anchoredEnd true if the match must extend to the end of the string
+     * @return null if there is no match; otherwise an array containing the start and end position of the match
+     * (at positions 0 and 1) and of each captured substring (at 2n and 2n+1 for group n), with -1 for groups that
+     * did not participate in the match
+     */
+
+    public int[] search(UnicodeString input, int from, boolean anchoredStart, boolean anchoredEnd) {
+        int len = input.length();
+        ThreadList current = new ThreadList(opcode.length);
+        ThreadList following = new ThreadList(opcode.length);
+        int[] matched = null;
+        for (int p = from; ; p++) {
+            if (matched == null && !anchoredStart && current.size == 0) {
+                // no paths are active, so skip to the next position at which a match can start
+                p = program.nextCandidate(input, p);
+                if (p == -1) {
+                    break;
+                }
+            }
+            if (matched == null && (p == from || !anchoredStart)) {
+                // a path starting here has lower priority than those that started earlier
+                int[] captures = new int[captureSlots];
+                for (int i=1; i<captureSlots; i++) {
+                    captures[i] = -1;
+                }
+                captures[0] = p;
+                addThread(current, start, captures, input, p);
+            }
+            if (current.size == 0) {
+                break;
+            }
+            int c = (p < len ? input.charAt(p) : -1);
+            following.clear();
+            for (int t = 0; t < current.size; t++) {
+                int[] captures = current.captures[t];
+                if (captures == null) {
+                    continue;
+                }
+                int pc = current.dense[t];
+                if (opcode[pc] == MATCH) {
+                    if (anchoredEnd && p < len) {
+                        continue;
+                    }
+                    matched = new int[captureSlots];
+                    System.arraycopy(captures, 0, matched, 0, captureSlots);
+                    matched[1] = p;
+                    // abandon all paths of lower priority
+                    break;
+                } else if (c >= 0 && matchesChar(pc, c)) {
+                    addThread(following, pc + 1, captures, input, p + 1);
+                }
+            }
+            ThreadList temp = current;
+            current = following;
+            following = temp;
+            if (p >= len) {
+                break;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Test whether the instruction at a given address, which must be a CHAR or CLASS instruction,
+     * matches a given character
+     */
+
+    boolean matchesChar(int pc, int c) {
+        if (opcode[pc] == CHAR) {
+            return arg[pc] == c;
+        } else {
+            return opcode[pc] == CLASS && predicates[pc].matches(c);
+        }
+    }
+
+    /**
+     * Add a path to the list of paths to be continued at a given position in the input, following all
+     * instructions that do not consume a character
+     */
+
+    private void addThread(ThreadList list, int pc, int[] captures, UnicodeString input, int p) {
+        if (list.contains(pc)) {
+            // a path of higher priority has already reached this instruction at this position
+            return;
+        }
+        int t = list.add(pc);
+        switch (opcode[pc]) {
+            case JUMP:
+                addThread(list, arg[pc], captures, input, p);
+                break;
+            case FORK:
+                for (int target : forks[pc]) {
+                    addThread(list, target, captures, input, p);
+                }
+                break;
+            case SAVE:
+                int slot = arg[pc];
+                if (slot < captureSlots) {
+                    // the array may be shared with other paths, so it is copied before changing it
+                    int[] c2 = new int[captureSlots];
+                    System.arraycopy(captures, 0, c2, 0, captureSlots);
+                    c2[slot] = p;
+                    captures = c2;
+                }
+                addThread(list, pc + 1, captures, input, p);
+                break;
+            case BOL:
+                if (p == 0 || (multiLine && input.charAt(p - 1) == '\n')) {
+                    addThread(list, pc + 1, captures, input, p);
+                }
+                break;
+            case EOL:
+                if (isEndOfLine(input, p)) {
+                    addThread(list, pc + 1, captures, input, p);
+                }
+                break;
+            case FAIL:
+                break;
+            default:
+                // MATCH, CHAR or CLASS: the path waits here for the next character
+                list.captures[t] = captures;
+        }
+    }
+
+    /**
+     * Test whether a position is at the end of a line, using the same rules as {@link Operation.OpEOL}
+     */
+
+    private boolean isEndOfLine(UnicodeString input, int p) {
+        if (input.isEnd(0) || input.isEnd(p)) {
+            return true;
+        } else if (multiLine) {
+            return input.charAt(p) == '\n';
+        } else {
+            return input.charAt(p) == '\n' && input.isEnd(p + 1);
+        }
+    }
+
+    /**
+     * The set of paths that are active at a position in the input: a sparse set of instruction
+     * addresses, in order of priority, with the captured substrings of each path
+     */
+
+    private static class ThreadList {
+
+        int[] sparse;
+        int[] dense;
+        int[][] captures;
+        int size = 0;
+
+        ThreadList(int n) {
+            sparse = new int[n];
+            dense = new int[n];
+            captures = new int[n][];
+        }
+
+        boolean contains(int pc) {
+            int s = sparse[pc];
+            return s < size && dense[s] == pc;
+        }
+
+        int add(int pc) {
+            sparse[pc] = size;
+            dense[size] = pc;
+            captures[size] = null;
+            return size++;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    /**
+     * Translates the operations of a program into the instructions of an automaton. The code for each
+     * operation ends with a jump or fork to the code for the operations that follow it; these refer to
+     * operations by their position in the program until all the code has been generated.
+     */
+
+    private static class Builder {
+
+        private REProgram program;
+        private Operation[] ops;
+        private int[] opcode;
+        private int[] arg;
+        private int[][] forks;
+        private IntPredicate[] predicates;
+        private int size = 0;
+        private boolean hasAssertions = false;
+
+        Builder(REProgram program) {
+            this.program = program;
+            this.ops = program.instructions;
+            int n = ops.length * 2 + 1;
+            opcode = new int[n];
+            arg = new int[n];
+            forks = new int[n][];
+            predicates = new IntPredicate[n];
+        }
+
+        REAutomaton build() {
+            if (ops == null || ops.length == 0) {
+                return null;
+            }
+            boolean caseBlind = program.flags.isCaseIndependent();
+            int[] entry = new int[ops.length];
+            for (int i=0; i<ops.length; i++) {
+                Operation op = ops[i];
+                entry[i] = size;
+                if (op instanceof Operation.OpEndProgram) {
+                    emit(MATCH, 0);
+                } else if (op instanceof Operation.OpBOL) {
+                    emit(BOL, 0);
+                    emit(JUMP, op.next);
+                    hasAssertions = true;
+                } else if (op instanceof Operation.OpEOL) {
+                    emit(EOL, 0);
+                    emit(JUMP, op.next);
+                    hasAssertions = true;
+                } else if (op instanceof Operation.OpBranch) {
+                    // the alternatives start after each of the chain of branch operations
+                    int count = 0;
+                    for (int n = i; n >= 0 && n < ops.length && ops[n] instanceof Operation.OpBranch; n = ops[n].next) {
+                        count++;
+                    }
+                    int[] targets = new int[count];
+                    int k = 0;
+                    for (int n = i; k < count; n = ops[n].next) {
+                        targets[k++] = n + 1;
+                    }
+                    emitFork(FORK, targets);
+                } else if (op instanceof Operation.OpAtom) {
+                    UnicodeString atom = ((Operation.OpAtom)op).atom;
+                    for (int j=0; j<atom.length(); j++) {
+                        int ch = atom.charAt(j);
+                        if (caseBlind) {
+                            emit(CLASS, 0);
+                            predicates[size - 1] = new CaseBlindPredicate(ch);
+                        } else {
+                            emit(CHAR, ch);
+                        }
+                    }
+                    emit(JUMP, op.next);
+                } else if (op instanceof Operation.OpStar || op instanceof Operation.OpConfidentStar ||
+                        op instanceof Operation.OpMaybe) {
+                    // a confident star is a star whose ending condition is unambiguous, so it has the same effect
+                    emitFork(FORK, new int[]{i + 1, op.next});
+                } else if (op instanceof Operation.OpPlus) {
+                    // "next" is the CONTINUE operation preceding the repeated term, whose "next" is the continuation
+                    emitFork(FORK, new int[]{op.next, nextOf(op.next)});
+                } else if (op instanceof Operation.OpConfidentPlus) {
+                    emitFork(FORK, new int[]{i - 1, op.next});
+                } else if (op instanceof Operation.OpReluctantStar || op instanceof Operation.OpReluctantMaybe) {
+                    emitFork(FORK, new int[]{op.next, i + 1});
+                } else if (op instanceof Operation.OpReluctantPlus) {
+                    emitFork(FORK, new int[]{nextOf(op.next), op.next});
+                } else if (op instanceof Operation.OpOpen) {
+                    emit(SAVE, ((Operation.OpOpen)op).groupNr * 2);
+                    emit(JUMP, op.next);
+                } else if (op instanceof Operation.OpClose) {
+                    emit(SAVE, ((Operation.OpClose)op).groupNr * 2 + 1);
+                    emit(JUMP, op.next);
+                } else if (op instanceof Operation.OpContinue) {
+                    emit(JUMP, i + 1);
+                } else if (op instanceof Operation.OpCharClass) {
+                    emit(CLASS, 0);
+                    predicates[size - 1] = ((Operation.OpCharClass)op).predicate;
+                    emit(JUMP, op.next);
+                } else if (op instanceof Operation.OpOpenCluster || op instanceof Operation.OpCloseCluster ||
+                        op instanceof Operation.OpGoTo || op instanceof Operation.OpNothing) {
+                    emit(JUMP, op.next);
+                } else {
+                    // back-references, and any operation not known to this class
+                    return null;
+                }
+            }
+            int fail = size;
+            emit(FAIL, 0);
+
+            // convert references to operations into instruction addresses
+            for (int pc=0; pc<size; pc++) {
+                if (opcode[pc] == JUMP) {
+                    arg[pc] = resolve(arg[pc], entry, fail);
+                } else if (opcode[pc] == FORK) {
+                    int[] targets = forks[pc];
+                    for (int k=0; k<targets.length; k++) {
+                        targets[k] = resolve(targets[k], entry, fail);
+                    }
+                }
+            }
+            if (hasEmptyLoop()) {
+                return null;
+            }
+
+            REAutomaton a = new REAutomaton();
+            a.program = program;
+            a.opcode = trim(opcode);
+            a.arg = trim(arg);
+            a.forks = new int[size][];
+            System.arraycopy(forks, 0, a.forks, 0, size);
+            a.predicates = new IntPredicate[size];
+            System.arraycopy(predicates, 0, a.predicates, 0, size);
+            a.start = entry[0];
+            a.captureSlots = Math.max(program.maxParens, 1) * 2;
+            a.multiLine = program.flags.isMultiLine();
+            a.hasAssertions = hasAssertions;
+            return a;
+        }
+
+        /**
+         * Determine whether the instructions contain a loop that can be followed without consuming a
+         * character, which is the case if the body of a repetition can match a zero-length string
+         */
+
+        private boolean hasEmptyLoop() {
+            // depth-first search of the instructions that do not consume a character: state 1 means the
+            // instruction is on the current path, 2 that all the paths from it have been explored
+            int[] state = new int[size];
+            int[] path = new int[size];
+            int[] edge = new int[size];
+            for (int root=0; root<size; root++) {
+                if (state[root] != 0) {
+                    continue;
+                }
+                int top = 0;
+                path[0] = root;
+                edge[0] = 0;
+                state[root] = 1;
+                while (top >= 0) {
+                    int pc = path[top];
+                    int next = emptySuccessor(pc, edge[top]++);
+                    if (next < 0) {
+                        state[pc] = 2;
+                        top--;
+                    } else if (state[next] == 1) {
+                        return true;
+                    } else if (state[next] == 0) {
+                        state[next] = 1;
+                        path[++top] = next;
+                        edge[top] = 0;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Get the k'th instruction that can follow a given instruction without consuming a character,
+         * or -1 if there are no more
+         */
+
+        private int emptySuccessor(int pc, int k) {
+            switch (opcode[pc]) {
+                case JUMP:
+                    return (k == 0 ? arg[pc] : -1);
+                case FORK:
+                    return (k < forks[pc].length ? forks[pc][k] : -1);
+                case SAVE:
+                case BOL:
+                case EOL:
+                    return (k == 0 ? pc + 1 : -1);
+                default:
+                    return -1;
+            }
+        }
+
+        private int nextOf(int node) {
+            return (node >= 0 && node < ops.length ? ops[node].next : -1);
+        }
+
+        private static int resolve(int node, int[] entry, int fail) {
+            return (node >= 0 && node < entry.length ? entry[node] : fail);
+        }
+
+        private void emit(int code, int value) {
+            ensureCapacity();
+            opcode[size] = code;
+            arg[size] = value;
+            size++;
+        }
+
+        private void emitFork(int code, int[] targets) {
+            ensureCapacity();
+            opcode[size] = code;
+            forks[size] = targets;
+            size++;
+        }
+
+        private void ensureCapacity() {
+            if (size == opcode.length) {
+                int n = size * 2;
+                int[] o2 = new int[n];
+                System.arraycopy(opcode, 0, o2, 0, size);
+                opcode = o2;
+                int[] a2 = new int[n];
+                System.arraycopy(arg, 0, a2, 0, size);
+                arg = a2;
+                int[][] f2 = new int[n][];
+                System.arraycopy(forks, 0, f2, 0, size);
+                forks = f2;
+                IntPredicate[] p2 = new IntPredicate[n];
+                System.arraycopy(predicates, 0, p2, 0, size);
+                predicates = p2;
+            }
+        }
+
+        private int[] trim(int[] in) {
+            int[] out = new int[size];
+            System.arraycopy(in, 0, out, 0, size);
+            return out;
+        }
+    }
+
+    /**
+     * Predicate matching a character of an atom when the match is case-independent
+     */
+
+    private static class CaseBlindPredicate implements IntPredicate {
+
+        private int ch;
+        private int[] variants;
+
+        CaseBlindPredicate(int ch) {
+            this.ch = ch;
+            this.variants = CaseVariants.getCaseVariants(ch);
+        }
+
+        public boolean matches(int value) {
+            if (value == ch) {
+                return true;
+            }
+            for (int v : variants) {
+                if (value == v) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -414,7 +414,7 @@ public class RECompiler {
                 } else if (block.length() == 2) {
                     IntPredicate primary = null;
                     try {
-                        primary = new IntSetPredicate(MultiCharEscape.getSubCategoryCharClass(block.toString()));
+                        primary = MultiCharEscape.getSubCategoryCharClass(block.toString());
                     } catch (IllegalArgumentException err) {
                         syntaxError(err.getMessage());
                     }
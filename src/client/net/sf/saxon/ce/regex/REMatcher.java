@@ -477,9 +477,43 @@ public class REMatcher  {
 
     public boolean anchoredMatch(UnicodeString search) {
         this.search = search;
+        if (program.automaton != null) {
+            return automatonMatch(0, true, true);
+        }
         return matchAt(0, true);
     }
 
+    /**
+     * Match the program using its non-backtracking automaton, setting the start and end
+     * of the match and of the captured substrings in the same way as {@link #matchAt}
+     *
+     * @param i             the position at which searching starts
+     * @param anchoredStart true if the match must start at position i
+     * @param anchoredEnd   true if the match must extend to the end of the string
+     * @return true if a match was found
+     */
+    private boolean automatonMatch(int i, boolean anchoredStart, boolean anchoredEnd) {
+        int[] captures = program.automaton.search(search, i, anchoredStart, anchoredEnd);
+        if (captures == null) {
+            parenCount = 0;
+            return false;
+        }
+        int groups = captures.length / 2;
+        startn = new int[Math.max(groups, 3)];
+        endn = new int[Math.max(groups, 3)];
+        Arrays.fill(startn, -1);
+        Arrays.fill(endn, -1);
+        parenCount = 1;
+        for (int g = 0; g < groups; g++) {
+            if (captures[2 * g] != -1 && captures[2 * g + 1] != -1) {
+                startn[g] = captures[2 * g];
+                endn[g] = captures[2 * g + 1];
+                parenCount = g + 1;
+            }
+        }
+        return true;
+    }
+
     /**
      * Matches the current regular expression program against a character array,
      * starting at a given index.
@@ -500,6 +534,14 @@ public class REMatcher  {
         // Save string to search
         this.search = search;
 
+        // Use the non-backtracking automaton if there is one
+        if (program.automaton != null) {
+            if ((program.optimizationFlags & REProgram.OPT_HASBOL) != 0 && !program.flags.isMultiLine()) {
+                return i == 0 && automatonMatch(0, true, false);
+            }
+            return automatonMatch(i, false, false);
+        }
+
         // Can we optimize the search by looking for new lines?
         if ((program.optimizationFlags & REProgram.OPT_HASBOL) == REProgram.OPT_HASBOL) {
             // Non multi-line matching with BOL: Must match at '0' index
@@ -530,43 +572,15 @@ public class REMatcher  {
             return false;
         }
 
-        // Can we optimize the search by looking for a prefix string?
-        if (program.prefix == null) {
-            // Unprefixed matching must try for a match at each character
-            for (; !search.isEnd(i - 1); i++) {
-                // Try a match at index i
-                if (matchAt(i, false)) {
-                    return true;
-                }
-            }
-            return false;
-        } else {
-            // Prefix-anchored matching is possible
-            UnicodeString prefix = program.prefix;
-            for (; !search.isEnd(i + prefix.length() - 1); i++) {
-                int j = i;
-                int k = 0;
-
-                if (program.flags.isCaseIndependent()) {
-                    do {
-                        // If there's a mismatch of any character in the prefix, give up
-                    } while (equalCaseBlind(search.charAt(j++), prefix.charAt(k++)) && k < prefix.length());
-                } else {
-                    do {
-                        // If there's a mismatch of any character in the prefix, give up
-                    } while ((search.charAt(j++) == prefix.charAt(k++)) && k < prefix.length());
-                }
-
-                // See if the whole prefix string matched
-                if (k == prefix.length()) {
-                    // We matched the full prefix at firstChar, so try it
-                    if (matchAt(i, false)) {
-                        return true;
-                    }
-                }
+        // Try for a match at each position where one might start, skipping to the next occurrence of
+        // the prefix string, or of a character that can start a match, if these are known
+        while ((i = program.nextCandidate(search, i)) != -1) {
+            if (matchAt(i, false)) {
+                return true;
             }
-            return false;
+            i++;
         }
+        return false;
     }
 
     /**
@@ -3,6 +3,8 @@ package client.net.sf.saxon.ce.regex;
 import client.net.sf.saxon.ce.expr.z.*;
 
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A class that holds compiled regular expressions.
@@ -24,6 +26,10 @@ public class REProgram
     int optimizationFlags;      // Optimization flags (REProgram.OPT_*)
     int maxParens = -1;
     boolean nullable = false;
+    REAutomaton automaton;             // Non-backtracking equivalent of the program, if any
+    int[] prefixSkip;                  // Boyer-Moore-Horspool shifts for the prefix, indexed by the low 8 bits of a character
+    IntPredicate initialChars;         // The characters at which a match can start, or null if unknown
+    int[] initialAscii;                // Bitmap of the ASCII characters in initialChars
 
     /**
      * Constructs a program object from a character array
@@ -81,6 +87,10 @@ public class REProgram
                 }
             }
 
+            if (prefix != null) {
+                prefixSkip = makeSkipTable(prefix, flags.isCaseIndependent());
+            }
+
             // Check for backreferences
             for (Operation op : instructions) {
                 if (op instanceof Operation.OpBackReference) {
@@ -114,6 +124,126 @@ public class REProgram
                     }
                 }
             }
+
+            computeInitialChars();
+        }
+    }
+
+    /**
+     * Make the table of shifts used to search for the prefix using the Boyer-Moore-Horspool algorithm. Characters
+     * are hashed to their low-order 8 bits; where several characters share an entry, the smallest shift is used.
+     * @param prefix the prefix string
+     * @param caseBlind true if the comparison is case-independent, in which case all the case variants of
+     * each character of the prefix are included
+     * @return an array of 256 entries giving the distance that the search can advance when the character aligned
+     * with the last character of the prefix does not complete a match
+     */
+
+    private static int[] makeSkipTable(UnicodeString prefix, boolean caseBlind) {
+        int m = prefix.length();
+        int[] skip = new int[256];
+        for (int k=0; k<256; k++) {
+            skip[k] = m;
+        }
+        for (int j=0; j<m-1; j++) {
+            int ch = prefix.charAt(j);
+            skip[ch & 0xff] = m-1-j;
+            if (caseBlind) {
+                for (int v : CaseVariants.getCaseVariants(ch)) {
+                    skip[v & 0xff] = m-1-j;
+                }
+            }
+        }
+        return skip;
+    }
+
+    /**
+     * Compute the set of characters at which a match can start. This is not possible if the regular expression
+     * can match a zero-length string, or if it starts with a back-reference.
+     */
+
+    private void computeInitialChars() {
+        IntHashSet chars = new IntHashSet(16);
+        List<IntPredicate> classes = new ArrayList<IntPredicate>();
+        if (!addInitialChars(0, new boolean[instructions.length], chars, classes)) {
+            return;
+        }
+        IntPredicate result = (chars.isEmpty() ? null : new IntSetPredicate(chars));
+        for (IntPredicate p : classes) {
+            result = (result == null ? p : new IntUnionPredicate(result, p));
+        }
+        if (result == null) {
+            return;
+        }
+        initialChars = result;
+        initialAscii = new int[4];
+        for (int c=0; c<128; c++) {
+            if (result.matches(c)) {
+                initialAscii[c >> 5] |= (1 << (c & 31));
+            }
+        }
+    }
+
+    /**
+     * Add the characters that can be matched first by the program starting at a given instruction
+     * @param node the instruction
+     * @param visited the instructions already examined
+     * @param chars set to which single characters are added
+     * @param classes list to which character classes are added
+     * @return false if the program starting at this instruction can match without consuming a character, or if
+     * the characters cannot be determined
+     */
+
+    private boolean addInitialChars(int node, boolean[] visited, IntHashSet chars, List<IntPredicate> classes) {
+        if (node < 0 || node >= instructions.length) {
+            return false;
+        }
+        if (visited[node]) {
+            // the characters reachable from here are already being collected
+            return true;
+        }
+        visited[node] = true;
+        Operation op = instructions[node];
+        if (op instanceof Operation.OpAtom) {
+            int ch = ((Operation.OpAtom)op).atom.charAt(0);
+            chars.add(ch);
+            if (flags.isCaseIndependent()) {
+                for (int v : CaseVariants.getCaseVariants(ch)) {
+                    chars.add(v);
+                }
+            }
+            return true;
+        } else if (op instanceof Operation.OpCharClass) {
+            classes.add(((Operation.OpCharClass)op).predicate);
+            return true;
+        } else if (op instanceof Operation.OpEndProgram || op instanceof Operation.OpBackReference) {
+            return false;
+        } else if (op instanceof Operation.OpBranch) {
+            for (int n = node; n >= 0 && n < instructions.length && instructions[n] instanceof Operation.OpBranch;
+                 n = instructions[n].next) {
+                if (!addInitialChars(n + 1, visited, chars, classes)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (op instanceof Operation.OpStar || op instanceof Operation.OpConfidentStar ||
+                op instanceof Operation.OpMaybe || op instanceof Operation.OpReluctantStar ||
+                op instanceof Operation.OpReluctantMaybe) {
+            return addInitialChars(node + 1, visited, chars, classes) &&
+                    addInitialChars(op.next, visited, chars, classes);
+        } else if (op instanceof Operation.OpPlus || op instanceof Operation.OpReluctantPlus) {
+            int cont = op.next;
+            return addInitialChars(cont, visited, chars, classes) &&
+                    (cont < 0 || cont >= instructions.length ||
+                            addInitialChars(instructions[cont].next, visited, chars, classes));
+        } else if (op instanceof Operation.OpConfidentPlus) {
+            return addInitialChars(node - 1, visited, chars, classes) &&
+                    addInitialChars(op.next, visited, chars, classes);
+        } else if (op instanceof Operation.OpContinue) {
+            return addInitialChars(node + 1, visited, chars, classes);
+        } else {
+            // BOL, EOL, open and close of groups, and operations that match nothing
+            return addInitialChars(op.next, visited, chars, classes);
         }
     }
 
@@ -136,6 +266,33 @@ public class REProgram
     }
 
 
+    /**
+     * Ask whether the program contains back-references, which require a backtracking matcher
+     * @return true if the regular expression contains a back-reference
+     */
+
+    public boolean hasBackReferences() {
+        return (optimizationFlags & OPT_HASBACKREFS) != 0;
+    }
+
+    /**
+     * Get the non-backtracking automaton used to run this program
+     * @return the automaton, or null if the program is run by backtracking
+     */
+
+    public REAutomaton getAutomaton() {
+        return automaton;
+    }
+
+    /**
+     * Set a non-backtracking automaton to be used by an {@link REMatcher} in place of backtracking
+     * @param automaton an automaton equivalent to this program, or null to use backtracking
+     */
+
+    public void setAutomaton(REAutomaton automaton) {
+        this.automaton = automaton;
+    }
+
     /**
      * Returns a copy of the prefix of current regular expression program
      * in a character array.  If there is no prefix, or there is no program
@@ -146,6 +303,57 @@ public class REProgram
         return prefix;
     }
 
+    /**
+     * Find the first position, at or after a given position, at which a match of the program might start.
+     * If the program starts with a literal prefix, this is the next occurrence of the prefix, found using
+     * the Boyer-Moore-Horspool algorithm; otherwise, if the set of characters that can start a match is known,
+     * it is the next occurrence of one of those characters.
+     * @param search the string being searched
+     * @param from the position at which to start
+     * @return the position at which a match might start, or -1 if there is no such position
+     */
+
+    int nextCandidate(UnicodeString search, int from) {
+        int len = search.length();
+        if (prefixSkip != null) {
+            int last = prefix.length() - 1;
+            boolean caseBlind = flags.isCaseIndependent();
+            for (int i = from; i + last < len; ) {
+                int ch = search.charAt(i + last);
+                for (int j = last; equalChars(search.charAt(i + j), prefix.charAt(j), caseBlind); j--) {
+                    if (j == 0) {
+                        return i;
+                    }
+                }
+                i += prefixSkip[ch & 0xff];
+            }
+            return -1;
+        } else if (initialChars != null) {
+            for (int i = from; i < len; i++) {
+                int ch = search.charAt(i);
+                if (ch < 128 ? (initialAscii[ch >> 5] & (1 << (ch & 31))) != 0 : initialChars.matches(ch)) {
+                    return i;
+                }
+            }
+            return -1;
+        } else {
+            return (from <= len ? from : -1);
+        }
+    }
+
+    private static boolean equalChars(int c1, int c2, boolean caseBlind) {
+        if (c1 == c2) {
+            return true;
+        } else if (caseBlind) {
+            for (int v : CaseVariants.getCaseVariants(c2)) {
+                if (c1 == v) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Output a human-readable printout of the program
      */
@@ -170,9 +378,13 @@ public class REProgram
         if (op1 instanceof Operation.OpClose || op1 instanceof Operation.OpCloseCluster) {
             op1 = instructions[op1.next];
         }
-        if (op1 instanceof Operation.OpEndProgram || op1 instanceof Operation.OpBOL || op1 instanceof Operation.OpEOL) {
+        if (op1 instanceof Operation.OpEndProgram) {
             return true;
         }
+        if (op1 instanceof Operation.OpBOL) {
+            // giving back characters may reach the start of the string, or of a line
+            return false;
+        }
         IntSet set0;
         if (op0 instanceof Operation.OpAtom) {
             set0 = getInitialChars((Operation.OpAtom) op0, caseBlind);
@@ -186,6 +398,10 @@ public class REProgram
                 return false;
             }
         }
+        if (op1 instanceof Operation.OpEOL) {
+            // giving back characters can only reach the end of a line if a newline was consumed
+            return !set0.contains('\n');
+        }
 
         IntSet set1;
         if (op1 instanceof Operation.OpAtom) {
@@ -221,6 +437,29 @@ public class REProgram
     }
 
     boolean isDisjoint(IntSet set0, IntSet set1) {
+        if (set0 instanceof IntRangeSet && set1 instanceof IntRangeSet) {
+            // compare the ranges, rather than the (possibly very many) members
+            IntRangeSet r0 = (IntRangeSet)set0;
+            IntRangeSet r1 = (IntRangeSet)set1;
+            int i = 0;
+            int j = 0;
+            while (i < r0.getNumberOfRanges() && j < r1.getNumberOfRanges()) {
+                if (r0.getEndPoints()[i] < r1.getStartPoints()[j]) {
+                    i++;
+                } else if (r1.getEndPoints()[j] < r0.getStartPoints()[i]) {
+                    j++;
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (set0.size() > set1.size()) {
+            // the intersection is computed by enumerating the first set
+            IntSet s = set0;
+            set0 = set1;
+            set1 = s;
+        }
         try {
             IntSet intersection = set0.intersect(set1);
             return intersection.isEmpty();
@@ -0,0 +1,116 @@
+package client.net.sf.saxon.ce.regex;
+
+import client.net.sf.saxon.ce.trans.XPathException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of compiled regular expressions, keyed by the pattern, the flags, and the host
+ * language. The cache is held by the Configuration and is shared by the functions matches(), replace()
+ * and tokenize() and by the xsl:analyze-string instruction, so that a regular expression that is only
+ * known at run time is compiled once rather than once per evaluation.
+ *
+ * <p>When the cache is full, the least recently used entry is discarded. Only successful compilations
+ * are cached: a pattern that fails to compile is recompiled (and fails again) each time it is used.</p>
+ */
+
+public class RegexCache {
+
+    /**
+     * The default maximum number of compiled regular expressions held in the cache
+     */
+
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private final int capacity;
+    private final LinkedHashMap<Key, ARegularExpression> cache;
+
+    /**
+     * Create a cache with the default capacity
+     */
+
+    public RegexCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a cache with a given capacity
+     * @param capacity the maximum number of compiled regular expressions to be held
+     */
+
+    public RegexCache(int capacity) {
+        this.capacity = capacity;
+        cache = new LinkedHashMap<Key, ARegularExpression>(capacity * 2, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Key, ARegularExpression> eldest) {
+                return size() > RegexCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Get a compiled regular expression, compiling it if it is not already in the cache
+     * @param pattern the regular expression as a string
+     * @param flags the flags as a string
+     * @param hostLanguage "XP20" or "XP30" (or "XSD" in a schema-aware processor)
+     * @return the compiled regular expression
+     * @throws XPathException if the pattern or flags are invalid
+     */
+
+    public ARegularExpression getRegularExpression(CharSequence pattern, String flags, String hostLanguage)
+            throws XPathException {
+        Key key = new Key(pattern.toString(), flags, hostLanguage);
+        ARegularExpression re = cache.get(key);
+        if (re == null) {
+            re = new ARegularExpression(pattern, flags, hostLanguage, null);
+            cache.put(key, re);
+        }
+        return re;
+    }
+
+    /**
+     * Get the number of compiled regular expressions currently held in the cache
+     * @return the number of entries
+     */
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Discard all the entries in the cache
+     */
+
+    public void clear() {
+        cache.clear();
+    }
+
+    private static class Key {
+
+        private String pattern;
+        private String flags;
+        private String hostLanguage;
+
+        public Key(String pattern, String flags, String hostLanguage) {
+            this.pattern = pattern;
+            this.flags = flags;
+            this.hostLanguage = hostLanguage;
+        }
+
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key k = (Key)other;
+            return pattern.equals(k.pattern) && flags.equals(k.flags) && hostLanguage.equals(k.hostLanguage);
+        }
+
+        public int hashCode() {
+            return pattern.hashCode() ^ (flags.hashCode() * 31) ^ hostLanguage.hashCode();
+        }
+    }
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
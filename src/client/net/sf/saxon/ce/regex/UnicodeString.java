@@ -4,7 +4,8 @@ package client.net.sf.saxon.ce.regex;
  * A character string, supporting characters outside the BMP.
  *
  * There are two implementations, one for BMP strings in which all characters are 16-bit values,
- * and one for more general strings in which all characters are 32-bit values.
+ * and one for more general strings, which presents a view of a CharSequence containing surrogate
+ * pairs in which each non-BMP character counts as a single character.
  */
 
 public interface UnicodeString
@@ -52,6 +53,14 @@ public interface UnicodeString
      */
 
     boolean isEnd(int pos);
+
+    /**
+     * Get the characters of the string as a CharSequence, in which characters outside the BMP
+     * are represented as surrogate pairs. The characters are not copied.
+     * @return the characters of the string
+     */
+
+    CharSequence getCharSequence();
 }
 
 // This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. 
@@ -3,6 +3,7 @@ package client.net.sf.saxon.ce.style;
 import client.net.sf.saxon.ce.Configuration;
 import client.net.sf.saxon.ce.LogController;
 import client.net.sf.saxon.ce.PreparedStylesheet;
+import client.net.sf.saxon.ce.event.SerializationProperties;
 import client.net.sf.saxon.ce.expr.Expression;
 import client.net.sf.saxon.ce.expr.instruct.Executable;
 import client.net.sf.saxon.ce.functions.ConstructorFunctionLibrary;
@@ -560,6 +561,10 @@ public class PrincipalStylesheetModule extends StylesheetModule {
                 }
             }
 
+            // Compile the xsl:output and xsl:character-map declarations
+
+            compileOutputProperties(exec);
+
             // Call type-check method for each user-defined function in the stylesheet. This is no longer
             // done during the optimize step, to avoid functions being inlined before they are type-checked.
 
@@ -637,6 +642,47 @@ public class PrincipalStylesheetModule extends StylesheetModule {
 
     }
 
+    /**
+     * Compile the serialization properties defined by the xsl:output declarations, including any
+     * character maps that they use, and register them with the executable. Declarations are processed
+     * in increasing order of import precedence, so that higher-precedence declarations win.
+     * @param exec the executable
+     * @throws XPathException if an xsl:output declaration is in error
+     */
+
+    private void compileOutputProperties(Executable exec) throws XPathException {
+        for (int i = 0; i < topLevel.size(); i++) {
+            StyleElement node = topLevel.get(i).getSourceElement();
+            if (node instanceof XSLOutput) {
+                XSLOutput output = (XSLOutput)node;
+                StructuredQName name = output.getFormatQName();
+                SerializationProperties props = exec.getOutputProperties(name);
+                if (props == null) {
+                    props = new SerializationProperties();
+                    exec.setOutputProperties(name, props);
+                }
+                output.gatherOutputProperties(props);
+            }
+        }
+    }
+
+    /**
+     * Get the character map with a given name
+     * @param name the name of the required character map
+     * @return the xsl:character-map declaration with this name and the highest import precedence,
+     * or null if there is none
+     */
+
+    public XSLCharacterMap getCharacterMap(StructuredQName name) {
+        for (int i = topLevel.size() - 1; i >= 0; i--) {
+            StyleElement node = topLevel.get(i).getSourceElement();
+            if (node instanceof XSLCharacterMap && ((XSLCharacterMap)node).getCharacterMapName().equals(name)) {
+                return (XSLCharacterMap)node;
+            }
+        }
+        return null;
+    }
+
     /**
      * Get the list of attribute-set declarations associated with a given QName.
      * This is used for xsl:element, xsl:copy, xsl:attribute-set, and on literal
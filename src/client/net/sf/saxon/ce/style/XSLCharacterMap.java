@@ -1,10 +1,12 @@
 package client.net.sf.saxon.ce.style;
 
+import client.net.sf.saxon.ce.event.CharacterMap;
 import client.net.sf.saxon.ce.expr.Expression;
 import client.net.sf.saxon.ce.expr.instruct.Executable;
 import client.net.sf.saxon.ce.om.*;
 import client.net.sf.saxon.ce.trans.XPathException;
 import client.net.sf.saxon.ce.tree.iter.AxisIterator;
+import client.net.sf.saxon.ce.tree.util.StringTokenizer;
 import client.net.sf.saxon.ce.value.Whitespace;
 
 /**
@@ -19,6 +21,9 @@ public class XSLCharacterMap extends StyleElement {
     boolean validated = false;
                 // set to true once validate() has been called
 
+    boolean assembling = false;
+                // set to true while the map is being assembled, to detect circularities
+
 
     /**
      * Ask whether this node is a declaration, that is, a permitted child of xsl:stylesheet
@@ -120,6 +125,59 @@ public class XSLCharacterMap extends StyleElement {
         return null;
     }
 
+    /**
+     * Add the mappings defined by this character map to a compiled character map. The mappings of
+     * the character maps named in the use-character-maps attribute are added first, so that the
+     * xsl:output-character children of this declaration take precedence over them.
+     * @param map the compiled character map to be updated
+     * @throws XPathException if a referenced character map does not exist
+     */
+
+    public void assemble(CharacterMap map) throws XPathException {
+        if (assembling) {
+            compileError("Character map " + getCharacterMapName().getDisplayName() +
+                    " is defined in terms of itself", "XTSE1600");
+            return;
+        }
+        assembling = true;
+        try {
+            if (use != null) {
+                StringTokenizer st = new StringTokenizer(use, " \t\n\r", false);
+                while (st.hasMoreTokens()) {
+                    String token = st.nextToken();
+                    StructuredQName qName;
+                    try {
+                        qName = makeQName(token);
+                    } catch (NamespaceException err) {
+                        compileError(err.getMessage(), "XTSE0280");
+                        continue;
+                    }
+                    XSLCharacterMap ref = getPrincipalStylesheetModule().getCharacterMap(qName);
+                    if (ref == null) {
+                        compileError("No character-map named '" + token + "' has been defined", "XTSE1590");
+                    } else {
+                        ref.assemble(map);
+                    }
+                }
+            }
+            AxisIterator kids = iterateAxis(Axis.CHILD);
+            while (true) {
+                Item child = kids.next();
+                if (child == null) {
+                    break;
+                }
+                if (child instanceof XSLOutputCharacter) {
+                    XSLOutputCharacter oc = (XSLOutputCharacter)child;
+                    if (oc.getReplacementString() != null) {
+                        map.put(oc.getCodePoint(), oc.getReplacementString());
+                    }
+                }
+            }
+        } finally {
+            assembling = false;
+        }
+    }
+
 }
 
 // This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. 
@@ -4,6 +4,7 @@ import client.net.sf.saxon.ce.Configuration;
 import client.net.sf.saxon.ce.LogController;
 import client.net.sf.saxon.ce.expr.*;
 import client.net.sf.saxon.ce.expr.instruct.Executable;
+import client.net.sf.saxon.ce.expr.instruct.MemoFunction;
 import client.net.sf.saxon.ce.expr.instruct.SlotManager;
 import client.net.sf.saxon.ce.expr.instruct.UserFunction;
 import client.net.sf.saxon.ce.expr.instruct.UserFunctionParameter;
@@ -23,7 +24,10 @@ import com.google.gwt.logging.client.LogConfiguration;
 /**
 * Handler for xsl:function elements in stylesheet (XSLT 2.0). <BR>
 * Attributes: <br>
-* name gives the name of the function
+* name gives the name of the function <br>
+* saxon:memo-function="yes" declares that the results of calls are to be remembered and reused.
+* Calls on a memo function are never optimized as tail calls, so a memo function that recurses
+* deeply can exhaust the stack where the same function without the attribute would not
 */
 
 public class XSLFunction extends StyleElement implements StylesheetProcedure {
@@ -35,11 +39,12 @@ public class XSLFunction extends StyleElement implements StylesheetProcedure {
     private String functionName;
     private SlotManager stackFrameMap;
     private boolean override = true;
+    private boolean memoFunction = false;
     private int numberOfArguments = -1;  // -1 means not yet known
     private UserFunction compiledFunction;
 
     // List of UserFunctionCall objects that reference this XSLFunction
-    List references = new ArrayList(10);
+    List<UserFunctionCall> references = new ArrayList<UserFunctionCall>(10);
 
     /**
      * Method called by UserFunctionCall to register the function call for
@@ -93,6 +98,15 @@ public class XSLFunction extends StyleElement implements StylesheetProcedure {
                     override = true;
                     compileError("override must be 'yes' or 'no'", "XTSE0020");
                 }
+            } else if (f.equals(StandardNames.SAXON_MEMO_FUNCTION)) {
+                String memoAtt = Whitespace.trim(atts.getValue(a));
+                if (memoAtt.equals("yes")) {
+                    memoFunction = true;
+                } else if (memoAtt.equals("no")) {
+                    memoFunction = false;
+                } else {
+                    compileError("saxon:memo-function must be 'yes' or 'no'", "XTSE0020");
+                }
         	} else {
         		checkUnknownAttribute(nc);
         	}
@@ -184,9 +198,9 @@ public class XSLFunction extends StyleElement implements StylesheetProcedure {
     */
 
     public void fixupReferences() throws XPathException {
-        Iterator iter = references.iterator();
+        Iterator<UserFunctionCall> iter = references.iterator();
         while (iter.hasNext()) {
-            ((UserFunctionCall)iter.next()).setStaticType(resultType);
+            iter.next().setStaticType(resultType);
         }
         super.fixupReferences();
     }
@@ -246,7 +260,7 @@ public class XSLFunction extends StyleElement implements StylesheetProcedure {
             exp = trace;        	
         }
 
-        UserFunction fn = new UserFunction();
+        UserFunction fn = (memoFunction ? new MemoFunction() : new UserFunction());
         fn.setHostLanguage(Configuration.XSLT);
         fn.setBody(exp);
         fn.setFunctionName(getObjectName());
@@ -292,6 +306,8 @@ public class XSLFunction extends StyleElement implements StylesheetProcedure {
         try {
             if (opt.getOptimizationLevel() != Optimizer.NO_OPTIMIZATION) {
                 exp2 = exp.optimize(visitor, null);
+                exp2 = opt.promoteExpressionsToGlobal(exp2, visitor);
+                exp2 = opt.eliminateCommonSubexpressions(exp2, visitor);
             }
 
         } catch (XPathException err) {
@@ -304,6 +320,12 @@ public class XSLFunction extends StyleElement implements StylesheetProcedure {
             compiledFunction.setBody(exp2);
         }
 
+        // optimization may have decided that some parameters should be indexed, which changes the
+        // way in which the calls on this function evaluate their arguments
+        for (Iterator<UserFunctionCall> iter = references.iterator(); iter.hasNext();) {
+            iter.next().computeArgumentEvaluationModes();
+        }
+
         int tailCalls = ExpressionTool.markTailFunctionCalls(exp2, getObjectName(), getNumberOfArguments());
         if (tailCalls != 0) {
             compiledFunction.setTailRecursive(tailCalls > 0, tailCalls > 1);
@@ -324,9 +346,9 @@ public class XSLFunction extends StyleElement implements StylesheetProcedure {
     throws XPathException {
         ExpressionVisitor visitor = makeExpressionVisitor();
         try {
-            Iterator iter = references.iterator();
+            Iterator<UserFunctionCall> iter = references.iterator();
             while (iter.hasNext()) {
-                UserFunctionCall call = ((UserFunctionCall)iter.next());
+                UserFunctionCall call = iter.next();
                 call.setFunction(compiledFunction);
                 call.checkFunctionCall(compiledFunction, visitor);
                 call.computeArgumentEvaluationModes();
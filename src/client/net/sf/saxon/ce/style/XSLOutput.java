@@ -1,10 +1,13 @@
 package client.net.sf.saxon.ce.style;
 
+import client.net.sf.saxon.ce.event.CharacterMap;
+import client.net.sf.saxon.ce.event.SerializationProperties;
 import client.net.sf.saxon.ce.lib.NamespaceConstant;
 import client.net.sf.saxon.ce.expr.Expression;
 import client.net.sf.saxon.ce.expr.instruct.Executable;
 import client.net.sf.saxon.ce.om.*;
 import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.tree.util.StringTokenizer;
 import client.net.sf.saxon.ce.value.Whitespace;
 import java.util.*;
 
@@ -137,6 +140,89 @@ public class XSLOutput extends StyleElement {
         return null;
     }
 
+    /**
+     * Merge the serialization properties defined in this xsl:output declaration into a set of properties.
+     * Declarations are processed in increasing order of import precedence, so a property set here replaces
+     * any value set by an earlier declaration.
+     * @param props the serialization properties to be updated
+     * @throws XPathException if a QName in cdata-section-elements or use-character-maps is invalid, or
+     * a character map cannot be found
+     */
+
+    public void gatherOutputProperties(SerializationProperties props) throws XPathException {
+        if (method != null) {
+            props.setMethod(method);
+        }
+        if (version != null) {
+            props.setVersion(version);
+        }
+        if (encoding != null) {
+            props.setEncoding(encoding);
+        }
+        if (mediaType != null) {
+            props.setMediaType(mediaType);
+        }
+        if (doctypeSystem != null) {
+            props.setDoctypeSystem(doctypeSystem);
+        }
+        if (doctypePublic != null) {
+            props.setDoctypePublic(doctypePublic);
+        }
+        if (standalone != null) {
+            props.setStandalone(standalone);
+        }
+        if (indent != null) {
+            props.setIndent(isYes(indent));
+        }
+        if (omitDeclaration != null) {
+            props.setOmitXmlDeclaration(isYes(omitDeclaration));
+        }
+        if (cdataElements != null) {
+            StringTokenizer st = new StringTokenizer(cdataElements, " \t\n\r", false);
+            while (st.hasMoreTokens()) {
+                StructuredQName qName = resolveQName(st.nextToken());
+                if (qName == null) {
+                    continue;
+                }
+                props.addCdataSectionElement(getNamePool().allocate(
+                        "", qName.getNamespaceURI(), qName.getLocalName()) & NamePool.FP_MASK);
+            }
+        }
+        if (useCharacterMaps != null) {
+            CharacterMap map = new CharacterMap();
+            if (props.getCharacterMap() != null) {
+                map.putAll(props.getCharacterMap());
+            }
+            StringTokenizer st = new StringTokenizer(useCharacterMaps, " \t\n\r", false);
+            while (st.hasMoreTokens()) {
+                StructuredQName qName = resolveQName(st.nextToken());
+                if (qName == null) {
+                    continue;
+                }
+                XSLCharacterMap charMap = getPrincipalStylesheetModule().getCharacterMap(qName);
+                if (charMap == null) {
+                    compileError("No character-map named '" + qName.getDisplayName() + "' has been defined", "XTSE1590");
+                } else {
+                    charMap.assemble(map);
+                }
+            }
+            props.setCharacterMap(map);
+        }
+    }
+
+    private StructuredQName resolveQName(String lexicalName) throws XPathException {
+        try {
+            return makeQName(lexicalName);
+        } catch (NamespaceException err) {
+            compileError(err.getMessage(), "XTSE0280");
+            return null;
+        }
+    }
+
+    private static boolean isYes(String value) {
+        return value.equals("yes") || value.equals("true") || value.equals("1");
+    }
+
 
 }
 
@@ -408,6 +408,8 @@ public final class XSLTemplate extends StyleElement implements StylesheetProcedu
             Expression exp2 = visitor.typeCheck(exp, contextItemType);
             if (opt.getOptimizationLevel() != Optimizer.NO_OPTIMIZATION) {
                 exp2 = visitor.optimize(exp2, contextItemType);
+                exp2 = opt.promoteExpressionsToGlobal(exp2, visitor);
+                exp2 = opt.eliminateCommonSubexpressions(exp2, visitor);
             }
             if (exp != exp2) {
                 compiledTemplate.setBody(exp2);
@@ -0,0 +1,319 @@
+package client.net.sf.saxon.ce.trace;
+
+import client.net.sf.saxon.ce.expr.XPathContext;
+import client.net.sf.saxon.ce.expr.parser.CodeInjector;
+import client.net.sf.saxon.ce.expr.sort.GenericSorter;
+import client.net.sf.saxon.ce.expr.sort.Sortable;
+import client.net.sf.saxon.ce.lib.StandardErrorListener;
+import client.net.sf.saxon.ce.om.Item;
+import client.net.sf.saxon.ce.om.StandardNames;
+import client.net.sf.saxon.ce.om.StructuredQName;
+import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.logging.Logger;
+
+/**
+ * A trace listener that records, for each template and function, the number of times it was invoked,
+ * the time spent in it (both inclusive and exclusive of the time spent in templates and functions it
+ * calls), and the number of items processed directly within it by instructions such as
+ * <code>xsl:for-each</code> and <code>xsl:apply-templates</code>. It is used in conjunction with the
+ * {@link TimingCodeInjector}, which traces templates and functions only.
+ *
+ * <p>Events for other constructs are ignored, and no strings are built while the transformation is
+ * running: the report is produced when the listener is closed, or on request.</p>
+ *
+ * <p>Times are measured in milliseconds using the browser's high-resolution clock where one is
+ * available.</p>
+ */
+
+public class TimingTraceListener extends XSLTTraceListener {
+
+    /**
+     * Sort the report by inclusive time, highest first
+     */
+    public static final int SORT_BY_INCLUSIVE_TIME = 0;
+
+    /**
+     * Sort the report by exclusive time, highest first
+     */
+    public static final int SORT_BY_EXCLUSIVE_TIME = 1;
+
+    /**
+     * Sort the report by number of invocations, highest first
+     */
+    public static final int SORT_BY_COUNT = 2;
+
+    /**
+     * Sort the report by number of items processed, highest first
+     */
+    public static final int SORT_BY_ITEMS = 3;
+
+    private Logger logger = Logger.getLogger("Trace");
+    private HashMap<InstructionInfo, Profile> profiles = new HashMap<InstructionInfo, Profile>(64);
+
+    // the stack of active templates and functions
+    private Profile[] stackProfiles = new Profile[32];
+    private double[] stackStart = new double[32];
+    private double[] stackChildTime = new double[32];
+    private int top = 0;
+
+    /**
+     * The statistics held for one template or function
+     */
+
+    private static class Profile {
+        public InstructionInfo info;
+        public int count = 0;
+        public int items = 0;
+        public int active = 0;          // number of invocations currently on the stack (for recursion)
+        public double inclusiveTime = 0;
+        public double exclusiveTime = 0;
+
+        public Profile(InstructionInfo info) {
+            this.info = info;
+        }
+    }
+
+    /**
+     * Get the associated CodeInjector to be used at compile time to generate the tracing calls
+     */
+
+    public CodeInjector getCodeInjector() {
+        return new TimingCodeInjector();
+    }
+
+    /**
+     * Called at start: discard any statistics from a previous run
+     */
+
+    public void open() {
+        profiles.clear();
+        top = 0;
+    }
+
+    /**
+     * Called at end: write the report to the log
+     */
+
+    public void close() {
+        logger.info(getReport(SORT_BY_EXCLUSIVE_TIME));
+    }
+
+    /**
+     * Called when the transformation fails: the statistics collected so far are retained
+     */
+
+    public void terminate() {
+        top = 0;
+    }
+
+    public void enterChooseItem(String test) {
+    }
+
+    public void leaveChooseItem(String test) {
+    }
+
+    /**
+     * Called on entry to a template or function (other constructs are ignored)
+     */
+
+    public void enter(InstructionInfo info, XPathContext context) {
+        int construct = info.getConstructType();
+        if (construct != StandardNames.XSL_TEMPLATE && construct != StandardNames.XSL_FUNCTION) {
+            return;
+        }
+        Profile p = profiles.get(info);
+        if (p == null) {
+            p = new Profile(info);
+            profiles.put(info, p);
+        }
+        if (top == stackProfiles.length) {
+            int n = top * 2;
+            Profile[] p2 = new Profile[n];
+            double[] s2 = new double[n];
+            double[] c2 = new double[n];
+            System.arraycopy(stackProfiles, 0, p2, 0, top);
+            System.arraycopy(stackStart, 0, s2, 0, top);
+            System.arraycopy(stackChildTime, 0, c2, 0, top);
+            stackProfiles = p2;
+            stackStart = s2;
+            stackChildTime = c2;
+        }
+        p.active++;
+        stackProfiles[top] = p;
+        stackChildTime[top] = 0;
+        stackStart[top++] = now();
+    }
+
+    /**
+     * Called on exit from a template or function (other constructs are ignored)
+     */
+
+    public void leave(InstructionInfo info) {
+        int construct = info.getConstructType();
+        if (construct != StandardNames.XSL_TEMPLATE && construct != StandardNames.XSL_FUNCTION) {
+            return;
+        }
+        if (top == 0) {
+            return;
+        }
+        double elapsed = now() - stackStart[--top];
+        Profile p = stackProfiles[top];
+        stackProfiles[top] = null;
+        p.count++;
+        p.exclusiveTime += elapsed - stackChildTime[top];
+        if (--p.active == 0) {
+            // for a recursive call, the time is already included in the outermost invocation
+            p.inclusiveTime += elapsed;
+        }
+        if (top > 0) {
+            stackChildTime[top - 1] += elapsed;
+        }
+    }
+
+    /**
+     * Called when an item becomes the context item: the item is counted against the innermost
+     * active template or function
+     */
+
+    public void startCurrentItem(Item item) {
+        if (top > 0) {
+            stackProfiles[top - 1].items++;
+        }
+    }
+
+    public void endCurrentItem(Item item) {
+    }
+
+    /**
+     * Get the statistics as a table, one line per template or function
+     * @param sortKey one of {@link #SORT_BY_INCLUSIVE_TIME}, {@link #SORT_BY_EXCLUSIVE_TIME},
+     * {@link #SORT_BY_COUNT}, {@link #SORT_BY_ITEMS}
+     * @return the report
+     */
+
+    public String getReport(int sortKey) {
+        ArrayList<Profile> list = getSortedProfiles(sortKey);
+        FastStringBuffer sb = new FastStringBuffer(FastStringBuffer.LARGE);
+        sb.append("count\tinclusive(ms)\texclusive(ms)\titems\tconstruct\tname\tlocation\n");
+        for (int i = 0; i < list.size(); i++) {
+            Profile p = list.get(i);
+            sb.append(Integer.toString(p.count));
+            sb.append('\t');
+            sb.append(formatTime(p.inclusiveTime));
+            sb.append('\t');
+            sb.append(formatTime(p.exclusiveTime));
+            sb.append('\t');
+            sb.append(Integer.toString(p.items));
+            sb.append('\t');
+            sb.append(tagName(p.info.getConstructType()));
+            sb.append('\t');
+            sb.append(getDisplayName(p.info));
+            sb.append('\t');
+            sb.append(getLocation(p.info));
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Get the statistics in XML format, for processing by other tools. The result is a
+     * <code>profile</code> element containing one <code>entry</code> element per template or function,
+     * in descending order of exclusive time.
+     * @return the report as a serialized XML document
+     */
+
+    public String getXMLReport() {
+        ArrayList<Profile> list = getSortedProfiles(SORT_BY_EXCLUSIVE_TIME);
+        FastStringBuffer sb = new FastStringBuffer(FastStringBuffer.LARGE);
+        sb.append("<profile>\n");
+        for (int i = 0; i < list.size(); i++) {
+            Profile p = list.get(i);
+            sb.append("<entry construct=\"");
+            sb.append(tagName(p.info.getConstructType()));
+            sb.append("\" name=\"");
+            sb.append(escape(getDisplayName(p.info)));
+            sb.append("\" module=\"");
+            sb.append(escape(p.info.getSystemId()));
+            sb.append("\" line=\"");
+            sb.append(Integer.toString(p.info.getLineNumber()));
+            sb.append("\" count=\"");
+            sb.append(Integer.toString(p.count));
+            sb.append("\" inclusive=\"");
+            sb.append(formatTime(p.inclusiveTime));
+            sb.append("\" exclusive=\"");
+            sb.append(formatTime(p.exclusiveTime));
+            sb.append("\" items=\"");
+            sb.append(Integer.toString(p.items));
+            sb.append("\"/>\n");
+        }
+        sb.append("</profile>");
+        return sb.toString();
+    }
+
+    private ArrayList<Profile> getSortedProfiles(final int sortKey) {
+        final ArrayList<Profile> list = new ArrayList<Profile>(profiles.values());
+        GenericSorter.quickSort(0, list.size(), new Sortable() {
+            public int compare(int a, int b) {
+                // descending order
+                return compareProfiles(list.get(b), list.get(a), sortKey);
+            }
+            public void swap(int a, int b) {
+                Profile temp = list.get(a);
+                list.set(a, list.get(b));
+                list.set(b, temp);
+            }
+        });
+        return list;
+    }
+
+    private static int compareProfiles(Profile a, Profile b, int sortKey) {
+        switch (sortKey) {
+            case SORT_BY_INCLUSIVE_TIME:
+                return Double.compare(a.inclusiveTime, b.inclusiveTime);
+            case SORT_BY_COUNT:
+                return a.count - b.count;
+            case SORT_BY_ITEMS:
+                return a.items - b.items;
+            default:
+                return Double.compare(a.exclusiveTime, b.exclusiveTime);
+        }
+    }
+
+    private static String getDisplayName(InstructionInfo info) {
+        StructuredQName name = info.getObjectName();
+        if (name != null) {
+            return name.getDisplayName();
+        }
+        Object match = info.getProperty("match");
+        return (match == null ? "" : "match=" + match.toString());
+    }
+
+    private static String getLocation(InstructionInfo info) {
+        String module = StandardErrorListener.abbreviatePath(info.getSystemId());
+        return (module == null ? "" : module) + ':' + info.getLineNumber();
+    }
+
+    private static String formatTime(double millisecs) {
+        // three decimal places, i.e. to the nearest microsecond
+        return Double.toString(Math.round(millisecs * 1000) / 1000.0);
+    }
+
+    /**
+     * Get the current time in milliseconds, with sub-millisecond precision where the browser supports it
+     */
+
+    private static native double now() /*-{
+        if ($wnd.performance && $wnd.performance.now) {
+            return $wnd.performance.now();
+        }
+        return new Date().getTime();
+    }-*/;
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
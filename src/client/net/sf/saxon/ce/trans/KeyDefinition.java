@@ -1,13 +1,28 @@
 package client.net.sf.saxon.ce.trans;
 
 import client.net.sf.saxon.ce.Configuration;
-import client.net.sf.saxon.ce.expr.Expression;
+import client.net.sf.saxon.ce.expr.*;
 import client.net.sf.saxon.ce.expr.instruct.Procedure;
 import client.net.sf.saxon.ce.expr.instruct.SlotManager;
+import client.net.sf.saxon.ce.functions.BaseURI;
+import client.net.sf.saxon.ce.functions.Doc;
+import client.net.sf.saxon.ce.functions.DocumentFn;
+import client.net.sf.saxon.ce.functions.Id;
+import client.net.sf.saxon.ce.functions.KeyFn;
+import client.net.sf.saxon.ce.functions.Lang;
+import client.net.sf.saxon.ce.functions.Root;
+import client.net.sf.saxon.ce.js.IXSLFunction;
 import client.net.sf.saxon.ce.lib.StringCollator;
+import client.net.sf.saxon.ce.om.Axis;
 import client.net.sf.saxon.ce.om.StructuredQName;
+import client.net.sf.saxon.ce.pattern.LocationPathPattern;
+import client.net.sf.saxon.ce.pattern.NodeTestPattern;
 import client.net.sf.saxon.ce.pattern.Pattern;
 import client.net.sf.saxon.ce.type.BuiltInAtomicType;
+import client.net.sf.saxon.ce.type.Type;
+import client.net.sf.saxon.ce.type.TypeHierarchy;
+
+import java.util.Iterator;
 
 /**
   * Corresponds to a single xsl:key declaration.<P>
@@ -23,6 +38,7 @@ public class KeyDefinition extends Procedure {
     private String collationName;         // the collation URI
     private boolean backwardsCompatible = false;
     private boolean convertUntypedToOther = false;
+    private Boolean local = null;         // computed lazily by isLocal()
 
     /**
     * Constructor to create a key definition
@@ -148,6 +164,81 @@ public class KeyDefinition extends Procedure {
         return use;
     }
 
+    /**
+     * Ask whether this key definition is local to the indexed node: that is, whether the pattern matches
+     * only element nodes, and whether the question of whether an element matches the pattern, and the values
+     * of the use expression for that element, depend only on the element itself, its name, the names of its
+     * ancestors, and its attributes. If so, then after an update that changes only the attributes of an
+     * element, the index entries for that element can be corrected without rebuilding the index, since no
+     * other node's entries can have changed. A pattern that can match attribute or text nodes is not local,
+     * since such nodes are themselves created, changed, or removed by the update.
+     * @param th the type hierarchy
+     * @return true if the key definition is known to be local to the indexed node; false if it is not,
+     * or if this cannot be determined
+     */
+
+    public boolean isLocal(TypeHierarchy th) {
+        if (local == null) {
+            local = Boolean.valueOf(isLocalPattern(match, th) && isLocalExpression(use));
+        }
+        return local.booleanValue();
+    }
+
+    private static boolean isLocalPattern(Pattern pattern, TypeHierarchy th) {
+        if (pattern.getNodeKind() != Type.ELEMENT) {
+            return false;
+        } else if (pattern instanceof NodeTestPattern) {
+            return true;
+        } else if (pattern instanceof LocationPathPattern) {
+            LocationPathPattern lpp = (LocationPathPattern)pattern;
+            if (lpp.isPositional(th) || !isUnfilteredPattern(lpp.getUpperPattern())) {
+                return false;
+            }
+            Expression[] filters = lpp.getFilters();
+            for (int i=0; i<filters.length; i++) {
+                if (!isLocalExpression(filters[i])) {
+                    return false;
+                }
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private static boolean isUnfilteredPattern(Pattern pattern) {
+        if (pattern == null || pattern instanceof NodeTestPattern) {
+            return true;
+        } else if (pattern instanceof LocationPathPattern) {
+            LocationPathPattern lpp = (LocationPathPattern)pattern;
+            return lpp.getFilters().length == 0 && isUnfilteredPattern(lpp.getUpperPattern());
+        } else {
+            return false;
+        }
+    }
+
+    private static boolean isLocalExpression(Expression exp) {
+        if (exp instanceof AxisExpression) {
+            byte axis = ((AxisExpression)exp).getAxis();
+            return axis == Axis.ATTRIBUTE || axis == Axis.SELF;
+        }
+        if (exp instanceof SingleNodeExpression ||
+                exp instanceof UserFunctionCall ||
+                exp instanceof IXSLFunction ||
+                (exp instanceof VariableReference && !(exp instanceof LocalVariableReference)) ||
+                exp instanceof KeyFn || exp instanceof Id || exp instanceof Doc || exp instanceof DocumentFn ||
+                exp instanceof Root || exp instanceof Lang || exp instanceof BaseURI) {
+            // these can reach nodes other than the context node and its attributes
+            return false;
+        }
+        for (Iterator<Expression> it = exp.iterateSubExpressions(); it.hasNext();) {
+            if (!isLocalExpression(it.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
     * Get the collation name for this key definition.
     * @return the collation name (the collation URI)
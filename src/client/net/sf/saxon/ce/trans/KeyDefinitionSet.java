@@ -1,6 +1,7 @@
 package client.net.sf.saxon.ce.trans;
 
 import client.net.sf.saxon.ce.om.StructuredQName;
+import client.net.sf.saxon.ce.type.TypeHierarchy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -97,6 +98,22 @@ public class KeyDefinitionSet  {
     public boolean isBackwardsCompatible() {
         return backwardsCompatible;
     }
+
+    /**
+     * Determine whether all the key definitions in this set are local to the indexed node, in the
+     * sense defined by {@link KeyDefinition#isLocal}
+     * @param th the type hierarchy
+     * @return true if every key definition in the set is local to the indexed node
+     */
+
+    public boolean isLocal(TypeHierarchy th) {
+        for (int i=0; i<keyDefinitions.size(); i++) {
+            if (!keyDefinitions.get(i).isLocal(th)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
 
 // This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. 
@@ -0,0 +1,391 @@
+package client.net.sf.saxon.ce.trans;
+
+import client.net.sf.saxon.ce.om.DocumentInfo;
+import client.net.sf.saxon.ce.om.NodeInfo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The store used by the {@link KeyManager} to hold the indexes that have been built for
+ * each document. Each index is identified by the document and by a long value combining the key
+ * set number and the primitive item type of the indexed values. An index is either a key index,
+ * mapping key values to the nodes having those values, or a numbering index, mapping nodes to
+ * their numbers; while a key index is being built, the store holds a marker in its place, so that
+ * a circular key definition can be detected.
+ *
+ * <p>The amount of memory used by the indexes is bounded. The size of an index is estimated as the
+ * number of distinct key values plus the number of node references it holds, and when the total size
+ * of all indexes exceeds the memory budget, the least recently used indexes are discarded until it
+ * is within budget again. A discarded index is simply rebuilt if it is needed again. (The browser
+ * environment offers no weak references, so discarding indexes that have not been used recently
+ * is also the means by which the indexes of documents that are no longer in use, and the documents
+ * themselves, are released.)</p>
+ *
+ * <p>The store keeps counts of the number of indexes built, the number of requests satisfied by an
+ * existing index, and the number of indexes evicted, for use in performance monitoring.</p>
+ */
+
+public class KeyIndexStore {
+
+    /**
+     * The default memory budget, as a number of index entries
+     */
+
+    public static final int DEFAULT_BUDGET = 500000;
+
+    private static class Entry {
+        public DocumentInfo doc;
+        public Long key;
+        public HashMap<Object, List<NodeInfo>> index;       // a key index, or null
+        public HashMap<NodeInfo, Integer> numbering;        // a numbering index, or null
+        public int size;
+        public Entry previous;          // the more recently used neighbour
+        public Entry next;              // the less recently used neighbour
+    }
+
+    private HashMap<DocumentInfo, HashMap<Long, Entry>> docIndexes = new HashMap<DocumentInfo, HashMap<Long, Entry>>(10);
+    private Entry mostRecent = null;
+    private Entry leastRecent = null;
+    private int budget = DEFAULT_BUDGET;
+    private int totalSize = 0;
+
+    private int builds = 0;
+    private int hits = 0;
+    private int evictions = 0;
+
+    /**
+     * Set the memory budget
+     * @param budget the maximum total size of all the indexes held, measured as the number of
+     * distinct key values plus the number of node references. A negative value means there is no limit.
+     */
+
+    public void setBudget(int budget) {
+        if (budget != this.budget) {
+            this.budget = budget;
+            evict(null);
+        }
+    }
+
+    /**
+     * Get the memory budget
+     * @return the maximum total size of all the indexes held, or a negative value if there is no limit
+     */
+
+    public int getBudget() {
+        return budget;
+    }
+
+    /**
+     * Get a key index, counting the request as a use of the index
+     * @param doc the document
+     * @param key the key identifying the index within the document
+     * @return the index, mapping key values to lists of nodes in document order, or null if there is
+     * no such index in the store (or it is under construction)
+     */
+
+    public HashMap<Object, List<NodeInfo>> getIndex(DocumentInfo doc, long key) {
+        Entry e = getEntry(doc, key);
+        if (e == null || e.index == null) {
+            return null;
+        }
+        used(e);
+        return e.index;
+    }
+
+    /**
+     * Get a key index without counting the request as a use of the index
+     * @param doc the document
+     * @param key the key identifying the index within the document
+     * @return the index, or null if there is no such index in the store (or it is under construction)
+     */
+
+    public HashMap<Object, List<NodeInfo>> peekIndex(DocumentInfo doc, long key) {
+        Entry e = getEntry(doc, key);
+        return (e == null ? null : e.index);
+    }
+
+    /**
+     * Get a numbering index, counting the request as a use of the index
+     * @param doc the document
+     * @param key the key identifying the index within the document
+     * @return the index, mapping nodes to their numbers, or null if there is no such index in the store
+     */
+
+    public HashMap<NodeInfo, Integer> getNumberingIndex(DocumentInfo doc, long key) {
+        Entry e = getEntry(doc, key);
+        if (e == null || e.numbering == null) {
+            return null;
+        }
+        used(e);
+        return e.numbering;
+    }
+
+    /**
+     * Ask whether an index is under construction
+     * @param doc the document
+     * @param key the key identifying the index within the document
+     * @return true if {@link #markUnderConstruction} has been called for this index, and the index
+     * itself has not yet been added
+     */
+
+    public boolean isUnderConstruction(DocumentInfo doc, long key) {
+        Entry e = getEntry(doc, key);
+        return e != null && e.index == null && e.numbering == null;
+    }
+
+    /**
+     * Record that an index is under construction, replacing any existing index for the same document
+     * and key. An index that is under construction is never evicted.
+     * @param doc the document
+     * @param key the key identifying the index within the document
+     */
+
+    public void markUnderConstruction(DocumentInfo doc, long key) {
+        Entry e = makeEntry(doc, key);
+        linkAsMostRecent(e);
+    }
+
+    /**
+     * Add a key index to the store, replacing any existing index for the same document and key. Adding
+     * an index may cause other indexes to be evicted; it will never cause an index that is under
+     * construction to be evicted.
+     * @param doc the document
+     * @param key the key identifying the index within the document
+     * @param index the index, mapping key values to lists of nodes
+     */
+
+    public void putIndex(DocumentInfo doc, long key, HashMap<Object, List<NodeInfo>> index) {
+        Entry e = makeEntry(doc, key);
+        e.index = index;
+        e.size = index.size();
+        for (Iterator<List<NodeInfo>> it = index.values().iterator(); it.hasNext();) {
+            e.size += it.next().size();
+        }
+        added(e);
+    }
+
+    /**
+     * Add a numbering index to the store, replacing any existing index for the same document and key.
+     * Adding an index may cause other indexes to be evicted.
+     * @param doc the document
+     * @param key the key identifying the index within the document
+     * @param numbering the index, mapping nodes to their numbers
+     */
+
+    public void putNumberingIndex(DocumentInfo doc, long key, HashMap<NodeInfo, Integer> numbering) {
+        Entry e = makeEntry(doc, key);
+        e.numbering = numbering;
+        e.size = numbering.size();
+        added(e);
+    }
+
+    private Entry getEntry(DocumentInfo doc, long key) {
+        HashMap<Long, Entry> map = docIndexes.get(doc);
+        return (map == null ? null : map.get(Long.valueOf(key)));
+    }
+
+    /**
+     * Get the entry for an index, creating it if necessary. An existing entry is unlinked from the
+     * list of entries in order of use, and its index is discarded.
+     */
+
+    private Entry makeEntry(DocumentInfo doc, long key) {
+        HashMap<Long, Entry> map = docIndexes.get(doc);
+        if (map == null) {
+            map = new HashMap<Long, Entry>(10);
+            docIndexes.put(doc, map);
+        }
+        Long k = Long.valueOf(key);
+        Entry e = map.get(k);
+        if (e == null) {
+            e = new Entry();
+            e.doc = doc;
+            e.key = k;
+            map.put(k, e);
+        } else {
+            unlink(e);
+            totalSize -= e.size;
+        }
+        e.index = null;
+        e.numbering = null;
+        e.size = 0;
+        return e;
+    }
+
+    private void used(Entry e) {
+        hits++;
+        unlink(e);
+        linkAsMostRecent(e);
+    }
+
+    private void added(Entry e) {
+        builds++;
+        totalSize += e.size;
+        linkAsMostRecent(e);
+        evict(e);
+    }
+
+    /**
+     * Get the keys of all the indexes held for a given document
+     * @param doc the document
+     * @return the keys of the indexes held for this document
+     */
+
+    public List<Long> getKeys(DocumentInfo doc) {
+        HashMap<Long, Entry> map = docIndexes.get(doc);
+        if (map == null) {
+            return new ArrayList<Long>(0);
+        }
+        return new ArrayList<Long>(map.keySet());
+    }
+
+    /**
+     * Get the documents for which indexes are held
+     * @return the documents for which the store holds at least one index
+     */
+
+    public List<DocumentInfo> getDocuments() {
+        return new ArrayList<DocumentInfo>(docIndexes.keySet());
+    }
+
+    /**
+     * Discard all the indexes held for a given document
+     * @param doc the document
+     */
+
+    public void remove(DocumentInfo doc) {
+        HashMap<Long, Entry> map = docIndexes.remove(doc);
+        if (map != null) {
+            for (Iterator<Entry> it = map.values().iterator(); it.hasNext();) {
+                Entry e = it.next();
+                unlink(e);
+                totalSize -= e.size;
+            }
+        }
+    }
+
+    /**
+     * Remove a single index from the store, or the marker showing that it is under construction
+     * @param doc the document
+     * @param key the key identifying the index within the document
+     */
+
+    public void remove(DocumentInfo doc, long key) {
+        Entry e = getEntry(doc, key);
+        if (e != null) {
+            discard(e);
+        }
+    }
+
+    private void discard(Entry e) {
+        unlink(e);
+        totalSize -= e.size;
+        HashMap<Long, Entry> map = docIndexes.get(e.doc);
+        map.remove(e.key);
+        if (map.isEmpty()) {
+            docIndexes.remove(e.doc);
+        }
+    }
+
+    /**
+     * Discard all the indexes in the store
+     */
+
+    public void clear() {
+        docIndexes.clear();
+        mostRecent = null;
+        leastRecent = null;
+        totalSize = 0;
+    }
+
+    /**
+     * Get the estimated total size of the indexes currently held
+     * @return the number of distinct key values plus the number of node references in all the indexes
+     */
+
+    public int getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * Get the number of indexes that have been built
+     * @return the number of indexes added to the store
+     */
+
+    public int getBuildCount() {
+        return builds;
+    }
+
+    /**
+     * Get the number of requests that were satisfied by an index already in the store
+     * @return the number of hits
+     */
+
+    public int getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Get the number of indexes that have been evicted because the memory budget was exceeded
+     * @return the number of evictions
+     */
+
+    public int getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Evict the least recently used indexes until the total size is within the budget
+     * @param keep an entry that must not be evicted, or null
+     */
+
+    private void evict(Entry keep) {
+        if (budget < 0) {
+            return;
+        }
+        Entry e = leastRecent;
+        while (totalSize > budget && e != null) {
+            Entry prev = e.previous;
+            if (e != keep && (e.index != null || e.numbering != null)) {
+                discard(e);
+                evictions++;
+            }
+            e = prev;
+        }
+    }
+
+    private void linkAsMostRecent(Entry e) {
+        e.previous = null;
+        e.next = mostRecent;
+        if (mostRecent != null) {
+            mostRecent.previous = e;
+        }
+        mostRecent = e;
+        if (leastRecent == null) {
+            leastRecent = e;
+        }
+    }
+
+    private void unlink(Entry e) {
+        if (e.previous != null) {
+            e.previous.next = e.next;
+        } else if (mostRecent == e) {
+            mostRecent = e.next;
+        }
+        if (e.next != null) {
+            e.next.previous = e.previous;
+        } else if (leastRecent == e) {
+            leastRecent = e.previous;
+        }
+        e.previous = null;
+        e.next = null;
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
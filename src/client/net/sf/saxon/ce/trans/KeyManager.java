@@ -1,12 +1,14 @@
 package client.net.sf.saxon.ce.trans;
 
 import client.net.sf.saxon.ce.Configuration;
-import client.net.sf.saxon.ce.Controller;
+import client.net.sf.saxon.ce.dom.HTMLDocumentWrapper;
 import client.net.sf.saxon.ce.expr.*;
 import client.net.sf.saxon.ce.expr.instruct.SlotManager;
+import client.net.sf.saxon.ce.expr.sort.DocumentOrderIterator;
 import client.net.sf.saxon.ce.expr.sort.LocalOrderComparer;
 import client.net.sf.saxon.ce.lib.StringCollator;
 import client.net.sf.saxon.ce.om.*;
+import client.net.sf.saxon.ce.pattern.AnyNodeTest;
 import client.net.sf.saxon.ce.pattern.Pattern;
 import client.net.sf.saxon.ce.tree.iter.AxisIterator;
 import client.net.sf.saxon.ce.tree.iter.EmptyIterator;
@@ -16,6 +18,7 @@ import client.net.sf.saxon.ce.type.AtomicType;
 import client.net.sf.saxon.ce.type.BuiltInAtomicType;
 import client.net.sf.saxon.ce.type.BuiltInType;
 import client.net.sf.saxon.ce.type.Type;
+import client.net.sf.saxon.ce.type.TypeHierarchy;
 import client.net.sf.saxon.ce.value.AtomicValue;
 import client.net.sf.saxon.ce.value.DoubleValue;
 import client.net.sf.saxon.ce.value.NumericValue;
@@ -27,14 +30,20 @@ import java.util.*;
   * associated with these key definitions. It handles xsl:sort-key as well as xsl:key
   * definitions.
   *
-  * <p>The memory management in this class is subtle, with extensive use of weak references.
-  * The idea is that an index should continue to exist in memory so long as both the compiled
-  * stylesheet and the source document exist in memory: if either is removed, the index should
-  * go too. The document itself holds no reference to the index. The compiled stylesheet (which
-  * owns the KeyManager) holds a weak reference to the index. The index, of course, holds strong
-  * references to the nodes in the document. The Controller holds a strong reference to the
-  * list of indexes used for each document, so that indexes remain in memory for the duration
-  * of a transformation even if the documents themselves are garbage collected.</p>
+  * <p>The indexes are held in a {@link KeyIndexStore} owned by the KeyManager. Since weak references
+  * are not available in the browser, the store holds strong references to the indexes (and, through
+  * them, to the documents), but the total size of the indexes is bounded by a memory budget: when this
+  * is exceeded, the least recently used indexes are discarded, to be rebuilt if they are needed again.
+  * The budget is taken from the configuration option
+  * {@link client.net.sf.saxon.ce.lib.FeatureKeys#KEY_INDEX_MEMORY_BUDGET}. The indexes for a particular
+  * document can also be discarded explicitly by calling {@link #clearDocumentIndexes}.</p>
+  *
+  * <p>Indexes for the HTML host page are held against the single wrapper returned by
+  * {@link Configuration#getHostPage}, so they survive from one event-driven transformation to the next.
+  * Updates made to the page by the transformation itself are applied to the indexes by the
+  * {@link client.net.sf.saxon.ce.trans.update.PendingUpdateList}; changes made to the page by other
+  * script are not detected, and an application making such changes to indexed content should discard
+  * the page indexes using {@link #clearDocumentIndexes}.</p>
   *
   * <p>Potentially there is a need for more than one index for a given key name, depending
   * on the primitive type of the value provided to the key() function. An index is built
@@ -74,12 +83,13 @@ public class KeyManager {
     private HashMap<StructuredQName, KeyDefinitionSet> keyMap;
                                      // one entry for each named key; the entry contains
                                      // a KeyDefinitionSet holding the key definitions with that name
-    private transient HashMap<DocumentInfo, HashMap<Long, Object>> docIndexes;
-                                     // one entry for each document that is in memory;
-                                     // the entry contains a HashMap mapping the fingerprint of
-                                     // the key name plus the primitive item type
-                                     // to the HashMap that is the actual index
-                                     // of key/value pairs.
+    private transient KeyIndexStore indexStore;
+                                     // holds the indexes for each document, identified by the
+                                     // key set number plus the primitive item type; each index
+                                     // is a HashMap mapping key values to lists of nodes
+    private int internalIndexes = 0;
+                                     // the number of internal indexes allocated; these are
+                                     // numbered -1, -2, ... so as not to clash with key set numbers
 
     /**
      * Create a KeyManager and initialise variables
@@ -87,7 +97,212 @@ public class KeyManager {
 
     public KeyManager() {
         keyMap = new HashMap<StructuredQName, KeyDefinitionSet>(10);
-        docIndexes = new HashMap<DocumentInfo, HashMap<Long, Object>>(10);
+        indexStore = new KeyIndexStore();
+    }
+
+    /**
+     * Get the store holding the indexes built for each document. This gives access to the
+     * memory budget and to the counts of indexes built, reused, and evicted.
+     * @return the index store
+     */
+
+    public KeyIndexStore getIndexStore() {
+        if (indexStore == null) {
+            // it's transient, so it will be null when reloading a compiled stylesheet
+            indexStore = new KeyIndexStore();
+        }
+        return indexStore;
+    }
+
+    /**
+     * Discard all the indexes held for a given document. This should be called when it is known
+     * that the document is no longer required, so that the memory it occupies can be reclaimed.
+     * @param doc the document whose indexes are to be discarded
+     */
+
+    public void clearDocumentIndexes(DocumentInfo doc) {
+        getIndexStore().remove(doc);
+    }
+
+    /**
+     * Discard all the indexes (key, internal and numbering indexes) held for documents wrapping
+     * an HTML page. This must be called whenever the page may have changed: when a transformation
+     * writes to it, and at the start of each transformation, since script or user input may have
+     * changed it since the last one.
+     */
+
+    public void clearPageIndexes() {
+        KeyIndexStore store = getIndexStore();
+        List<DocumentInfo> docs = store.getDocuments();
+        for (int d=0; d<docs.size(); d++) {
+            if (docs.get(d) instanceof HTMLDocumentWrapper) {
+                store.remove(docs.get(d));
+            }
+        }
+    }
+
+    /**
+     * Allocate a number to identify an internal index: that is, an index built automatically to
+     * support a filter expression such as <code>$doc//product[@sku = $ref]</code>, rather than one
+     * defined by an xsl:key declaration. The indexes built for each document are held in the same
+     * store as those for xsl:key definitions, and are subject to the same memory budget.
+     * @return a negative number, distinct from the numbers of all other internal indexes and from
+     * the key set numbers of all key definition sets
+     */
+
+    public synchronized int allocateInternalIndexNumber() {
+        return -(++internalIndexes);
+    }
+
+    /**
+     * Get an internal index for a document, building it if it does not already exist. The index maps
+     * the string values returned by the use expression to the nodes for which they are returned.
+     * @param doc the document node from which the indexed nodes are selected
+     * @param indexNumber the number identifying the internal index, allocated using
+     * {@link #allocateInternalIndexNumber}
+     * @param select the expression that selects the nodes to be indexed, evaluated with the document node
+     * as the context item. This must not depend on anything other than the focus.
+     * @param use the expression that computes the key values of each node, evaluated with that node as the
+     * context item. This must not depend on anything other than the focus.
+     * @param context the dynamic evaluation context
+     * @return the index, as a HashMap from string values to lists of nodes in document order
+     * @throws XPathException if an error occurs evaluating the select or use expressions
+     */
+
+    public HashMap<Object, List<NodeInfo>> getInternalIndex(DocumentInfo doc, int indexNumber,
+                                                          Expression select, Expression use,
+                                                          XPathContext context) throws XPathException {
+        HashMap<Object, List<NodeInfo>> index = getKeyIndex(doc, indexNumber, BuiltInAtomicType.STRING);
+        if (index != null) {
+            return index;
+        }
+        index = new HashMap<Object, List<NodeInfo>>(100);
+        XPathContext xc = context.newMinorContext();
+        AxisIterator di = SingleNodeIterator.makeIterator(doc);
+        di.next();
+        xc.setCurrentIterator(di);
+        SequenceIterator nodes = select.iterate(xc);
+        if ((select.getSpecialProperties() & StaticProperty.ORDERED_NODESET) == 0) {
+            nodes = new DocumentOrderIterator(nodes, LocalOrderComparer.getInstance());
+        }
+        XPathContext uc = context.newMinorContext();
+        while (true) {
+            NodeInfo node = (NodeInfo)nodes.next();
+            if (node == null) {
+                break;
+            }
+            AxisIterator si = SingleNodeIterator.makeIterator(node);
+            si.next();
+            uc.setCurrentIterator(si);
+            SequenceIterator values = use.iterate(uc);
+            while (true) {
+                Item value = values.next();
+                if (value == null) {
+                    break;
+                }
+                String key = value.getStringValue();
+                List<NodeInfo> list = index.get(key);
+                if (list == null) {
+                    list = new ArrayList<NodeInfo>(4);
+                    index.put(key, list);
+                    list.add(node);
+                } else if (list.get(list.size()-1) != node) {
+                    // the nodes are processed in document order, so a duplicate can only be the last entry
+                    list.add(node);
+                }
+            }
+        }
+        // the index is stored only when complete, so nothing is left behind if building it fails
+        putKeyIndex(doc, indexNumber, BuiltInAtomicType.STRING, index, context);
+        return index;
+    }
+
+    /**
+     * Get a numbering index for a document, building it if it does not already exist. A numbering index
+     * supports an xsl:number instruction whose count and from patterns contain no variable references,
+     * giving the number of a node without counting the nodes that precede it. The index is built in a
+     * single pass over the document, and is held in the same store as other indexes, using an internal
+     * index number allocated to the instruction.
+     * @param doc the document containing the nodes to be numbered
+     * @param indexNumber the number identifying the internal index, allocated using
+     * {@link #allocateInternalIndexNumber}
+     * @param count the pattern identifying the nodes to be counted
+     * @param from the pattern identifying the nodes from which counting starts, or null. This is used
+     * only if <code>any</code> is true.
+     * @param any true for level="any": the index then maps each element, and each node that matches the
+     * count pattern, to the number of nodes that match the count pattern among the node itself and the
+     * nodes that precede it in document order, counting from the most recent node that matches the from
+     * pattern. False for level="single" or level="multiple": the index then maps each node that matches
+     * the count pattern to one plus the number of its preceding siblings that match the count pattern.
+     * @param context the dynamic evaluation context
+     * @return the index, as a HashMap from nodes to their numbers
+     * @throws XPathException if an error occurs evaluating the patterns
+     */
+
+    public HashMap<NodeInfo, Integer> getNumberingIndex(DocumentInfo doc, int indexNumber,
+                                                        Pattern count, Pattern from, boolean any,
+                                                        XPathContext context) throws XPathException {
+        KeyIndexStore store = getIndexStore();
+        long key = indexKey(indexNumber, BuiltInAtomicType.INTEGER);
+        HashMap<NodeInfo, Integer> index;
+        synchronized (this) {
+            index = store.getNumberingIndex(doc, key);
+        }
+        if (index != null) {
+            return index;
+        }
+        index = new HashMap<NodeInfo, Integer>(100);
+        if (any) {
+            AxisIterator nodes = doc.iterateAxis(Axis.DESCENDANT_OR_SELF, AnyNodeTest.getInstance());
+            int counter = 0;
+            while (true) {
+                NodeInfo node = (NodeInfo)nodes.next();
+                if (node == null) {
+                    break;
+                }
+                if (from != null && from.matches(node, context)) {
+                    counter = 0;
+                }
+                boolean counted = count.matches(node, context);
+                if (counted) {
+                    counter++;
+                }
+                if (counted || node.getNodeKind() == Type.ELEMENT) {
+                    index.put(node, Integer.valueOf(counter));
+                }
+            }
+        } else {
+            numberChildren(doc, count, index, context);
+        }
+        // the index is stored only when complete, so nothing is left behind if building it fails
+        synchronized (this) {
+            store.setBudget(context.getConfiguration().getKeyIndexMemoryBudget());
+            store.putNumberingIndex(doc, key, index);
+        }
+        return index;
+    }
+
+    /**
+     * Enter the children of a node that match the count pattern in a numbering index, recursively,
+     * each numbered among its siblings
+     */
+
+    private static void numberChildren(NodeInfo parent, Pattern count, HashMap<NodeInfo, Integer> index,
+                                       XPathContext context) throws XPathException {
+        AxisIterator children = parent.iterateAxis(Axis.CHILD, AnyNodeTest.getInstance());
+        int n = 0;
+        while (true) {
+            NodeInfo child = (NodeInfo)children.next();
+            if (child == null) {
+                return;
+            }
+            if (count.matches(child, context)) {
+                index.put(child, Integer.valueOf(++n));
+            }
+            if (child.hasChildNodes()) {
+                numberChildren(child, count, index, context);
+            }
+        }
     }
 
     /**
@@ -159,7 +374,7 @@ public class KeyManager {
      * @return the index in question, as a HashMap mapping a key value onto a ArrayList of nodes
     */
 
-    private synchronized HashMap buildIndex(KeyDefinitionSet keySet,
+    private synchronized HashMap<Object, List<NodeInfo>> buildIndex(KeyDefinitionSet keySet,
                                             BuiltInAtomicType itemType,
                                             Set<BuiltInAtomicType> foundItemTypes,
                                             DocumentInfo doc,
@@ -270,32 +485,9 @@ public class KeyManager {
                 // simply ignore this key value
                 continue;
             }
-            Object val;
-
-            if (soughtItemType.equals(BuiltInAtomicType.UNTYPED_ATOMIC) ||
-                    soughtItemType.equals(BuiltInAtomicType.STRING) ||
-                    soughtItemType.equals(BuiltInAtomicType.ANY_URI)) {
-                // If the supplied key value is untyped atomic, we build an index using the
-                // actual type returned by the use expression
-                // If the supplied key value is a string, there is no match unless the use expression
-                // returns a string or an untyped atomic value
-                if (collation == null) {
-                    val = item.getStringValue();
-                } else {
-                    val = collation.getCollationKey(item.getStringValue());
-                }
-            } else {
-                // Ignore NaN values
-                if (item.isNaN()) {
-                    break;
-                }
-                try {
-                    AtomicValue av = item.convert(soughtItemType, true).asAtomic();
-                    val = av.getXPathComparable(false, collation, xc);
-                } catch (XPathException err) {
-                    // ignore values that can't be converted to the required type
-                    break;
-                }
+            Object val = makeIndexKey(item, soughtItemType, collation, xc);
+            if (val == null) {
+                break;
             }
 
             List<NodeInfo> nodes = index.get(val);
@@ -346,6 +538,182 @@ public class KeyManager {
 
     }
 
+    /**
+     * Process one node that matches a key definition, removing its entries from an index. This is
+     * the inverse of {@link #processKeyNode}, and must be called while the node still has the key
+     * values that it had when it was indexed.
+     * @param curr the node being processed
+     * @param soughtItemType the primitive item type of the values in the index
+     * @param keydef the key definition
+     * @param index the index from which the entries are to be removed
+     * @param xc the context for evaluating expressions
+     */
+
+    private void removeKeyNode(     NodeInfo curr,
+                                    BuiltInAtomicType soughtItemType,
+                                    KeyDefinition keydef,
+                                    HashMap<Object, List<NodeInfo>> index,
+                                    XPathContext xc) throws XPathException {
+
+        AxisIterator si = SingleNodeIterator.makeIterator(curr);
+        si.next();    // need to position iterator at first node
+
+        xc.setCurrentIterator(si);
+
+        StringCollator collation = keydef.getCollation();
+
+        SequenceIterator useval = keydef.getUse().iterate(xc);
+        while (true) {
+            AtomicValue item = (AtomicValue)useval.next();
+            if (item == null) {
+                break;
+            }
+            if (!Type.isComparable(item.getPrimitiveType(), soughtItemType, false)) {
+                continue;
+            }
+            Object val = makeIndexKey(item, soughtItemType, collation, xc);
+            if (val == null) {
+                break;
+            }
+            List<NodeInfo> nodes = index.get(val);
+            if (nodes != null) {
+                for (int i=0; i<nodes.size(); i++) {
+                    if (nodes.get(i).isSameNodeInfo(curr)) {
+                        nodes.remove(i);
+                        break;
+                    }
+                }
+                if (nodes.isEmpty()) {
+                    index.remove(val);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the value under which a value returned by the use expression is entered in an index
+     * @param item the value returned by the use expression
+     * @param soughtItemType the primitive item type of the values in the index
+     * @param collation the collation used by the key, or null
+     * @param xc the context for evaluating expressions
+     * @return the key value to be used in the index, or null if the value cannot be indexed (this means
+     * that no further values returned by the use expression are indexed)
+     */
+
+    private static Object makeIndexKey(AtomicValue item, BuiltInAtomicType soughtItemType,
+                                       StringCollator collation, XPathContext xc) throws XPathException {
+        if (soughtItemType.equals(BuiltInAtomicType.UNTYPED_ATOMIC) ||
+                soughtItemType.equals(BuiltInAtomicType.STRING) ||
+                soughtItemType.equals(BuiltInAtomicType.ANY_URI)) {
+            // If the supplied key value is untyped atomic, we build an index using the
+            // actual type returned by the use expression
+            // If the supplied key value is a string, there is no match unless the use expression
+            // returns a string or an untyped atomic value
+            if (collation == null) {
+                return item.getStringValue();
+            } else {
+                return collation.getCollationKey(item.getStringValue());
+            }
+        } else {
+            // Ignore NaN values
+            if (item.isNaN()) {
+                return null;
+            }
+            try {
+                AtomicValue av = item.convert(soughtItemType, true).asAtomic();
+                return av.getXPathComparable(false, collation, xc);
+            } catch (XPathException err) {
+                // ignore values that can't be converted to the required type
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Remove a node from the indexes held for its document, in preparation for an update that
+     * changes only the attributes of the node. After the update, {@link #reindexNode} must be called
+     * to enter the node in the indexes under its new key values. The indexes can only be patched in
+     * this way if all the key definitions they use are local to the indexed node (see
+     * {@link KeyDefinition#isLocal}); if any is not, all the indexes held for the document are
+     * discarded instead, to be rebuilt when next required.
+     * @param node the node that is about to be updated
+     * @param context the dynamic evaluation context
+     * @return true if the node was removed from the indexes; false if the indexes for the document
+     * were discarded
+     * @throws XPathException if an error occurs evaluating a key definition
+     */
+
+    public boolean unindexNode(NodeInfo node, XPathContext context) throws XPathException {
+        return patchIndexes(node, false, context);
+    }
+
+    /**
+     * Enter a node in the indexes held for its document, following an update that changed only the
+     * attributes of the node. This must be preceded by a call on {@link #unindexNode}, made before
+     * the update, which returned true.
+     * @param node the node that has been updated
+     * @param context the dynamic evaluation context
+     * @throws XPathException if an error occurs evaluating a key definition
+     */
+
+    public void reindexNode(NodeInfo node, XPathContext context) throws XPathException {
+        patchIndexes(node, true, context);
+    }
+
+    private boolean patchIndexes(NodeInfo node, boolean add, XPathContext context) throws XPathException {
+        DocumentInfo doc = node.getDocumentRoot();
+        KeyIndexStore store = getIndexStore();
+        List<Long> keys = store.getKeys(doc);
+        TypeHierarchy th = context.getConfiguration().getTypeHierarchy();
+        KeyDefinitionSet[] keySets = new KeyDefinitionSet[keys.size()];
+        for (int i=0; i<keys.size(); i++) {
+            long key = keys.get(i).longValue();
+            keySets[i] = findKeyDefinitionSet((int)(key >> 32));
+            if (keySets[i] == null || !keySets[i].isLocal(th) || store.peekIndex(doc, key) == null) {
+                store.remove(doc);
+                return false;
+            }
+        }
+        XPathContextMajor xc = context.newContext();
+        for (int i=0; i<keys.size(); i++) {
+            long key = keys.get(i).longValue();
+            HashMap<Object, List<NodeInfo>> index = store.peekIndex(doc, key);
+            BuiltInAtomicType itemType = (BuiltInAtomicType)BuiltInType.getSchemaType((int)key);
+            List<KeyDefinition> definitions = keySets[i].getKeyDefinitions();
+            for (int k=0; k<definitions.size(); k++) {
+                KeyDefinition keydef = definitions.get(k);
+                SlotManager map = keydef.getStackFrameMap();
+                if (map != null) {
+                    xc.openStackFrame(map);
+                }
+                if (keydef.getMatch().matches(node, xc)) {
+                    if (add) {
+                        processKeyNode(node, itemType, null, keydef, index, xc, false);
+                    } else {
+                        removeKeyNode(node, itemType, keydef, index, xc);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the key definition set with a given number
+     * @param keySetNumber the number identifying the key definition set
+     * @return the key definition set, or null if there is none with this number
+     */
+
+    private KeyDefinitionSet findKeyDefinitionSet(int keySetNumber) {
+        for (Iterator<KeyDefinitionSet> it = keyMap.values().iterator(); it.hasNext();) {
+            KeyDefinitionSet keySet = it.next();
+            if (keySet.getKeySetNumber() == keySetNumber) {
+                return keySet;
+            }
+        }
+        return null;
+    }
+
 
     /**
     * Get the nodes with a given key value
@@ -403,32 +771,42 @@ public class KeyManager {
 
         int keySetNumber = keySet.getKeySetNumber();
         BuiltInAtomicType itemType = value.getPrimitiveType();
-        HashMap index;
-
-        Object indexObject = getIndex(doc, keySetNumber, itemType);
-        if (indexObject instanceof String) {
-            // index is under construction
+        if (isUnderConstruction(doc, keySetNumber, itemType)) {
             XPathException de = new XPathException("Key definition is circular");
             de.setXPathContext(context);
             de.setErrorCode("XTDE0640");
             throw de;
         }
-        index = (HashMap)indexObject;
+        HashMap<Object, List<NodeInfo>> index = getKeyIndex(doc, keySetNumber, itemType);
 
         // If the index does not yet exist, then create it.
         if (index==null) {
             // Mark the index as being under construction, in case the definition is circular
-            putIndex(doc, keySetNumber, itemType, "Under Construction", context);
-            index = buildIndex(keySet, itemType, foundItemTypes, doc, context);
-            putIndex(doc, keySetNumber, itemType, index, context);
+            markUnderConstruction(doc, keySetNumber, itemType);
+            try {
+                index = buildIndex(keySet, itemType, foundItemTypes, doc, context);
+            } finally {
+                if (index == null) {
+                    // remove the marker, so that a later attempt is not reported as a circularity
+                    abandonIndex(doc, keySetNumber, itemType);
+                }
+            }
+            putKeyIndex(doc, keySetNumber, itemType, index, context);
             if (foundItemTypes != null) {
                 // build indexes for each item type actually found
                 for (Iterator<BuiltInAtomicType> f = foundItemTypes.iterator(); f.hasNext();) {
                     BuiltInAtomicType t = f.next();
                     if (!t.equals(BuiltInAtomicType.STRING)) {
-                        putIndex(doc, keySetNumber, t, "Under Construction", context);
-                        index = buildIndex(keySet, t, null, doc, context);
-                        putIndex(doc, keySetNumber, t, index, context);
+                        markUnderConstruction(doc, keySetNumber, t);
+                        HashMap<Object, List<NodeInfo>> typedIndex = null;
+                        try {
+                            typedIndex = buildIndex(keySet, t, null, doc, context);
+                        } finally {
+                            if (typedIndex == null) {
+                                abandonIndex(doc, keySetNumber, t);
+                            }
+                        }
+                        putKeyIndex(doc, keySetNumber, t, typedIndex, context);
                     }
                 }
             }
@@ -436,7 +814,7 @@ public class KeyManager {
 
 
         if (foundItemTypes == null) {
-            ArrayList nodes = (ArrayList)index.get(getCollationKey(value, itemType, collation, context));
+            List<NodeInfo> nodes = index.get(getCollationKey(value, itemType, collation, context));
             if (nodes==null) {
                 return EmptyIterator.getInstance();
             } else {
@@ -445,28 +823,26 @@ public class KeyManager {
         } else {
             // we need to search the indexes for all possible types, and combine the results.
             SequenceIterator result = null;
-            HashMap<Long, Object> docIndex = docIndexes.get(doc);
-            if (docIndex != null) {
-                for (Iterator<Long> i= index.keySet().iterator(); i.hasNext();) {
+            List<Long> docIndexKeys = getIndexStore().getKeys(doc);
+            if (!docIndexKeys.isEmpty()) {
+                for (Iterator<Long> i= docIndexKeys.iterator(); i.hasNext();) {
                     long key = (i.next()).longValue();
                     if (((key >> 32)) == keySetNumber) {
                         int typefp = (int)key;
 
                         BuiltInAtomicType type = (BuiltInAtomicType)BuiltInType.getSchemaType(typefp);
 
-                        Object indexObject2 = getIndex(doc, keySetNumber, type);
-                        if (indexObject2 instanceof String) {
-                            // index is under construction
+                        if (isUnderConstruction(doc, keySetNumber, type)) {
                             XPathException de = new XPathException("Key definition is circular");
                             de.setXPathContext(context);
                             de.setErrorCode("XTDE0640");
                             throw de;
                         }
-                        HashMap index2 = (HashMap)indexObject2;
-                        // NOTE: we've been known to encounter a null index2 here, but it doesn't seem possible
-                        if (!index2.isEmpty()) {
+                        HashMap<Object, List<NodeInfo>> index2 = getKeyIndex(doc, keySetNumber, type);
+                        // the index may have been evicted from the store
+                        if (index2 != null && !index2.isEmpty()) {
                             value = soughtValue.convert(type, true).asAtomic();
-                            ArrayList nodes = (ArrayList)index2.get(getCollationKey(value, type, collation, context));
+                            List<NodeInfo> nodes = index2.get(getCollationKey(value, type, collation, context));
                             if (nodes != null) {
                                 if (result == null) {
                                     result = new ListIterator(nodes);
@@ -505,11 +881,8 @@ public class KeyManager {
 
     /**
     * Save the index associated with a particular key, a particular item type,
-    * and a particular document. This
-    * needs to be done in such a way that the index is discarded by the garbage collector
-    * if the document is discarded. We therefore use a WeakHashMap indexed on the DocumentInfo,
-    * which returns HashMap giving the index for each key fingerprint. This index is itself another
-    * HashMap.
+    * and a particular document. The index is held in the index store, which may discard
+    * it (or other indexes) if the memory budget is exceeded.
     * The methods need to be synchronized because several concurrent transformations (which share
     * the same KeyManager) may be creating indexes for the same or different documents at the same
     * time.
@@ -520,30 +893,11 @@ public class KeyManager {
      * @param context the dynamic evaluation context
     */
 
-    private synchronized void putIndex(DocumentInfo doc, int keyFingerprint,
-                                       AtomicType itemType, Object index, XPathContext context) {
-        if (docIndexes==null) {
-            // it's transient, so it will be null when reloading a compiled stylesheet
-            docIndexes = new HashMap<DocumentInfo, HashMap<Long, Object>>(10);
-        }
-        HashMap<Long, Object> indexRef = docIndexes.get(doc);
-        HashMap<Long, Object> indexList;
-        if (indexRef==null) {
-            indexList = new HashMap<Long, Object>(10);
-            // Ensure there is a firm reference to the indexList for the duration of a transformation
-            // But for keys associated with temporary trees, or documents that have been discarded from
-            // the document pool, keep the reference within the document node itself.
-            Controller controller = context.getController();
-            if (controller.getDocumentPool().contains(doc)) {
-                context.getController().setUserData(doc, "saxon:key-index-list", indexList);
-            } else {
-                doc.setUserData("saxon:key-index-list", indexList);
-            }
-            docIndexes.put(doc, new HashMap<Long, Object>(indexList));
-        } else {
-            indexList = indexRef;
-        }
-        indexList.put(Long.valueOf(((long)keyFingerprint)<<32 | itemType.getFingerprint()), index);
+    private synchronized void putKeyIndex(DocumentInfo doc, int keyFingerprint, AtomicType itemType,
+                                          HashMap<Object, List<NodeInfo>> index, XPathContext context) {
+        KeyIndexStore store = getIndexStore();
+        store.setBudget(context.getConfiguration().getKeyIndexMemoryBudget());
+        store.putIndex(doc, indexKey(keyFingerprint, itemType), index);
     }
 
     /**
@@ -552,17 +906,59 @@ public class KeyManager {
      * @param doc the document whose index is required
      * @param keyFingerprint the name of the key definition
      * @param itemType the primitive item type of the values being indexed
-     * @return either an index (as a HashMap), or the String "under construction", or null
+     * @return the index, or null if it does not exist or is under construction
     */
 
-    private synchronized Object getIndex(DocumentInfo doc, int keyFingerprint, AtomicType itemType) {
-        if (docIndexes==null) {
-            // it's transient, so it will be null when reloading a compiled stylesheet
-            docIndexes = new HashMap<DocumentInfo, HashMap<Long, Object>>(10);
-        }
-        HashMap<Long, Object> docIndex = docIndexes.get(doc);
-        if (docIndex==null) return null;
-        return docIndex.get(Long.valueOf(((long)keyFingerprint)<<32 | itemType.getFingerprint()));
+    private synchronized HashMap<Object, List<NodeInfo>> getKeyIndex(DocumentInfo doc, int keyFingerprint,
+                                                                     AtomicType itemType) {
+        return getIndexStore().getIndex(doc, indexKey(keyFingerprint, itemType));
+    }
+
+    /**
+     * Mark the index associated with a particular key, a particular source document,
+     * and a particular primitive item type as being under construction, so that a circular
+     * key definition can be detected
+     * @param doc the document being indexed
+     * @param keyFingerprint the name of the key definition
+     * @param itemType the primitive item type of the values being indexed
+     */
+
+    private synchronized void markUnderConstruction(DocumentInfo doc, int keyFingerprint, AtomicType itemType) {
+        getIndexStore().markUnderConstruction(doc, indexKey(keyFingerprint, itemType));
+    }
+
+    /**
+     * Remove the marker showing that the index associated with a particular key, a particular source
+     * document, and a particular primitive item type is under construction, after building the index
+     * has failed
+     * @param doc the document being indexed
+     * @param keyFingerprint the name of the key definition
+     * @param itemType the primitive item type of the values being indexed
+     */
+
+    private synchronized void abandonIndex(DocumentInfo doc, int keyFingerprint, AtomicType itemType) {
+        getIndexStore().remove(doc, indexKey(keyFingerprint, itemType));
+    }
+
+    /**
+     * Ask whether the index associated with a particular key, a particular source document,
+     * and a particular primitive item type is under construction
+     * @param doc the document being indexed
+     * @param keyFingerprint the name of the key definition
+     * @param itemType the primitive item type of the values being indexed
+     * @return true if the index is under construction
+     */
+
+    private synchronized boolean isUnderConstruction(DocumentInfo doc, int keyFingerprint, AtomicType itemType) {
+        return getIndexStore().isUnderConstruction(doc, indexKey(keyFingerprint, itemType));
+    }
+
+    /**
+     * Get the key identifying an index within the index store for a document
+     */
+
+    private static long indexKey(int keyFingerprint, AtomicType itemType) {
+        return ((long)keyFingerprint)<<32 | itemType.getFingerprint();
     }
 
 
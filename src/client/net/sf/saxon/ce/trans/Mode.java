@@ -1,12 +1,15 @@
 package client.net.sf.saxon.ce.trans;
 
 import client.net.sf.saxon.ce.Configuration;
+import client.net.sf.saxon.ce.expr.AxisExpression;
+import client.net.sf.saxon.ce.expr.Expression;
 import client.net.sf.saxon.ce.expr.XPathContext;
 import client.net.sf.saxon.ce.expr.XPathContextMajor;
 import client.net.sf.saxon.ce.expr.instruct.Template;
 import client.net.sf.saxon.ce.expr.sort.GenericSorter;
 import client.net.sf.saxon.ce.expr.sort.Sortable;
 import client.net.sf.saxon.ce.lib.NamespaceConstant;
+import client.net.sf.saxon.ce.om.Axis;
 import client.net.sf.saxon.ce.om.NodeInfo;
 import client.net.sf.saxon.ce.om.StructuredQName;
 import client.net.sf.saxon.ce.pattern.*;
@@ -58,6 +61,7 @@ public class Mode  {
     private boolean isDefault;
     private boolean isStripper;
     private boolean hasRules = false;
+    private boolean hasDispatchConditions = false;
     private StructuredQName modeName;
     private int stackFrameSlotsNeeded = 0;
     private int recoveryPolicy = Configuration.RECOVER_WITH_WARNINGS; // since 9.2 fixed at compile time
@@ -399,6 +403,11 @@ public class Mode  {
             context = makeNewContext(context);
         }
 
+        // tests shared by several rules (such as the name of the parent element) are evaluated at most
+        // once for this node, and rules whose conditions fail are rejected without matching their patterns
+
+        NodeFacts facts = (hasDispatchConditions ? new NodeFacts(node) : null);
+
         // search the specific list for this node type / node name
 
         Rule unnamedNodeChain;
@@ -413,7 +422,7 @@ public class Mode  {
                 unnamedNodeChain = unnamedElementRuleChain;
                 Rule namedNodeChain = namedElementRuleChains.get(node.getFingerprint());
                 if (namedNodeChain != null) {
-                    bestRule = searchRuleChain(node, context, null, namedNodeChain);
+                    bestRule = searchRuleChain(node, context, null, namedNodeChain, facts);
                 }
                 break;
             }
@@ -421,7 +430,7 @@ public class Mode  {
                 unnamedNodeChain = unnamedAttributeRuleChain;
                 Rule namedNodeChain = namedAttributeRuleChains.get(node.getFingerprint());
                 if (namedNodeChain != null) {
-                    bestRule = searchRuleChain(node, context, null, namedNodeChain);
+                    bestRule = searchRuleChain(node, context, null, namedNodeChain, facts);
                 }
                 break;
             }
@@ -444,13 +453,13 @@ public class Mode  {
         // search the list for unnamed nodes of a particular kind
 
         if (unnamedNodeChain != null) {
-            bestRule = searchRuleChain(node, context, bestRule, unnamedNodeChain);
+            bestRule = searchRuleChain(node, context, bestRule, unnamedNodeChain, facts);
         }
 
         // Search the list for rules for nodes of unknown node kind
 
         if (genericNodeRuleChain != null) {
-            bestRule = searchRuleChain(node, context, bestRule, genericNodeRuleChain);
+            bestRule = searchRuleChain(node, context, bestRule, genericNodeRuleChain, facts);
         }
 
         return bestRule;
@@ -462,11 +471,13 @@ public class Mode  {
      * @param context XPath dynamic context
      * @param bestRule the best rule so far in terms of precedence and priority (may be null)
      * @param head the rule at the head of the chain to be searched
+     * @param facts the facts about the node used to test the dispatch conditions of rules, or null
      * @return the best match rule found in the chain, or the previous best rule, or null
      * @throws XPathException
      */
 
-    private Rule searchRuleChain(NodeInfo node, XPathContext context, Rule bestRule, Rule head) throws XPathException {
+    private Rule searchRuleChain(NodeInfo node, XPathContext context, Rule bestRule, Rule head, NodeFacts facts)
+            throws XPathException {
         while (head != null) {
             if (bestRule != null) {
                 int rank = head.compareRank(bestRule);
@@ -476,7 +487,7 @@ public class Mode  {
                     break;
                 } else if (rank == 0) {
                     // this rule has the same precedence and priority as the matching rule already found
-                    if (head.isAlwaysMatches() || head.getPattern().matches(node, context)) {
+                    if (ruleMatches(head, node, facts, context)) {
                         reportAmbiguity(node, bestRule, head, context);
                         // choose whichever one comes last (assuming the error wasn't fatal)
                         bestRule = (bestRule.getSequence() > head.getSequence() ? bestRule : head);
@@ -486,11 +497,11 @@ public class Mode  {
                     }
                 } else {
                     // this rule has higher rank than the matching rule already found
-                    if (head.isAlwaysMatches() || head.getPattern().matches(node, context)) {
+                    if (ruleMatches(head, node, facts, context)) {
                         bestRule = head;
                     }
                 }
-            } else if (head.isAlwaysMatches() || head.getPattern().matches(node, context)) {
+            } else if (ruleMatches(head, node, facts, context)) {
                 bestRule = head;
                 if (recoveryPolicy == Configuration.RECOVER_SILENTLY) {
                     break;   // choose the first match; rules within a chain are in order of rank
@@ -501,6 +512,39 @@ public class Mode  {
         return bestRule;
     }
 
+    /**
+     * Test whether a rule matches a node. The pattern is evaluated only if the rule is not known to match
+     * because of the chain it is on, and if the node satisfies the dispatch conditions of the rule.
+     * @param rule the rule to be tested
+     * @param node the node being matched
+     * @param facts the facts about the node used to test the dispatch conditions, or null if no rule
+     * in this mode has dispatch conditions
+     * @param context XPath dynamic context
+     * @return true if the pattern of the rule matches the node
+     * @throws XPathException
+     */
+
+    private boolean ruleMatches(Rule rule, NodeInfo node, NodeFacts facts, XPathContext context) throws XPathException {
+        if (rule.isAlwaysMatches()) {
+            return true;
+        }
+        if (facts != null) {
+            int parent = rule.getRequiredParent();
+            if (parent != -1 && parent != facts.getParentFingerprint()) {
+                return false;
+            }
+            int[] atts = rule.getRequiredAttributes();
+            if (atts != null) {
+                for (int i = 0; i < atts.length; i++) {
+                    if (!facts.hasAttribute(atts[i])) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return rule.getPattern().matches(node, context);
+    }
+
     /**
      * Get the rule corresponding to a given Node, by finding the best Pattern match.
      *
@@ -521,6 +565,8 @@ public class Mode  {
             context = makeNewContext(context);
         }
 
+        NodeFacts facts = (hasDispatchConditions ? new NodeFacts(node) : null);
+
         // search the specific list for this node type / node name
 
         Rule bestRule = null;
@@ -533,13 +579,13 @@ public class Mode  {
             case Type.ELEMENT: {
                 unnamedNodeChain = unnamedElementRuleChain;
                 Rule namedNodeChain = namedElementRuleChains.get(node.getFingerprint());
-                bestRule = searchRuleChain(node, context, null, namedNodeChain, filter);
+                bestRule = searchRuleChain(node, context, null, namedNodeChain, facts, filter);
                 break;
             }
             case Type.ATTRIBUTE: {
                 unnamedNodeChain = unnamedAttributeRuleChain;
                 Rule namedNodeChain = namedAttributeRuleChains.get(node.getFingerprint());
-                bestRule = searchRuleChain(node, context, null, namedNodeChain, filter);
+                bestRule = searchRuleChain(node, context, null, namedNodeChain, facts, filter);
                 break;
             }
             case Type.TEXT:
@@ -560,11 +606,11 @@ public class Mode  {
 
         // Search the list for unnamed nodes of a particular kind
 
-        bestRule = searchRuleChain(node, context, bestRule, unnamedNodeChain, filter);
+        bestRule = searchRuleChain(node, context, bestRule, unnamedNodeChain, facts, filter);
 
         // Search the list for rules for nodes of unknown node kind
 
-        return searchRuleChain(node, context, bestRule, genericNodeRuleChain, filter);
+        return searchRuleChain(node, context, bestRule, genericNodeRuleChain, facts, filter);
     }
 
     /**
@@ -573,12 +619,14 @@ public class Mode  {
      * @param context XPath dynamic context
      * @param bestRule the best rule so far in terms of precedence and priority (may be null)
      * @param head the rule at the head of the chain to be searched
+     * @param facts the facts about the node used to test the dispatch conditions of rules, or null
+     * @param filter the filter used to select which rules are candidates to be searched
      * @return the best match rule found in the chain, or the previous best rule, or null
      * @throws XPathException
      */
 
     private Rule searchRuleChain(NodeInfo node, XPathContext context,
-                                 Rule bestRule, Rule head, RuleFilter filter) throws XPathException {
+                                 Rule bestRule, Rule head, NodeFacts facts, RuleFilter filter) throws XPathException {
         while (head != null) {
             if (filter.testRule(head)) {
                 if (bestRule != null) {
@@ -589,7 +637,7 @@ public class Mode  {
                         break;
                     } else if (rank == 0) {
                         // this rule has the same precedence and priority as the matching rule already found
-                        if (head.isAlwaysMatches() || head.getPattern().matches(node, context)) {
+                        if (ruleMatches(head, node, facts, context)) {
                             reportAmbiguity(node, bestRule, head, context);
                             // choose whichever one comes last (assuming the error wasn't fatal)
                             bestRule = (bestRule.getSequence() > head.getSequence() ? bestRule : head);
@@ -599,11 +647,11 @@ public class Mode  {
                         }
                     } else {
                         // this rule has higher rank than the matching rule already found
-                        if (head.isAlwaysMatches() || head.getPattern().matches(node, context)) {
+                        if (ruleMatches(head, node, facts, context)) {
                             bestRule = head;
                         }
                     }
-                } else if (head.isAlwaysMatches() || head.getPattern().matches(node, context)) {
+                } else if (ruleMatches(head, node, facts, context)) {
                     bestRule = head;
                     if (recoveryPolicy == Configuration.RECOVER_SILENTLY) {
                         break;   // choose the first match; rules within a chain are in order of rank
@@ -761,6 +809,121 @@ public class Mode  {
         processRules(addToSorter);
         // now allocate ranks to all the modes
         sorter.allocateRanks();
+        // derive the conditions used to reject rules quickly during dispatch
+        hasDispatchConditions = false;
+        processRules(new RuleAction() {
+            public void processRule(Rule r) {
+                if (computeDispatchConditions(r)) {
+                    hasDispatchConditions = true;
+                }
+            }
+        });
+    }
+
+    /**
+     * Derive from the pattern of a rule the tests that can be shared with other rules: the name of the
+     * parent element (for a pattern such as <code>section/title</code>), and the names of attributes
+     * that must be present (for a pattern such as <code>title[@id]</code>). Each such test is a necessary
+     * condition for the pattern to match, so a rule whose conditions are not satisfied by a node can be
+     * rejected without evaluating its pattern.
+     * @param rule the rule whose conditions are to be computed
+     * @return true if any conditions were found
+     */
+
+    private static boolean computeDispatchConditions(Rule rule) {
+        rule.setRequiredParent(-1);
+        rule.setRequiredAttributes(null);
+        if (rule.isAlwaysMatches() || !(rule.getPattern() instanceof LocationPathPattern)) {
+            return false;
+        }
+        LocationPathPattern lpp = (LocationPathPattern)rule.getPattern();
+        if (lpp.getNodeKind() != Type.ELEMENT) {
+            return false;
+        }
+        Pattern upper = lpp.getUpperPattern();
+        if (upper != null && lpp.getUpwardsAxis() == Axis.PARENT) {
+            NodeTest test = upper.getNodeTest();
+            if (test instanceof NameTest && test.getPrimitiveType() == Type.ELEMENT) {
+                rule.setRequiredParent(test.getFingerprint());
+            }
+        }
+        Expression[] filters = lpp.getFilters();
+        int[] atts = new int[filters.length];
+        int count = 0;
+        for (int i = 0; i < filters.length; i++) {
+            if (filters[i] instanceof AxisExpression &&
+                    ((AxisExpression)filters[i]).getAxis() == Axis.ATTRIBUTE &&
+                    ((AxisExpression)filters[i]).getNodeTest() instanceof NameTest) {
+                atts[count++] = ((AxisExpression)filters[i]).getNodeTest().getFingerprint();
+            }
+        }
+        if (count > 0) {
+            int[] required = new int[count];
+            System.arraycopy(atts, 0, required, 0, count);
+            rule.setRequiredAttributes(required);
+        }
+        return rule.getRequiredParent() != -1 || count > 0;
+    }
+
+    /**
+     * Facts about the node being matched that are used to test the dispatch conditions of rules.
+     * Each fact is computed on first use, so it is evaluated at most once for the node, however many
+     * rules depend on it.
+     */
+
+    private static class NodeFacts {
+        private NodeInfo node;
+        private int parentFingerprint = -2;     // -2 means not yet known
+        private int[] attributes = null;
+        private boolean[] present = null;
+        private int attributeCount = 0;
+
+        public NodeFacts(NodeInfo node) {
+            this.node = node;
+        }
+
+        /**
+         * Get the fingerprint of the parent of the node
+         * @return the fingerprint of the parent element, or -1 if the parent is not an element
+         */
+
+        public int getParentFingerprint() {
+            if (parentFingerprint == -2) {
+                NodeInfo parent = node.getParent();
+                parentFingerprint = (parent == null || parent.getNodeKind() != Type.ELEMENT ? -1 : parent.getFingerprint());
+            }
+            return parentFingerprint;
+        }
+
+        /**
+         * Ask whether the node has a given attribute
+         * @param fingerprint the fingerprint of the attribute name
+         * @return true if the node has the attribute
+         */
+
+        public boolean hasAttribute(int fingerprint) {
+            for (int i = 0; i < attributeCount; i++) {
+                if (attributes[i] == fingerprint) {
+                    return present[i];
+                }
+            }
+            if (attributes == null) {
+                attributes = new int[4];
+                present = new boolean[4];
+            } else if (attributeCount == attributes.length) {
+                int[] a2 = new int[attributeCount * 2];
+                boolean[] p2 = new boolean[attributeCount * 2];
+                System.arraycopy(attributes, 0, a2, 0, attributeCount);
+                System.arraycopy(present, 0, p2, 0, attributeCount);
+                attributes = a2;
+                present = p2;
+            }
+            boolean found = node.getNodeKind() == Type.ELEMENT &&
+                    node.iterateAxis(Axis.ATTRIBUTE, new NameTest(Type.ATTRIBUTE, fingerprint, node.getNamePool())).next() != null;
+            attributes[attributeCount] = fingerprint;
+            present[attributeCount++] = found;
+            return found;
+        }
     }
 
     /**
@@ -22,6 +22,8 @@ public final class Rule  {
     private boolean ixslPreventDefault;
     private String ixslEventProperty;
     private boolean isVirtual = false;   // Set for rules on patterns representing browser client objects - not elements
+    private int requiredParent = -1;     // Fingerprint of the element that must be the parent of any matching node, or -1
+    private int[] requiredAttributes;    // Fingerprints of attributes that any matching element must have, or null
     /**
      * Create a Rule.
      *
@@ -58,6 +60,8 @@ public final class Rule  {
         priority = r.priority;
         sequence = r.sequence;
         ixslPreventDefault = r.ixslPreventDefault;
+        requiredParent = r.requiredParent;
+        requiredAttributes = r.requiredAttributes;
         if (r.next == null) {
             next = null;
         } else {
@@ -133,6 +137,45 @@ public final class Rule  {
     	return ixslEventProperty;
     }
 
+    /**
+     * Set the name of the element that must be the parent of any node matching this rule. This is a
+     * necessary (but not sufficient) condition derived from the pattern, which allows the rule to be
+     * rejected without evaluating the pattern.
+     * @param fingerprint the fingerprint of the required parent element, or -1 if there is no such condition
+     */
+
+    public void setRequiredParent(int fingerprint) {
+        requiredParent = fingerprint;
+    }
+
+    /**
+     * Get the name of the element that must be the parent of any node matching this rule
+     * @return the fingerprint of the required parent element, or -1 if there is no such condition
+     */
+
+    public int getRequiredParent() {
+        return requiredParent;
+    }
+
+    /**
+     * Set the names of attributes that must be present on any element matching this rule. This is a
+     * necessary (but not sufficient) condition derived from the predicates of the pattern.
+     * @param fingerprints the fingerprints of the required attributes, or null if there is no such condition
+     */
+
+    public void setRequiredAttributes(int[] fingerprints) {
+        requiredAttributes = fingerprints;
+    }
+
+    /**
+     * Get the names of attributes that must be present on any element matching this rule
+     * @return the fingerprints of the required attributes, or null if there is no such condition
+     */
+
+    public int[] getRequiredAttributes() {
+        return requiredAttributes;
+    }
+
 
 
     /**
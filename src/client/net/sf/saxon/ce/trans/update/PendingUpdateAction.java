@@ -25,6 +25,18 @@ public abstract class PendingUpdateAction {
 
     public abstract Node getTargetNode();
 
+    /**
+     * Ask whether the update action changes the structure of the tree, that is, whether it may add,
+     * remove, or move nodes other than attributes. An action that is not structural affects only the
+     * attributes (or properties) of its target node, and this information is used to decide whether
+     * derived data such as key indexes can be corrected incrementally or must be discarded.
+     * @return true if the action may change the structure of the tree (the default)
+     */
+
+    public boolean isStructural() {
+        return true;
+    }
+
 }
 
 // This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. 
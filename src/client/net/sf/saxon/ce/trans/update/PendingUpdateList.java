@@ -1,8 +1,13 @@
 package client.net.sf.saxon.ce.trans.update;
 
 import client.net.sf.saxon.ce.Configuration;
+import client.net.sf.saxon.ce.dom.HTMLDocumentWrapper;
 import client.net.sf.saxon.ce.expr.XPathContext;
+import client.net.sf.saxon.ce.om.DocumentInfo;
+import client.net.sf.saxon.ce.om.NodeInfo;
+import client.net.sf.saxon.ce.trans.KeyManager;
 import client.net.sf.saxon.ce.trans.XPathException;
+import com.google.gwt.dom.client.Node;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -16,6 +21,8 @@ public class PendingUpdateList {
 
     private List<PendingUpdateAction> list = new ArrayList<PendingUpdateAction>();
 
+    private Configuration config;
+
     private Logger logger = Logger.getLogger("PendingUpdateList");
 
     /**
@@ -23,7 +30,7 @@ public class PendingUpdateList {
      */
 
     public PendingUpdateList(Configuration config){
-        //this.config = config;
+        this.config = config;
     }
 
     /**
@@ -43,45 +50,109 @@ public class PendingUpdateList {
 
     public synchronized void apply(XPathContext context) throws XPathException {
     	String state = "";
+        KeyManager keyManager = context.getController().getExecutable().getKeyManager();
     	try {
-    	state = "delete";
-        for (int i=0; i<list.size(); i++) {
-            PendingUpdateAction action = list.get(i);
-            if (action instanceof DeleteAction) {
-                action.apply(context);
+    	state = "index";
+        List<NodeInfo> reindex = unindexTargets(keyManager, context);
+        try {
+            state = "delete";
+            for (int i=0; i<list.size(); i++) {
+                PendingUpdateAction action = list.get(i);
+                if (action instanceof DeleteAction) {
+                    action.apply(context);
+                }
             }
-        }
-        state = "insert";
-        for (int i=0; i<list.size(); i++) {
-            PendingUpdateAction action = list.get(i);
-            if (action instanceof InsertAction) {
-                action.apply(context);
+            state = "insert";
+            for (int i=0; i<list.size(); i++) {
+                PendingUpdateAction action = list.get(i);
+                if (action instanceof InsertAction) {
+                    action.apply(context);
+                }
             }
-        }
-        state = "set-attribute";
-        for (int i=0; i<list.size(); i++) {
-            PendingUpdateAction action = list.get(i);
-            if (action instanceof SetAttributeAction) {
-                action.apply(context);
+            state = "set-attribute";
+            for (int i=0; i<list.size(); i++) {
+                PendingUpdateAction action = list.get(i);
+                if (action instanceof SetAttributeAction) {
+                    action.apply(context);
+                }
             }
-        }
-        state = "remove-attribute";
-        for (int i=0; i<list.size(); i++) {
-            PendingUpdateAction action = list.get(i);
-            if (action instanceof RemoveAttributeAction) {
-                action.apply(context);
+            state = "remove-attribute";
+            for (int i=0; i<list.size(); i++) {
+                PendingUpdateAction action = list.get(i);
+                if (action instanceof RemoveAttributeAction) {
+                    action.apply(context);
+                }
             }
+        } finally {
+            // the updates may have changed the typed values and the document order of nodes,
+            // so the caches must be cleared before the nodes are reindexed
+            clearCaches();
+        }
+        state = "reindex";
+        for (int i=0; i<reindex.size(); i++) {
+            keyManager.reindexNode(reindex.get(i), context);
         }
         // empty list in case of further scheduled actions
         list = new ArrayList<PendingUpdateAction>();
     	} catch(Exception e) {
     		logger.severe("Error on DOM write action: " + state + " " + e.getMessage());
+            // the key indexes for the page may be only partly updated
+            keyManager.clearPageIndexes();
     		throw new XPathException(e);
     	}
 
 
     }
 
+    /**
+     * Prepare the key indexes held for the HTML page for the updates on the list. If any action is
+     * structural, the indexes for the page are discarded, since the wrappers held in the indexes record
+     * the positions of nodes among their siblings, which may change. Otherwise, the target of each action
+     * is removed from the indexes (or, where the key definitions do not allow this, the indexes are
+     * discarded) so that it can be re-entered under its new key values once the updates have been applied.
+     * @param keyManager the key manager holding the indexes
+     * @param context the XPath dynamic evaluation context
+     * @return the nodes to be re-entered in the indexes after the updates have been applied
+     */
+
+    private List<NodeInfo> unindexTargets(KeyManager keyManager, XPathContext context) throws XPathException {
+        List<NodeInfo> reindex = new ArrayList<NodeInfo>();
+        List<DocumentInfo> docs = keyManager.getIndexStore().getDocuments();
+        if (docs.isEmpty()) {
+            return reindex;
+        }
+        for (int i=0; i<list.size(); i++) {
+            if (list.get(i).isStructural()) {
+                keyManager.clearPageIndexes();
+                return reindex;
+            }
+        }
+        for (int i=0; i<list.size(); i++) {
+            Node target = list.get(i).getTargetNode();
+            for (int d=0; d<docs.size(); d++) {
+                DocumentInfo doc = docs.get(d);
+                if (doc instanceof HTMLDocumentWrapper &&
+                        ((HTMLDocumentWrapper)doc).getUnderlyingNode() == target.getOwnerDocument()) {
+                    NodeInfo node = ((HTMLDocumentWrapper)doc).wrap(target);
+                    if (keyManager.unindexNode(node, context)) {
+                        reindex.add(node);
+                    }
+                }
+            }
+        }
+        return reindex;
+    }
+
+    /**
+     * Clear data cached for DOM nodes that may have been invalidated by the updates
+     */
+
+    private void clearCaches() {
+        // cached typed values of DOM nodes may no longer be correct, and nodes may have been
+        // deleted or moved, so the document order numbering is out of date
+        config.invalidateDOMCaches();
+    }
+
 
 }
 
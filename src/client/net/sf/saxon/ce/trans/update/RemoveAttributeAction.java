@@ -50,6 +50,15 @@ public class RemoveAttributeAction extends PendingUpdateAction {
         return targetNode;
     }
 
+    /**
+     * Ask whether the update action changes the structure of the tree
+     * @return false: this action changes only the attributes of the target element
+     */
+
+    public boolean isStructural() {
+        return false;
+    }
+
 }
 
 // This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0. 
@@ -8,6 +8,7 @@ import client.net.sf.saxon.ce.trans.XPathException;
 import client.net.sf.saxon.ce.tree.iter.AxisIterator;
 import client.net.sf.saxon.ce.tree.iter.NodeListIterator;
 import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
+import client.net.sf.saxon.ce.tree.util.TypedValueCache;
 import client.net.sf.saxon.ce.type.Type;
 import client.net.sf.saxon.ce.value.Whitespace;
 
@@ -38,6 +39,7 @@ public final class DocumentImpl extends ParentNodeImpl implements DocumentInfo {
     private LineNumberMap lineNumberMap;
     private SystemIdMap systemIdMap = new SystemIdMap();
     private boolean imaginary;
+    private TypedValueCache typedValueCache;
 
     /**
      * Create a DocumentImpl
@@ -55,6 +57,7 @@ public final class DocumentImpl extends ParentNodeImpl implements DocumentInfo {
 	public void setConfiguration(Configuration config) {
 		this.config = config;
 		documentNumber = config.getDocumentNumberAllocator().allocateDocumentNumber();
+		typedValueCache = (config.isUseTypedValueCache() ? new TypedValueCache() : null);
 	}
 
     /**
@@ -324,6 +327,18 @@ public final class DocumentImpl extends ParentNodeImpl implements DocumentInfo {
         return this;
     }
 
+    /**
+     * Get the cache of typed values of the element and document nodes in this tree. The cache is
+     * created when the configuration is set, if typed value caching is enabled in the configuration
+     * at that time; since a linked tree is not modified once it has been built, entries never need to
+     * be invalidated.
+     * @return the typed value cache, or null if typed values are not being cached for this tree
+     */
+
+    TypedValueCache getTypedValueCache() {
+        return typedValueCache;
+    }
+
     /**
      * Get a character string that uniquely identifies this node
      *  @param buffer a buffer into which will be placed a string based on the document number
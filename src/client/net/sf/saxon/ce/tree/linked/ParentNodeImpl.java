@@ -9,6 +9,9 @@ import client.net.sf.saxon.ce.pattern.NodeTest;
 import client.net.sf.saxon.ce.type.Type;
 import client.net.sf.saxon.ce.tree.util.Navigator;
 import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
+import client.net.sf.saxon.ce.tree.util.TypedValueCache;
+import client.net.sf.saxon.ce.value.AtomicValue;
+import client.net.sf.saxon.ce.value.UntypedAtomicValue;
 
 /**
   * ParentNodeImpl is an implementation of a non-leaf node (specifically, an Element node
@@ -159,6 +162,53 @@ abstract class ParentNodeImpl extends NodeImpl {
 
 
     public CharSequence getStringValueCS() {
+        TypedValueCache cache = findTypedValueCache();
+        if (cache != null) {
+            return getCachedTypedValue(cache).getStringValueCS();
+        }
+        return computeStringValue();
+    }
+
+    /**
+     * Get the typed value of this node. If typed value caching is enabled, the value is computed
+     * only on the first call, and subsequent calls return the same value.
+     * @return the typed value of the node, as an untypedAtomic value
+     */
+
+    public AtomicValue getTypedValue() {
+        TypedValueCache cache = findTypedValueCache();
+        if (cache != null) {
+            return getCachedTypedValue(cache);
+        }
+        return new UntypedAtomicValue(computeStringValue());
+    }
+
+    /**
+     * Get the typed value cache for the tree containing this node, which is held by its physical root
+     * @return the cache, or null if typed values are not being cached (including the case of a
+     * node that has been detached from its tree)
+     */
+
+    private TypedValueCache findTypedValueCache() {
+        DocumentImpl root = getPhysicalRoot();
+        return (root == null ? null : root.getTypedValueCache());
+    }
+
+    private AtomicValue getCachedTypedValue(TypedValueCache cache) {
+        AtomicValue val = cache.get(this);
+        if (val == null) {
+            val = new UntypedAtomicValue(computeStringValue());
+            cache.put(this, val);
+        }
+        return val;
+    }
+
+    /**
+     * Compute the string value of the node by concatenating the descendant text nodes
+     * @return the string value
+     */
+
+    private CharSequence computeStringValue() {
         FastStringBuffer sb = null;
 
         NodeImpl next = (NodeImpl)getFirstChild();
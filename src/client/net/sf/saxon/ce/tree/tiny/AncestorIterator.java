@@ -0,0 +1,58 @@
+package client.net.sf.saxon.ce.tree.tiny;
+
+import client.net.sf.saxon.ce.om.Item;
+import client.net.sf.saxon.ce.om.SequenceIterator;
+import client.net.sf.saxon.ce.pattern.NodeTest;
+import client.net.sf.saxon.ce.tree.iter.AxisIteratorImpl;
+
+/**
+ * This class supports the ancestor:: and ancestor-or-self:: axes in a TinyTree, by following
+ * the chain of parent pointers.
+ */
+
+final class AncestorIterator extends AxisIteratorImpl {
+
+    private TinyTree tree;
+    private int first;
+    private NodeTest test;
+    private int nextNodeNr;
+
+    /**
+     * Create an iterator over a chain of ancestors
+     * @param tree the containing tree
+     * @param first the node number of the first node to be considered: the parent of the origin node
+     * for the ancestor axis, or the origin node itself for ancestor-or-self. May be -1, in which case the
+     * iteration is empty.
+     * @param test the node test to be satisfied by the returned nodes
+     */
+
+    public AncestorIterator(TinyTree tree, int first, NodeTest test) {
+        this.tree = tree;
+        this.first = first;
+        this.test = test;
+        nextNodeNr = first;
+    }
+
+    public Item next() {
+        while (nextNodeNr >= 0) {
+            int nr = nextNodeNr;
+            nextNodeNr = tree.parent[nr];
+            if (tree.matches(nr, test)) {
+                position++;
+                return current = tree.getNode(nr);
+            }
+        }
+        current = null;
+        position = -1;
+        return null;
+    }
+
+    public SequenceIterator getAnother() {
+        return new AncestorIterator(tree, first, test);
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -0,0 +1,56 @@
+package client.net.sf.saxon.ce.tree.tiny;
+
+import client.net.sf.saxon.ce.om.Item;
+import client.net.sf.saxon.ce.om.SequenceIterator;
+import client.net.sf.saxon.ce.pattern.NodeTest;
+import client.net.sf.saxon.ce.tree.iter.AxisIteratorImpl;
+
+/**
+ * This class supports the attribute:: axis in a TinyTree. The attributes of an element occupy
+ * consecutive positions in the attribute arrays.
+ */
+
+final class AttributeIterator extends AxisIteratorImpl {
+
+    private TinyTree tree;
+    private int element;
+    private NodeTest test;
+    private int nextAttNr;
+
+    /**
+     * Create an iterator over the attributes of an element
+     * @param tree the containing tree
+     * @param element the node number of the element, which must have at least one attribute
+     * @param test the node test to be satisfied by the returned nodes
+     */
+
+    public AttributeIterator(TinyTree tree, int element, NodeTest test) {
+        this.tree = tree;
+        this.element = element;
+        this.test = test;
+        nextAttNr = tree.alpha[element];
+    }
+
+    public Item next() {
+        while (nextAttNr < tree.numberOfAttributes && tree.attParent[nextAttNr] == element) {
+            int nr = nextAttNr++;
+            if (tree.matchesAttribute(nr, test)) {
+                position++;
+                return current = tree.getAttributeNode(nr);
+            }
+        }
+        nextAttNr = tree.numberOfAttributes;
+        current = null;
+        position = -1;
+        return null;
+    }
+
+    public SequenceIterator getAnother() {
+        return new AttributeIterator(tree, element, test);
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -0,0 +1,64 @@
+package client.net.sf.saxon.ce.tree.tiny;
+
+import client.net.sf.saxon.ce.om.Item;
+import client.net.sf.saxon.ce.om.SequenceIterator;
+import client.net.sf.saxon.ce.pattern.NodeTest;
+import client.net.sf.saxon.ce.tree.iter.AxisIteratorImpl;
+
+/**
+ * This class supports the descendant:: and descendant-or-self:: axes in a TinyTree. Because nodes
+ * are held in document order, the descendants of a node are the consecutive nodes that follow it
+ * in the node arrays and have a greater depth, so the iterator is a simple linear scan.
+ */
+
+final class DescendantIterator extends AxisIteratorImpl {
+
+    private TinyTree tree;
+    private int start;
+    private NodeTest test;
+    private boolean includeSelf;
+    private int startDepth;
+    private int nextNodeNr;
+
+    /**
+     * Create an iterator over the descendants of a node
+     * @param tree the containing tree
+     * @param start the node number of the node whose descendants are required
+     * @param test the node test to be satisfied by the returned nodes
+     * @param includeSelf true if the start node itself is to be included (descendant-or-self)
+     */
+
+    public DescendantIterator(TinyTree tree, int start, NodeTest test, boolean includeSelf) {
+        this.tree = tree;
+        this.start = start;
+        this.test = test;
+        this.includeSelf = includeSelf;
+        startDepth = tree.depth[start];
+        nextNodeNr = (includeSelf ? start : start + 1);
+    }
+
+    public Item next() {
+        short[] depth = tree.depth;
+        int n = tree.numberOfNodes;
+        while (nextNodeNr < n && (nextNodeNr == start || depth[nextNodeNr] > startDepth)) {
+            int nr = nextNodeNr++;
+            if (tree.matches(nr, test)) {
+                position++;
+                return current = tree.getNode(nr);
+            }
+        }
+        nextNodeNr = n;
+        current = null;
+        position = -1;
+        return null;
+    }
+
+    public SequenceIterator getAnother() {
+        return new DescendantIterator(tree, start, test, includeSelf);
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -0,0 +1,58 @@
+package client.net.sf.saxon.ce.tree.tiny;
+
+import client.net.sf.saxon.ce.om.Item;
+import client.net.sf.saxon.ce.om.SequenceIterator;
+import client.net.sf.saxon.ce.pattern.NodeTest;
+import client.net.sf.saxon.ce.tree.iter.AxisIteratorImpl;
+
+/**
+ * This class supports the following:: axis in a TinyTree. The following nodes of a node are
+ * all the nodes in the node arrays after the end of its subtree, so the iterator is a linear scan
+ * from that point to the end of the tree.
+ */
+
+final class FollowingIterator extends AxisIteratorImpl {
+
+    private TinyTree tree;
+    private int first;
+    private NodeTest test;
+    private int nextNodeNr;
+
+    /**
+     * Create an iterator over the following axis
+     * @param tree the containing tree
+     * @param first the node number of the first following node: that is, the first node after the
+     * subtree rooted at the origin node
+     * @param test the node test to be satisfied by the returned nodes
+     */
+
+    public FollowingIterator(TinyTree tree, int first, NodeTest test) {
+        this.tree = tree;
+        this.first = first;
+        this.test = test;
+        nextNodeNr = first;
+    }
+
+    public Item next() {
+        int n = tree.numberOfNodes;
+        while (nextNodeNr < n) {
+            int nr = nextNodeNr++;
+            if (tree.matches(nr, test)) {
+                position++;
+                return current = tree.getNode(nr);
+            }
+        }
+        current = null;
+        position = -1;
+        return null;
+    }
+
+    public SequenceIterator getAnother() {
+        return new FollowingIterator(tree, first, test);
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -0,0 +1,67 @@
+package client.net.sf.saxon.ce.tree.tiny;
+
+import client.net.sf.saxon.ce.om.Item;
+import client.net.sf.saxon.ce.om.SequenceIterator;
+import client.net.sf.saxon.ce.pattern.NodeTest;
+import client.net.sf.saxon.ce.tree.iter.AxisIteratorImpl;
+
+/**
+ * This class supports the preceding:: axis in a TinyTree, and also the internal
+ * preceding-or-ancestor axis used by xsl:number. It scans the node arrays backwards from the
+ * origin node, skipping (or, for preceding-or-ancestor, including) the ancestors of the origin.
+ */
+
+final class PrecedingIterator extends AxisIteratorImpl {
+
+    private TinyTree tree;
+    private int start;
+    private NodeTest test;
+    private boolean includeAncestors;
+    private int nextNodeNr;
+    private int nextAncestor;
+
+    /**
+     * Create an iterator over the preceding nodes of a node, in reverse document order
+     * @param tree the containing tree
+     * @param start the node number of the origin node
+     * @param test the node test to be satisfied by the returned nodes
+     * @param includeAncestors true if ancestors of the origin node are to be included
+     */
+
+    public PrecedingIterator(TinyTree tree, int start, NodeTest test, boolean includeAncestors) {
+        this.tree = tree;
+        this.start = start;
+        this.test = test;
+        this.includeAncestors = includeAncestors;
+        nextNodeNr = start - 1;
+        nextAncestor = tree.parent[start];
+    }
+
+    public Item next() {
+        while (nextNodeNr >= 0) {
+            int nr = nextNodeNr--;
+            if (nr == nextAncestor) {
+                nextAncestor = tree.parent[nr];
+                if (!includeAncestors) {
+                    continue;
+                }
+            }
+            if (tree.matches(nr, test)) {
+                position++;
+                return current = tree.getNode(nr);
+            }
+        }
+        current = null;
+        position = -1;
+        return null;
+    }
+
+    public SequenceIterator getAnother() {
+        return new PrecedingIterator(tree, start, test, includeAncestors);
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -0,0 +1,57 @@
+package client.net.sf.saxon.ce.tree.tiny;
+
+import client.net.sf.saxon.ce.om.Item;
+import client.net.sf.saxon.ce.om.SequenceIterator;
+import client.net.sf.saxon.ce.pattern.NodeTest;
+import client.net.sf.saxon.ce.tree.iter.AxisIteratorImpl;
+
+/**
+ * This class supports the preceding-sibling:: axis in a TinyTree. The previous sibling of a node
+ * is found by scanning backwards over the subtree of that sibling, which is cheap because the
+ * node arrays hold the depth of each node.
+ */
+
+final class PrecedingSiblingIterator extends AxisIteratorImpl {
+
+    private TinyTree tree;
+    private int start;
+    private NodeTest test;
+    private int nextNodeNr;
+
+    /**
+     * Create an iterator over the preceding siblings of a node, in reverse document order
+     * @param tree the containing tree
+     * @param start the node number of the node whose preceding siblings are required
+     * @param test the node test to be satisfied by the returned nodes
+     */
+
+    public PrecedingSiblingIterator(TinyTree tree, int start, NodeTest test) {
+        this.tree = tree;
+        this.start = start;
+        this.test = test;
+        nextNodeNr = tree.getPreviousSibling(start);
+    }
+
+    public Item next() {
+        while (nextNodeNr >= 0) {
+            int nr = nextNodeNr;
+            nextNodeNr = tree.getPreviousSibling(nr);
+            if (tree.matches(nr, test)) {
+                position++;
+                return current = tree.getNode(nr);
+            }
+        }
+        current = null;
+        position = -1;
+        return null;
+    }
+
+    public SequenceIterator getAnother() {
+        return new PrecedingSiblingIterator(tree, start, test);
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
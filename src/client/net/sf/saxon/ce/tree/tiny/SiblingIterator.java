@@ -0,0 +1,56 @@
+package client.net.sf.saxon.ce.tree.tiny;
+
+import client.net.sf.saxon.ce.om.Item;
+import client.net.sf.saxon.ce.om.SequenceIterator;
+import client.net.sf.saxon.ce.pattern.NodeTest;
+import client.net.sf.saxon.ce.tree.iter.AxisIteratorImpl;
+
+/**
+ * This class supports both the child:: and following-sibling:: axes in a TinyTree. It starts
+ * at a given node and follows the chain of next-sibling pointers.
+ */
+
+final class SiblingIterator extends AxisIteratorImpl {
+
+    private TinyTree tree;
+    private int first;
+    private NodeTest test;
+    private int nextNodeNr;
+
+    /**
+     * Create an iterator over a chain of siblings
+     * @param tree the containing tree
+     * @param first the node number of the first sibling to be considered
+     * @param test the node test to be satisfied by the returned nodes
+     */
+
+    public SiblingIterator(TinyTree tree, int first, NodeTest test) {
+        this.tree = tree;
+        this.first = first;
+        this.test = test;
+        nextNodeNr = first;
+    }
+
+    public Item next() {
+        while (nextNodeNr >= 0) {
+            int nr = nextNodeNr;
+            nextNodeNr = tree.next[nr];
+            if (tree.matches(nr, test)) {
+                position++;
+                return current = tree.getNode(nr);
+            }
+        }
+        current = null;
+        position = -1;
+        return null;
+    }
+
+    public SequenceIterator getAnother() {
+        return new SiblingIterator(tree, first, test);
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -0,0 +1,148 @@
+package client.net.sf.saxon.ce.tree.tiny;
+
+import client.net.sf.saxon.ce.event.Receiver;
+import client.net.sf.saxon.ce.om.Axis;
+import client.net.sf.saxon.ce.om.NodeInfo;
+import client.net.sf.saxon.ce.om.StandardNames;
+import client.net.sf.saxon.ce.pattern.NodeTest;
+import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.tree.iter.AxisIterator;
+import client.net.sf.saxon.ce.tree.iter.EmptyIterator;
+import client.net.sf.saxon.ce.tree.iter.PrependIterator;
+import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
+import client.net.sf.saxon.ce.tree.util.Navigator;
+import client.net.sf.saxon.ce.type.Type;
+
+/**
+ * An attribute node in a TinyTree. The node number of an attribute is its position in the
+ * attribute arrays of the tree, not in the node arrays.
+ */
+
+final class TinyAttributeImpl extends TinyNodeImpl {
+
+    public TinyAttributeImpl(TinyTree tree, int nodeNr) {
+        super(tree, nodeNr);
+    }
+
+    public int getNodeKind() {
+        return Type.ATTRIBUTE;
+    }
+
+    public boolean isSameNodeInfo(NodeInfo other) {
+        return this == other ||
+                (other instanceof TinyAttributeImpl &&
+                        tree == ((TinyAttributeImpl)other).tree && nodeNr == ((TinyAttributeImpl)other).nodeNr);
+    }
+
+    public int hashCode() {
+        return ((tree.getDocumentNumber() << 20) ^ nodeNr) ^ (1 << 31);
+    }
+
+    int getOwnerNodeNumber() {
+        return tree.attParent[nodeNr];
+    }
+
+    int getAttributeOffset() {
+        return nodeNr + 1;
+    }
+
+    public NodeInfo getParent() {
+        return tree.getNode(tree.attParent[nodeNr]);
+    }
+
+    public String getBaseURI() {
+        return getParent().getBaseURI();
+    }
+
+    public int getNameCode() {
+        return tree.attCode[nodeNr];
+    }
+
+    public int getTypeAnnotation() {
+        return StandardNames.XS_UNTYPED_ATOMIC;
+    }
+
+    public CharSequence getStringValueCS() {
+        return tree.attValue[nodeNr];
+    }
+
+    public String getStringValue() {
+        return tree.attValue[nodeNr];
+    }
+
+    public boolean hasChildNodes() {
+        return false;
+    }
+
+    public NodeInfo getRoot() {
+        return getParent().getRoot();
+    }
+
+    /**
+     * Return an enumeration over the nodes reached by the given axis from this node
+     * @param axisNumber The axis to be iterated over
+     * @param nodeTest   A pattern to be matched by the returned nodes
+     * @return an AxisIterator that scans the nodes reached by the axis in turn.
+     */
+
+    public AxisIterator iterateAxis(byte axisNumber, NodeTest nodeTest) {
+        int owner = tree.attParent[nodeNr];
+        switch (axisNumber) {
+            case Axis.ANCESTOR:
+                return new AncestorIterator(tree, owner, nodeTest);
+
+            case Axis.ANCESTOR_OR_SELF:
+                if (nodeTest.matches(this)) {
+                    return new PrependIterator(this, new AncestorIterator(tree, owner, nodeTest));
+                }
+                return new AncestorIterator(tree, owner, nodeTest);
+
+            case Axis.FOLLOWING:
+                return new FollowingIterator(tree, owner + 1, nodeTest);
+
+            case Axis.PARENT:
+                return Navigator.filteredSingleton(getParent(), nodeTest);
+
+            case Axis.PRECEDING:
+                return new PrecedingIterator(tree, owner, nodeTest, false);
+
+            case Axis.PRECEDING_OR_ANCESTOR:
+                AxisIterator preceding = new PrecedingIterator(tree, owner, nodeTest, true);
+                if (tree.matches(owner, nodeTest)) {
+                    return new PrependIterator(getParent(), preceding);
+                }
+                return preceding;
+
+            case Axis.SELF:
+            case Axis.DESCENDANT_OR_SELF:
+                return Navigator.filteredSingleton(this, nodeTest);
+
+            default:
+                return EmptyIterator.getInstance();
+        }
+    }
+
+    /**
+     * Get a character string that uniquely identifies this node
+     * @param buffer a buffer to contain the generated ID
+     */
+
+    public void generateId(FastStringBuffer buffer) {
+        getParent().generateId(buffer);
+        buffer.append('a');
+        buffer.append(Integer.toString(nodeNr));
+    }
+
+    /**
+     * Copy this node to a given outputter
+     */
+
+    public void copy(Receiver out, int copyOptions) throws XPathException {
+        out.attribute(getNameCode(), getStringValue());
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -0,0 +1,191 @@
+package client.net.sf.saxon.ce.tree.tiny;
+
+import client.net.sf.saxon.ce.event.Builder;
+import client.net.sf.saxon.ce.om.NamespaceBinding;
+import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.type.Type;
+
+/**
+ * The TinyBuilder class is responsible for taking a stream of Receiver events and constructing
+ * a Document tree using the TinyTree implementation.
+ */
+
+public class TinyBuilder extends Builder {
+
+    private TinyTree tree;
+    private int currentDepth = 0;
+    private int currentElement = -1;
+    private int[] prevAtDepth = new int[100];   // last node added at each depth, or -1
+    private int[] parentAtDepth = new int[100]; // the open document or element node at each depth
+    private boolean contentStarted = false;     // provides a minimal check on correct sequence of calls
+
+    /**
+     * Create a TinyBuilder
+     */
+
+    public TinyBuilder() {
+    }
+
+    /**
+     * Get the tree being built by this builder
+     * @return the TinyTree, or null if no events have yet been received
+     */
+
+    public TinyTree getTree() {
+        return tree;
+    }
+
+    public void open() {
+        started = true;
+        super.open();
+    }
+
+    private void ensureTree() {
+        if (tree == null) {
+            tree = new TinyTree(config);
+            tree.setSystemId(getSystemId());
+            tree.setBaseURI(getBaseURI());
+            currentDepth = 0;
+            prevAtDepth[0] = -1;
+        }
+    }
+
+    /**
+     * Add a node at the current depth, linking it to its preceding sibling
+     */
+
+    private int addNode(int kind, int alpha, int beta, int nameCode) {
+        int parent = (currentDepth == 0 ? -1 : parentAtDepth[currentDepth - 1]);
+        int nr = tree.addNode(kind, currentDepth, alpha, beta, nameCode, parent);
+        if (currentDepth > 0) {
+            int prev = prevAtDepth[currentDepth];
+            if (prev >= 0) {
+                tree.next[prev] = nr;
+            }
+            prevAtDepth[currentDepth] = nr;
+        }
+        if (currentRoot == null) {
+            currentRoot = tree.getNode(nr);
+        }
+        return nr;
+    }
+
+    /**
+     * Increase the depth, after adding a document or element node
+     */
+
+    private void descend(int nr) {
+        if (currentDepth >= prevAtDepth.length - 1) {
+            int[] p2 = new int[prevAtDepth.length * 2];
+            int[] q2 = new int[prevAtDepth.length * 2];
+            System.arraycopy(prevAtDepth, 0, p2, 0, prevAtDepth.length);
+            System.arraycopy(parentAtDepth, 0, q2, 0, parentAtDepth.length);
+            prevAtDepth = p2;
+            parentAtDepth = q2;
+        }
+        parentAtDepth[currentDepth] = nr;
+        currentDepth++;
+        prevAtDepth[currentDepth] = -1;
+    }
+
+    public void startDocument() throws XPathException {
+        ensureTree();
+        int nr = addNode(Type.DOCUMENT, -1, -1, -1);
+        descend(nr);
+        contentStarted = true;
+    }
+
+    public void endDocument() throws XPathException {
+        currentDepth--;
+    }
+
+    public void startElement(int nameCode, int properties) throws XPathException {
+        ensureTree();
+        int nr = addNode(Type.ELEMENT, -1, -1, nameCode);
+        currentElement = nr;
+        descend(nr);
+        contentStarted = false;
+    }
+
+    public void namespace(NamespaceBinding nsBinding, int properties) {
+        if (contentStarted) {
+            throw new IllegalStateException("namespace() called after startContent()");
+        }
+        tree.addNamespace(currentElement, nsBinding);
+    }
+
+    public void attribute(int nameCode, CharSequence value) throws XPathException {
+        if (contentStarted) {
+            throw new IllegalStateException("attribute() called after startContent()");
+        }
+        tree.addAttribute(currentElement, nameCode, value.toString());
+    }
+
+    public void startContent() throws XPathException {
+        if (contentStarted) {
+            throw new IllegalStateException("startContent() called more than once");
+        }
+        contentStarted = true;
+    }
+
+    public void endElement() throws XPathException {
+        if (!contentStarted) {
+            throw new IllegalStateException("missing call on startContent()");
+        }
+        currentDepth--;
+    }
+
+    /**
+     * Notify a text node. Adjacent text nodes are merged
+     */
+
+    public void characters(CharSequence chars) throws XPathException {
+        if (chars.length() == 0) {
+            return;
+        }
+        ensureTree();
+        int prev = (currentDepth == 0 ? -1 : prevAtDepth[currentDepth]);
+        if (prev >= 0 && prev == tree.numberOfNodes - 1 && tree.nodeKind[prev] == Type.TEXT) {
+            // concatenate adjacent text nodes: the text of the previous node is at the end of the buffer
+            tree.charBuffer.append(chars);
+            tree.beta[prev] += chars.length();
+        } else {
+            int offset = tree.charBuffer.length();
+            tree.charBuffer.append(chars);
+            addNode(Type.TEXT, offset, chars.length(), -1);
+        }
+    }
+
+    public void processingInstruction(String name, CharSequence remainder) {
+        ensureTree();
+        int nameCode = namePool.allocate("", "", name);
+        int offset = tree.appendComment(remainder);
+        addNode(Type.PROCESSING_INSTRUCTION, offset, remainder.length(), nameCode);
+    }
+
+    public void comment(CharSequence chars) throws XPathException {
+        ensureTree();
+        int offset = tree.appendComment(chars);
+        addNode(Type.COMMENT, offset, chars.length(), -1);
+    }
+
+    public void close() throws XPathException {
+        if (tree != null) {
+            tree.condense();
+        }
+        super.close();
+    }
+
+    public void reset() {
+        super.reset();
+        tree = null;
+        currentDepth = 0;
+        currentElement = -1;
+        contentStarted = false;
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
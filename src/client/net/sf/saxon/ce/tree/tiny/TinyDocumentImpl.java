@@ -0,0 +1,145 @@
+package client.net.sf.saxon.ce.tree.tiny;
+
+import client.net.sf.saxon.ce.event.Receiver;
+import client.net.sf.saxon.ce.om.DocumentInfo;
+import client.net.sf.saxon.ce.om.NameChecker;
+import client.net.sf.saxon.ce.om.NamePool;
+import client.net.sf.saxon.ce.om.NodeInfo;
+import client.net.sf.saxon.ce.om.StandardNames;
+import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
+import client.net.sf.saxon.ce.value.Whitespace;
+
+import java.util.HashMap;
+
+/**
+ * The document node of a TinyTree. Unlike other nodes in the tree, there is a single persistent
+ * object representing the document node, because it holds the ID index and the user data.
+ */
+
+public final class TinyDocumentImpl extends TinyNodeImpl implements DocumentInfo {
+
+    private HashMap<String, NodeInfo> idTable;
+    private HashMap<String, Object> userData;
+
+    public TinyDocumentImpl(TinyTree tree) {
+        super(tree, 0);
+    }
+
+    public String getBaseURI() {
+        return tree.getBaseURI();
+    }
+
+    public int getLineNumber() {
+        return 0;
+    }
+
+    public NodeInfo getParent() {
+        return null;
+    }
+
+    public NodeInfo getRoot() {
+        return this;
+    }
+
+    public DocumentInfo getDocumentRoot() {
+        return this;
+    }
+
+    /**
+     * Get a character string that uniquely identifies this node
+     * @param buffer a buffer into which will be placed a string based on the document number
+     */
+
+    public void generateId(FastStringBuffer buffer) {
+        buffer.append('d');
+        buffer.append(Integer.toString(tree.getDocumentNumber()));
+    }
+
+    /**
+     * Get the element with a given ID.
+     * @param id The unique ID of the required element
+     * @return The NodeInfo for the given ID if one has been registered, otherwise null.
+     */
+
+    public NodeInfo selectID(String id) {
+        if (idTable == null) {
+            indexIDs();
+        }
+        return idTable.get(id);
+    }
+
+    /**
+     * Index all the xml:id attributes. This is done the first time the id() function
+     * is used on this document
+     */
+
+    private void indexIDs() {
+        idTable = new HashMap<String, NodeInfo>(256);
+        for (int a = 0; a < tree.numberOfAttributes; a++) {
+            if ((tree.attCode[a] & NamePool.FP_MASK) == StandardNames.XML_ID) {
+                String id = Whitespace.trim(tree.attValue[a]);
+                // the XPath spec (5.2.1) says ignore the second ID if it's not unique
+                if (NameChecker.isValidNCName(id) && !idTable.containsKey(id)) {
+                    idTable.put(id, tree.getNode(tree.attParent[a]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy this node to a given outputter
+     */
+
+    public void copy(Receiver out, int copyOptions) throws XPathException {
+        out.startDocument();
+        if (hasChildNodes()) {
+            int child = 1;
+            while (child >= 0) {
+                tree.getNode(child).copy(out, copyOptions);
+                child = tree.next[child];
+            }
+        }
+        out.endDocument();
+    }
+
+    /**
+     * Set user data on the document node. The user data can be retrieved subsequently
+     * using {@link #getUserData}
+     * @param key   A string giving the name of the property to be set. Clients are responsible
+     *              for choosing a key that is likely to be unique. Must not be null.
+     * @param value The value to be set for the property. May be null, which effectively
+     *              removes the existing value for the property.
+     */
+
+    public void setUserData(String key, Object value) {
+        if (userData == null) {
+            userData = new HashMap<String, Object>(4);
+        }
+        if (value == null) {
+            userData.remove(key);
+        } else {
+            userData.put(key, value);
+        }
+    }
+
+    /**
+     * Get user data held in the document node. This retrieves properties previously set using
+     * {@link #setUserData}
+     * @param key A string giving the name of the property to be retrieved.
+     * @return the value of the property, or null if the property has not been defined.
+     */
+
+    public Object getUserData(String key) {
+        if (userData == null) {
+            return null;
+        } else {
+            return userData.get(key);
+        }
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
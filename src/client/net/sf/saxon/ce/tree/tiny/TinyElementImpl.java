@@ -0,0 +1,111 @@
+package client.net.sf.saxon.ce.tree.tiny;
+
+import client.net.sf.saxon.ce.event.Receiver;
+import client.net.sf.saxon.ce.om.CopyOptions;
+import client.net.sf.saxon.ce.om.NamePool;
+import client.net.sf.saxon.ce.om.NamespaceBinding;
+import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.tree.util.NamespaceIterator;
+import client.net.sf.saxon.ce.tree.util.Navigator;
+
+/**
+ * An element node in a TinyTree. Its attributes and namespace declarations are held in the
+ * attribute and namespace arrays of the tree.
+ */
+
+final class TinyElementImpl extends TinyNodeImpl {
+
+    public TinyElementImpl(TinyTree tree, int nodeNr) {
+        super(tree, nodeNr);
+    }
+
+    /**
+     * Get the base URI of this element node. This will be the same as the System ID unless
+     * xml:base has been used.
+     */
+
+    public String getBaseURI() {
+        return Navigator.getBaseURI(this);
+    }
+
+    /**
+     * Get the value of a given attribute of this element
+     * @param fingerprint the fingerprint of the attribute name
+     * @return the attribute value if it exists, or null if not
+     */
+
+    public String getAttributeValue(int fingerprint) {
+        int a = tree.alpha[nodeNr];
+        if (a < 0) {
+            return null;
+        }
+        while (a < tree.numberOfAttributes && tree.attParent[a] == nodeNr) {
+            if ((tree.attCode[a] & NamePool.FP_MASK) == fingerprint) {
+                return tree.attValue[a];
+            }
+            a++;
+        }
+        return null;
+    }
+
+    /**
+     * Get all namespace declarations and undeclarations defined on this element.
+     * @param buffer ignored in this implementation
+     * @return the namespace bindings declared on this element; an empty array if there are none
+     */
+
+    public NamespaceBinding[] getDeclaredNamespaces(NamespaceBinding[] buffer) {
+        int ns = tree.beta[nodeNr];
+        if (ns < 0) {
+            return NamespaceBinding.EMPTY_ARRAY;
+        }
+        int end = ns;
+        while (end < tree.numberOfNamespaces && tree.namespaceParent[end] == nodeNr) {
+            end++;
+        }
+        NamespaceBinding[] result = new NamespaceBinding[end - ns];
+        System.arraycopy(tree.namespaceBinding, ns, result, 0, end - ns);
+        return result;
+    }
+
+    /**
+     * Copy this node to a given outputter (supporting xsl:copy-of)
+     * @param out The outputter
+     * @param copyOptions the copy options
+     */
+
+    public void copy(Receiver out, int copyOptions) throws XPathException {
+        out.startElement(getNameCode(), 0);
+        int childCopyOptions = copyOptions & ~CopyOptions.ALL_NAMESPACES;
+        if ((copyOptions & CopyOptions.LOCAL_NAMESPACES) != 0) {
+            NamespaceBinding[] localNamespaces = getDeclaredNamespaces(null);
+            for (int i=0; i<localNamespaces.length; i++) {
+                out.namespace(localNamespaces[i], 0);
+            }
+        } else if ((copyOptions & CopyOptions.ALL_NAMESPACES) != 0) {
+            NamespaceIterator.sendNamespaces(this, out);
+            childCopyOptions |= CopyOptions.LOCAL_NAMESPACES;
+        }
+        int a = tree.alpha[nodeNr];
+        if (a >= 0) {
+            while (a < tree.numberOfAttributes && tree.attParent[a] == nodeNr) {
+                out.attribute(tree.attCode[a], tree.attValue[a]);
+                a++;
+            }
+        }
+        out.startContent();
+        if (hasChildNodes()) {
+            int child = nodeNr + 1;
+            while (child >= 0) {
+                tree.getNode(child).copy(out, childCopyOptions);
+                child = tree.next[child];
+            }
+        }
+        out.endElement();
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -0,0 +1,360 @@
+package client.net.sf.saxon.ce.tree.tiny;
+
+import client.net.sf.saxon.ce.Configuration;
+import client.net.sf.saxon.ce.om.*;
+import client.net.sf.saxon.ce.pattern.AnyNodeTest;
+import client.net.sf.saxon.ce.pattern.NodeTest;
+import client.net.sf.saxon.ce.tree.NamespaceNode;
+import client.net.sf.saxon.ce.tree.iter.AxisIterator;
+import client.net.sf.saxon.ce.tree.iter.EmptyIterator;
+import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
+import client.net.sf.saxon.ce.tree.util.Navigator;
+import client.net.sf.saxon.ce.type.Type;
+import client.net.sf.saxon.ce.value.AtomicValue;
+import client.net.sf.saxon.ce.value.UntypedAtomicValue;
+
+/**
+ * A node in the TinyTree. This is a transient object that represents a position in the node
+ * arrays of a {@link TinyTree}: two TinyNodeImpl objects represent the same node if they
+ * refer to the same tree and the same node number. Specific node kinds are represented by
+ * concrete subclasses.
+ */
+
+public abstract class TinyNodeImpl implements NodeInfo, FingerprintedNode {
+
+    protected TinyTree tree;
+    protected int nodeNr;
+
+    /**
+     * Chararacteristic letters to identify each type of node, indexed using the node type
+     * values. These are used as the initial letter of the result of generate-id()
+     */
+
+    public static final char[] NODE_LETTER =
+            {'x', 'e', 'a', 't', 'x', 'x', 'x', 'p', 'c', 'r', 'x', 'x', 'x', 'n'};
+
+    protected TinyNodeImpl(TinyTree tree, int nodeNr) {
+        this.tree = tree;
+        this.nodeNr = nodeNr;
+    }
+
+    /**
+     * Get the tree containing this node
+     * @return the TinyTree
+     */
+
+    public TinyTree getTree() {
+        return tree;
+    }
+
+    /**
+     * Get the node number of this node within the tree
+     * @return the node number
+     */
+
+    public int getNodeNumber() {
+        return nodeNr;
+    }
+
+    public int getNodeKind() {
+        return tree.nodeKind[nodeNr];
+    }
+
+    /**
+     * Determine whether this is the same node as another node
+     * @return true if this Node object and the supplied Node object represent the
+     *         same node in the tree.
+     */
+
+    public boolean isSameNodeInfo(NodeInfo other) {
+        return this == other ||
+                (other instanceof TinyNodeImpl && !(other instanceof TinyAttributeImpl) &&
+                        tree == ((TinyNodeImpl)other).tree && nodeNr == ((TinyNodeImpl)other).nodeNr);
+    }
+
+    public boolean equals(Object other) {
+        return other instanceof NodeInfo && isSameNodeInfo((NodeInfo)other);
+    }
+
+    public int hashCode() {
+        return (tree.getDocumentNumber() << 20) ^ nodeNr;
+    }
+
+    public String getSystemId() {
+        return tree.getSystemId();
+    }
+
+    /**
+     * Get the base URI for the node. Default implementation for child nodes.
+     */
+
+    public String getBaseURI() {
+        NodeInfo parent = getParent();
+        return (parent == null ? tree.getBaseURI() : parent.getBaseURI());
+    }
+
+    public int getLineNumber() {
+        return -1;
+    }
+
+    /**
+     * Determine the relative position of this node and another node, in document order.
+     * The other node will always be in the same document.
+     * @param other The other node, whose position is to be compared with this node
+     * @return -1 if this node precedes the other node, +1 if it follows the other
+     *         node, or 0 if they are the same node.
+     */
+
+    public int compareOrder(NodeInfo other) {
+        if (other instanceof NamespaceNode) {
+            return 0 - other.compareOrder(this);
+        }
+        int a = getOwnerNodeNumber();
+        int b = ((TinyNodeImpl)other).getOwnerNodeNumber();
+        if (a != b) {
+            return (a < b ? -1 : +1);
+        }
+        int a2 = getAttributeOffset();
+        int b2 = ((TinyNodeImpl)other).getAttributeOffset();
+        return (a2 == b2 ? 0 : (a2 < b2 ? -1 : +1));
+    }
+
+    /**
+     * Get the node number of the node that determines this node's position in document order:
+     * for an attribute this is the owning element, for other nodes it is the node itself
+     * @return the node number used for ordering
+     */
+
+    int getOwnerNodeNumber() {
+        return nodeNr;
+    }
+
+    /**
+     * Get the position of this node relative to its owner in document order: zero for
+     * nodes other than attributes
+     * @return zero, or a positive number for an attribute
+     */
+
+    int getAttributeOffset() {
+        return 0;
+    }
+
+    public String getStringValue() {
+        return getStringValueCS().toString();
+    }
+
+    public CharSequence getStringValueCS() {
+        return tree.getStringValue(nodeNr);
+    }
+
+    /**
+     * Get the typed value of this node.
+     * If there is no type annotation, we return the string value, as an instance
+     * of xs:untypedAtomic
+     */
+
+    public AtomicValue getTypedValue() {
+        return new UntypedAtomicValue(getStringValueCS());
+    }
+
+    public int getNameCode() {
+        return tree.nameCode[nodeNr];
+    }
+
+    public int getFingerprint() {
+        int nameCode = getNameCode();
+        if (nameCode == -1) {
+            return -1;
+        }
+        return nameCode & NamePool.FP_MASK;
+    }
+
+    public String getLocalPart() {
+        int nameCode = getNameCode();
+        if (nameCode == -1) {
+            return "";
+        }
+        return getNamePool().getLocalName(nameCode);
+    }
+
+    public String getURI() {
+        int nameCode = getNameCode();
+        if (nameCode == -1) {
+            return "";
+        }
+        return getNamePool().getURI(nameCode);
+    }
+
+    public String getDisplayName() {
+        int nameCode = getNameCode();
+        if (nameCode == -1) {
+            return "";
+        }
+        return getNamePool().getDisplayName(nameCode);
+    }
+
+    public String getPrefix() {
+        int nameCode = getNameCode();
+        if (nameCode == -1 || !NamePool.isPrefixed(nameCode)) {
+            return "";
+        }
+        return getNamePool().getPrefix(nameCode);
+    }
+
+    public Configuration getConfiguration() {
+        return tree.getConfiguration();
+    }
+
+    public NamePool getNamePool() {
+        return tree.getNamePool();
+    }
+
+    public int getTypeAnnotation() {
+        return StandardNames.XS_UNTYPED;
+    }
+
+    public NodeInfo getParent() {
+        int p = tree.parent[nodeNr];
+        return (p < 0 ? null : tree.getNode(p));
+    }
+
+    /**
+     * Return an enumeration over the nodes reached by the given axis from this node
+     * @param axisNumber The axis to be iterated over
+     * @return an AxisIterator that scans the nodes reached by the axis in turn.
+     */
+
+    public AxisIterator iterateAxis(byte axisNumber) {
+        return iterateAxis(axisNumber, AnyNodeTest.getInstance());
+    }
+
+    /**
+     * Return an enumeration over the nodes reached by the given axis from this node
+     * @param axisNumber The axis to be iterated over
+     * @param nodeTest   A pattern to be matched by the returned nodes
+     * @return an AxisIterator that scans the nodes reached by the axis in turn.
+     */
+
+    public AxisIterator iterateAxis(byte axisNumber, NodeTest nodeTest) {
+        int kind = getNodeKind();
+        switch (axisNumber) {
+            case Axis.ANCESTOR:
+                return new AncestorIterator(tree, tree.parent[nodeNr], nodeTest);
+
+            case Axis.ANCESTOR_OR_SELF:
+                return new AncestorIterator(tree, nodeNr, nodeTest);
+
+            case Axis.ATTRIBUTE:
+                if (kind != Type.ELEMENT || tree.alpha[nodeNr] < 0) {
+                    return EmptyIterator.getInstance();
+                }
+                return new AttributeIterator(tree, nodeNr, nodeTest);
+
+            case Axis.CHILD:
+                if (hasChildNodes()) {
+                    return new SiblingIterator(tree, nodeNr + 1, nodeTest);
+                } else {
+                    return EmptyIterator.getInstance();
+                }
+
+            case Axis.DESCENDANT:
+                if (hasChildNodes()) {
+                    return new DescendantIterator(tree, nodeNr, nodeTest, false);
+                } else {
+                    return EmptyIterator.getInstance();
+                }
+
+            case Axis.DESCENDANT_OR_SELF:
+                return new DescendantIterator(tree, nodeNr, nodeTest, true);
+
+            case Axis.FOLLOWING:
+                return new FollowingIterator(tree, tree.getSubtreeEnd(nodeNr), nodeTest);
+
+            case Axis.FOLLOWING_SIBLING:
+                if (kind == Type.DOCUMENT || tree.next[nodeNr] < 0) {
+                    return EmptyIterator.getInstance();
+                }
+                return new SiblingIterator(tree, tree.next[nodeNr], nodeTest);
+
+            case Axis.NAMESPACE:
+                if (kind != Type.ELEMENT) {
+                    return EmptyIterator.getInstance();
+                }
+                return NamespaceNode.makeIterator(this, nodeTest);
+
+            case Axis.PARENT:
+                NodeInfo parent = getParent();
+                if (parent == null) {
+                    return EmptyIterator.getInstance();
+                }
+                return Navigator.filteredSingleton(parent, nodeTest);
+
+            case Axis.PRECEDING:
+                return new PrecedingIterator(tree, nodeNr, nodeTest, false);
+
+            case Axis.PRECEDING_SIBLING:
+                if (kind == Type.DOCUMENT) {
+                    return EmptyIterator.getInstance();
+                }
+                return new PrecedingSiblingIterator(tree, nodeNr, nodeTest);
+
+            case Axis.SELF:
+                return Navigator.filteredSingleton(this, nodeTest);
+
+            case Axis.PRECEDING_OR_ANCESTOR:
+                return new PrecedingIterator(tree, nodeNr, nodeTest, true);
+
+            default:
+                throw new IllegalArgumentException("Unknown axis number " + axisNumber);
+        }
+    }
+
+    /**
+     * Get the root node
+     * @return the NodeInfo representing the logical root of the tree. For this tree implementation the
+     * root will either be a document node or an element node.
+     */
+
+    public NodeInfo getRoot() {
+        int r = nodeNr;
+        while (tree.parent[r] >= 0) {
+            r = tree.parent[r];
+        }
+        return tree.getNode(r);
+    }
+
+    public DocumentInfo getDocumentRoot() {
+        NodeInfo root = getRoot();
+        return (root instanceof DocumentInfo ? (DocumentInfo)root : null);
+    }
+
+    public boolean hasChildNodes() {
+        int n = nodeNr + 1;
+        return n < tree.numberOfNodes && tree.depth[n] > tree.depth[nodeNr];
+    }
+
+    /**
+     * Get a character string that uniquely identifies this node within this document
+     * @param buffer a buffer to contain the generated ID
+     */
+
+    public void generateId(FastStringBuffer buffer) {
+        buffer.append('d');
+        buffer.append(Integer.toString(tree.getDocumentNumber()));
+        buffer.append(NODE_LETTER[getNodeKind()]);
+        buffer.append(Integer.toString(nodeNr));
+    }
+
+    public int getDocumentNumber() {
+        return tree.getDocumentNumber();
+    }
+
+    public NamespaceBinding[] getDeclaredNamespaces(NamespaceBinding[] buffer) {
+        return null;
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -0,0 +1,60 @@
+package client.net.sf.saxon.ce.tree.tiny;
+
+import client.net.sf.saxon.ce.event.Receiver;
+import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.type.Type;
+import client.net.sf.saxon.ce.value.AtomicValue;
+import client.net.sf.saxon.ce.value.StringValue;
+
+/**
+ * A text, comment, or processing instruction node in a TinyTree. The content of the node
+ * is held in the character buffer (for text) or the comment buffer (for comments and
+ * processing instructions) of the tree.
+ */
+
+final class TinyTextualImpl extends TinyNodeImpl {
+
+    public TinyTextualImpl(TinyTree tree, int nodeNr) {
+        super(tree, nodeNr);
+    }
+
+    /**
+     * Get the typed value of this node. For a text node this is the string value as an instance
+     * of xs:untypedAtomic; for a comment or processing instruction it is an xs:string
+     */
+
+    public AtomicValue getTypedValue() {
+        if (getNodeKind() == Type.TEXT) {
+            return super.getTypedValue();
+        } else {
+            return new StringValue(getStringValue());
+        }
+    }
+
+    public boolean hasChildNodes() {
+        return false;
+    }
+
+    /**
+     * Copy this node to a given outputter
+     */
+
+    public void copy(Receiver out, int copyOptions) throws XPathException {
+        switch (getNodeKind()) {
+            case Type.TEXT:
+                out.characters(getStringValueCS());
+                break;
+            case Type.COMMENT:
+                out.comment(getStringValueCS());
+                break;
+            default:
+                out.processingInstruction(getLocalPart(), getStringValueCS());
+                break;
+        }
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
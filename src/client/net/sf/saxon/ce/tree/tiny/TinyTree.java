@@ -0,0 +1,458 @@
+package client.net.sf.saxon.ce.tree.tiny;
+
+import client.net.sf.saxon.ce.Configuration;
+import client.net.sf.saxon.ce.om.NamePool;
+import client.net.sf.saxon.ce.om.NamespaceBinding;
+import client.net.sf.saxon.ce.om.StandardNames;
+import client.net.sf.saxon.ce.pattern.CombinedNodeTest;
+import client.net.sf.saxon.ce.pattern.DocumentNodeTest;
+import client.net.sf.saxon.ce.pattern.NodeTest;
+import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
+import client.net.sf.saxon.ce.type.Type;
+
+/**
+ * A data structure to hold the contents of a tree. As the name implies, this implementation
+ * of the data model is optimized for size, and for speed of creation: it minimizes the number
+ * of Java objects used.
+ *
+ * <p>Each node other than an attribute or namespace node occupies one position in a set of parallel
+ * arrays, in document order: the node kind, the depth, the name code, the next sibling and the parent.
+ * The meaning of the two remaining arrays depends on the node kind:</p>
+ *
+ * <ul>
+ * <li>For an element, <code>alpha</code> is the index of the first attribute in the attribute arrays,
+ * and <code>beta</code> the index of the first namespace declaration in the namespace arrays (-1 if none).</li>
+ * <li>For a text node, <code>alpha</code> is the offset of the text in the character buffer, and
+ * <code>beta</code> its length.</li>
+ * <li>For a comment or processing instruction, <code>alpha</code> and <code>beta</code> are the offset and
+ * length of its content in the comment buffer.</li>
+ * </ul>
+ *
+ * <p>Because text nodes are appended to the character buffer in document order, the text of all the
+ * descendants of an element occupies a single contiguous region of the buffer.</p>
+ *
+ * <p>NodeInfo objects are created only on demand, as transient views of a position in the arrays.</p>
+ */
+
+public final class TinyTree {
+
+    private static final int DEFAULT_NODES = 100;
+
+    private Configuration config;
+    private int documentNumber;
+    private String systemId = "";
+    private String baseURI;
+    private TinyDocumentImpl documentNode;
+
+    // nodes other than attributes and namespaces, in document order
+    byte[] nodeKind;
+    short[] depth;
+    int[] next;
+    int[] parent;
+    int[] alpha;
+    int[] beta;
+    int[] nameCode;
+    int numberOfNodes = 0;
+
+    // attributes, grouped by owning element in document order
+    int[] attParent;
+    int[] attCode;
+    String[] attValue;
+    int numberOfAttributes = 0;
+
+    // namespace declarations, grouped by owning element in document order
+    int[] namespaceParent;
+    NamespaceBinding[] namespaceBinding;
+    int numberOfNamespaces = 0;
+
+    FastStringBuffer charBuffer = new FastStringBuffer(FastStringBuffer.MEDIUM);
+    FastStringBuffer commentBuffer;
+
+    /**
+     * Create an empty tree
+     * @param config the Saxon configuration
+     */
+
+    public TinyTree(Configuration config) {
+        this.config = config;
+        documentNumber = config.getDocumentNumberAllocator().allocateDocumentNumber();
+        nodeKind = new byte[DEFAULT_NODES];
+        depth = new short[DEFAULT_NODES];
+        next = new int[DEFAULT_NODES];
+        parent = new int[DEFAULT_NODES];
+        alpha = new int[DEFAULT_NODES];
+        beta = new int[DEFAULT_NODES];
+        nameCode = new int[DEFAULT_NODES];
+    }
+
+    /**
+     * Get the configuration
+     * @return the Saxon configuration
+     */
+
+    public Configuration getConfiguration() {
+        return config;
+    }
+
+    /**
+     * Get the name pool used for the names in this tree
+     * @return the name pool
+     */
+
+    public NamePool getNamePool() {
+        return config.getNamePool();
+    }
+
+    /**
+     * Get the unique document number of this tree
+     * @return the document number
+     */
+
+    public int getDocumentNumber() {
+        return documentNumber;
+    }
+
+    /**
+     * Set the system identifier of the tree
+     * @param systemId the system identifier (document URI)
+     */
+
+    public void setSystemId(String systemId) {
+        this.systemId = (systemId == null ? "" : systemId);
+    }
+
+    /**
+     * Get the system identifier of the tree
+     * @return the system identifier
+     */
+
+    public String getSystemId() {
+        return systemId;
+    }
+
+    /**
+     * Set the base URI of the document node
+     * @param baseURI the base URI
+     */
+
+    public void setBaseURI(String baseURI) {
+        this.baseURI = baseURI;
+    }
+
+    /**
+     * Get the base URI of the document node
+     * @return the base URI, or the system identifier if no base URI has been set
+     */
+
+    public String getBaseURI() {
+        return (baseURI == null ? systemId : baseURI);
+    }
+
+    /**
+     * Get the number of nodes in the tree, excluding attributes and namespace nodes
+     * @return the number of nodes
+     */
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * Get the number of attributes in the tree
+     * @return the number of attributes
+     */
+
+    public int getNumberOfAttributes() {
+        return numberOfAttributes;
+    }
+
+    /**
+     * Add a node to the tree
+     * @param kind the kind of node
+     * @param depth the depth of the node (the root is at depth zero)
+     * @param alpha the first kind-dependent value
+     * @param beta the second kind-dependent value
+     * @param nameCode the name code of the node, or -1 if it has no name
+     * @param parent the node number of the parent node, or -1 if there is none
+     * @return the node number of the new node
+     */
+
+    int addNode(int kind, int depth, int alpha, int beta, int nameCode, int parent) {
+        if (numberOfNodes >= nodeKind.length) {
+            ensureNodeCapacity(numberOfNodes * 2);
+        }
+        int nr = numberOfNodes++;
+        this.nodeKind[nr] = (byte)kind;
+        this.depth[nr] = (short)depth;
+        this.next[nr] = -1;
+        this.parent[nr] = parent;
+        this.alpha[nr] = alpha;
+        this.beta[nr] = beta;
+        this.nameCode[nr] = nameCode;
+        return nr;
+    }
+
+    private void ensureNodeCapacity(int size) {
+        byte[] k2 = new byte[size];
+        short[] d2 = new short[size];
+        int[] n2 = new int[size];
+        int[] p2 = new int[size];
+        int[] a2 = new int[size];
+        int[] b2 = new int[size];
+        int[] c2 = new int[size];
+        System.arraycopy(nodeKind, 0, k2, 0, numberOfNodes);
+        System.arraycopy(depth, 0, d2, 0, numberOfNodes);
+        System.arraycopy(next, 0, n2, 0, numberOfNodes);
+        System.arraycopy(parent, 0, p2, 0, numberOfNodes);
+        System.arraycopy(alpha, 0, a2, 0, numberOfNodes);
+        System.arraycopy(beta, 0, b2, 0, numberOfNodes);
+        System.arraycopy(nameCode, 0, c2, 0, numberOfNodes);
+        nodeKind = k2;
+        depth = d2;
+        next = n2;
+        parent = p2;
+        alpha = a2;
+        beta = b2;
+        nameCode = c2;
+    }
+
+    /**
+     * Add an attribute to the most recently added element
+     * @param element the node number of the owning element
+     * @param nameCode the name code of the attribute
+     * @param value the string value of the attribute
+     */
+
+    void addAttribute(int element, int nameCode, String value) {
+        if (attParent == null) {
+            attParent = new int[10];
+            attCode = new int[10];
+            attValue = new String[10];
+        } else if (numberOfAttributes >= attParent.length) {
+            int size = numberOfAttributes * 2;
+            int[] p2 = new int[size];
+            int[] c2 = new int[size];
+            String[] v2 = new String[size];
+            System.arraycopy(attParent, 0, p2, 0, numberOfAttributes);
+            System.arraycopy(attCode, 0, c2, 0, numberOfAttributes);
+            System.arraycopy(attValue, 0, v2, 0, numberOfAttributes);
+            attParent = p2;
+            attCode = c2;
+            attValue = v2;
+        }
+        if (alpha[element] == -1) {
+            alpha[element] = numberOfAttributes;
+        }
+        attParent[numberOfAttributes] = element;
+        attCode[numberOfAttributes] = nameCode;
+        attValue[numberOfAttributes] = value;
+        numberOfAttributes++;
+    }
+
+    /**
+     * Add a namespace declaration to the most recently added element
+     * @param element the node number of the owning element
+     * @param binding the namespace binding
+     */
+
+    void addNamespace(int element, NamespaceBinding binding) {
+        if (namespaceParent == null) {
+            namespaceParent = new int[5];
+            namespaceBinding = new NamespaceBinding[5];
+        } else if (numberOfNamespaces >= namespaceParent.length) {
+            int size = numberOfNamespaces * 2;
+            int[] p2 = new int[size];
+            NamespaceBinding[] b2 = new NamespaceBinding[size];
+            System.arraycopy(namespaceParent, 0, p2, 0, numberOfNamespaces);
+            System.arraycopy(namespaceBinding, 0, b2, 0, numberOfNamespaces);
+            namespaceParent = p2;
+            namespaceBinding = b2;
+        }
+        if (beta[element] == -1) {
+            beta[element] = numberOfNamespaces;
+        }
+        namespaceParent[numberOfNamespaces] = element;
+        namespaceBinding[numberOfNamespaces] = binding;
+        numberOfNamespaces++;
+    }
+
+    /**
+     * Append characters to the comment buffer, used for the content of comments and processing instructions
+     * @param chars the characters to be appended
+     * @return the offset of the characters in the comment buffer
+     */
+
+    int appendComment(CharSequence chars) {
+        if (commentBuffer == null) {
+            commentBuffer = new FastStringBuffer(FastStringBuffer.SMALL);
+        }
+        int offset = commentBuffer.length();
+        commentBuffer.append(chars);
+        return offset;
+    }
+
+    /**
+     * Release unused space in the arrays once the tree is complete
+     */
+
+    void condense() {
+        if (numberOfNodes * 3 < nodeKind.length * 2) {
+            ensureNodeCapacity(numberOfNodes == 0 ? 1 : numberOfNodes);
+        }
+    }
+
+    /**
+     * Get the node at a given position in the node arrays
+     * @param nr the node number
+     * @return a NodeInfo representing the node. For nodes other than the document node, this is a
+     * transient object created on demand.
+     */
+
+    public TinyNodeImpl getNode(int nr) {
+        switch (nodeKind[nr]) {
+            case Type.DOCUMENT:
+                if (documentNode == null) {
+                    documentNode = new TinyDocumentImpl(this);
+                }
+                return documentNode;
+            case Type.ELEMENT:
+                return new TinyElementImpl(this, nr);
+            default:
+                return new TinyTextualImpl(this, nr);
+        }
+    }
+
+    /**
+     * Get the attribute node at a given position in the attribute arrays
+     * @param nr the attribute number
+     * @return a NodeInfo representing the attribute
+     */
+
+    public TinyAttributeImpl getAttributeNode(int nr) {
+        return new TinyAttributeImpl(this, nr);
+    }
+
+    /**
+     * Get the root node of the tree: a document node if the tree has one, otherwise the
+     * outermost element
+     * @return the root node
+     */
+
+    public TinyNodeImpl getRootNode() {
+        return getNode(0);
+    }
+
+    /**
+     * Get the fingerprint of a node
+     * @param nr the node number
+     * @return the fingerprint, or -1 for an unnamed node
+     */
+
+    final int getFingerprint(int nr) {
+        int nc = nameCode[nr];
+        return (nc == -1 ? -1 : nc & NamePool.FP_MASK);
+    }
+
+    /**
+     * Test whether a node matches a NodeTest, without materializing the node where possible
+     * @param nr the node number
+     * @param test the node test, or null to match any node
+     * @return true if the node matches
+     */
+
+    final boolean matches(int nr, NodeTest test) {
+        if (test == null) {
+            return true;
+        }
+        if (test instanceof DocumentNodeTest || test instanceof CombinedNodeTest) {
+            return test.matches(getNode(nr));
+        }
+        return test.matches(nodeKind[nr], getFingerprint(nr), StandardNames.XS_UNTYPED);
+    }
+
+    /**
+     * Test whether an attribute matches a NodeTest, without materializing the node where possible
+     * @param nr the attribute number
+     * @param test the node test, or null to match any attribute
+     * @return true if the attribute matches
+     */
+
+    final boolean matchesAttribute(int nr, NodeTest test) {
+        if (test == null) {
+            return true;
+        }
+        if (test instanceof DocumentNodeTest || test instanceof CombinedNodeTest) {
+            return test.matches(getAttributeNode(nr));
+        }
+        return test.matches(Type.ATTRIBUTE, attCode[nr] & NamePool.FP_MASK, StandardNames.XS_UNTYPED_ATOMIC);
+    }
+
+    /**
+     * Get the node number of the first node after the subtree rooted at a given node
+     * @param nr the node number
+     * @return the number of the first node that is not a descendant-or-self of the given node
+     * (which is numberOfNodes if there is none)
+     */
+
+    final int getSubtreeEnd(int nr) {
+        int d = depth[nr];
+        int j = nr + 1;
+        while (j < numberOfNodes && depth[j] > d) {
+            j++;
+        }
+        return j;
+    }
+
+    /**
+     * Get the node number of the preceding sibling of a node
+     * @param nr the node number
+     * @return the node number of the preceding sibling, or -1 if there is none
+     */
+
+    final int getPreviousSibling(int nr) {
+        if (parent[nr] < 0) {
+            return -1;
+        }
+        int d = depth[nr];
+        int j = nr - 1;
+        while (j >= 0 && depth[j] > d) {
+            j--;
+        }
+        return (j >= 0 && depth[j] == d ? j : -1);
+    }
+
+    /**
+     * Get the string value of a node. For an element or document node this is the concatenation
+     * of the descendant text nodes, which occupy a contiguous region of the character buffer.
+     * @param nr the node number
+     * @return the string value
+     */
+
+    CharSequence getStringValue(int nr) {
+        switch (nodeKind[nr]) {
+            case Type.TEXT:
+                return charBuffer.subSequence(alpha[nr], alpha[nr] + beta[nr]);
+            case Type.COMMENT:
+            case Type.PROCESSING_INSTRUCTION:
+                return commentBuffer.subSequence(alpha[nr], alpha[nr] + beta[nr]);
+            default:
+                int end = getSubtreeEnd(nr);
+                int start = -1;
+                int finish = -1;
+                for (int j = nr + 1; j < end; j++) {
+                    if (nodeKind[j] == Type.TEXT) {
+                        if (start < 0) {
+                            start = alpha[j];
+                        }
+                        finish = alpha[j] + beta[j];
+                    }
+                }
+                return (start < 0 ? "" : charBuffer.subSequence(start, finish));
+        }
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
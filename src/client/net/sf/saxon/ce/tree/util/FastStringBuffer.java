@@ -112,6 +112,28 @@ public final class FastStringBuffer implements CharSequence {
         used += len;
     }
 
+    /**
+     * Append part of a general CharSequence to the buffer
+     * @param s the CharSequence containing the characters to be appended
+     * @param start the offset of the first character to be copied
+     * @param end the offset after the last character to be copied
+     */
+
+    public void appendSubSequence(CharSequence s, int start, int end) {
+        final int len = end - start;
+        ensureCapacity(len);
+        if (s instanceof String) {
+            ((String)s).getChars(start, end, array, used);
+        } else if (s instanceof FastStringBuffer) {
+            ((FastStringBuffer)s).getChars(start, end, array, used);
+        } else {
+            for (int i = start; i < end; i++) {
+                array[used + i - start] = s.charAt(i);
+            }
+        }
+        used += len;
+    }
+
     /**
      * Append the contents of a character array to the buffer
      * @param srcArray the array whose contents are to be added
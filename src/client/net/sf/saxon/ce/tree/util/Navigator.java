@@ -14,6 +14,7 @@ import client.net.sf.saxon.ce.type.Type;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -263,6 +264,26 @@ public final class Navigator {
 
     public static int getNumberSingle(NodeInfo node, Pattern count,
                                       Pattern from, XPathContext context) throws XPathException {
+        return getNumberSingle(node, count, from, context, null);
+    }
+
+    /**
+     * Get node number (level="single"), using a numbering index if one is available.
+     *
+     * @param node    the current node, the one whose node number is required
+     * @param count   Pattern that identifies which nodes should be counted
+     * @param from    Pattern that specifies where counting starts from
+     * @param context the dynamic context of the transformation
+     * @param index   a map giving, for each node in the document that matches the count pattern, one plus
+     *                the number of its preceding siblings that match the count pattern; or null if there
+     *                is no such index
+     * @return the node number, as for {@link #getNumberSingle(NodeInfo, Pattern, Pattern, XPathContext)}
+     * @throws XPathException when any error occurs in processing
+     */
+
+    public static int getNumberSingle(NodeInfo node, Pattern count,
+                                      Pattern from, XPathContext context,
+                                      Map<NodeInfo, Integer> index) throws XPathException {
 
         if (count == null && from == null) {
             return getNumberSimple(node, context);
@@ -291,6 +312,13 @@ public final class Navigator {
 
         // we've found the ancestor to count from
 
+        if (index != null) {
+            Integer num = index.get(target);
+            if (num != null) {
+                return num.intValue();
+            }
+        }
+
         SequenceIterator preceding =
                 target.iterateAxis(Axis.PRECEDING_SIBLING, count.getNodeTest());
         // pass the filter condition down to the axis enumeration where possible
@@ -335,6 +363,36 @@ public final class Navigator {
 
     public static int getNumberAny(Expression inst, NodeInfo node, Pattern count,
                                    Pattern from, XPathContext context, boolean hasVariablesInPatterns) throws XPathException {
+        return getNumberAny(inst, node, count, from, context, hasVariablesInPatterns, null);
+    }
+
+    /**
+     * Get node number (level="any"), using a numbering index if one is available.
+     *
+     * @param inst                   Identifies the xsl:number expression
+     * @param node                   The node being numbered
+     * @param count                  Pattern that identifies which nodes should be counted
+     * @param from                   Pattern that specifies where counting starts from
+     * @param context                The dynamic context for the transformation
+     * @param hasVariablesInPatterns true if the count or from patterns contain variables
+     * @param index                  a map giving the number of nodes in the document, including elements
+     *                               and all nodes that match the count pattern; or null if there is no such index.
+     *                               The number of a node that is not in the map is computed by counting.
+     * @return the node number, as for
+     *         {@link #getNumberAny(Expression, NodeInfo, Pattern, Pattern, XPathContext, boolean)}
+     * @throws XPathException when any error occurs in processing
+     */
+
+    public static int getNumberAny(Expression inst, NodeInfo node, Pattern count,
+                                   Pattern from, XPathContext context, boolean hasVariablesInPatterns,
+                                   Map<NodeInfo, Integer> index) throws XPathException {
+
+        if (index != null) {
+            Integer num = index.get(node);
+            if (num != null) {
+                return num.intValue();
+            }
+        }
 
         NodeInfo memoNode = null;
         int memoNumber = 0;
@@ -428,12 +486,34 @@ public final class Navigator {
      * @throws XPathException
      */
 
-    public static List getNumberMulti(NodeInfo node, Pattern count,
+    public static List<Long> getNumberMulti(NodeInfo node, Pattern count,
                                       Pattern from, XPathContext context) throws XPathException {
+        return getNumberMulti(node, count, from, context, null);
+    }
+
+    /**
+     * Get node number (level="multiple"), using a numbering index if one is available.
+     *
+     * @param node    The node to be numbered
+     * @param count   Pattern that identifies which nodes (ancestors and
+     *                their previous siblings) should be counted
+     * @param from    Pattern that specifies where counting starts from
+     * @param context The dynamic context for the transformation
+     * @param index   a map giving, for each node in the document that matches the count pattern, one plus
+     *                the number of its preceding siblings that match the count pattern; or null if there
+     *                is no such index
+     * @return the hierarchic position of the node, as for
+     *         {@link #getNumberMulti(NodeInfo, Pattern, Pattern, XPathContext)}
+     * @throws XPathException
+     */
+
+    public static List<Long> getNumberMulti(NodeInfo node, Pattern count,
+                                      Pattern from, XPathContext context,
+                                      Map<NodeInfo, Integer> index) throws XPathException {
 
         //checkNumberable(node);
 
-        ArrayList v = new ArrayList(5);
+        ArrayList<Long> v = new ArrayList<Long>(5);
 
         if (count == null) {
             if (node.getFingerprint() == -1) {    // unnamed node
@@ -447,8 +527,8 @@ public final class Navigator {
 
         while (true) {
             if (count.matches(curr, context)) {
-                int num = getNumberSingle(curr, count, null, context);
-                v.add(0, new Long(num));
+                int num = getNumberSingle(curr, count, null, context, index);
+                v.add(0, Long.valueOf(num));
             }
             curr = curr.getParent();
             if (curr == null) {
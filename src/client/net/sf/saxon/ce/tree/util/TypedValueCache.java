@@ -0,0 +1,66 @@
+package client.net.sf.saxon.ce.tree.util;
+
+import client.net.sf.saxon.ce.value.AtomicValue;
+
+import java.util.HashMap;
+
+/**
+ * A cache holding the typed values of element and document nodes, so that atomizing the same node
+ * repeatedly (for example when it is used as a sort key or grouping key) does not require the
+ * string value to be recomputed by concatenating all the descendant text nodes each time.
+ *
+ * <p>The cache is only used if the configuration option
+ * {@link client.net.sf.saxon.ce.lib.FeatureKeys#USE_TYPED_VALUE_CACHE} is set. The key identifies the node
+ * within the scope of the cache: for the linked tree this is the node object itself, for the DOM
+ * wrappers it is the underlying DOM node. Since the string value of the node can be obtained from its
+ * typed value, only the typed value is held.</p>
+ *
+ * <p>Entries are not removed individually; any change to a tree covered by the cache must be
+ * followed by a call on {@link #clear}.</p>
+ */
+public class TypedValueCache {
+
+    private HashMap<Object, AtomicValue> values = new HashMap<Object, AtomicValue>();
+
+    /**
+     * Get the cached typed value of a node
+     * @param key the key identifying the node
+     * @return the typed value, or null if it is not in the cache
+     */
+
+    public AtomicValue get(Object key) {
+        return values.get(key);
+    }
+
+    /**
+     * Add the typed value of a node to the cache
+     * @param key the key identifying the node
+     * @param value the typed value of the node
+     */
+
+    public void put(Object key, AtomicValue value) {
+        values.put(key, value);
+    }
+
+    /**
+     * Remove all entries from the cache. This must be called whenever a tree whose values
+     * are held in the cache is modified.
+     */
+
+    public void clear() {
+        values.clear();
+    }
+
+    /**
+     * Get the number of entries in the cache
+     * @return the number of cached values
+     */
+
+    public int size() {
+        return values.size();
+    }
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
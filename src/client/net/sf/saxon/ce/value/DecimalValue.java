@@ -42,6 +42,16 @@ public class DecimalValue extends NumericValue {
         typeLabel = BuiltInAtomicType.DECIMAL;
     }
     
+    /**
+     * Constructor for use by subclasses that hold the value in some other form. Such
+     * subclasses must override {@link #getDecimalValue()} and the other methods that
+     * would otherwise access the BigDecimal value directly
+     */
+
+    protected DecimalValue() {
+        typeLabel = BuiltInAtomicType.DECIMAL;
+    }
+
     /**
      * 
      * @param value a BigDecimal that may have trailing zeros
@@ -269,6 +279,7 @@ public class DecimalValue extends NumericValue {
     */
 
     public ConversionResult convertPrimitive(BuiltInAtomicType requiredType, boolean validate) {
+        BigDecimal value = getDecimalValue();
         switch(requiredType.getFingerprint()) {
         case StandardNames.XS_BOOLEAN:
                 // 0.0 => false, anything else => true
@@ -467,7 +478,7 @@ public class DecimalValue extends NumericValue {
     public int compareTo(Object other) {
         if (other instanceof DecimalValue) {
             // including xs:integer
-            return value.compareTo(((DecimalValue)other).value);
+            return getDecimalValue().compareTo(((DecimalValue)other).getDecimalValue());
         } else if (other instanceof FloatValue) {
             try {
                 return ((FloatValue)convertPrimitive(BuiltInAtomicType.FLOAT, true).asAtomic()).compareTo(other);
@@ -0,0 +1,81 @@
+package client.net.sf.saxon.ce.value;
+
+import client.net.sf.saxon.ce.expr.Atomizer;
+import client.net.sf.saxon.ce.expr.ComparisonIndex;
+import client.net.sf.saxon.ce.expr.sort.AtomicComparer;
+import client.net.sf.saxon.ce.om.GroundedValue;
+import client.net.sf.saxon.ce.om.Item;
+import client.net.sf.saxon.ce.om.SequenceIterator;
+import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.type.ItemType;
+import client.net.sf.saxon.ce.type.TypeHierarchy;
+
+/**
+ * An IndexedValue is a materialized sequence that also carries an index of its atomized values,
+ * built lazily the first time it is needed. It is used as the value of a function parameter that is
+ * compared (using a general comparison) with an expression that depends on the focus, for example
+ * <code>//order[customer-id = $vipIds]</code>: the index is built once, and each evaluation of the
+ * comparison then probes it instead of searching the whole sequence.
+ */
+
+public class IndexedValue extends Value implements GroundedValue {
+
+    private SequenceExtent value;
+    private AtomicComparer indexComparer;
+    private ComparisonIndex index;
+
+    /**
+     * Construct an IndexedValue containing all the items delivered by a SequenceIterator
+     * @param iter the iterator supplying the items
+     * @throws XPathException if evaluation of the iterator fails
+     */
+
+    public IndexedValue(SequenceIterator iter) throws XPathException {
+        value = new SequenceExtent(iter);
+    }
+
+    /**
+     * Get an index of the atomized values of this sequence, suitable for use in a general comparison
+     * @param comparer the comparer used by the general comparison
+     * @return the index, or null if the values are not suitable for indexing with this comparer
+     * @throws XPathException if atomization of the values fails
+     */
+
+    public ComparisonIndex getComparisonIndex(AtomicComparer comparer) throws XPathException {
+        if (comparer != indexComparer) {
+            SequenceExtent atomized = new SequenceExtent(Atomizer.getAtomizingIterator(value.iterate()));
+            index = ComparisonIndex.makeIndex(atomized, comparer);
+            indexComparer = comparer;
+        }
+        return index;
+    }
+
+    public SequenceIterator iterate() {
+        return value.iterate();
+    }
+
+    public Item itemAt(int n) {
+        return value.itemAt(n);
+    }
+
+    public int getLength() {
+        return value.getLength();
+    }
+
+    public ItemType getItemType(TypeHierarchy th) {
+        return value.getItemType(th);
+    }
+
+    public GroundedValue subsequence(int start, int length) {
+        return value.subsequence(start, length);
+    }
+
+    public boolean effectiveBooleanValue() throws XPathException {
+        return value.effectiveBooleanValue();
+    }
+
+}
+
+// This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+// If a copy of the MPL was not distributed with this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+// This Source Code Form is “Incompatible With Secondary Licenses”, as defined by the Mozilla Public License, v. 2.0.
@@ -1,24 +1,40 @@
 package client.net.sf.saxon.ce.value;
 
+import client.net.sf.saxon.ce.expr.Calculator;
+import client.net.sf.saxon.ce.om.StandardNames;
 import client.net.sf.saxon.ce.trans.Err;
 import client.net.sf.saxon.ce.trans.XPathException;
+import client.net.sf.saxon.ce.tree.util.FastStringBuffer;
 import client.net.sf.saxon.ce.type.BuiltInAtomicType;
 import client.net.sf.saxon.ce.type.ConversionResult;
 import client.net.sf.saxon.ce.type.ValidationFailure;
 
-import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 /**
  * This class represents the XPath built-in type xs:integer. It is used for all
  * subtypes of xs:integer, other than user-defined subtypes. Unlike other Saxon editions,
- * IntegerValue is implemented as a subclass of DecimalValue. This is because there is
- * no point in the optimisation whereby small integers are mapped to long, since GWT
- * emulates long using two doubles.
+ * IntegerValue is implemented as a subclass of DecimalValue, and there is no separate
+ * subclass for small integers. Instead the class has a dual representation: values
+ * within the range of a Java int are held as an int, and larger values are held as a
+ * BigDecimal. The threshold is int rather than long because GWT emulates long using two
+ * doubles, whereas int arithmetic maps directly onto JavaScript numbers. Arithmetic on
+ * two int-valued integers is done on primitives, with promotion to BigDecimal on overflow.
  */
 
 public class IntegerValue extends DecimalValue {
 
+    /**
+     * The value, if it is within the range of an int. Not used if bigValue is non-null.
+     */
+    private int smallValue;
+
+    /**
+     * The value, if it is outside the range of an int; otherwise null
+     */
+    private BigDecimal bigValue;
+
     /**
      * IntegerValue representing the value -1
      */
@@ -64,21 +80,39 @@ public class IntegerValue extends DecimalValue {
     };
 
     public IntegerValue(int value) {
-        super(value);
+        super();
+        smallValue = value;
         typeLabel = BuiltInAtomicType.INTEGER;
     }
 
     public IntegerValue(BigDecimal value) {
-        super(value);
-        if (value.scale()!=0 && value.compareTo(value.setScale(0, BigDecimal.ROUND_DOWN)) != 0) {
-            throw new IllegalArgumentException("non-integral");
+        super();
+        if (value.scale()!=0) {
+            if (value.compareTo(value.setScale(0, RoundingMode.DOWN)) != 0) {
+                throw new IllegalArgumentException("non-integral");
+            }
+            value = value.setScale(0, RoundingMode.DOWN);
+        }
+        if (value.compareTo(BIG_DECIMAL_MIN_INT) >= 0 && value.compareTo(BIG_DECIMAL_MAX_INT) <= 0) {
+            smallValue = value.intValue();
+        } else {
+            bigValue = value;
         }
         typeLabel = BuiltInAtomicType.INTEGER;
     }
     
     public static ConversionResult decimalToInteger(BigDecimal value) {
-    	int setScaleValue = value.setScale(0, BigDecimal.ROUND_DOWN).intValue();
-    	return new IntegerValue(setScaleValue);
+        return new IntegerValue(value.setScale(0, RoundingMode.DOWN));
+    }
+
+    /**
+     * Test whether the value is held internally as an int, which is the case
+     * for all values in the range of a Java int.
+     * @return true if the value is within the range of a Java int
+     */
+
+    public boolean fitsInInt() {
+        return bigValue == null;
     }
 
     /**
@@ -87,7 +121,24 @@ public class IntegerValue extends DecimalValue {
      */
 
     public int getIntValue() {
-        return getDecimalValue().intValue();
+        return (bigValue == null ? smallValue : bigValue.intValue());
+    }
+
+    /**
+     * Get the value
+     */
+
+    public BigDecimal getDecimalValue() {
+        return (bigValue == null ? BigDecimal.valueOf(smallValue) : bigValue);
+    }
+
+    /**
+     * Get the numeric value as a double
+     * @return A double representing this numeric value
+     */
+
+    public double getDoubleValue() {
+        return (bigValue == null ? (double)smallValue : bigValue.doubleValue());
     }
 
     /**
@@ -134,7 +185,13 @@ public class IntegerValue extends DecimalValue {
                     return numericError("Cannot convert string " + Err.wrap(s, Err.VALUE) + " to an integer");
                 }
             }
-            return new IntegerValue(new BigDecimal(negative ? -value : value));
+            if (negative) {
+                value = -value;
+            }
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return makeIntegerValue((int)value);
+            }
+            return new IntegerValue(new BigDecimal(value));
         } else {
             // for longer numbers, rely on library routines
             try {
@@ -183,25 +240,158 @@ public class IntegerValue extends DecimalValue {
     }
 
     /**
-     * Take modulo another integer
+     * Convert to target data type
+     */
+
+    public ConversionResult convertPrimitive(BuiltInAtomicType requiredType, boolean validate) {
+        if (bigValue == null) {
+            switch(requiredType.getFingerprint()) {
+            case StandardNames.XS_BOOLEAN:
+                return BooleanValue.get(smallValue != 0);
+            case StandardNames.XS_INTEGER:
+                return this;
+            case StandardNames.XS_DOUBLE:
+                return new DoubleValue((double)smallValue);
+            default:
+                return super.convertPrimitive(requiredType, validate);
+            }
+        }
+        return super.convertPrimitive(requiredType, validate);
+    }
+
+    /**
+    * Get the value as a String
+    * @return a String representation of the value
+    */
+
+    public CharSequence getPrimitiveStringValue() {
+        if (bigValue == null) {
+            return Integer.toString(smallValue);
+        }
+        return decimalToString(bigValue, new FastStringBuffer(FastStringBuffer.TINY));
+    }
+
+    /**
+     * Get the hashCode. This must conform to the rules for other NumericValue hashcodes
+     * @see NumericValue#hashCode
+     */
+
+    public int hashCode() {
+        if (bigValue == null && smallValue != Integer.MIN_VALUE && smallValue != Integer.MAX_VALUE) {
+            return smallValue;
+        }
+        return Double.valueOf(getDoubleValue()).hashCode();
+    }
+
+    public boolean effectiveBooleanValue() {
+        return (bigValue == null ? smallValue != 0 : bigValue.signum() != 0);
+    }
+
+    /**
+     * Add another integer
      * @param other the other integer
-     * @return the result of the modulo operation (the remainder)
+     * @return the result of the addition
+     */
+
+    public IntegerValue plus(IntegerValue other) {
+        if (bigValue == null && other.bigValue == null) {
+            // the sum of two ints is always exact as a double
+            double d = (double)smallValue + (double)other.smallValue;
+            if (d >= Integer.MIN_VALUE && d <= Integer.MAX_VALUE) {
+                return makeIntegerValue((int)d);
+            }
+        }
+        return new IntegerValue(getDecimalValue().add(other.getDecimalValue()));
+    }
+
+    /**
+     * Subtract another integer
+     * @param other the other integer
+     * @return the result of the subtraction
+     */
+
+    public IntegerValue minus(IntegerValue other) {
+        if (bigValue == null && other.bigValue == null) {
+            double d = (double)smallValue - (double)other.smallValue;
+            if (d >= Integer.MIN_VALUE && d <= Integer.MAX_VALUE) {
+                return makeIntegerValue((int)d);
+            }
+        }
+        return new IntegerValue(getDecimalValue().subtract(other.getDecimalValue()));
+    }
+
+    /**
+     * Multiply by another integer
+     * @param other the other integer
+     * @return the result of the multiplication
+     */
+
+    public IntegerValue times(IntegerValue other) {
+        if (bigValue == null && other.bigValue == null) {
+            // the double product is exact whenever the true product is within int range, and
+            // rounding can never bring a product that is out of range back within range
+            double d = (double)smallValue * (double)other.smallValue;
+            if (d >= Integer.MIN_VALUE && d <= Integer.MAX_VALUE) {
+                return makeIntegerValue((int)d);
+            }
+        }
+        return new IntegerValue(getDecimalValue().multiply(other.getDecimalValue()));
+    }
+
+    /**
+     * Divide by another integer, producing a decimal result
+     * @param other the other integer
+     * @return the result of the division
+     * @throws XPathException if the other integer is zero
+     */
+
+    public DecimalValue div(IntegerValue other) throws XPathException {
+        if (bigValue == null && other.bigValue == null && other.smallValue != 0 &&
+                smallValue % other.smallValue == 0) {
+            // exact division: the quotient is exact as a double
+            return new DecimalValue((long)((double)smallValue / (double)other.smallValue));
+        }
+        return Calculator.decimalDivide(this, other);
+    }
+
+    /**
+     * Integer division by another integer
+     * @param other the other integer
+     * @return the result of the division, truncated towards zero
      * @throws XPathException if the other integer is zero
      */
 
+    public IntegerValue idiv(IntegerValue other) throws XPathException {
+        if (other.signum() == 0) {
+            throw new XPathException("Integer division by zero", "FOAR0001");
+        }
+        if (bigValue == null && other.bigValue == null &&
+                !(smallValue == Integer.MIN_VALUE && other.smallValue == -1)) {
+            return makeIntegerValue(smallValue / other.smallValue);
+        }
+        return new IntegerValue(getDecimalValue().divideToIntegralValue(other.getDecimalValue()));
+    }
+
     /**
      * Take modulo another integer
-     *
-     * @throws client.net.sf.saxon.ce.trans.XPathException
-     *          if the other integer is zero
+     * @param other the other integer
+     * @return the result of the modulo operation (the remainder)
+     * @throws XPathException if the other integer is zero
      */
 
     public IntegerValue mod(IntegerValue other) throws XPathException {
+        if (bigValue == null && other.bigValue == null) {
+            if (other.smallValue == 0) {
+                throw new XPathException("Integer modulo zero", "FOAR0001");
+            }
+            // Java remainder takes the sign of the dividend, as XPath requires
+            return makeIntegerValue(smallValue % other.smallValue);
+        }
         try {
             return new IntegerValue(getDecimalValue().remainder(other.getDecimalValue()));
         } catch (ArithmeticException err) {
             XPathException e;
-            if (BigInteger.valueOf(other.intValue()).signum() == 0) {
+            if (other.signum() == 0) {
                 e = new XPathException("Integer modulo zero", "FOAR0001");
             } else {
                 e = new XPathException("Integer mod operation failure", err);
@@ -212,11 +402,10 @@ public class IntegerValue extends DecimalValue {
 
     @Override
     public int intValue() throws XPathException {
-        if (getDecimalValue().compareTo(BIG_DECIMAL_MIN_INT) < 0 ||
-               getDecimalValue().compareTo(BIG_DECIMAL_MAX_INT) > 0 ) {
+        if (bigValue != null) {
             throw new XPathException("int out of range");
         } else {
-            return getDecimalValue().intValue();
+            return smallValue;
         }
     }
 
@@ -227,7 +416,7 @@ public class IntegerValue extends DecimalValue {
      */
 
     public NumericValue abs() {
-        if (getDecimalValue().signum() > 0) {
+        if (signum() > 0) {
             return this;
         } else {
             return negate();
@@ -239,6 +428,9 @@ public class IntegerValue extends DecimalValue {
     */
 
     public NumericValue negate() {
+        if (bigValue == null && smallValue != Integer.MIN_VALUE) {
+            return makeIntegerValue(-smallValue);
+        }
         return new IntegerValue(getDecimalValue().negate());
     }
 
@@ -258,6 +450,58 @@ public class IntegerValue extends DecimalValue {
         return this;
     }
 
+    /**
+    * Implement the XPath round() function
+    */
+
+    public NumericValue round() {
+        return this;
+    }
+
+    /**
+    * Implement the XPath round-half-to-even() function
+    */
+
+    public NumericValue roundHalfToEven(int scale) {
+        if (scale >= 0) {
+            return this;
+        }
+        return new IntegerValue(getDecimalValue().setScale(scale, RoundingMode.HALF_EVEN));
+    }
+
+    /**
+     * Determine whether the value is negative, zero, or positive
+     * @return -1 if negative, 0 if zero, +1 if positive
+     */
+
+    public double signum() {
+        return (bigValue == null ? signum(smallValue) : bigValue.signum());
+    }
+
+    /**
+    * Compare the value to another numeric value
+    */
+
+    public int compareTo(Object other) {
+        if (bigValue == null && other instanceof IntegerValue && ((IntegerValue)other).bigValue == null) {
+            int b = ((IntegerValue)other).smallValue;
+            return (smallValue < b ? -1 : (smallValue == b ? 0 : +1));
+        }
+        return super.compareTo(other);
+    }
+
+    /**
+     * Compare the value to a long
+     * @param other the value to be compared with
+     * @return -1 if this is less, 0 if this is equal, +1 if this is greater
+     */
+
+    public int compareTo(long other) {
+        if (bigValue == null) {
+            return (smallValue < other ? -1 : (smallValue == other ? 0 : +1));
+        }
+        return bigValue.compareTo(BigDecimal.valueOf(other));
+    }
 
     /**
      * Get the signum of an int
@@ -2,6 +2,9 @@ package client.net.sf.saxon.ce.value;
 
 import client.net.sf.saxon.ce.expr.XPathContext;
 import client.net.sf.saxon.ce.lib.StringCollator;
+import client.net.sf.saxon.ce.regex.BMPString;
+import client.net.sf.saxon.ce.regex.GeneralUnicodeString;
+import client.net.sf.saxon.ce.regex.UnicodeString;
 import client.net.sf.saxon.ce.om.StandardNames;
 import client.net.sf.saxon.ce.trans.Err;
 import client.net.sf.saxon.ce.trans.XPathException;
@@ -27,6 +30,7 @@ public class StringValue extends AtomicValue {
 
     protected CharSequence value;     // may be zero-length, will never be null
     protected boolean noSurrogates = false;
+    private UnicodeString codepoints;   // the value indexed by codepoints, created on demand
 
     /**
      * Protected constructor for use by subtypes
@@ -213,6 +217,8 @@ public class StringValue extends AtomicValue {
     public int getStringLength() {
         if (noSurrogates) {
             return value.length();
+        } else if (codepoints != null) {
+            return codepoints.length();
         } else {
             int len = getStringLength(value);
             if (len == value.length()) {
@@ -277,6 +283,36 @@ public class StringValue extends AtomicValue {
         return expand(value);
     }
 
+    /**
+     * Get the value of this string as a UnicodeString, in which characters can be accessed by their
+     * position counting codepoints rather than 16-bit characters. The characters are not copied; the
+     * UnicodeString is created on first use and retained.
+     * @return the value of the string as a UnicodeString
+     */
+
+    public UnicodeString getUnicodeString() {
+        if (codepoints == null) {
+            if (noSurrogates || !GeneralUnicodeString.containsSurrogatePairs(value)) {
+                noSurrogates = true;
+                codepoints = new BMPString(value);
+            } else {
+                codepoints = new GeneralUnicodeString(value);
+            }
+        }
+        return codepoints;
+    }
+
+    /**
+     * Ask whether the value can be accessed by codepoint position without first examining all its
+     * characters: that is, whether the UnicodeString returned by {@link #getUnicodeString} already
+     * exists, or the value is known to contain no surrogate pairs
+     * @return true if {@link #getUnicodeString} can be called without scanning the whole value
+     */
+
+    public boolean isUnicodeStringAvailable() {
+        return codepoints != null || noSurrogates;
+    }
+
                          
     /**
      * Expand a string containing surrogate pairs into an array of 32-bit characters
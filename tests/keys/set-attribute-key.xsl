@@ -0,0 +1,58 @@
+<!-- Checks that key() over the host page reflects ixsl:set-attribute and ixsl:remove-attribute
+     in the next transformation, both for a key on elements (whose index entries are patched)
+     and for a key on attribute nodes (whose indexes are discarded and rebuilt).
+     Open set-attribute-key.html in a browser: the result paragraph shows PASS or FAIL. -->
+<xsl:transform xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+ xmlns:ixsl="http://saxonica.com/ns/interactiveXSLT"
+ xmlns:xs="http://www.w3.org/2001/XMLSchema" version="2.0"
+ exclude-result-prefixes="xs"
+ extension-element-prefixes="ixsl">
+
+ <xsl:key name="span-by-id" match="span" use="@data-id"/>
+ <xsl:key name="id-attribute" match="@data-id" use="."/>
+
+ <xsl:template name="main">
+  <!-- build both indexes before the page is updated -->
+  <xsl:choose>
+   <xsl:when test="empty(key('span-by-id', 'a', ixsl:page())) or empty(key('id-attribute', 'b', ixsl:page()))">
+    <xsl:call-template name="report">
+     <xsl:with-param name="failures" select="'indexes not built'"/>
+    </xsl:call-template>
+   </xsl:when>
+   <xsl:otherwise>
+    <xsl:for-each select="ixsl:page()//span[@data-id = 'a']">
+     <ixsl:set-attribute name="data-id" select="'c'"/>
+    </xsl:for-each>
+    <xsl:for-each select="ixsl:page()//span[@data-id = 'b']">
+     <ixsl:remove-attribute name="data-id"/>
+    </xsl:for-each>
+    <ixsl:schedule-action wait="1">
+     <xsl:call-template name="check"/>
+    </ixsl:schedule-action>
+   </xsl:otherwise>
+  </xsl:choose>
+ </xsl:template>
+
+ <xsl:template name="check">
+  <xsl:variable name="page" select="ixsl:page()"/>
+  <xsl:variable name="failures" as="xs:string*">
+   <xsl:if test="exists(key('span-by-id', 'a', $page))">span-by-id('a') still found</xsl:if>
+   <xsl:if test="not(key('span-by-id', 'c', $page) = 'A')">span-by-id('c') not found</xsl:if>
+   <xsl:if test="exists(key('span-by-id', 'b', $page))">span-by-id('b') still found</xsl:if>
+   <xsl:if test="exists(key('id-attribute', 'a', $page))">id-attribute('a') still found</xsl:if>
+   <xsl:if test="not(key('id-attribute', 'c', $page)/.. = 'A')">id-attribute('c') not found</xsl:if>
+   <xsl:if test="exists(key('id-attribute', 'b', $page))">id-attribute('b') still found</xsl:if>
+  </xsl:variable>
+  <xsl:call-template name="report">
+   <xsl:with-param name="failures" select="$failures"/>
+  </xsl:call-template>
+ </xsl:template>
+
+ <xsl:template name="report">
+  <xsl:param name="failures" as="xs:string*"/>
+  <xsl:result-document href="#result" method="ixsl:replace-content">
+   <xsl:value-of select="if (empty($failures)) then 'PASS' else concat('FAIL: ', string-join($failures, '; '))"/>
+  </xsl:result-document>
+ </xsl:template>
+
+</xsl:transform>
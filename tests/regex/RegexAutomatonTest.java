@@ -0,0 +1,227 @@
+import client.net.sf.saxon.ce.regex.GeneralUnicodeString;
+import client.net.sf.saxon.ce.regex.LazyDFA;
+import client.net.sf.saxon.ce.regex.REAutomaton;
+import client.net.sf.saxon.ce.regex.RECompiler;
+import client.net.sf.saxon.ce.regex.REFlags;
+import client.net.sf.saxon.ce.regex.REMatcher;
+import client.net.sf.saxon.ce.regex.REProgram;
+import client.net.sf.saxon.ce.regex.UnicodeString;
+
+import java.util.Random;
+
+/**
+ * Differential test of the non-backtracking regular expression matcher. Each pattern is compiled
+ * twice, once with an {@link REAutomaton} attached and once without, and the match and captured
+ * substrings found by the two programs are compared for every start position in each input string.
+ * Where the automaton supplies a {@link LazyDFA}, its answers to matches() and containsMatch() are
+ * compared with those of the backtracking matcher too.
+ *
+ * <p>The test runs on an ordinary JVM, with the GWT user library on the class path to satisfy the
+ * classes that the regex package refers to:</p>
+ *
+ * <pre>
+ * javac -encoding iso-8859-1 -cp gwt-user.jar -sourcepath src -d out tests/regex/RegexAutomatonTest.java
+ * java -cp out:gwt-user.jar RegexAutomatonTest [seed [count]]
+ * </pre>
+ *
+ * <p>The fixed cases are run first, followed by <code>count</code> random patterns generated from
+ * <code>seed</code>. The exit status is 1 if any difference is found.</p>
+ */
+
+public class RegexAutomatonTest {
+
+    // pattern, flags, input, start position, expected match: cases where the automaton used to differ
+    // from the backtracking matcher
+    private static final String[][] KNOWN = {
+            {"([ab]*?a??){1,2}b", "", "abbba", "0", "(0,2)"},
+            {"(?:[^a]?|a.*.{2}){0,2}", "s", "aa\naba", "2", "(2,3)"},
+            {"((.*?[ab]*)+)*", "s", "b\naab", "0", "(0,1)"},
+    };
+
+    // pattern, flags, input
+    private static final String[][] CASES = {
+            // repetitions whose body can match a zero-length string
+            {"([ab]*?a??){1,2}b", "", "abbba"},
+            {"(?:[^a]?|a.*.{2}){0,2}", "s", "aa\naba"},
+            {"((.*?[ab]*)+)*", "s", "b\naab"},
+            {"(a*)*", "", "aab"},
+            {"(a*)+b", "", "aab"},
+            {"(a?b?)*c", "", "abbac"},
+            {"(|a)*", "", "aa"},
+            // repetitions that always consume characters
+            {"(a|ab)(c|bcd)(d*)", "", "abcd"},
+            {"a+?b", "", "aaab"},
+            {"(a|b)*?b", "", "aabab"},
+            {"^(a+)$", "m", "aa\nb\naaa"},
+            {"(\\w+)\\s+(\\w+)", "", "hello big world"},
+            {"[a-c]{2,3}", "i", "xAbCaB"},
+            {"x{0,2}y", "", "xxxy"},
+    };
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        long seed = (args.length > 0 ? Long.parseLong(args[0]) : 1);
+        int count = (args.length > 1 ? Integer.parseInt(args[1]) : 20000);
+        for (String[] k : KNOWN) {
+            // compiled as ARegularExpression does, with an automaton if one can be made
+            REProgram program = compile(k[0], k[1]);
+            program.setAutomaton(REAutomaton.make(program));
+            REMatcher matcher = new REMatcher(program);
+            String actual = (matcher.match(GeneralUnicodeString.makeUnicodeString(k[2]), Integer.parseInt(k[3])) ?
+                    "(" + matcher.getParenStart(0) + "," + matcher.getParenEnd(0) + ")" : "-");
+            check(k[0], k[1], k[2], "match from " + k[3], k[4], actual);
+        }
+        for (String[] c : CASES) {
+            compare(c[0], c[1], new String[]{c[2]});
+        }
+        Random random = new Random(seed);
+        String[] flagSets = {"", "i", "m", "s", "ms"};
+        for (int t=0; t<count; t++) {
+            String pattern = regex(random, 0);
+            String flags = flagSets[random.nextInt(flagSets.length)];
+            String[] inputs = new String[4];
+            for (int j=0; j<inputs.length; j++) {
+                inputs[j] = input(random);
+            }
+            compare(pattern, flags, inputs);
+        }
+        System.out.println(failures == 0 ? "OK" : failures + " difference(s)");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static void compare(String pattern, String flags, String[] inputs) throws Exception {
+        REProgram backtracking;
+        REProgram automatic;
+        try {
+            backtracking = compile(pattern, flags);
+            automatic = compile(pattern, flags);
+        } catch (Exception e) {
+            // invalid patterns are generated occasionally
+            return;
+        }
+        if (automatic.hasBackReferences()) {
+            return;
+        }
+        REAutomaton automaton = REAutomaton.make(automatic);
+        if (automaton == null) {
+            return;
+        }
+        automatic.setAutomaton(automaton);
+        LazyDFA dfa = automaton.getDFA();
+        for (String in : inputs) {
+            UnicodeString us = GeneralUnicodeString.makeUnicodeString(in);
+            for (int i=0; i<=in.length(); i++) {
+                String expected = result(new REMatcher(backtracking), us, i);
+                String actual = result(new REMatcher(automatic), us, i);
+                check(pattern, flags, in, "match from " + i, expected, actual);
+            }
+            REMatcher m1 = new REMatcher(backtracking);
+            REMatcher m2 = new REMatcher(automatic);
+            String expected = (m1.anchoredMatch(us) ? groups(m1) : "-");
+            String actual = (m2.anchoredMatch(us) ? groups(m2) : "-");
+            check(pattern, flags, in, "anchored match", expected, actual);
+            if (dfa != null && in.length() > 0) {
+                check(pattern, flags, in, "matches",
+                        String.valueOf(new REMatcher(backtracking).anchoredMatch(us)), String.valueOf(dfa.matches(us)));
+                check(pattern, flags, in, "containsMatch",
+                        String.valueOf(new REMatcher(backtracking).match(us, 0)), String.valueOf(dfa.containsMatch(us)));
+            }
+        }
+    }
+
+    private static REProgram compile(String pattern, String flags) throws Exception {
+        RECompiler compiler = new RECompiler();
+        compiler.setFlags(new REFlags(flags, "XP30"));
+        return compiler.compile(GeneralUnicodeString.makeUnicodeString(pattern));
+    }
+
+    private static String result(REMatcher matcher, UnicodeString input, int from) {
+        return (matcher.match(input, from) ? groups(matcher) : "-");
+    }
+
+    private static String groups(REMatcher matcher) {
+        StringBuilder sb = new StringBuilder();
+        for (int g=0; g<matcher.getParenCount(); g++) {
+            sb.append('(').append(matcher.getParenStart(g)).append(',').append(matcher.getParenEnd(g)).append(')');
+        }
+        return sb.toString();
+    }
+
+    private static void check(String pattern, String flags, String input, String test,
+                              String expected, String actual) {
+        if (!expected.equals(actual)) {
+            failures++;
+            System.out.println("/" + escape(pattern) + "/" + flags + " on \"" + escape(input) + "\", " + test +
+                    ": expected " + expected + ", automaton gave " + actual);
+        }
+    }
+
+    private static String escape(String s) {
+        return s.replace("\n", "\\n");
+    }
+
+    // Generation of random patterns and inputs over a small alphabet
+
+    private static String regex(Random r, int depth) {
+        StringBuilder sb = new StringBuilder(branch(r, depth));
+        while (r.nextInt(4) == 0) {
+            sb.append('|').append(branch(r, depth));
+        }
+        return sb.toString();
+    }
+
+    private static String branch(Random r, int depth) {
+        StringBuilder sb = new StringBuilder();
+        int n = r.nextInt(4);
+        for (int i=0; i<n; i++) {
+            String atom = atom(r, depth);
+            sb.append(atom);
+            if (!atom.equals("^") && !atom.equals("$")) {
+                sb.append(quantifier(r));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String atom(Random r, int depth) {
+        switch (r.nextInt(depth > 2 ? 6 : 11)) {
+            case 0:
+            case 1:
+                return "a";
+            case 2:
+                return "b";
+            case 3:
+                return ".";
+            case 4:
+                return "[ab]";
+            case 5:
+                return "[^a]";
+            case 6:
+            case 7:
+                return "(" + regex(r, depth + 1) + ")";
+            case 8:
+                return "(?:" + regex(r, depth + 1) + ")";
+            case 9:
+                return "^";
+            default:
+                return "$";
+        }
+    }
+
+    private static String quantifier(Random r) {
+        String[] quantifiers = {"*", "+", "?", "*?", "+?", "??", "{1,2}", "{2}", "{0,2}"};
+        int k = r.nextInt(16);
+        return (k < quantifiers.length ? quantifiers[k] : "");
+    }
+
+    private static String input(Random r) {
+        StringBuilder sb = new StringBuilder();
+        int n = r.nextInt(7);
+        for (int i=0; i<n; i++) {
+            int k = r.nextInt(7);
+            sb.append(k < 3 ? 'a' : k < 6 ? 'b' : '\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,142 @@
+import client.net.sf.saxon.ce.Configuration;
+import client.net.sf.saxon.ce.om.DocumentInfo;
+import client.net.sf.saxon.ce.trans.XPathException;
+import com.google.gwt.core.shared.GWT;
+import com.google.gwt.core.shared.GWTBridge;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Test of the well-formedness checking done by {@link client.net.sf.saxon.ce.event.XMLStreamParser}.
+ * Each well-formed document is parsed with the tree model of a default configuration and the string
+ * value of the document node is compared with the expected value; each malformed document must be
+ * rejected with an XPathException.
+ *
+ * <p>The test runs on an ordinary JVM. Besides the GWT user library, it needs the GWTBridge class from
+ * the GWT development library: constructing an XPathException consults the GWT logging configuration,
+ * which is created by GWT.create(), and outside the browser that call must be answered by a bridge.</p>
+ *
+ * <pre>
+ * javac -encoding iso-8859-1 -cp gwt-user.jar:gwt-dev.jar -sourcepath src -d out tests/xml/XMLStreamParserTest.java
+ * java -cp out:gwt-user.jar:gwt-dev.jar XMLStreamParserTest
+ * </pre>
+ *
+ * <p>The exit status is 1 if any document is not handled as expected.</p>
+ */
+
+public class XMLStreamParserTest {
+
+    // document, expected string value of the document node
+    private static final String[][] WELL_FORMED = {
+            {"<a/>", ""},
+            {"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- comment --><a b='1'>x</a><?pi data?>", "x"},
+            {"<a>&#65;&#x42;&#x0043;</a>", "ABC"},
+            {"<a>&lt;&gt;&amp;&apos;&quot;</a>", "<>&'\""},
+            {"<a><![CDATA[<&>]]></a>", "<&>"},
+            {"<!DOCTYPE a [<!ENTITY e \"x&#65;\">]><a>&e;&e;</a>", "xAxA"},
+            {"<a xmlns=\"urn:a\" xmlns:p=\"urn:p\"><p:b p:c=\"1\">y</p:b></a>", "y"},
+            {"<a xmlns:p=\"urn:p\"><b xmlns=\"\"/></a>", ""},
+            {"<a>one\r\ntwo\rthree</a>", "one\ntwo\nthree"},
+    };
+
+    private static final String[] MALFORMED = {
+            // character references
+            "<a>&#+65;</a>",
+            "<a>&#-65;</a>",
+            "<a>&#x+41;</a>",
+            "<a>&#x-41;</a>",
+            "<a>&#65a;</a>",
+            "<a>&#xG;</a>",
+            "<a>&#;</a>",
+            "<a>&#0;</a>",
+            "<a>&#x110000;</a>",
+            "<a>&#99999999999;</a>",
+            "<a b=\"&#+65;\"/>",
+            // namespace declarations
+            "<a xmlns:=\"urn:x\"/>",
+            "<a xmlns:p=\"\"/>",
+            "<a xmlns:xmlns=\"urn:x\"/>",
+            "<a xmlns:xml=\"urn:x\"/>",
+            "<a xmlns:p=\"urn:p\" xmlns:p=\"urn:q\"/>",
+            "<p:a/>",
+            "<a xmlns:p=\"urn:p\" xmlns:q=\"urn:p\" p:b=\"1\" q:b=\"2\"/>",
+            // structure
+            "",
+            "<a>",
+            "<a></b>",
+            "<a/><b/>",
+            "<a b=\"1\" b=\"2\"/>",
+            "<a b=\"1\"c=\"2\"/>",
+            "<a>&undeclared;</a>",
+            "<a>]]></a>",
+    };
+
+    private static int failures = 0;
+
+    public static void main(String[] args) {
+        GWT.setBridge(new DirectBridge());
+        Configuration config = new Configuration();
+        for (String[] w : WELL_FORMED) {
+            try {
+                DocumentInfo doc = config.parseDocument(w[0], "test.xml");
+                String actual = doc.getStringValue();
+                if (!actual.equals(w[1])) {
+                    fail(w[0], "expected string value \"" + escape(w[1]) + "\", got \"" + escape(actual) + "\"");
+                }
+            } catch (XPathException e) {
+                fail(w[0], "rejected: " + e.getMessage());
+            }
+        }
+        for (String m : MALFORMED) {
+            try {
+                config.parseDocument(m, "test.xml");
+                fail(m, "accepted");
+            } catch (XPathException e) {
+                // expected
+            }
+        }
+        System.out.println(failures == 0 ? "OK" : failures + " failure(s)");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static void fail(String document, String message) {
+        failures++;
+        System.out.println("\"" + escape(document) + "\": " + message);
+    }
+
+    private static String escape(String s) {
+        return s.replace("\r", "\\r").replace("\n", "\\n");
+    }
+
+    /**
+     * A bridge that answers GWT.create() by instantiating the requested class itself, which is
+     * enough for the logging configuration (logging is then disabled)
+     */
+
+    private static class DirectBridge extends GWTBridge {
+
+        public <T> T create(Class<?> classLiteral) {
+            try {
+                Constructor<?> c = classLiteral.getDeclaredConstructor();
+                c.setAccessible(true);
+                @SuppressWarnings("unchecked")
+                T instance = (T)c.newInstance();
+                return instance;
+            } catch (Exception e) {
+                throw new RuntimeException("Cannot create " + classLiteral.getName(), e);
+            }
+        }
+
+        public String getVersion() {
+            return "test";
+        }
+
+        public boolean isClient() {
+            return false;
+        }
+
+        public void log(String message, Throwable e) {
+            System.err.println(message);
+        }
+    }
+}